@@ -0,0 +1,28 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the benchmarks jar. Runs JMH with the allocation profiler ({@code -prof gc}) enabled, so that every
+ * run reports the bytes allocated per operation alongside the time, unless the command line names its own profilers.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-prof")) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String[] withGc = Arrays.copyOf(args, args.length + 2);
+        withGc[args.length] = "-prof";
+        withGc[args.length + 1] = "gc";
+        org.openjdk.jmh.Main.main(withGc);
+    }
+
+}
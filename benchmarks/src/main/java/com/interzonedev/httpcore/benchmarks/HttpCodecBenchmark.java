@@ -0,0 +1,172 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.codec.HttpCodec;
+
+/**
+ * Compares {@link HttpCodec} with Java serialization for encoding and decoding a {@link Response} and its
+ * {@link Request}. Neither class is {@link Serializable}, so the Java serialization side uses a serializable snapshot
+ * of the same fields, which is how captured traffic would otherwise have to be persisted. Run with {@code -prof gc} to
+ * compare the allocation per message as well as the throughput.
+ *
+ * @author mark@interzonedev.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpCodecBenchmark {
+
+    @Param({"16", "4096"})
+    private int contentLength;
+
+    private Response response;
+    private Snapshot snapshot;
+    private ByteBuffer target;
+    private ByteBuffer encoded;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        Request.Builder request = Request.newBuilder().setUrl("https://api.example.com/v1/orders/12345?expand=items")
+                .setMethod(Method.GET);
+        for (Map.Entry<String, List<String>> header : HttpHeadersBenchmark.Headers.realistic(12).entrySet()) {
+            request.addHeader(header.getKey(), header.getValue().get(0));
+        }
+
+        byte[] content = new byte[contentLength];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+
+        response = Response.newBuilder().setRequest(request.build()).setStatus(200)
+                .setContentType("application/json").setContentLength(contentLength)
+                .addHeader("Content-Type", "application/json").addHeader("Cache-Control", "max-age=60")
+                .addHeader("ETag", "\"33a64df551425fcc55e4d42a148795d9f25f89d4\"")
+                .addHeader("Date", "Wed, 21 Oct 2015 07:28:00 GMT").setEntity(Body.wrap(content)).build();
+
+        snapshot = Snapshot.of(response);
+        target = ByteBuffer.allocate(2 * contentLength + 4096);
+        encoded = HttpCodec.encode(response);
+        serialized = serialize(snapshot);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeHttpCodec() {
+        return HttpCodec.encode(response);
+    }
+
+    @Benchmark
+    public int encodeHttpCodecIntoBuffer() {
+        target.clear();
+        return HttpCodec.encode(response, target);
+    }
+
+    @Benchmark
+    public byte[] encodeJavaSerialization() throws IOException {
+        return serialize(Snapshot.of(response));
+    }
+
+    @Benchmark
+    public Response decodeHttpCodec() {
+        return HttpCodec.decodeResponse(encoded.duplicate());
+    }
+
+    @Benchmark
+    public Object decodeJavaSerialization() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return ((Snapshot) in.readObject()).toResponse();
+        }
+    }
+
+    private static byte[] serialize(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(snapshot);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Serializable copy of the fields of a {@link Response} and its {@link Request}.
+     */
+    static final class Snapshot implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String url;
+        private String method;
+        private LinkedHashMap<String, ArrayList<String>> requestHeaders;
+        private byte[] requestBody;
+        private int status;
+        private String contentType;
+        private long contentLength;
+        private LinkedHashMap<String, ArrayList<String>> headers;
+        private byte[] content;
+
+        static Snapshot of(Response response) {
+            Snapshot snapshot = new Snapshot();
+            Request request = response.getRequest();
+            snapshot.url = request.getUrl();
+            snapshot.method = request.getMethod().name();
+            snapshot.requestHeaders = copy(request.getHeaders());
+            snapshot.requestBody = (null != request.getEntity()) ? request.getEntity().toByteArray() : null;
+            snapshot.status = response.getStatus();
+            snapshot.contentType = response.getContentType();
+            snapshot.contentLength = response.getContentLength();
+            snapshot.headers = copy(response.getHeaders());
+            snapshot.content = response.getEntity().toByteArray();
+            return snapshot;
+        }
+
+        Response toResponse() {
+            Request.Builder request = Request.newBuilder().setUrl(url).setMethod(Method.valueOf(method))
+                    .setHeaders(new LinkedHashMap<>(requestHeaders));
+            if (null != requestBody) {
+                request.setEntity(Body.wrap(requestBody));
+            }
+            return Response.newBuilder().setRequest(request.build()).setStatus(status).setContentType(contentType)
+                    .setContentLength(contentLength).setHeaders(new LinkedHashMap<>(headers))
+                    .setEntity(Body.wrap(content)).build();
+        }
+
+        private static LinkedHashMap<String, ArrayList<String>> copy(Map<String, List<String>> source) {
+            LinkedHashMap<String, ArrayList<String>> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : source.entrySet()) {
+                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+            return copy;
+        }
+    }
+
+}
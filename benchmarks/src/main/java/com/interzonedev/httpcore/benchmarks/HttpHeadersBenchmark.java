@@ -0,0 +1,115 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Compares {@link HttpHeaders} with the {@code ImmutableMap<String, List<String>>} it replaced, for construction and
+ * for the case-insensitive lookups callers had to do by scanning the map. Run with {@code -prof gc} to compare the
+ * allocation per construction.
+ * 
+ * @author mark@interzonedev.com
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpHeadersBenchmark {
+
+    @Param({"8", "32"})
+    private int headerCount;
+
+    private Map<String, List<String>> source;
+    private Map<String, List<String>> immutableMap;
+    private HttpHeaders httpHeaders;
+    private String lookupName;
+
+    @Setup
+    public void setUp() {
+        source = Headers.realistic(headerCount);
+        immutableMap = ImmutableMap.copyOf(source);
+        httpHeaders = HttpHeaders.copyOf(source);
+
+        List<String> names = new ArrayList<>(source.keySet());
+        lookupName = names.get(names.size() - 1).toLowerCase();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> copyImmutableMap() {
+        Map<String, List<String>> copy = new LinkedHashMap<>(source.size());
+        for (Map.Entry<String, List<String>> header : source.entrySet()) {
+            copy.put(header.getKey(), new ArrayList<>(header.getValue()));
+        }
+        return ImmutableMap.copyOf(copy);
+    }
+
+    @Benchmark
+    public HttpHeaders copyHttpHeaders() {
+        return HttpHeaders.copyOf(source);
+    }
+
+    @Benchmark
+    public String lookupImmutableMap() {
+        for (Map.Entry<String, List<String>> header : immutableMap.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(lookupName)) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String lookupImmutableMapNormalized() {
+        List<String> values = immutableMap.get(lookupName.toLowerCase());
+        return (null != values) ? values.get(0) : null;
+    }
+
+    @Benchmark
+    public String lookupHttpHeaders() {
+        return httpHeaders.getFirst(lookupName);
+    }
+
+    /**
+     * Builds realistic header maps for the benchmarks.
+     */
+    static final class Headers {
+
+        private static final String[] COMMON_NAMES = {"Accept", "Accept-Encoding", "Accept-Language",
+                "Cache-Control", "Connection", "Content-Type", "Content-Length", "Cookie", "Date", "Host",
+                "User-Agent", "X-Forwarded-For", "X-Forwarded-Proto", "X-Request-Id", "Authorization", "Referer"};
+
+        private Headers() {
+        }
+
+        static Map<String, List<String>> realistic(int count) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = (i < COMMON_NAMES.length) ? COMMON_NAMES[i] : "X-Custom-Header-" + i;
+                headers.put(name, Arrays.asList("value-" + i + "-" + Integer.toHexString(name.hashCode())));
+            }
+            return headers;
+        }
+    }
+
+}
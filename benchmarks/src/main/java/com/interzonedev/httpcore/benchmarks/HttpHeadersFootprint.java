@@ -0,0 +1,39 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import com.google.common.collect.ImmutableMap;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Prints the retained size of {@link HttpHeaders} and of the {@code ImmutableMap<String, List<String>>} it replaced,
+ * excluding the name and value strings that both share. Run with
+ * {@code java -cp target/benchmarks.jar com.interzonedev.httpcore.benchmarks.HttpHeadersFootprint}.
+ * 
+ * @author mark@interzonedev.com
+ */
+public final class HttpHeadersFootprint {
+
+    private HttpHeadersFootprint() {
+    }
+
+    public static void main(String[] args) {
+        for (int headerCount : new int[]{8, 32}) {
+            Map<String, List<String>> source = HttpHeadersBenchmark.Headers.realistic(headerCount);
+            GraphLayout strings = GraphLayout.parseInstance(source.keySet().toArray(),
+                    source.values().stream().flatMap(List::stream).toArray());
+
+            long immutableMapSize = GraphLayout.parseInstance(ImmutableMap.copyOf(source)).subtract(strings)
+                    .totalSize();
+            long httpHeadersSize = GraphLayout.parseInstance(HttpHeaders.copyOf(source)).subtract(strings)
+                    .totalSize();
+
+            System.out.printf("%d headers: ImmutableMap %d bytes, HttpHeaders %d bytes%n", headerCount,
+                    immutableMapSize, httpHeadersSize);
+        }
+    }
+
+}
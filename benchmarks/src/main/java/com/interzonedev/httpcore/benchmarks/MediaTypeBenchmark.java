@@ -0,0 +1,85 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.interzonedev.httpcore.MediaType;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Compares parsing a Content-Type with {@link MediaType#parse(String)} when the value is interned with parsing it
+ * afresh, directly and through {@link Request#getMediaType()}. The uncached benchmarks cycle through
+ * {@link #DISTINCT_VALUES} values that differ only in one parameter, far more than the cache holds, so that each call
+ * misses and pays for the full parse and charset lookup as every call did before the cache.
+ *
+ * @author mark@interzonedev.com
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MediaTypeBenchmark {
+
+    static final int DISTINCT_VALUES = 4096;
+
+    @Param({"application/json", "application/json; charset=utf-8",
+            "multipart/form-data; boundary=----WebKitFormBoundary7MA4YWxkTrZu0gW"})
+    private String contentType;
+
+    private String[] uncachedValues;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        uncachedValues = new String[DISTINCT_VALUES];
+        for (int i = 0; i < uncachedValues.length; i++) {
+            uncachedValues[i] = contentType + "; v=" + i;
+        }
+    }
+
+    private String nextUncachedValue() {
+        String value = uncachedValues[next];
+        next = (next + 1) & (DISTINCT_VALUES - 1);
+        return value;
+    }
+
+    private static Request build(String contentType) {
+        return Request.newBuilder().setUrl("https://api.example.com/v1/orders").setMethod(Method.POST)
+                .setHeader("Content-Type", contentType).build();
+    }
+
+    @Benchmark
+    public MediaType parseUncached() {
+        return MediaType.parse(nextUncachedValue());
+    }
+
+    @Benchmark
+    public MediaType parseInterned() {
+        return MediaType.parse(contentType);
+    }
+
+    @Benchmark
+    public MediaType requestMediaTypeUncached() {
+        return build(nextUncachedValue()).getMediaType();
+    }
+
+    @Benchmark
+    public MediaType requestMediaTypeInterned() {
+        return build(contentType).getMediaType();
+    }
+
+}
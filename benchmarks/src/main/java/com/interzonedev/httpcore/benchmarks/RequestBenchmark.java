@@ -0,0 +1,135 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Measures the hot-path operations of {@link Request}: deriving from a template, building from a header map, hashing,
+ * comparing and rendering, across realistic header counts and body sizes. The hash of a {@link Request} is cached, as
+ * are those of its headers, parameters and body, so {@link #hashCodeFresh(FreshRequest)} hashes a request whose parts
+ * are all new, built before each invocation, to measure the whole computation. Only the hashes of the strings
+ * themselves stay cached.
+ *
+ * @author mark@interzonedev.com
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+
+    @Param({"8", "32"})
+    private int headerCount;
+
+    @Param({"0", "1024", "65536"})
+    private int bodySize;
+
+    private Map<String, List<String>> headers;
+    private Request template;
+    private Request equal;
+    private Request different;
+
+    @Setup
+    public void setUp() {
+        headers = HttpHeadersBenchmark.Headers.realistic(headerCount);
+        template = build(headers, body(bodySize, 'a'));
+        equal = build(HttpHeadersBenchmark.Headers.realistic(headerCount), body(bodySize, 'a'));
+        different = build(HttpHeadersBenchmark.Headers.realistic(headerCount), body(bodySize, 'b'));
+    }
+
+    private static Request build(Map<String, List<String>> headers, Body body) {
+        return Request.newBuilder().setUrl("https://api.example.com/v1/orders/12345?expand=items")
+                .setMethod(Method.POST).setHeaders(headers).addParameter("expand", "items").setEntity(body).build();
+    }
+
+    static Body body(int size, char first) {
+        if (0 == size) {
+            return null;
+        }
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + (i % 26));
+        }
+        bytes[0] = (byte) first;
+        // The last byte differs too, so that comparing bodies cannot stop early on the first byte alone.
+        bytes[bytes.length - 1] = (byte) first;
+        return Body.wrap(bytes);
+    }
+
+    @Benchmark
+    public Request newBuilderFromTemplate() {
+        return Request.newBuilder(template).setUrl("https://api.example.com/v1/orders/67890").build();
+    }
+
+    @Benchmark
+    public Request newBuilderWithHeaderEdit() {
+        return Request.newBuilder(template).setHeader("X-Request-Id", "0af7651916cd43dd8448eb211c80319c").build();
+    }
+
+    @Benchmark
+    public Request setHeaders() {
+        return Request.newBuilder().setUrl("https://api.example.com/v1/orders/12345").setMethod(Method.GET)
+                .setHeaders(headers).build();
+    }
+
+    @Benchmark
+    public int hashCodeCached() {
+        return template.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeFresh(FreshRequest fresh) {
+        return fresh.request.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return template.equals(equal);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentBody() {
+        return template.equals(different);
+    }
+
+    @Benchmark
+    public String toStringDeep() {
+        return template.toString();
+    }
+
+    /**
+     * A request equal to the template whose headers, parameters and body are new for each invocation, so that none of
+     * their hashes is cached yet.
+     */
+    @State(Scope.Thread)
+    public static class FreshRequest {
+
+        private Request request;
+
+        @Setup(Level.Invocation)
+        public void setUp(RequestBenchmark benchmark) {
+            request = build(benchmark.headers, body(benchmark.bodySize, 'a'));
+        }
+    }
+
+}
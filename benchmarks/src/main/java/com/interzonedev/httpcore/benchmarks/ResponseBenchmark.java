@@ -0,0 +1,110 @@
+package com.interzonedev.httpcore.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Measures the hot-path operations of {@link Response}: deriving from a template, building from a header map, hashing,
+ * comparing, rendering and decoding the content, across realistic header counts and content sizes.
+ *
+ * @author mark@interzonedev.com
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBenchmark {
+
+    @Param({"8", "32"})
+    private int headerCount;
+
+    @Param({"0", "1024", "65536"})
+    private int contentSize;
+
+    private Map<String, List<String>> headers;
+    private Response template;
+    private Response equal;
+    private Response different;
+
+    @Setup
+    public void setUp() {
+        headers = HttpHeadersBenchmark.Headers.realistic(headerCount);
+        template = build(headers, RequestBenchmark.body(contentSize, 'a'));
+        equal = build(HttpHeadersBenchmark.Headers.realistic(headerCount), RequestBenchmark.body(contentSize, 'a'));
+        different = build(HttpHeadersBenchmark.Headers.realistic(headerCount),
+                RequestBenchmark.body(contentSize, 'b'));
+    }
+
+    private static Response build(Map<String, List<String>> headers, Body content) {
+        return Response.newBuilder().setStatus(200).setContentType("application/json; charset=UTF-8")
+                .setContentLength(contentSize(content)).setHeaders(headers).setEntity(content).build();
+    }
+
+    private static long contentSize(Body content) {
+        return (null != content) ? content.length() : 0L;
+    }
+
+    @Benchmark
+    public Response newBuilderFromTemplate() {
+        return Response.newBuilder(template).setStatus(304).build();
+    }
+
+    @Benchmark
+    public Response newBuilderWithHeaderEdit() {
+        return Response.newBuilder(template).setHeader("Age", "12").build();
+    }
+
+    @Benchmark
+    public Response setHeaders() {
+        return Response.newBuilder().setStatus(200).setHeaders(headers).build();
+    }
+
+    @Benchmark
+    public int hashCodeCached() {
+        return template.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeFresh() {
+        return Response.newBuilder(template).build().hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return template.equals(equal);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentContent() {
+        return template.equals(different);
+    }
+
+    @Benchmark
+    public String toStringDeep() {
+        return template.toString();
+    }
+
+    @Benchmark
+    public String getContent() {
+        return template.getContent();
+    }
+
+}
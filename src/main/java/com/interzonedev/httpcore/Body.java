@@ -0,0 +1,768 @@
+package com.interzonedev.httpcore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable, byte oriented HTTP message body.
+ *
+ * <p>
+ * The bytes are the source of truth. Decoding to a {@link String} is lazy, and the text is cached for the charset it
+ * was last decoded with, so a body that is only ever proxied is never decoded and one that is read with the same
+ * charset is decoded once. A body created from a {@link String} keeps that {@link String} as its decoded form and only
+ * encodes to bytes when the bytes are first requested.
+ * </p>
+ *
+ * <p>
+ * Large payloads can be spooled with {@link #spool(InputStream, int)}, which keeps them in memory below a threshold
+ * and spills them to a memory-mapped temporary file above it. Every body is replayable: {@link #openStream()},
+ * {@link #openChannel()} and {@link #chunks()} may be called any number of times.
+ * </p>
+ *
+ * <p>
+ * A body can also be served straight from a file with {@link #ofFile(Path)}. Such a body, and any slice of it, is
+ * written to a channel with {@link java.nio.channels.FileChannel#transferTo}, so its bytes need not pass through the
+ * heap; the file is only mapped if its bytes are read some other way.
+ * </p>
+ *
+ * <p>
+ * Two bodies are equal if they hold the same bytes, regardless of how they were created or where the bytes live.
+ * Comparison walks the {@link #chunks()} of both bodies and never copies them. The hash code is computed once, and
+ * spooled bodies compute it while spooling, so hashing never reads a spilled file again. {@link #toString()} only
+ * describes the body and never includes its bytes.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public abstract class Body {
+
+    /**
+     * Charset used when decoding a body whose message does not declare one.
+     */
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private static final Body EMPTY = new BufferBody(ByteBuffer.allocate(0));
+
+    /**
+     * Caches the decoded form of this body along with the charset used to decode it.
+     */
+    private volatile Decoded decoded;
+
+    private int hash;
+
+    /**
+     * Only subclasses in this package may extend {@link Body}.
+     */
+    Body() {
+    }
+
+    /**
+     * Gets the empty {@link Body}.
+     *
+     * @return Returns a shared {@link Body} with no content.
+     */
+    public static Body empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Wraps the specified byte array without copying it. The caller must not modify the array afterwards.
+     *
+     * @param bytes The bytes of the body.
+     *
+     * @return Returns a {@link Body} backed directly by the specified byte array.
+     */
+    public static Body wrap(byte[] bytes) {
+        return new BufferBody(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Wraps the remaining bytes of the specified {@link ByteBuffer} without copying them. Heap and direct buffers are
+     * both supported. The position and limit of the specified buffer are not modified, and the caller must not
+     * modify its content afterwards.
+     *
+     * @param buffer The buffer whose remaining bytes make up the body.
+     *
+     * @return Returns a {@link Body} backed directly by the specified {@link ByteBuffer}.
+     */
+    public static Body wrap(ByteBuffer buffer) {
+        return new BufferBody(buffer.slice());
+    }
+
+    /**
+     * Copies the specified byte array into a new {@link Body}.
+     *
+     * @param bytes The bytes of the body.
+     *
+     * @return Returns a {@link Body} holding a private copy of the specified bytes.
+     */
+    public static Body copyOf(byte[] bytes) {
+        return wrap(bytes.clone());
+    }
+
+    /**
+     * Creates a {@link Body} from the specified text, encoded with {@link #DEFAULT_CHARSET}.
+     *
+     * @param text The text of the body.
+     *
+     * @return Returns a {@link Body} for the specified text.
+     */
+    public static Body of(String text) {
+        return of(text, DEFAULT_CHARSET);
+    }
+
+    /**
+     * Creates a {@link Body} from the specified text, encoded with the specified {@link Charset}. The text is retained
+     * and returned as is when the body is decoded with the same {@link Charset}.
+     *
+     * @param text The text of the body.
+     * @param charset The {@link Charset} used to encode the text.
+     *
+     * @return Returns a {@link Body} for the specified text.
+     */
+    public static Body of(String text, Charset charset) {
+        return new TextBody(text, charset);
+    }
+
+    /**
+     * Concatenates the specified bodies into one without copying their bytes. The chunks of the result are the chunks
+     * of the bodies in order, so it can be written with a gathering write.
+     *
+     * @param bodies The bodies to concatenate.
+     *
+     * @return Returns a {@link Body} holding the bytes of the specified bodies in order.
+     */
+    public static Body concat(List<Body> bodies) {
+        if (bodies.isEmpty()) {
+            return EMPTY;
+        }
+        if (1 == bodies.size()) {
+            return bodies.get(0);
+        }
+        return new CompositeBody(bodies);
+    }
+
+    /**
+     * Gets a {@link Body} backed by the specified file. The file is neither read nor mapped until the bytes of the
+     * body are needed, and must not change for as long as the body is in use.
+     *
+     * @param path The path of the file.
+     *
+     * @return Returns a {@link Body} holding the bytes of the file.
+     *
+     * @throws HttpException Thrown if the size of the file cannot be read.
+     */
+    public static Body ofFile(Path path) {
+        try {
+            return new FileBody(path, 0L, Files.size(path));
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading the size of " + path, ioe);
+        }
+    }
+
+    /**
+     * Spools the specified {@link InputStream} into a {@link Body} using {@link BodySpooler#DEFAULT_MEMORY_THRESHOLD}.
+     * The stream is read to the end but not closed.
+     *
+     * @param in The {@link InputStream} holding the bytes of the body.
+     *
+     * @return Returns a {@link Body} holding all of the bytes read from the specified {@link InputStream}.
+     *
+     * @throws HttpException Thrown if there was an error reading the stream or writing the spill file.
+     */
+    public static Body spool(InputStream in) {
+        return spool(in, BodySpooler.DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Spools the specified {@link InputStream} into a {@link Body} that stays in memory if it holds no more than the
+     * specified number of bytes and is spilled to a memory-mapped temporary file otherwise. The stream is read to the
+     * end but not closed.
+     *
+     * @param in The {@link InputStream} holding the bytes of the body.
+     * @param memoryThreshold The largest number of bytes to keep in memory.
+     *
+     * @return Returns a {@link Body} holding all of the bytes read from the specified {@link InputStream}.
+     *
+     * @throws HttpException Thrown if there was an error reading the stream or writing the spill file.
+     */
+    public static Body spool(InputStream in, int memoryThreshold) {
+        return new BodySpooler(memoryThreshold).writeAll(in).finish();
+    }
+
+    /**
+     * Spools the specified {@link InputStream} like {@link #spool(InputStream, int)}, creating any spill file in the
+     * specified directory.
+     *
+     * @param in The {@link InputStream} holding the bytes of the body.
+     * @param memoryThreshold The largest number of bytes to keep in memory.
+     * @param directory The directory in which to create the spill file.
+     *
+     * @return Returns a {@link Body} holding all of the bytes read from the specified {@link InputStream}.
+     *
+     * @throws HttpException Thrown if there was an error reading the stream or writing the spill file.
+     */
+    public static Body spool(InputStream in, int memoryThreshold, Path directory) {
+        return new BodySpooler(memoryThreshold, directory).writeAll(in).finish();
+    }
+
+    /**
+     * Gets the number of bytes in this body.
+     *
+     * @return Returns the number of bytes in this body.
+     */
+    public abstract long length();
+
+    /**
+     * Gets a read-only view of the bytes of this body. No bytes are copied, and each call returns an independent
+     * view whose position is zero.
+     *
+     * @return Returns a read-only {@link ByteBuffer} over the bytes of this body.
+     */
+    public abstract ByteBuffer asByteBuffer();
+
+    /**
+     * Gets read-only views of the bytes of this body as a sequence of buffers. Bodies held in a single buffer return
+     * one chunk, and spilled bodies return one chunk per mapped region of the spill file. No bytes are copied.
+     *
+     * @return Returns an immutable list of read-only {@link ByteBuffer}s whose concatenation is this body.
+     */
+    public List<ByteBuffer> chunks() {
+        List<ByteBuffer> chunks = internalChunks();
+        if (1 == chunks.size()) {
+            return Collections.singletonList(chunks.get(0).asReadOnlyBuffer());
+        }
+
+        List<ByteBuffer> views = new ArrayList<>(chunks.size());
+        for (ByteBuffer chunk : chunks) {
+            views.add(chunk.asReadOnlyBuffer());
+        }
+        return Collections.unmodifiableList(views);
+    }
+
+    /**
+     * Opens a new {@link InputStream} over the bytes of this body. Each call starts from the beginning of the body.
+     *
+     * @return Returns a new {@link InputStream} over this body.
+     */
+    public InputStream openStream() {
+        return new BodyReader.ChunkInputStream(internalChunks());
+    }
+
+    /**
+     * Opens a new {@link ReadableByteChannel} over the bytes of this body. Each call starts from the beginning of the
+     * body.
+     *
+     * @return Returns a new {@link ReadableByteChannel} over this body.
+     */
+    public ReadableByteChannel openChannel() {
+        return new BodyReader.ChunkChannel(internalChunks());
+    }
+
+    /**
+     * Writes the bytes of this body to the specified stream. Heap chunks are written straight from their backing
+     * arrays; direct and mapped chunks go through a small transfer buffer. The stream is neither flushed nor closed.
+     *
+     * @param out The {@link OutputStream} to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws IOException Thrown if writing to the stream fails.
+     */
+    public long writeTo(OutputStream out) throws IOException {
+        long written = 0L;
+        byte[] transfer = null;
+        for (ByteBuffer chunk : internalChunks()) {
+            ByteBuffer view = chunk.duplicate();
+            int remaining = view.remaining();
+            if (view.hasArray()) {
+                out.write(view.array(), view.arrayOffset() + view.position(), remaining);
+            } else {
+                if (null == transfer) {
+                    transfer = new byte[(int) Math.min(TRANSFER_BUFFER_SIZE, Math.max(length(), 1L))];
+                }
+                while (view.hasRemaining()) {
+                    int n = Math.min(transfer.length, view.remaining());
+                    view.get(transfer, 0, n);
+                    out.write(transfer, 0, n);
+                }
+            }
+            written += remaining;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the bytes of this body to the specified channel, returning once every byte is written. Bodies backed by
+     * a file are transferred from it without copying them through the heap. The channel is not closed.
+     *
+     * @param channel The blocking {@link WritableByteChannel} to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws IOException Thrown if writing to the channel fails.
+     */
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        long written = 0L;
+        for (ByteBuffer chunk : internalChunks()) {
+            ByteBuffer view = chunk.duplicate();
+            while (view.hasRemaining()) {
+                written += channel.write(view);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Gets the specified range of the bytes of this body as a body. No bytes are copied: the slice shares the
+     * buffers, or the file, of this body.
+     *
+     * @param offset The index of the first byte of the slice.
+     * @param length The number of bytes in the slice.
+     *
+     * @return Returns the slice, or this body if the range covers all of it.
+     *
+     * @throws IllegalArgumentException Thrown if the range is not within this body.
+     */
+    public Body slice(long offset, long length) {
+        checkSlice(offset, length);
+        if ((0L == offset) && (length == length())) {
+            return this;
+        }
+        List<ByteBuffer> slices = sliceChunks(internalChunks(), offset, length);
+        if (1 == slices.size()) {
+            return new BufferBody(slices.get(0));
+        }
+        List<Body> parts = new ArrayList<>(slices.size());
+        for (ByteBuffer slice : slices) {
+            parts.add(new BufferBody(slice));
+        }
+        return new CompositeBody(parts);
+    }
+
+    /**
+     * Checks that the specified range is within this body.
+     *
+     * @throws IllegalArgumentException Thrown if it is not.
+     */
+    void checkSlice(long offset, long length) {
+        if ((offset < 0L) || (length < 0L) || (offset > length() - length)) {
+            throw new IllegalArgumentException(
+                    "Slice of " + length + " bytes at " + offset + " is outside a body of " + length() + " bytes");
+        }
+    }
+
+    /**
+     * Gets views of the specified range of a sequence of chunks.
+     *
+     * @param chunks The chunks, each with position zero.
+     * @param offset The index of the first byte of the range within the concatenated chunks.
+     * @param length The number of bytes in the range.
+     *
+     * @return Returns the views, at least one, each with position zero.
+     */
+    static List<ByteBuffer> sliceChunks(List<ByteBuffer> chunks, long offset, long length) {
+        List<ByteBuffer> slices = new ArrayList<>(1);
+        long start = 0L;
+        long end = offset + length;
+        for (ByteBuffer chunk : chunks) {
+            long chunkEnd = start + chunk.remaining();
+            if ((chunkEnd > offset) && (start < end)) {
+                ByteBuffer view = chunk.duplicate();
+                view.limit((int) (Math.min(chunkEnd, end) - start));
+                view.position((int) (Math.max(start, offset) - start));
+                slices.add(view.slice());
+            }
+            start = chunkEnd;
+        }
+        if (slices.isEmpty()) {
+            slices.add(ByteBuffer.allocate(0));
+        }
+        return slices;
+    }
+
+    /**
+     * Determines whether the bytes of this body live on the heap or in a direct buffer rather than in a spill file.
+     *
+     * @return Returns true if this body is held in memory.
+     */
+    public boolean isInMemory() {
+        return true;
+    }
+
+    /**
+     * Copies the bytes of this body into a new byte array.
+     *
+     * @return Returns a new byte array holding the bytes of this body.
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = internalBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Decodes this body with {@link #DEFAULT_CHARSET}.
+     *
+     * @return Returns the text of this body.
+     */
+    public String asString() {
+        return asString(DEFAULT_CHARSET);
+    }
+
+    /**
+     * Decodes this body with the specified {@link Charset}. The result is cached for the last {@link Charset} used,
+     * so repeated calls with the same {@link Charset} decode only once. Malformed input is replaced rather than
+     * rejected, matching {@link String#String(byte[], Charset)}. A body of more than one chunk is copied into a single
+     * buffer to be decoded.
+     *
+     * @param charset The {@link Charset} with which to decode this body. Defaults to {@link #DEFAULT_CHARSET} if null.
+     *
+     * @return Returns the text of this body.
+     */
+    public String asString(Charset charset) {
+        Charset effectiveCharset = (null != charset) ? charset : DEFAULT_CHARSET;
+
+        Decoded current = decoded;
+        if ((null != current) && current.charset.equals(effectiveCharset)) {
+            return current.text;
+        }
+
+        String text = decode(internalBuffer(), effectiveCharset);
+        decoded = new Decoded(effectiveCharset, text);
+
+        return text;
+    }
+
+    /**
+     * Gets a view of the bytes of this body for use inside this package. Unlike {@link #asByteBuffer()} the view may
+     * expose its backing array, which allows decoding and copying without an intermediate buffer. It must never be
+     * handed to callers outside this package.
+     *
+     * @return Returns a {@link ByteBuffer} over the bytes of this body whose position is zero.
+     */
+    ByteBuffer internalBuffer() {
+        return asByteBuffer();
+    }
+
+    /**
+     * Estimates the heap bytes held by the content of this body, for sizing caches, without decoding, copying or
+     * reading it. Content held in direct buffers or files is not counted.
+     *
+     * @return Returns the estimated number of heap bytes held by the content.
+     */
+    long retainedHeapBytes() {
+        return 0L;
+    }
+
+    /**
+     * Gets the {@link Charset} of the text this body was created from.
+     *
+     * @return Returns the {@link Charset} of the text, or null if this body was not created from text.
+     */
+    Charset textCharset() {
+        return null;
+    }
+
+    /**
+     * Gets the chunks of this body for use inside this package. See {@link #internalBuffer()}.
+     *
+     * @return Returns the {@link ByteBuffer}s whose concatenation is this body, each with position zero.
+     */
+    List<ByteBuffer> internalChunks() {
+        return Collections.singletonList(internalBuffer());
+    }
+
+    /**
+     * Seeds the hash code. Used by bodies whose hash code was computed while their bytes were being written.
+     *
+     * @param hash The hash code of the bytes of this body as computed by {@link #computeHashCode()}.
+     */
+    void presetHashCode(int hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Seeds the decoded cache. Used by bodies that are created from text.
+     *
+     * @param charset The {@link Charset} of the specified text.
+     * @param text The decoded form of this body.
+     */
+    void setDecoded(Charset charset, String text) {
+        decoded = new Decoded(charset, text);
+    }
+
+    /**
+     * Copies the specified chunks into one heap buffer, for decoding and copying a body of more than one chunk.
+     *
+     * @param chunks The chunks of the body.
+     * @param length The number of bytes in the chunks.
+     *
+     * @return Returns a {@link ByteBuffer} holding the bytes of the chunks, whose position is zero.
+     *
+     * @throws HttpException Thrown if the chunks hold too many bytes for a single buffer.
+     */
+    static ByteBuffer copyChunks(List<ByteBuffer> chunks, long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new HttpException("Body of " + length + " bytes does not fit in a single buffer, use chunks()");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        for (ByteBuffer chunk : chunks) {
+            buffer.put(chunk.duplicate());
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String decode(ByteBuffer buffer, Charset charset) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+        }
+
+        try {
+            CharBuffer chars = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE).decode(buffer);
+            return chars.toString();
+        } catch (CharacterCodingException cce) {
+            throw new HttpException("Error decoding body", cce);
+        }
+    }
+
+    /**
+     * Computes the hash code of the bytes of this body. Consistent with {@link java.util.Arrays#hashCode(byte[])}.
+     *
+     * @return Returns the hash code of the bytes of this body.
+     */
+    int computeHashCode() {
+        int h = 1;
+        for (ByteBuffer chunk : internalChunks()) {
+            h = hash(h, chunk);
+        }
+        return h;
+    }
+
+    /**
+     * Continues a hash code consistent with {@link java.util.Arrays#hashCode(byte[])} over the remaining bytes of the
+     * specified buffer. The position of the buffer is not modified.
+     *
+     * @param h The hash code of the preceding bytes, or 1 if there are none.
+     * @param buffer The buffer holding the next bytes.
+     *
+     * @return Returns the hash code of the preceding bytes followed by the remaining bytes of the buffer.
+     */
+    static int hash(int h, ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int end = buffer.arrayOffset() + buffer.limit();
+            for (int i = buffer.arrayOffset() + buffer.position(); i < end; i++) {
+                h = 31 * h + array[i];
+            }
+            return h;
+        }
+
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            h = 31 * h + buffer.get(i);
+        }
+        return h;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (0 == h) {
+            h = computeHashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof Body)) {
+            return false;
+        }
+
+        Body that = (Body) obj;
+
+        if (length() != that.length()) {
+            return false;
+        }
+
+        if ((0 != hash) && (0 != that.hash) && (hash != that.hash)) {
+            return false;
+        }
+
+        return contentEquals(internalChunks(), that.internalChunks());
+    }
+
+    /**
+     * Compares two chunk sequences of equal total length byte by byte without copying them.
+     */
+    private static boolean contentEquals(List<ByteBuffer> left, List<ByteBuffer> right) {
+        int leftIndex = 0;
+        int rightIndex = 0;
+        ByteBuffer leftChunk = null;
+        ByteBuffer rightChunk = null;
+
+        while (true) {
+            while (((null == leftChunk) || !leftChunk.hasRemaining()) && (leftIndex < left.size())) {
+                leftChunk = left.get(leftIndex++).duplicate();
+            }
+            while (((null == rightChunk) || !rightChunk.hasRemaining()) && (rightIndex < right.size())) {
+                rightChunk = right.get(rightIndex++).duplicate();
+            }
+
+            boolean leftDone = (null == leftChunk) || !leftChunk.hasRemaining();
+            boolean rightDone = (null == rightChunk) || !rightChunk.hasRemaining();
+            if (leftDone || rightDone) {
+                return leftDone && rightDone;
+            }
+
+            int count = Math.min(leftChunk.remaining(), rightChunk.remaining());
+            ByteBuffer leftSlice = leftChunk.duplicate();
+            leftSlice.limit(leftSlice.position() + count);
+            ByteBuffer rightSlice = rightChunk.duplicate();
+            rightSlice.limit(rightSlice.position() + count);
+            if (!leftSlice.equals(rightSlice)) {
+                return false;
+            }
+
+            leftChunk.position(leftChunk.position() + count);
+            rightChunk.position(rightChunk.position() + count);
+        }
+    }
+
+    /**
+     * Describes this body by its length and where it is held. Never includes or reads the bytes of the body.
+     */
+    @Override
+    public String toString() {
+        String identity = Integer.toHexString(System.identityHashCode(this));
+        return MoreObjects.toStringHelper(getClass().getName() + "@" + identity).add("length", length())
+                .add("inMemory", isInMemory()).toString();
+    }
+
+    /**
+     * Pairs decoded text with the {@link Charset} used to decode it so both can be published atomically.
+     */
+    private static final class Decoded {
+
+        private final Charset charset;
+        private final String text;
+
+        private Decoded(Charset charset, String text) {
+            this.charset = charset;
+            this.text = text;
+        }
+    }
+
+    /**
+     * {@link Body} backed by a {@link ByteBuffer}, which may be heap or direct. Callers only ever see read-only views.
+     */
+    static final class BufferBody extends Body {
+
+        private final ByteBuffer buffer;
+
+        BufferBody(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public long length() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return buffer.asReadOnlyBuffer();
+        }
+
+        @Override
+        ByteBuffer internalBuffer() {
+            return buffer.duplicate();
+        }
+
+        @Override
+        long retainedHeapBytes() {
+            return buffer.isDirect() ? 0L : buffer.capacity();
+        }
+    }
+
+    /**
+     * {@link Body} created from text. The text is the decoded form, and the bytes are encoded on first use.
+     */
+    static final class TextBody extends Body {
+
+        private final String text;
+        private final Charset charset;
+        private volatile ByteBuffer encoded;
+
+        TextBody(String text, Charset charset) {
+            this.text = text;
+            this.charset = charset;
+            setDecoded(charset, text);
+        }
+
+        @Override
+        public long length() {
+            return encoded().remaining();
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return encoded().asReadOnlyBuffer();
+        }
+
+        @Override
+        ByteBuffer internalBuffer() {
+            return encoded().duplicate();
+        }
+
+        @Override
+        Charset textCharset() {
+            return charset;
+        }
+
+        /**
+         * Counts the text, at a byte per character as compact strings hold it, and the encoded bytes once they exist.
+         */
+        @Override
+        long retainedHeapBytes() {
+            ByteBuffer current = encoded;
+            return text.length() + ((null != current) ? current.capacity() : 0L);
+        }
+
+        private ByteBuffer encoded() {
+            ByteBuffer current = encoded;
+            if (null == current) {
+                current = ByteBuffer.wrap(text.getBytes(charset));
+                encoded = current;
+            }
+            return current;
+        }
+    }
+
+}
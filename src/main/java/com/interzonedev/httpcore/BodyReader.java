@@ -0,0 +1,154 @@
+package com.interzonedev.httpcore;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * Readers over the chunks of a {@link Body}. Each reader keeps its own position, so any number of readers may be open
+ * on the same {@link Body} at once.
+ * 
+ * @author mark@interzonedev.com
+ */
+final class BodyReader {
+
+    private BodyReader() {
+    }
+
+    /**
+     * Tracks the current chunk and the position within it.
+     */
+    private static class Cursor {
+
+        private final List<ByteBuffer> chunks;
+        private int index;
+        private ByteBuffer current;
+
+        Cursor(List<ByteBuffer> chunks) {
+            this.chunks = chunks;
+        }
+
+        /**
+         * Gets the chunk to read from next.
+         *
+         * @return Returns a chunk with bytes remaining or null if the end of the body has been reached.
+         */
+        ByteBuffer current() {
+            while (((null == current) || !current.hasRemaining()) && (index < chunks.size())) {
+                current = chunks.get(index++).duplicate();
+            }
+            return ((null != current) && current.hasRemaining()) ? current : null;
+        }
+
+        long remaining() {
+            long remaining = (null != current) ? current.remaining() : 0L;
+            for (int i = index; i < chunks.size(); i++) {
+                remaining += chunks.get(i).remaining();
+            }
+            return remaining;
+        }
+    }
+
+    /**
+     * {@link InputStream} over the chunks of a {@link Body}.
+     */
+    static final class ChunkInputStream extends InputStream {
+
+        private final Cursor cursor;
+
+        ChunkInputStream(List<ByteBuffer> chunks) {
+            this.cursor = new Cursor(chunks);
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer chunk = cursor.current();
+            return (null != chunk) ? (chunk.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (0 == len) {
+                return 0;
+            }
+
+            ByteBuffer chunk = cursor.current();
+            if (null == chunk) {
+                return -1;
+            }
+
+            int count = Math.min(len, chunk.remaining());
+            chunk.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = 0L;
+            while (skipped < n) {
+                ByteBuffer chunk = cursor.current();
+                if (null == chunk) {
+                    break;
+                }
+                int count = (int) Math.min(n - skipped, chunk.remaining());
+                chunk.position(chunk.position() + count);
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, cursor.remaining());
+        }
+    }
+
+    /**
+     * {@link ReadableByteChannel} over the chunks of a {@link Body}.
+     */
+    static final class ChunkChannel implements ReadableByteChannel {
+
+        private final Cursor cursor;
+        private volatile boolean open = true;
+
+        ChunkChannel(List<ByteBuffer> chunks) {
+            this.cursor = new Cursor(chunks);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+
+            int total = 0;
+            while (dst.hasRemaining()) {
+                ByteBuffer chunk = cursor.current();
+                if (null == chunk) {
+                    return (0 == total) ? -1 : total;
+                }
+
+                int count = Math.min(dst.remaining(), chunk.remaining());
+                ByteBuffer slice = chunk.duplicate();
+                slice.limit(slice.position() + count);
+                dst.put(slice);
+                chunk.position(chunk.position() + count);
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+}
@@ -0,0 +1,281 @@
+package com.interzonedev.httpcore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Incrementally collects the bytes of a {@link Body} whose size is not known in advance. Bytes are kept in memory
+ * until more than the memory threshold have been written, at which point everything is spilled to a temporary file.
+ * {@link #finish()} memory-maps a spilled file read-only, so the resulting {@link Body} stays off the heap and can be
+ * read any number of times.
+ *
+ * <p>
+ * The spill file is deleted as soon as it has been mapped. On platforms that do not allow deleting a mapped file it
+ * is deleted when the JVM exits instead.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread safe and may only be finished once.
+ * </p>
+ * 
+ * @author mark@interzonedev.com
+ */
+public final class BodySpooler {
+
+    /**
+     * The default number of bytes kept in memory before spilling to disk.
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The largest region of a spill file mapped into a single buffer.
+     */
+    static final int MAX_REGION_SIZE = 1 << 30;
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private static final String SPILL_FILE_PREFIX = "httpcore-body-";
+
+    private final int memoryThreshold;
+    private final Path directory;
+
+    private byte[] memory = new byte[0];
+    private FileChannel spillChannel;
+    private Path spillFile;
+    private long length;
+    private int hash = 1;
+    private boolean finished;
+
+    /**
+     * Creates a {@link BodySpooler} that keeps up to {@link #DEFAULT_MEMORY_THRESHOLD} bytes in memory and spills to
+     * the default temporary directory.
+     */
+    public BodySpooler() {
+        this(DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Creates a {@link BodySpooler} that keeps up to the specified number of bytes in memory and spills to the default
+     * temporary directory.
+     *
+     * @param memoryThreshold The largest number of bytes to keep in memory.
+     */
+    public BodySpooler(int memoryThreshold) {
+        this(memoryThreshold, null);
+    }
+
+    /**
+     * Creates a {@link BodySpooler} that keeps up to the specified number of bytes in memory and spills to the
+     * specified directory.
+     *
+     * @param memoryThreshold The largest number of bytes to keep in memory.
+     * @param directory The directory in which to create the spill file or null for the default temporary directory.
+     */
+    public BodySpooler(int memoryThreshold, Path directory) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("The memory threshold must not be negative");
+        }
+
+        this.memoryThreshold = memoryThreshold;
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return Returns the number of bytes written so far.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Determines whether the bytes written so far have been spilled to disk.
+     *
+     * @return Returns true if the bytes written so far have been spilled to disk.
+     */
+    public boolean isSpilled() {
+        return null != spillChannel;
+    }
+
+    /**
+     * Writes the specified bytes.
+     *
+     * @param bytes The array holding the bytes to write.
+     * @param offset The offset of the first byte to write.
+     * @param count The number of bytes to write.
+     *
+     * @return Returns this {@link BodySpooler}.
+     *
+     * @throws HttpException Thrown if there was an error writing the spill file.
+     */
+    public BodySpooler write(byte[] bytes, int offset, int count) {
+        return write(ByteBuffer.wrap(bytes, offset, count));
+    }
+
+    /**
+     * Writes the remaining bytes of the specified buffer and advances its position to its limit.
+     *
+     * @param buffer The buffer holding the bytes to write.
+     *
+     * @return Returns this {@link BodySpooler}.
+     *
+     * @throws HttpException Thrown if there was an error writing the spill file.
+     */
+    public BodySpooler write(ByteBuffer buffer) {
+        checkNotFinished();
+
+        int count = buffer.remaining();
+        if (0 == count) {
+            return this;
+        }
+
+        hash = Body.hash(hash, buffer);
+
+        if ((null == spillChannel) && (length + count > memoryThreshold)) {
+            spill();
+        }
+
+        try {
+            if (null != spillChannel) {
+                while (buffer.hasRemaining()) {
+                    spillChannel.write(buffer);
+                }
+            } else {
+                ensureCapacity((int) length + count);
+                buffer.get(memory, (int) length, count);
+            }
+        } catch (IOException ioe) {
+            abort();
+            throw new HttpException("Error writing body spill file", ioe);
+        }
+
+        length += count;
+
+        return this;
+    }
+
+    /**
+     * Writes all of the bytes remaining in the specified {@link InputStream}. The stream is not closed.
+     *
+     * @param in The {@link InputStream} to drain.
+     *
+     * @return Returns this {@link BodySpooler}.
+     *
+     * @throws HttpException Thrown if there was an error reading the stream or writing the spill file.
+     */
+    public BodySpooler writeAll(InputStream in) {
+        byte[] transfer = new byte[INITIAL_CAPACITY];
+        try {
+            int read;
+            while ((read = in.read(transfer)) >= 0) {
+                write(transfer, 0, read);
+            }
+        } catch (IOException ioe) {
+            abort();
+            throw new HttpException("Error reading body", ioe);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a {@link Body} holding all of the bytes written.
+     *
+     * @return Returns a new {@link Body} holding all of the bytes written.
+     *
+     * @throws HttpException Thrown if there was an error mapping the spill file.
+     */
+    public Body finish() {
+        checkNotFinished();
+        finished = true;
+
+        Body body;
+        if (null == spillChannel) {
+            body = Body.wrap(ByteBuffer.wrap(memory, 0, (int) length));
+        } else {
+            body = new MappedFileBody(map(), length);
+        }
+        memory = null;
+        body.presetHashCode(hash);
+
+        return body;
+    }
+
+    private MappedByteBuffer[] map() {
+        try {
+            int regionCount = (int) ((length + MAX_REGION_SIZE - 1) / MAX_REGION_SIZE);
+            MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+            for (int i = 0; i < regionCount; i++) {
+                long position = (long) i * MAX_REGION_SIZE;
+                long size = Math.min(MAX_REGION_SIZE, length - position);
+                regions[i] = spillChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            }
+            return regions;
+        } catch (IOException ioe) {
+            throw new HttpException("Error mapping body spill file", ioe);
+        } finally {
+            abort();
+        }
+    }
+
+    private void spill() {
+        try {
+            spillFile = (null != directory) ? Files.createTempFile(directory, SPILL_FILE_PREFIX, null)
+                    : Files.createTempFile(SPILL_FILE_PREFIX, null);
+            spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer buffered = ByteBuffer.wrap(memory, 0, (int) length);
+            while (buffered.hasRemaining()) {
+                spillChannel.write(buffered);
+            }
+            memory = new byte[0];
+        } catch (IOException ioe) {
+            abort();
+            throw new HttpException("Error creating body spill file", ioe);
+        }
+    }
+
+    /**
+     * Closes and deletes the spill file, if there is one. Mappings already made from it remain valid.
+     */
+    private void abort() {
+        if (null != spillChannel) {
+            try {
+                spillChannel.close();
+            } catch (IOException ioe) {
+                // Nothing more can be done with the channel.
+            }
+        }
+
+        if (null != spillFile) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException ioe) {
+                spillFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > memory.length) {
+            int newCapacity = Math.max(INITIAL_CAPACITY, memory.length);
+            while (newCapacity < capacity) {
+                newCapacity = (newCapacity > memoryThreshold / 2) ? memoryThreshold : newCapacity * 2;
+            }
+            memory = Arrays.copyOf(memory, newCapacity);
+        }
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("The body has already been finished");
+        }
+    }
+
+}
@@ -0,0 +1,262 @@
+package com.interzonedev.httpcore;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable byte range as requested by one element of a Range header (RFC 7233 section 2.1): either the bytes from
+ * a first position to an optional last position, inclusive, or a suffix of a given length. A range only becomes
+ * concrete when it is {@link #resolve(long) resolved} against the length of a representation.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ByteRange {
+
+    /**
+     * The name of the Range header.
+     */
+    public static final String RANGE = "Range";
+
+    /**
+     * The only range unit this library understands.
+     */
+    public static final String BYTES = "bytes";
+
+    private static final long NONE = -1L;
+
+    /**
+     * The first position, or {@link #NONE} for a suffix range.
+     */
+    private final long first;
+
+    /**
+     * The last position, or {@link #NONE} for a range to the end, or the suffix length for a suffix range.
+     */
+    private final long last;
+
+    private ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Creates the range of the bytes from the specified first position to the specified last position, inclusive.
+     *
+     * @param first The position of the first byte.
+     * @param last The position of the last byte, which may be beyond the end of the representation.
+     *
+     * @return Returns the {@link ByteRange}.
+     *
+     * @throws IllegalArgumentException Thrown if first is negative or last is less than first.
+     */
+    public static ByteRange of(long first, long last) {
+        if ((first < 0L) || (last < first)) {
+            throw new IllegalArgumentException("Invalid byte range: " + first + "-" + last);
+        }
+        return new ByteRange(first, last);
+    }
+
+    /**
+     * Creates the range of the bytes from the specified first position to the end.
+     *
+     * @param first The position of the first byte.
+     *
+     * @return Returns the {@link ByteRange}.
+     *
+     * @throws IllegalArgumentException Thrown if first is negative.
+     */
+    public static ByteRange from(long first) {
+        if (first < 0L) {
+            throw new IllegalArgumentException("Invalid byte range: " + first + "-");
+        }
+        return new ByteRange(first, NONE);
+    }
+
+    /**
+     * Creates the range of the last bytes of a representation.
+     *
+     * @param length The number of bytes at the end to include.
+     *
+     * @return Returns the {@link ByteRange}.
+     *
+     * @throws IllegalArgumentException Thrown if length is negative.
+     */
+    public static ByteRange suffix(long length) {
+        if (length < 0L) {
+            throw new IllegalArgumentException("Invalid suffix byte range: -" + length);
+        }
+        return new ByteRange(NONE, length);
+    }
+
+    /**
+     * Parses the value of a Range header. A header that does not use the bytes unit or has any malformed element is
+     * ignored as a whole, as RFC 7233 allows.
+     *
+     * @param value The value of the Range header, possibly null.
+     *
+     * @return Returns the ranges in the order they were requested, or an empty list if the header is absent or is
+     *         ignored.
+     */
+    public static List<ByteRange> parse(String value) {
+        if (null == value) {
+            return ImmutableList.of();
+        }
+        int equals = value.indexOf('=');
+        if ((equals < 0) || !BYTES.equals(value.substring(0, equals).trim().toLowerCase(Locale.ROOT))) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<ByteRange> ranges = ImmutableList.builder();
+        boolean any = false;
+        for (String element : value.substring(equals + 1).split(",")) {
+            String spec = element.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            ByteRange range = parseSpec(spec);
+            if (null == range) {
+                return ImmutableList.of();
+            }
+            ranges.add(range);
+            any = true;
+        }
+        return any ? ranges.build() : ImmutableList.of();
+    }
+
+    /**
+     * Formats the specified ranges as the value of a Range header.
+     *
+     * @param ranges The ranges, at least one.
+     *
+     * @return Returns the value, for example {@code bytes=0-499, -500}.
+     */
+    public static String toHeaderValue(List<ByteRange> ranges) {
+        StringBuilder value = new StringBuilder(BYTES).append('=');
+        for (int i = 0; i < ranges.size(); i++) {
+            if (i > 0) {
+                value.append(", ");
+            }
+            value.append(ranges.get(i));
+        }
+        return value.toString();
+    }
+
+    public boolean isSuffix() {
+        return NONE == first;
+    }
+
+    /**
+     * @return Returns the position of the first byte, or -1 for a suffix range.
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * @return Returns the position of the last byte, or -1 if the range extends to the end or is a suffix range.
+     */
+    public long getLast() {
+        return isSuffix() ? NONE : last;
+    }
+
+    /**
+     * @return Returns the length of a suffix range, or -1 for any other range.
+     */
+    public long getSuffixLength() {
+        return isSuffix() ? last : NONE;
+    }
+
+    /**
+     * Resolves this range against a representation of the specified length, clipping it to the end.
+     *
+     * @param completeLength The length of the representation.
+     *
+     * @return Returns the {@link ContentRange} of the selected bytes, or null if this range is not satisfiable: it
+     *         starts beyond the end, or is an empty suffix, or the representation is empty.
+     */
+    public ContentRange resolve(long completeLength) {
+        if (isSuffix()) {
+            if ((0L == last) || (0L == completeLength)) {
+                return null;
+            }
+            return ContentRange.of(Math.max(0L, completeLength - last), completeLength - 1L, completeLength);
+        }
+        if (first >= completeLength) {
+            return null;
+        }
+        long end = ((NONE == last) || (last >= completeLength)) ? completeLength - 1L : last;
+        return ContentRange.of(first, end, completeLength);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(first, last);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ByteRange)) {
+            return false;
+        }
+
+        ByteRange that = (ByteRange) obj;
+
+        return (first == that.first) && (last == that.last);
+    }
+
+    /**
+     * Formats this range as an element of a Range header, for example {@code 0-499}, {@code 500-} or {@code -500}.
+     */
+    @Override
+    public String toString() {
+        if (isSuffix()) {
+            return "-" + last;
+        }
+        return first + "-" + ((NONE != last) ? Long.toString(last) : "");
+    }
+
+    private static ByteRange parseSpec(String spec) {
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long start = parsePosition(spec.substring(0, dash).trim());
+        long end = parsePosition(spec.substring(dash + 1).trim());
+        if (0 == dash) {
+            return (NONE != end) ? new ByteRange(NONE, end) : null;
+        }
+        if (NONE == start) {
+            return null;
+        }
+        if (dash == spec.length() - 1) {
+            return new ByteRange(start, NONE);
+        }
+        return ((NONE != end) && (end >= start)) ? new ByteRange(start, end) : null;
+    }
+
+    /**
+     * Parses a non-negative decimal position, returning {@link #NONE} if it is empty, not a number or too large.
+     */
+    static long parsePosition(String digits) {
+        if (digits.isEmpty() || (digits.length() > 18)) {
+            return NONE;
+        }
+        long value = 0L;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if ((c < '0') || (c > '9')) {
+                return NONE;
+            }
+            value = value * 10L + (c - '0');
+        }
+        return value;
+    }
+
+}
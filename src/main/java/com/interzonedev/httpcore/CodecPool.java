@@ -0,0 +1,93 @@
+package com.interzonedev.httpcore;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Inflater}s and {@link Deflater}s, each paired with its transfer buffer and checksum. Both
+ * hold native zlib memory that is only freed by {@code end()} or, much later, by the garbage collector, so creating
+ * one per body churns native memory. A codec is reset when it is returned, and one returned to a full pool is ended
+ * at once.
+ *
+ * @author mark@interzonedev.com
+ */
+final class CodecPool {
+
+    static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final int MAX_POOLED = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Raw codecs omit the zlib wrapper, as gzip and raw deflate streams do.
+     */
+    private static final BlockingQueue<Inflating> INFLATERS_ZLIB = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<Inflating> INFLATERS_RAW = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<Deflating> DEFLATERS_ZLIB = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<Deflating> DEFLATERS_RAW = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private CodecPool() {
+    }
+
+    static Inflating inflating(boolean raw) {
+        Inflating pooled = (raw ? INFLATERS_RAW : INFLATERS_ZLIB).poll();
+        return (null != pooled) ? pooled : new Inflating(raw);
+    }
+
+    static void release(Inflating inflating) {
+        inflating.inflater.reset();
+        inflating.crc.reset();
+        if (!(inflating.raw ? INFLATERS_RAW : INFLATERS_ZLIB).offer(inflating)) {
+            inflating.inflater.end();
+        }
+    }
+
+    static Deflating deflating(boolean raw) {
+        Deflating pooled = (raw ? DEFLATERS_RAW : DEFLATERS_ZLIB).poll();
+        return (null != pooled) ? pooled : new Deflating(raw);
+    }
+
+    static void release(Deflating deflating) {
+        deflating.deflater.reset();
+        deflating.crc.reset();
+        if (!(deflating.raw ? DEFLATERS_RAW : DEFLATERS_ZLIB).offer(deflating)) {
+            deflating.deflater.end();
+        }
+    }
+
+    /**
+     * An {@link Inflater} with its output buffer and checksum. Input is handed to the inflater straight from the
+     * chunks of the encoded body.
+     */
+    static final class Inflating {
+
+        final boolean raw;
+        final Inflater inflater;
+        final byte[] output = new byte[BUFFER_SIZE];
+        final CRC32 crc = new CRC32();
+
+        private Inflating(boolean raw) {
+            this.raw = raw;
+            this.inflater = new Inflater(raw);
+        }
+    }
+
+    /**
+     * A {@link Deflater} at the default compression level with its output buffer and checksum.
+     */
+    static final class Deflating {
+
+        final boolean raw;
+        final Deflater deflater;
+        final byte[] output = new byte[BUFFER_SIZE];
+        final CRC32 crc = new CRC32();
+
+        private Deflating(boolean raw) {
+            this.raw = raw;
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        }
+    }
+
+}
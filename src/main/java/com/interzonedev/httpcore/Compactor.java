@@ -0,0 +1,279 @@
+package com.interzonedev.httpcore;
+
+import java.util.Locale;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Shrinks {@link Response}s and {@link Request}s that are kept in memory for a long time, such as cache entries and
+ * audit buffers, by sharing what they have in common.
+ *
+ * <p>
+ * Header names and values, parameters, URLs and content types pass through one bounded dictionary of strings, so
+ * equal strings across many messages are held once. Like the dynamic table of HPACK, the dictionary has a fixed size
+ * and forgets old entries as new ones arrive; unlike it, it hands out shared instances rather than indices, so the
+ * compacted messages are ordinary {@link Response}s and {@link Request}s. Strings longer than the maximum length,
+ * which are rarely repeated, are not interned. Header and parameter arrays are trimmed to their exact size.
+ * Optionally, the {@link Request} embedded in each {@link Response} is deduplicated through a pool of its own, so
+ * that responses to equal requests share one.
+ * </p>
+ *
+ * <p>
+ * A {@link Compactor} is thread safe and meant to be shared by everything that retains messages, since sharing
+ * improves as more messages use the same dictionary. Compacted messages are equal to the originals.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Compactor {
+
+    public static final int DEFAULT_DICTIONARY_SIZE = 4096;
+
+    public static final int DEFAULT_MAX_STRING_LENGTH = 256;
+
+    /**
+     * Sizes of the JVM's object layout, assuming a 64-bit JVM with compressed references and Latin-1 strings.
+     */
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_SHALLOW = 24;
+    private static final int RESPONSE_SHALLOW = 72;
+    private static final int REQUEST_SHALLOW = 64;
+    private static final int MULTIMAP_SHALLOW = 40;
+    private static final int BODY_SHALLOW = 32;
+    private static final int BYTE_BUFFER_SHALLOW = 48;
+    private static final int LOCALE_SHALLOW = 96;
+    private static final int TIMING_SHALLOW = 72;
+    private static final int COOKIE_SHALLOW = 96;
+
+    private final InternTable<String> strings;
+    private final InternTable<Locale> locales;
+    private final InternTable<Request> requests;
+    private final int maxStringLength;
+
+    private Compactor(Builder builder) {
+        this.strings = new InternTable<>(builder.dictionarySize);
+        this.locales = new InternTable<>(64);
+        this.requests = (builder.requestPoolSize > 0) ? new InternTable<>(builder.requestPoolSize) : null;
+        this.maxStringLength = builder.maxStringLength;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets a compact copy of the specified {@link Response}, with its headers and content type interned, its headers
+     * trimmed and its {@link Request} compacted and, if pooling is on, shared. The content is not copied. Lazy
+     * headers are materialized.
+     *
+     * @param response The {@link Response} to compact.
+     *
+     * @return Returns the compact {@link Response}, equal to the specified one.
+     */
+    public Response compact(Response response) {
+        Response.Builder builder = Response.newBuilder(response)
+                .setHttpHeaders(response.getHttpHeaders().compact(this::intern))
+                .setContentType(intern(response.getContentType()));
+        if (null != response.getRequest()) {
+            builder.setRequest(pool(compact(response.getRequest())));
+        }
+        if (null != response.getLocale()) {
+            builder.setLocale(locales.intern(response.getLocale()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets a compact copy of the specified {@link Request}, with its URL, headers and parameters interned and its
+     * headers and parameters trimmed. The body is not copied. Lazy parts are materialized, so the copy does not refer
+     * to the original, and the parsed form of the URL is dropped.
+     *
+     * @param request The {@link Request} to compact.
+     *
+     * @return Returns the compact {@link Request}, equal to the specified one.
+     */
+    public Request compact(Request request) {
+        if ((null != requests) && requests.holds(request)) {
+            return request;
+        }
+        return Request.newBuilder(request).setUrl(intern(request.getUrl()))
+                .setHttpHeaders(request.getHttpHeaders().compact(this::intern))
+                .setHttpParameters(request.getHttpParameters().compact(this::intern))
+                .setEntity(request.getEntity()).build();
+    }
+
+    private Request pool(Request request) {
+        return (null != requests) ? requests.intern(request) : request;
+    }
+
+    private String intern(String value) {
+        if ((null == value) || (value.length() > maxStringLength)) {
+            return value;
+        }
+        return strings.intern(value);
+    }
+
+    /**
+     * Estimates the heap that the specified {@link Response} holds on its own: what would be freed if it were
+     * dropped. Strings held by the dictionary and a pooled {@link Request} are shared, so they count as nothing.
+     * Content outside the heap, in direct buffers or spill files, does not count either.
+     *
+     * @param response The {@link Response} to measure.
+     *
+     * @return Returns the estimated retained size in bytes.
+     */
+    public long estimateRetainedBytes(Response response) {
+        long bytes = RESPONSE_SHALLOW;
+        bytes += sizeOf(response.getHttpHeaders());
+        bytes += sizeOf(response.getContentType());
+        bytes += sizeOf(response.getEntity());
+        if (!response.getCookies().isEmpty()) {
+            bytes += MULTIMAP_SHALLOW + COOKIE_SHALLOW * (long) response.getCookies().size();
+        }
+        if ((null != response.getLocale()) && !locales.holds(response.getLocale())) {
+            bytes += LOCALE_SHALLOW;
+        }
+        if (null != response.getTiming()) {
+            bytes += TIMING_SHALLOW;
+        }
+        Request request = response.getRequest();
+        if ((null != request) && ((null == requests) || !requests.holds(request))) {
+            bytes += estimateRetainedBytes(request);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap that the specified {@link Request} holds on its own. See
+     * {@link #estimateRetainedBytes(Response)}.
+     *
+     * @param request The {@link Request} to measure.
+     *
+     * @return Returns the estimated retained size in bytes.
+     */
+    public long estimateRetainedBytes(Request request) {
+        return REQUEST_SHALLOW + sizeOf(request.getUrl()) + sizeOf(request.getHttpHeaders())
+                + sizeOf(request.getHttpParameters()) + sizeOf(request.getEntity());
+    }
+
+    private long sizeOf(FlatMultimap<?> map) {
+        if (map.isEmpty()) {
+            // The empty maps are shared singletons.
+            return 0L;
+        }
+        long bytes = MULTIMAP_SHALLOW + referenceArray(map.names.length) + intArray(map.nameHashes.length)
+                + intArray(map.offsets.length) + referenceArray(map.values.length);
+        for (int i = 0; i < map.size; i++) {
+            bytes += sizeOf(map.names[i]);
+        }
+        for (int i = 0; i < map.offsets[map.size]; i++) {
+            bytes += sizeOf(map.values[i]);
+        }
+        return bytes;
+    }
+
+    private long sizeOf(String value) {
+        if ((null == value) || strings.holds(value)) {
+            return 0L;
+        }
+        return STRING_SHALLOW + align(ARRAY_HEADER + value.length());
+    }
+
+    private static long sizeOf(Body body) {
+        if (null == body) {
+            return 0L;
+        }
+        // Measured without decoding or copying the body, which weighing must never do.
+        long bytes = BODY_SHALLOW + BYTE_BUFFER_SHALLOW;
+        long content = body.retainedHeapBytes();
+        if (content > 0L) {
+            bytes += align(ARRAY_HEADER + content);
+        }
+        return bytes;
+    }
+
+    private static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    private static long intArray(int length) {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    private static long align(long size) {
+        return (size + 7L) & ~7L;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("dictionarySize", strings.capacity())
+                .add("requestPoolSize", (null != requests) ? requests.capacity() : 0)
+                .add("maxStringLength", maxStringLength).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link Compactor}.
+     */
+    public static class Builder {
+
+        private int dictionarySize = DEFAULT_DICTIONARY_SIZE;
+        private int requestPoolSize;
+        private int maxStringLength = DEFAULT_MAX_STRING_LENGTH;
+
+        private Builder() {
+        }
+
+        public Compactor build() {
+            return new Compactor(this);
+        }
+
+        /**
+         * Sets the number of strings the dictionary holds, rounded up to a power of two. Defaults to
+         * {@link #DEFAULT_DICTIONARY_SIZE}.
+         *
+         * @param dictionarySize The number of strings.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setDictionarySize(int dictionarySize) {
+            if (dictionarySize <= 0) {
+                throw new IllegalArgumentException("The dictionary size must be positive");
+            }
+            this.dictionarySize = dictionarySize;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests the request pool holds, rounded up to a power of two. Defaults to zero, which
+         * turns pooling off: it only pays when many retained responses answer equal requests.
+         *
+         * @param requestPoolSize The number of requests, or zero for no pooling.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setRequestPoolSize(int requestPoolSize) {
+            if (requestPoolSize < 0) {
+                throw new IllegalArgumentException("The request pool size must not be negative");
+            }
+            this.requestPoolSize = requestPoolSize;
+            return this;
+        }
+
+        /**
+         * Sets the length of the longest string interned. Defaults to {@link #DEFAULT_MAX_STRING_LENGTH}.
+         *
+         * @param maxStringLength The length in characters.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxStringLength(int maxStringLength) {
+            if (maxStringLength < 0) {
+                throw new IllegalArgumentException("The maximum string length must not be negative");
+            }
+            this.maxStringLength = maxStringLength;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.interzonedev.httpcore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link Body} made of other bodies, as created by {@link Body#concat(List)}. The bytes of the parts are never
+ * copied, except to decode or copy out a body of more than one chunk as a whole. Writing the body writes each part in
+ * turn, so parts backed by a file are still transferred from it, and slicing it slices the parts.
+ *
+ * @author mark@interzonedev.com
+ */
+final class CompositeBody extends Body {
+
+    private final List<Body> parts;
+    private final long length;
+    private final boolean inMemory;
+
+    /**
+     * The chunks of the parts, or null until first needed, which is safe to race on because every thread collects
+     * equal chunks. Collected lazily so that parts backed by a file are not mapped just to be written.
+     */
+    private List<ByteBuffer> chunks;
+
+    CompositeBody(List<Body> bodies) {
+        long total = 0L;
+        boolean memory = true;
+        for (Body body : bodies) {
+            total += body.length();
+            memory &= body.isInMemory();
+        }
+        this.parts = Collections.unmodifiableList(new ArrayList<>(bodies));
+        this.length = total;
+        this.inMemory = memory;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets a read-only view of the body.
+     *
+     * @throws HttpException Thrown if the body is made of more than one chunk. Use {@link #chunks()} instead.
+     */
+    @Override
+    public ByteBuffer asByteBuffer() {
+        List<ByteBuffer> all = internalChunks();
+        if (all.isEmpty()) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        if (1 != all.size()) {
+            throw new HttpException("Body of " + all.size() + " chunks is not a single buffer, use chunks()");
+        }
+        return all.get(0).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
+    @Override
+    public long writeTo(OutputStream out) throws IOException {
+        long written = 0L;
+        for (Body part : parts) {
+            written += part.writeTo(out);
+        }
+        return written;
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        long written = 0L;
+        for (Body part : parts) {
+            written += part.writeTo(channel);
+        }
+        return written;
+    }
+
+    @Override
+    public Body slice(long offset, long sliceLength) {
+        checkSlice(offset, sliceLength);
+        if ((0L == offset) && (sliceLength == length)) {
+            return this;
+        }
+        List<Body> slices = new ArrayList<>();
+        long start = 0L;
+        long end = offset + sliceLength;
+        for (Body part : parts) {
+            long partEnd = start + part.length();
+            if ((partEnd > offset) && (start < end)) {
+                long from = Math.max(start, offset) - start;
+                slices.add(part.slice(from, Math.min(partEnd, end) - start - from));
+            }
+            start = partEnd;
+        }
+        return Body.concat(slices);
+    }
+
+    /**
+     * Copies the chunks into one heap buffer when there is more than one, for decoding and copying.
+     */
+    @Override
+    ByteBuffer internalBuffer() {
+        List<ByteBuffer> all = internalChunks();
+        if (all.size() <= 1) {
+            return all.isEmpty() ? ByteBuffer.allocate(0) : all.get(0).duplicate();
+        }
+        return copyChunks(all, length);
+    }
+
+    /**
+     * Counts the parts, whose buffers the chunks share.
+     */
+    @Override
+    long retainedHeapBytes() {
+        long bytes = 0L;
+        for (Body part : parts) {
+            bytes += part.retainedHeapBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    List<ByteBuffer> internalChunks() {
+        List<ByteBuffer> current = chunks;
+        if (null == current) {
+            List<ByteBuffer> all = new ArrayList<>(parts.size());
+            for (Body part : parts) {
+                for (ByteBuffer chunk : part.internalChunks()) {
+                    if (chunk.hasRemaining()) {
+                        all.add(chunk);
+                    }
+                }
+            }
+            current = Collections.unmodifiableList(all);
+            chunks = current;
+        }
+        return current;
+    }
+
+}
@@ -0,0 +1,376 @@
+package com.interzonedev.httpcore;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The content codings of the Content-Encoding header (RFC 9110 section 8.4.1) that can be decoded and encoded without
+ * extra dependencies.
+ *
+ * <p>
+ * Decoding is lazy. {@link #decode(Body)} returns a {@link Body} that holds on to the encoded bytes and inflates them
+ * the first time its bytes or length are read, so a response that is never read is never decompressed. Encoding is
+ * done at once. Both use {@link Inflater}s and {@link Deflater}s from a small pool, fed straight from the chunks of
+ * the source body, and write their output through a {@link BodySpooler}, so large content spills to disk rather than
+ * filling the heap.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public enum ContentEncoding {
+
+    /**
+     * No coding. Encoding and decoding return the body as is.
+     */
+    IDENTITY("identity"),
+
+    /**
+     * The gzip file format (RFC 1952). Decoding accepts concatenated members and checks the CRC and length of each.
+     */
+    GZIP("gzip"),
+
+    /**
+     * The zlib format (RFC 1950). Decoding also accepts the raw deflate streams that some servers send instead.
+     */
+    DEFLATE("deflate");
+
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    /**
+     * The value of an Accept-Encoding header that asks for any coding this enum can decode.
+     */
+    public static final String ACCEPTED = "gzip, deflate";
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    /**
+     * A minimal gzip header: no file name, no modification time, unknown operating system.
+     */
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final String token;
+
+    private ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Gets the content coding named by a Content-Encoding header value.
+     *
+     * @param value The value of the Content-Encoding header, possibly null.
+     *
+     * @return Returns the {@link ContentEncoding}, {@link #IDENTITY} for a missing or empty value, or null for a
+     *         coding that is not supported, including a list of more than one coding.
+     */
+    public static ContentEncoding of(String value) {
+        if (null == value) {
+            return IDENTITY;
+        }
+        String coding = value.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case "":
+            case "identity":
+                return IDENTITY;
+            case "gzip":
+            case "x-gzip":
+                return GZIP;
+            case "deflate":
+                return DEFLATE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets a copy of the specified {@link Response} whose entity is decoded lazily according to its Content-Encoding
+     * header. The Content-Encoding and Content-Length headers are removed because they describe the encoded bytes,
+     * while {@link Response#getContentLength()} keeps reporting the length on the wire. The decoded length is the
+     * length of {@link Response#getEntity()}.
+     *
+     * @param response The {@link Response} to decode.
+     *
+     * @return Returns the decoded {@link Response}, or the specified one if it has no content or its coding is
+     *         identity or not supported.
+     */
+    public static Response decoded(Response response) {
+        Body entity = response.getEntity();
+        ContentEncoding coding = of(response.getHttpHeaders().getFirst(CONTENT_ENCODING));
+        if ((null == entity) || (null == coding) || (IDENTITY == coding)) {
+            return response;
+        }
+        return Response.newBuilder(response).setEntity(coding.decode(entity)).removeHeader(CONTENT_ENCODING)
+                .removeHeader("Content-Length").build();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Gets a {@link Body} that decodes the specified encoded body the first time its bytes or length are read. A
+     * malformed or truncated body fails with an {@link HttpException} at that point.
+     *
+     * @param encoded The encoded {@link Body}.
+     *
+     * @return Returns the lazily decoded {@link Body}, or the specified body for {@link #IDENTITY}.
+     */
+    public Body decode(Body encoded) {
+        if ((IDENTITY == this) || (null == encoded)) {
+            return encoded;
+        }
+        return new DecodingBody(encoded, this);
+    }
+
+    /**
+     * Encodes the specified body.
+     *
+     * @param body The {@link Body} to encode.
+     *
+     * @return Returns the encoded {@link Body}, or the specified body for {@link #IDENTITY}.
+     */
+    public Body encode(Body body) {
+        if ((IDENTITY == this) || (null == body)) {
+            return body;
+        }
+
+        CodecPool.Deflating codec = CodecPool.deflating(GZIP == this);
+        try {
+            Deflater deflater = codec.deflater;
+            BodySpooler spooler = new BodySpooler();
+            if (GZIP == this) {
+                spooler.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+            for (ByteBuffer chunk : body.internalChunks()) {
+                ByteBuffer input = chunk.duplicate();
+                codec.crc.update(input.duplicate());
+                deflater.setInput(input);
+                while (!deflater.needsInput()) {
+                    spooler.write(codec.output, 0, deflater.deflate(codec.output));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                spooler.write(codec.output, 0, deflater.deflate(codec.output));
+            }
+            if (GZIP == this) {
+                byte[] trailer = new byte[8];
+                putIntLittleEndian(trailer, 0, (int) codec.crc.getValue());
+                putIntLittleEndian(trailer, 4, (int) body.length());
+                spooler.write(trailer, 0, trailer.length);
+            }
+            return spooler.finish();
+        } finally {
+            CodecPool.release(codec);
+        }
+    }
+
+    /**
+     * Gets a copy of the specified {@link Request} whose entity is encoded with this coding, with a matching
+     * Content-Encoding header and no Content-Length header.
+     *
+     * @param request The {@link Request} to encode.
+     *
+     * @return Returns the encoded {@link Request}, or the specified one if it has no entity or this is
+     *         {@link #IDENTITY}.
+     *
+     * @throws HttpException Thrown if the request already has a Content-Encoding other than identity.
+     */
+    public Request encode(Request request) {
+        Body entity = request.getEntity();
+        if ((IDENTITY == this) || (null == entity)) {
+            return request;
+        }
+        String current = request.getHttpHeaders().getFirst(CONTENT_ENCODING);
+        if (IDENTITY != of(current)) {
+            throw new HttpException("Request content is already encoded: " + current);
+        }
+        return Request.newBuilder(request).setEntity(encode(entity)).setHeader(CONTENT_ENCODING, token)
+                .removeHeader("Content-Length").build();
+    }
+
+    /**
+     * Decodes the specified body right away. Called by {@link DecodingBody} on first use.
+     */
+    Body decodeNow(Body encoded) {
+        if (0L == encoded.length()) {
+            // Some servers label an empty body with the coding they would have used.
+            return Body.empty();
+        }
+        Input in = new Input(encoded.internalChunks());
+        BodySpooler spooler = new BodySpooler();
+        try {
+            if (GZIP == this) {
+                do {
+                    inflateGzipMember(in, spooler);
+                } while (GZIP_MAGIC == in.peekShortLittleEndian());
+            } else {
+                int header = in.peekShortLittleEndian();
+                // A zlib header is a deflate method byte followed by a check byte that makes both a multiple of 31.
+                boolean zlib = (header >= 0) && (8 == (header & 0x0f))
+                        && (0 == ((((header & 0xff) << 8) | (header >>> 8)) % 31));
+                CodecPool.Inflating codec = CodecPool.inflating(!zlib);
+                try {
+                    inflate(in, codec, spooler);
+                } finally {
+                    CodecPool.release(codec);
+                }
+            }
+            return spooler.finish();
+        } catch (RuntimeException e) {
+            if (spooler.isSpilled()) {
+                // Finishing deletes the spill file.
+                spooler.finish();
+            }
+            throw e;
+        }
+    }
+
+    private void inflateGzipMember(Input in, BodySpooler spooler) {
+        if (GZIP_MAGIC != (in.readByte() | (in.readByte() << 8))) {
+            throw new HttpException("Content is not in gzip format");
+        }
+        if (Deflater.DEFLATED != in.readByte()) {
+            throw new HttpException("Unsupported gzip compression method");
+        }
+        int flags = in.readByte();
+        in.skip(6);
+        if (0 != (flags & FEXTRA)) {
+            in.skip(in.readByte() | (in.readByte() << 8));
+        }
+        if (0 != (flags & FNAME)) {
+            in.skipZeroTerminated();
+        }
+        if (0 != (flags & FCOMMENT)) {
+            in.skipZeroTerminated();
+        }
+        if (0 != (flags & FHCRC)) {
+            in.skip(2);
+        }
+
+        CodecPool.Inflating codec = CodecPool.inflating(true);
+        try {
+            long length = inflate(in, codec, spooler);
+            int crc = in.readIntLittleEndian();
+            int size = in.readIntLittleEndian();
+            if ((crc != (int) codec.crc.getValue()) || (size != (int) length)) {
+                throw new HttpException("Corrupt gzip content: checksum or length mismatch");
+            }
+        } finally {
+            CodecPool.release(codec);
+        }
+    }
+
+    private long inflate(Input in, CodecPool.Inflating codec, BodySpooler spooler) {
+        Inflater inflater = codec.inflater;
+        long length = 0L;
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    ByteBuffer chunk = in.nextChunk();
+                    if (null == chunk) {
+                        throw new HttpException("Truncated " + token + " content");
+                    }
+                    // The inflater advances the position of the chunk as it consumes it.
+                    inflater.setInput(chunk);
+                }
+                int count = inflater.inflate(codec.output);
+                if ((0 == count) && inflater.needsDictionary()) {
+                    throw new HttpException("Unsupported " + token + " content with a preset dictionary");
+                }
+                codec.crc.update(codec.output, 0, count);
+                spooler.write(codec.output, 0, count);
+                length += count;
+            }
+        } catch (DataFormatException dfe) {
+            throw new HttpException("Corrupt " + token + " content", dfe);
+        }
+        return length;
+    }
+
+    private static void putIntLittleEndian(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * Reads through the chunks of an encoded body. The chunks are private duplicates, so the inflater may advance
+     * their positions.
+     */
+    private static final class Input {
+
+        private final ByteBuffer[] chunks;
+        private int index;
+
+        private Input(List<ByteBuffer> chunks) {
+            this.chunks = new ByteBuffer[chunks.size()];
+            for (int i = 0; i < this.chunks.length; i++) {
+                this.chunks[i] = chunks.get(i).duplicate();
+            }
+        }
+
+        private ByteBuffer nextChunk() {
+            while ((index < chunks.length) && !chunks[index].hasRemaining()) {
+                index++;
+            }
+            return (index < chunks.length) ? chunks[index] : null;
+        }
+
+        private int readByte() {
+            ByteBuffer chunk = nextChunk();
+            if (null == chunk) {
+                throw new HttpException("Truncated gzip content");
+            }
+            return chunk.get() & 0xff;
+        }
+
+        private int readIntLittleEndian() {
+            return readByte() | (readByte() << 8) | (readByte() << 16) | (readByte() << 24);
+        }
+
+        /**
+         * Peeks at the next two bytes without consuming them.
+         *
+         * @return Returns the next two bytes as a little-endian short, or -1 if there are fewer than two left.
+         */
+        private int peekShortLittleEndian() {
+            int savedIndex = index;
+            ByteBuffer first = nextChunk();
+            if (null == first) {
+                return -1;
+            }
+            int savedPosition = first.position();
+            int low = first.get() & 0xff;
+            ByteBuffer second = nextChunk();
+            int high = (null != second) ? second.get(second.position()) & 0xff : -1;
+            first.position(savedPosition);
+            index = savedIndex;
+            return (high >= 0) ? (low | (high << 8)) : -1;
+        }
+
+        private void skip(int count) {
+            for (int i = 0; i < count; i++) {
+                readByte();
+            }
+        }
+
+        private void skipZeroTerminated() {
+            while (0 != readByte()) {
+                // Skips the file name or comment.
+            }
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.interzonedev.httpcore;
+
+import java.util.Locale;
+
+import com.google.common.base.Objects;
+
+/**
+ * Immutable value of a Content-Range header (RFC 7233 section 4.2): the first and last positions, inclusive, of the
+ * bytes a partial response carries and the length of the complete representation, or, for a 416 Range Not
+ * Satisfiable response, the complete length alone.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ContentRange {
+
+    /**
+     * The name of the Content-Range header.
+     */
+    public static final String CONTENT_RANGE = "Content-Range";
+
+    /**
+     * The complete length of a representation whose length the server does not know, written as {@code *}.
+     */
+    public static final long UNKNOWN_LENGTH = -1L;
+
+    private static final long UNSATISFIED = -1L;
+
+    private final long first;
+    private final long last;
+    private final long completeLength;
+
+    private ContentRange(long first, long last, long completeLength) {
+        this.first = first;
+        this.last = last;
+        this.completeLength = completeLength;
+    }
+
+    /**
+     * Creates the range of a partial response.
+     *
+     * @param first The position of the first byte.
+     * @param last The position of the last byte, inclusive.
+     * @param completeLength The length of the complete representation, or {@link #UNKNOWN_LENGTH}.
+     *
+     * @return Returns the {@link ContentRange}.
+     *
+     * @throws IllegalArgumentException Thrown if the positions are not within the complete length.
+     */
+    public static ContentRange of(long first, long last, long completeLength) {
+        if ((first < 0L) || (last < first) || ((UNKNOWN_LENGTH != completeLength) && (last >= completeLength))) {
+            throw new IllegalArgumentException("Invalid content range: " + first + "-" + last + "/" + completeLength);
+        }
+        return new ContentRange(first, last, completeLength);
+    }
+
+    /**
+     * Creates the range of a 416 Range Not Satisfiable response.
+     *
+     * @param completeLength The length of the complete representation.
+     *
+     * @return Returns the {@link ContentRange}, written as {@code bytes *}{@code /length}.
+     */
+    public static ContentRange unsatisfied(long completeLength) {
+        if (completeLength < 0L) {
+            throw new IllegalArgumentException("Invalid complete length: " + completeLength);
+        }
+        return new ContentRange(UNSATISFIED, UNSATISFIED, completeLength);
+    }
+
+    /**
+     * Parses the value of a Content-Range header.
+     *
+     * @param value The value, possibly null.
+     *
+     * @return Returns the {@link ContentRange}, or null if the value is null, does not use the bytes unit or is
+     *         malformed.
+     */
+    public static ContentRange parse(String value) {
+        if (null == value) {
+            return null;
+        }
+        String trimmed = value.trim();
+        int space = trimmed.indexOf(' ');
+        int slash = trimmed.indexOf('/');
+        if ((space < 0) || (slash < space)
+                || !ByteRange.BYTES.equals(trimmed.substring(0, space).toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+
+        String range = trimmed.substring(space + 1, slash).trim();
+        String length = trimmed.substring(slash + 1).trim();
+        long completeLength = "*".equals(length) ? UNKNOWN_LENGTH : ByteRange.parsePosition(length);
+        if ((UNKNOWN_LENGTH == completeLength) && !"*".equals(length)) {
+            return null;
+        }
+
+        if ("*".equals(range)) {
+            return (UNKNOWN_LENGTH != completeLength) ? new ContentRange(UNSATISFIED, UNSATISFIED, completeLength)
+                    : null;
+        }
+        int dash = range.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long start = ByteRange.parsePosition(range.substring(0, dash));
+        long end = ByteRange.parsePosition(range.substring(dash + 1));
+        if ((start < 0L) || (end < start) || ((UNKNOWN_LENGTH != completeLength) && (end >= completeLength))) {
+            return null;
+        }
+        return new ContentRange(start, end, completeLength);
+    }
+
+    /**
+     * @return Returns false for the range of a 416 Range Not Satisfiable response.
+     */
+    public boolean isSatisfied() {
+        return UNSATISFIED != first;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * @return Returns the number of bytes in the range, or 0 if it is not satisfied.
+     */
+    public long getLength() {
+        return isSatisfied() ? last - first + 1L : 0L;
+    }
+
+    /**
+     * @return Returns the length of the complete representation, or {@link #UNKNOWN_LENGTH}.
+     */
+    public long getCompleteLength() {
+        return completeLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(first, last, completeLength);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ContentRange)) {
+            return false;
+        }
+
+        ContentRange that = (ContentRange) obj;
+
+        return (first == that.first) && (last == that.last) && (completeLength == that.completeLength);
+    }
+
+    /**
+     * Formats this range as the value of a Content-Range header, for example {@code bytes 0-499/1234}.
+     */
+    @Override
+    public String toString() {
+        String range = isSatisfied() ? first + "-" + last : "*";
+        String length = (UNKNOWN_LENGTH != completeLength) ? Long.toString(completeLength) : "*";
+        return ByteRange.BYTES + " " + range + "/" + length;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.interzonedev.httpcore;
+
+import java.nio.charset.Charset;
+
+/**
+ * Static helpers for working with raw Content-Type values. Parsing is done, and cached, by {@link MediaType}.
+ * 
+ * @author mark@interzonedev.com
+ */
+public final class ContentTypes {
+
+    /**
+     * The name of the Content-Type header.
+     */
+    public static final String CONTENT_TYPE = "Content-Type";
+
+    private ContentTypes() {
+    }
+
+    /**
+     * Gets the {@link Charset} named by the charset parameter of the specified Content-Type value.
+     *
+     * @param contentType The raw Content-Type value, for example {@code text/html; charset=ISO-8859-1}.
+     *
+     * @return Returns the named {@link Charset} or null if there is no charset parameter, it is not supported or the
+     *         value is not a media type.
+     *
+     * @see MediaType#tryParse(String)
+     */
+    public static Charset charsetOf(String contentType) {
+        MediaType mediaType = MediaType.tryParse(contentType);
+        return (null != mediaType) ? mediaType.getCharset() : null;
+    }
+
+}
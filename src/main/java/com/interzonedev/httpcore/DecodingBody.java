@@ -0,0 +1,88 @@
+package com.interzonedev.httpcore;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * {@link Body} that holds encoded bytes and decodes them with a {@link ContentEncoding} the first time its bytes or
+ * length are read. Decoding happens at most once, even when several threads read the body at the same time.
+ *
+ * @author mark@interzonedev.com
+ */
+final class DecodingBody extends Body {
+
+    private final Body encoded;
+    private final ContentEncoding encoding;
+
+    /**
+     * The decoded body, or null until it is first needed.
+     */
+    private volatile Body decoded;
+
+    DecodingBody(Body encoded, ContentEncoding encoding) {
+        this.encoded = encoded;
+        this.encoding = encoding;
+    }
+
+    private Body decoded() {
+        Body current = decoded;
+        return (null != current) ? current : decodeOnce();
+    }
+
+    private synchronized Body decodeOnce() {
+        if (null == decoded) {
+            decoded = encoding.decodeNow(encoded);
+        }
+        return decoded;
+    }
+
+    @Override
+    public long length() {
+        return decoded().length();
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer() {
+        return decoded().asByteBuffer();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return decoded().isInMemory();
+    }
+
+    @Override
+    ByteBuffer internalBuffer() {
+        return decoded().internalBuffer();
+    }
+
+    @Override
+    List<ByteBuffer> internalChunks() {
+        return decoded().internalChunks();
+    }
+
+    /**
+     * Counts the encoded body, which stays referenced, and the decoded body only if it has already been decoded.
+     */
+    @Override
+    long retainedHeapBytes() {
+        Body current = decoded;
+        return encoded.retainedHeapBytes() + ((null != current) ? current.retainedHeapBytes() : 0L);
+    }
+
+    /**
+     * Describes the encoded bytes until the body has been decoded, so that logging a response does not decode it.
+     */
+    @Override
+    public String toString() {
+        if (null != decoded) {
+            return super.toString();
+        }
+        String identity = Integer.toHexString(System.identityHashCode(this));
+        return MoreObjects.toStringHelper(getClass().getName() + "@" + identity).add("encoding", encoding)
+                .add("encodedLength", encoded.length()).toString();
+    }
+
+}
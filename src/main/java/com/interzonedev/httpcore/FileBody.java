@@ -0,0 +1,145 @@
+package com.interzonedev.httpcore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link Body} backed by a range of a file, as created by {@link Body#ofFile(Path)} and sliced by
+ * {@link #slice(long, long)}. Writing it to a channel transfers the range with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which the operating system can do without copying
+ * the bytes into user space. Any other access maps the range read-only on first use, in regions of at most
+ * {@link BodySpooler#MAX_REGION_SIZE}, one per chunk.
+ *
+ * @author mark@interzonedev.com
+ */
+final class FileBody extends Body {
+
+    private final Path path;
+    private final long offset;
+    private final long length;
+
+    /**
+     * The mapped regions, or null until the bytes are first read other than by a transfer.
+     */
+    private volatile List<ByteBuffer> regions;
+
+    FileBody(Path path, long offset, long length) {
+        this.path = path;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets a read-only view of the mapped range.
+     *
+     * @throws HttpException Thrown if the range was mapped as more than one region. Use {@link #chunks()} instead.
+     */
+    @Override
+    public ByteBuffer asByteBuffer() {
+        List<ByteBuffer> mapped = mapped();
+        if (1 != mapped.size()) {
+            throw new HttpException("Body of " + length + " bytes does not fit in a single buffer, use chunks()");
+        }
+        return mapped.get(0).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long transferred = file.transferTo(position, end - position, channel);
+                if ((transferred <= 0L) && (position >= file.size())) {
+                    throw new HttpException("File " + path + " ended before " + end + " bytes");
+                }
+                position += transferred;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Transfers the range through a channel over the stream rather than mapping it. The stream is not closed.
+     */
+    @Override
+    public long writeTo(OutputStream out) throws IOException {
+        return writeTo(Channels.newChannel(out));
+    }
+
+    /**
+     * Gets a slice of the same file, which is still written by transfer.
+     */
+    @Override
+    public Body slice(long sliceOffset, long sliceLength) {
+        checkSlice(sliceOffset, sliceLength);
+        if ((0L == sliceOffset) && (sliceLength == length)) {
+            return this;
+        }
+        return new FileBody(path, offset + sliceOffset, sliceLength);
+    }
+
+    /**
+     * Copies the regions into one heap buffer when there is more than one, for decoding and copying.
+     */
+    @Override
+    ByteBuffer internalBuffer() {
+        List<ByteBuffer> all = mapped();
+        return (1 == all.size()) ? all.get(0).asReadOnlyBuffer() : copyChunks(all, length);
+    }
+
+    @Override
+    List<ByteBuffer> internalChunks() {
+        return mapped();
+    }
+
+    private List<ByteBuffer> mapped() {
+        List<ByteBuffer> current = regions;
+        return (null != current) ? current : map();
+    }
+
+    private synchronized List<ByteBuffer> map() {
+        if (null != regions) {
+            return regions;
+        }
+        if (0L == length) {
+            regions = Collections.singletonList(ByteBuffer.allocate(0));
+            return regions;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (file.size() < offset + length) {
+                throw new HttpException("File " + path + " ended before " + (offset + length) + " bytes");
+            }
+            List<ByteBuffer> mapped = new ArrayList<>((int) ((length - 1) / BodySpooler.MAX_REGION_SIZE) + 1);
+            for (long position = 0L; position < length; position += BodySpooler.MAX_REGION_SIZE) {
+                long size = Math.min(BodySpooler.MAX_REGION_SIZE, length - position);
+                mapped.add(file.map(FileChannel.MapMode.READ_ONLY, offset + position, size));
+            }
+            regions = Collections.unmodifiableList(mapped);
+            return regions;
+        } catch (IOException ioe) {
+            throw new HttpException("Error mapping " + path, ioe);
+        }
+    }
+
+}
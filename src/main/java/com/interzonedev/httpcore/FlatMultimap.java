@@ -0,0 +1,742 @@
+package com.interzonedev.httpcore;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable, multi-valued map of names to string values stored in flat parallel arrays: one array of distinct names,
+ * one array of the hash of each name, one array of offsets and one array holding every value, grouped by name.
+ * Subclasses decide how names are compared. Lookups compute the hash of the requested name, scan the hash array and
+ * confirm candidates with {@link #nameEquals(String, CharSequence)}, so they never allocate.
+ *
+ * <p>
+ * The arrays may be longer than the number of entries in use, which lets an {@link Editor} hand its arrays to a new
+ * instance without trimming them. An {@link Editor} created from an existing instance shares that instance's arrays
+ * and only copies them when it is first modified, and again after each call to {@link Editor#build()}.
+ * </p>
+ *
+ * @param <T> The concrete type of this map.
+ *
+ * @author mark@interzonedev.com
+ */
+abstract class FlatMultimap<T extends FlatMultimap<T>> {
+
+    static final String[] NO_STRINGS = new String[0];
+
+    static final int[] NO_INTS = new int[0];
+
+    static final int[] EMPTY_OFFSETS = new int[]{0};
+
+    final String[] names;
+    final int[] nameHashes;
+    final int[] offsets;
+    final String[] values;
+    final int size;
+
+    private int hash;
+    private Map<String, List<String>> mapView;
+
+    /**
+     * Creates a new {@link FlatMultimap} from the specified arrays, which must not be modified afterwards.
+     *
+     * @param names The distinct names, of which the first size are in use.
+     * @param nameHashes The {@link #nameHash(CharSequence)} of each name.
+     * @param offsets The index into the values of the first value of each name followed by the total number of values.
+     * @param values The values of every name, grouped by name in the same order as the names.
+     * @param size The number of names in use.
+     */
+    FlatMultimap(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+        this.names = names;
+        this.nameHashes = nameHashes;
+        this.offsets = offsets;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Creates a new map of the concrete type over the specified arrays, which must not be modified afterwards.
+     */
+    abstract T create(String[] names, int[] nameHashes, int[] offsets, String[] values, int size);
+
+    /**
+     * Copies this map into arrays exactly as long as needed, passing every name and value through the specified
+     * function, which may swap them for equal instances that are shared with other maps.
+     *
+     * @param intern The function that returns a string equal to its argument.
+     *
+     * @return Returns the compacted map, or this map if it is empty.
+     */
+    @SuppressWarnings("unchecked")
+    T compact(UnaryOperator<String> intern) {
+        if (0 == size) {
+            return (T) this;
+        }
+        int valueCount = offsets[size];
+        String[] compactNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            compactNames[i] = intern.apply(names[i]);
+        }
+        String[] compactValues = new String[valueCount];
+        for (int i = 0; i < valueCount; i++) {
+            compactValues[i] = (null != values[i]) ? intern.apply(values[i]) : null;
+        }
+        return create(compactNames, Arrays.copyOf(nameHashes, size), Arrays.copyOf(offsets, size + 1), compactValues,
+                size);
+    }
+
+    /**
+     * Computes the hash of the specified name. Names that are equal according to
+     * {@link #nameEquals(String, CharSequence)} must have the same hash.
+     *
+     * @param name The name to hash.
+     *
+     * @return Returns the hash of the specified name.
+     */
+    abstract int nameHash(CharSequence name);
+
+    /**
+     * Determines whether a stored name matches a requested name.
+     *
+     * @param stored A name stored in this map.
+     * @param requested A requested name.
+     *
+     * @return Returns true if the names match.
+     */
+    abstract boolean nameEquals(String stored, CharSequence requested);
+
+    /**
+     * Gets the first value of the specified name.
+     *
+     * @param name The name to look up.
+     *
+     * @return Returns the first value of the specified name or null if it is not present or has no values.
+     */
+    public String getFirst(CharSequence name) {
+        int index = indexOf(name);
+        if ((index < 0) || (offsets[index] == offsets[index + 1])) {
+            return null;
+        }
+        return values[offsets[index]];
+    }
+
+    /**
+     * Gets all of the values of the specified name.
+     *
+     * @param name The name to look up.
+     *
+     * @return Returns an immutable list of the values of the specified name, which is empty if it is not present.
+     */
+    public List<String> getAll(CharSequence name) {
+        int index = indexOf(name);
+        return (index < 0) ? Collections.<String>emptyList() : getValues(index);
+    }
+
+    /**
+     * Determines whether the specified name is present.
+     *
+     * @param name The name to look up.
+     *
+     * @return Returns true if the specified name is present.
+     */
+    public boolean contains(CharSequence name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Gets the position of the specified name, for use with {@link #getName(int)} and {@link #getValues(int)}.
+     *
+     * @param name The name to look up.
+     *
+     * @return Returns the position of the specified name or -1 if it is not present.
+     */
+    public int indexOf(CharSequence name) {
+        if (null == name) {
+            return -1;
+        }
+        return indexOf(names, nameHashes, size, name, nameHash(name));
+    }
+
+    /**
+     * Gets the number of distinct names.
+     *
+     * @return Returns the number of distinct names.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the total number of values across all names.
+     *
+     * @return Returns the total number of values.
+     */
+    public int valueCount() {
+        return offsets[size];
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    /**
+     * Gets the name at the specified position, spelled as it was added.
+     *
+     * @param index The position of the name, from zero to {@link #size()} exclusive.
+     *
+     * @return Returns the name at the specified position.
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * Gets the values of the name at the specified position.
+     *
+     * @param index The position of the name, from zero to {@link #size()} exclusive.
+     *
+     * @return Returns an immutable list view of the values of the name at the specified position.
+     */
+    public List<String> getValues(int index) {
+        checkIndex(index);
+        return new ValueList(values, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * Gets a read-only {@link Map} view of this map. {@link Map#get(Object)} and {@link Map#containsKey(Object)} match
+     * names the same way as {@link #getAll(CharSequence)}.
+     *
+     * @return Returns a read-only {@link Map} view of this map.
+     */
+    public Map<String, List<String>> asMap() {
+        Map<String, List<String>> view = mapView;
+        if (null == view) {
+            view = new MapView(this);
+            mapView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Two maps of the same type are equal if they have the same names, spelled the same way, with the same values in
+     * the same order. The order of the names does not matter. This is consistent with {@link Map#equals(Object)}.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if ((null == obj) || (obj.getClass() != getClass())) {
+            return false;
+        }
+
+        FlatMultimap<?> that = (FlatMultimap<?>) obj;
+
+        if ((size != that.size) || (valueCount() != that.valueCount())) {
+            return false;
+        }
+
+        if ((0 != hash) && (0 != that.hash) && (hash != that.hash)) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int j = that.indexOf(names[i]);
+            if ((j < 0) || !names[i].equals(that.names[j]) || !rangeEquals(that, i, j)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean rangeEquals(FlatMultimap<?> that, int i, int j) {
+        int count = offsets[i + 1] - offsets[i];
+        if (count != (that.offsets[j + 1] - that.offsets[j])) {
+            return false;
+        }
+        for (int k = 0; k < count; k++) {
+            if (!Objects.equals(values[offsets[i] + k], that.values[that.offsets[j] + k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computed as {@link Map#hashCode()} of {@link #asMap()} without creating any entries, and cached.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (0 == h) {
+            for (int i = 0; i < size; i++) {
+                h += names[i].hashCode() ^ valuesHash(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Computes the hash code of {@link #asMap()}, which hashes each name with {@link #nameHash(CharSequence)} so that
+     * views that are equal under the naming rules of this map have equal hash codes.
+     *
+     * @return Returns the hash code of the {@link Map} view.
+     */
+    int viewHashCode() {
+        int h = 0;
+        for (int i = 0; i < size; i++) {
+            h += nameHashes[i] ^ valuesHash(i);
+        }
+        return h;
+    }
+
+    /**
+     * Computes {@link List#hashCode()} of the values at the specified position without creating the list.
+     */
+    private int valuesHash(int index) {
+        int h = 1;
+        for (int k = offsets[index]; k < offsets[index + 1]; k++) {
+            h = 31 * h + ((null != values[k]) ? values[k].hashCode() : 0);
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper("");
+        for (int i = 0; i < size; i++) {
+            helper.add(names[i], getValues(i));
+        }
+        return helper.toString();
+    }
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    int indexOf(String[] names, int[] nameHashes, int count, CharSequence name, int nameHash) {
+        for (int i = 0; i < count; i++) {
+            if ((nameHashes[i] == nameHash) && nameEquals(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mutable, copy-on-write editor for creating instances of a {@link FlatMultimap}. Values are kept grouped by name,
+     * so adding a value to a name that is already present shifts the values after it.
+     *
+     * @param <T> The type of {@link FlatMultimap} built.
+     * @param <B> The concrete type of this editor, returned by each edit for chaining.
+     */
+    abstract static class Editor<T extends FlatMultimap<T>, B extends Editor<T, B>> {
+
+        private final T prototype;
+
+        private String[] names;
+        private int[] nameHashes;
+        private int[] offsets;
+        private String[] values;
+        private int size;
+
+        /**
+         * Whether the arrays are shared with a built instance and must be copied before they are modified.
+         */
+        private boolean shared;
+
+        /**
+         * Creates an {@link Editor} whose initial entries are those of the specified map. The map's arrays are shared
+         * until the first edit.
+         *
+         * @param template The map with the initial entries. Also used for name hashing and comparison.
+         */
+        Editor(T template) {
+            this.prototype = template;
+            this.names = template.names;
+            this.nameHashes = template.nameHashes;
+            this.offsets = template.offsets;
+            this.values = template.values;
+            this.size = template.size;
+            this.shared = true;
+        }
+
+        /**
+         * Adds all of the entries of the specified {@link Map}, merging names that match existing ones.
+         *
+         * @param entries The entries to add. Ignored if null.
+         *
+         * @return Returns this editor.
+         */
+        public B addAll(Map<String, ? extends Collection<String>> entries) {
+            if (null != entries) {
+                for (Map.Entry<String, ? extends Collection<String>> entry : entries.entrySet()) {
+                    add(entry.getKey(), entry.getValue());
+                }
+            }
+            return self();
+        }
+
+        /**
+         * Creates a new map over the specified arrays.
+         */
+        T create(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+            return prototype.create(names, nameHashes, offsets, values, size);
+        }
+
+        /**
+         * Gets the instance to store for the specified name, which allows names to be interned.
+         */
+        String canonicalName(String name) {
+            return name;
+        }
+
+        @SuppressWarnings("unchecked")
+        private B self() {
+            return (B) this;
+        }
+
+        /**
+         * Adds a value to the specified name, after any values it already has.
+         *
+         * @param name The name.
+         * @param value The value to add.
+         *
+         * @return Returns this editor.
+         */
+        public B add(String name, String value) {
+            return add(name, Collections.singletonList(value));
+        }
+
+        /**
+         * Adds values to the specified name, after any values it already has. The name is added even if there are no
+         * values.
+         *
+         * @param name The name.
+         * @param newValues The values to add. Treated as empty if null.
+         *
+         * @return Returns this editor.
+         */
+        public B add(String name, Collection<String> newValues) {
+            int index = find(name);
+            if (index < 0) {
+                index = appendName(name);
+            }
+            insertValues(index, offsets[index + 1], newValues);
+            return self();
+        }
+
+        /**
+         * Replaces all of the values of the specified name. A name that is already present keeps its position and
+         * spelling.
+         *
+         * @param name The name.
+         * @param value The only value of the name.
+         *
+         * @return Returns this editor.
+         */
+        public B set(String name, String value) {
+            return set(name, Collections.singletonList(value));
+        }
+
+        /**
+         * Replaces all of the values of the specified name. A name that is already present keeps its position and
+         * spelling.
+         *
+         * @param name The name.
+         * @param newValues The values of the name. Treated as empty if null.
+         *
+         * @return Returns this editor.
+         */
+        public B set(String name, Collection<String> newValues) {
+            int index = find(name);
+            if (index < 0) {
+                return add(name, newValues);
+            }
+            removeValues(index);
+            insertValues(index, offsets[index], newValues);
+            return self();
+        }
+
+        /**
+         * Removes the specified name and all of its values.
+         *
+         * @param name The name to remove.
+         *
+         * @return Returns this editor.
+         */
+        public B remove(String name) {
+            int index = find(name);
+            if (index < 0) {
+                return self();
+            }
+
+            ensureWritable(size, offsets[size]);
+            removeValues(index);
+            System.arraycopy(names, index + 1, names, index, size - index - 1);
+            System.arraycopy(nameHashes, index + 1, nameHashes, index, size - index - 1);
+            System.arraycopy(offsets, index + 1, offsets, index, size - index);
+            size--;
+            names[size] = null;
+
+            return self();
+        }
+
+        /**
+         * Removes all names and values.
+         *
+         * @return Returns this editor.
+         */
+        public B clear() {
+            names = NO_STRINGS;
+            nameHashes = NO_INTS;
+            offsets = EMPTY_OFFSETS;
+            values = NO_STRINGS;
+            size = 0;
+            shared = true;
+            return self();
+        }
+
+        /**
+         * Creates a new map from the entries of this editor. The editor may continue to be used afterwards; its next
+         * edit copies the arrays handed to the built map.
+         *
+         * @return Returns a new map holding the entries of this editor.
+         */
+        public T build() {
+            if (0 == size) {
+                return create(NO_STRINGS, NO_INTS, EMPTY_OFFSETS, NO_STRINGS, 0);
+            }
+            shared = true;
+            return create(names, nameHashes, offsets, values, size);
+        }
+
+        private int find(String name) {
+            if (null == name) {
+                throw new NullPointerException("Names must not be null");
+            }
+            return prototype.indexOf(names, nameHashes, size, name, prototype.nameHash(name));
+        }
+
+        private int appendName(String name) {
+            ensureWritable(size + 1, offsets[size]);
+            names[size] = canonicalName(name);
+            nameHashes[size] = prototype.nameHash(name);
+            offsets[size + 1] = offsets[size];
+            return size++;
+        }
+
+        private void insertValues(int index, int insertAt, Collection<String> newValues) {
+            int count = (null != newValues) ? newValues.size() : 0;
+            if (0 == count) {
+                return;
+            }
+
+            int valueCount = offsets[size];
+            ensureWritable(size, valueCount + count);
+            System.arraycopy(values, insertAt, values, insertAt + count, valueCount - insertAt);
+            for (String value : newValues) {
+                values[insertAt++] = value;
+            }
+            for (int i = index + 1; i <= size; i++) {
+                offsets[i] += count;
+            }
+        }
+
+        private void removeValues(int index) {
+            int from = offsets[index];
+            int count = offsets[index + 1] - from;
+            if (0 == count) {
+                return;
+            }
+
+            int valueCount = offsets[size];
+            ensureWritable(size, valueCount);
+            System.arraycopy(values, from + count, values, from, valueCount - from - count);
+            Arrays.fill(values, valueCount - count, valueCount, null);
+            for (int i = index + 1; i <= size; i++) {
+                offsets[i] -= count;
+            }
+        }
+
+        /**
+         * Makes sure the arrays are private to this editor and can hold the specified number of names and values.
+         */
+        private void ensureWritable(int nameCapacity, int valueCapacity) {
+            if (shared || (nameCapacity > names.length)) {
+                int capacity = grow(names.length, nameCapacity);
+                names = Arrays.copyOf(names, capacity);
+                nameHashes = Arrays.copyOf(nameHashes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+            }
+            if (shared || (valueCapacity > values.length)) {
+                values = Arrays.copyOf(values, grow(values.length, valueCapacity));
+            }
+            shared = false;
+        }
+
+        private static int grow(int current, int required) {
+            return (required <= current) ? current : Math.max(required, current + (current >> 1) + 2);
+        }
+    }
+
+    /**
+     * Immutable view of a range of the values array.
+     */
+    private static final class ValueList extends AbstractList<String> implements RandomAccess {
+
+        private final String[] values;
+        private final int from;
+        private final int to;
+
+        private ValueList(String[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            if ((index < 0) || (index >= to - from)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return values[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Read-only {@link Map} view that looks names up with the rules of the underlying map.
+     *
+     * <p>
+     * Other maps compare themselves to the view through {@link #get(Object)}, so {@link #equals(Object)} matches names
+     * with the same rules in the other direction and equality with any {@link Map} is symmetric. {@link #hashCode()}
+     * hashes each name with the same rules, so equal views have equal hash codes whatever the spelling of their names.
+     * As with a {@link java.util.TreeMap} ordered case-insensitively, an equal map of another kind has the same hash
+     * code only if it spells the names as the rules normalize them, in lower case for headers.
+     * </p>
+     */
+    static final class MapView extends AbstractMap<String, List<String>> {
+
+        private final FlatMultimap<?> map;
+
+        private MapView(FlatMultimap<?> map) {
+            this.map = map;
+        }
+
+        FlatMultimap<?> map() {
+            return map;
+        }
+
+        @Override
+        public List<String> get(Object key) {
+            if (!(key instanceof CharSequence)) {
+                return null;
+            }
+            int index = map.indexOf((CharSequence) key);
+            return (index < 0) ? null : map.getValues(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return (key instanceof CharSequence) && map.contains((CharSequence) key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Map)) {
+                return false;
+            }
+
+            Map<?, ?> that = (Map<?, ?>) obj;
+
+            if (that.size() != map.size()) {
+                return false;
+            }
+
+            for (Map.Entry<?, ?> entry : that.entrySet()) {
+                List<String> values = get(entry.getKey());
+                if ((null == values) || !values.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return map.viewHashCode();
+        }
+
+        @Override
+        public Set<Map.Entry<String, List<String>>> entrySet() {
+            return new AbstractSet<Map.Entry<String, List<String>>>() {
+                @Override
+                public Iterator<Map.Entry<String, List<String>>> iterator() {
+                    return new Iterator<Map.Entry<String, List<String>>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < map.size();
+                        }
+
+                        @Override
+                        public Map.Entry<String, List<String>> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = index++;
+                            return new AbstractMap.SimpleImmutableEntry<>(map.getName(current),
+                                    map.getValues(current));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
+
+}
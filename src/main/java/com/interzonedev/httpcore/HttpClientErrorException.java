@@ -0,0 +1,17 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpStatusException} for a 4xx status, which the request itself caused. Only 408 Request Timeout and 429 Too
+ * Many Requests are {@link Retryable}. Created by {@link HttpStatusException#of(Response)}.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpClientErrorException extends HttpStatusException {
+
+    private static final long serialVersionUID = 6128946512637519843L;
+
+    protected HttpClientErrorException(String message, Response response) {
+        super(message, response);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpException} for an exchange that failed on the network: the connection could not be made, was reset or
+ * closed before the response was complete. Always {@link Retryable}.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpConnectionException extends HttpException implements Retryable {
+
+    private static final long serialVersionUID = -8431716245917010265L;
+
+    /**
+     * @param message The detail message.
+     * @param cause The cause, usually an {@link java.io.IOException}.
+     * @param request The {@link Request} that failed.
+     */
+    public HttpConnectionException(String message, Throwable cause, Request request) {
+        super(message, cause, request, null);
+    }
+
+}
@@ -0,0 +1,498 @@
+package com.interzonedev.httpcore;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * Immutable cookie as set by a Set-Cookie header (RFC 6265), independent of the servlet API.
+ *
+ * <p>
+ * {@link #parse(String)} follows the lenient algorithm of RFC 6265 section 5.2: unknown attributes are ignored, the
+ * last occurrence of an attribute wins, and Expires dates are read with the forgiving date algorithm of section
+ * 5.1.1. The Domain attribute is kept without its leading dot and in lower case. The Max-Age attribute, when present,
+ * takes precedence over Expires when the cookie is stored.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HttpCookie {
+
+    /**
+     * Marks a cookie without a Max-Age attribute.
+     */
+    public static final long NO_MAX_AGE = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter EXPIRES_FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+    private final String name;
+    private final String value;
+    private final String domain;
+    private final String path;
+    private final Instant expires;
+    private final long maxAge;
+    private final boolean secure;
+    private final boolean httpOnly;
+    private final String sameSite;
+
+    /**
+     * Cached hash code. Zero until first computed, which is safe to race on because every thread computes the same
+     * value.
+     */
+    private int hash;
+
+    private HttpCookie(Builder builder) {
+        this.name = builder.name;
+        this.value = builder.value;
+        this.domain = builder.domain;
+        this.path = builder.path;
+        this.expires = builder.expires;
+        this.maxAge = builder.maxAge;
+        this.secure = builder.secure;
+        this.httpOnly = builder.httpOnly;
+        this.sameSite = builder.sameSite;
+    }
+
+    /**
+     * Gets a {@link Builder} for a cookie with the specified name and value.
+     *
+     * @param name The name of the cookie, which must not be empty.
+     * @param value The value of the cookie.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(String name, String value) {
+        return new Builder(name, value);
+    }
+
+    /**
+     * Gets a {@link Builder} with initial values set from the specified template {@link HttpCookie}.
+     *
+     * @param template The {@link HttpCookie} from which to get the initial values.
+     *
+     * @return Returns a {@link Builder} with the values of the template.
+     */
+    public static Builder newBuilder(HttpCookie template) {
+        return new Builder(template);
+    }
+
+    /**
+     * Parses the value of a Set-Cookie header.
+     *
+     * @param setCookie The value of the header.
+     *
+     * @return Returns the {@link HttpCookie}, or null if the header has no name-value pair or an empty name, which
+     *         RFC 6265 says to ignore.
+     */
+    public static HttpCookie parse(String setCookie) {
+        if (null == setCookie) {
+            return null;
+        }
+        int pairEnd = setCookie.indexOf(';');
+        if (pairEnd < 0) {
+            pairEnd = setCookie.length();
+        }
+        int equals = setCookie.indexOf('=');
+        if ((equals < 0) || (equals > pairEnd)) {
+            return null;
+        }
+        String name = setCookie.substring(0, equals).trim();
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        Builder builder = new Builder(name, setCookie.substring(equals + 1, pairEnd).trim());
+        int start = pairEnd + 1;
+        while (start < setCookie.length()) {
+            int end = setCookie.indexOf(';', start);
+            if (end < 0) {
+                end = setCookie.length();
+            }
+            int attributeEquals = setCookie.indexOf('=', start);
+            boolean hasValue = (attributeEquals >= 0) && (attributeEquals < end);
+            String attribute = setCookie.substring(start, hasValue ? attributeEquals : end).trim();
+            String attributeValue = hasValue ? setCookie.substring(attributeEquals + 1, end).trim() : "";
+            applyAttribute(builder, attribute, attributeValue);
+            start = end + 1;
+        }
+        return builder.build();
+    }
+
+    private static void applyAttribute(Builder builder, String attribute, String value) {
+        if ("expires".equalsIgnoreCase(attribute)) {
+            Instant expires = parseDate(value);
+            if (null != expires) {
+                builder.expires = expires;
+            }
+        } else if ("max-age".equalsIgnoreCase(attribute)) {
+            builder.maxAge = parseMaxAge(value, builder.maxAge);
+        } else if ("domain".equalsIgnoreCase(attribute)) {
+            String domain = value.startsWith(".") ? value.substring(1) : value;
+            builder.domain = domain.isEmpty() ? null : domain.toLowerCase(Locale.ROOT);
+        } else if ("path".equalsIgnoreCase(attribute)) {
+            builder.path = value.startsWith("/") ? value : null;
+        } else if ("secure".equalsIgnoreCase(attribute)) {
+            builder.secure = true;
+        } else if ("httponly".equalsIgnoreCase(attribute)) {
+            builder.httpOnly = true;
+        } else if ("samesite".equalsIgnoreCase(attribute)) {
+            builder.sameSite = value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Reads a Max-Age value: an optional minus sign and digits. Anything else is ignored.
+     */
+    private static long parseMaxAge(String value, long current) {
+        int start = value.startsWith("-") ? 1 : 0;
+        if (start == value.length()) {
+            return current;
+        }
+        for (int i = start; i < value.length(); i++) {
+            if ((value.charAt(i) < '0') || (value.charAt(i) > '9')) {
+                return current;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException nfe) {
+            // Too many digits: saturate rather than ignore.
+            return (0 == start) ? Long.MAX_VALUE : 0L;
+        }
+    }
+
+    /**
+     * Parses a cookie date with the algorithm of RFC 6265 section 5.1.1, which accepts the IMF-fixdate, RFC 850 and
+     * asctime formats and most of what servers actually send.
+     *
+     * @param date The date.
+     *
+     * @return Returns the {@link Instant}, or null if the date is not valid.
+     */
+    static Instant parseDate(String date) {
+        int hour = -1;
+        int minute = -1;
+        int second = -1;
+        int day = -1;
+        int month = -1;
+        int year = -1;
+
+        int i = 0;
+        int length = date.length();
+        while (i < length) {
+            while ((i < length) && isDateDelimiter(date.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while ((i < length) && !isDateDelimiter(date.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            String token = date.substring(start, i);
+
+            if ((hour < 0) && (token.indexOf(':') > 0)) {
+                int[] time = parseTime(token);
+                if (null != time) {
+                    hour = time[0];
+                    minute = time[1];
+                    second = time[2];
+                    continue;
+                }
+            }
+            int digits = leadingDigits(token);
+            if ((day < 0) && ((1 == digits) || (2 == digits))) {
+                day = Integer.parseInt(token.substring(0, digits));
+                continue;
+            }
+            if ((month < 0) && (token.length() >= 3)) {
+                int index = MONTHS.indexOf(token.substring(0, 3).toLowerCase(Locale.ROOT));
+                if ((index >= 0) && (0 == index % 3)) {
+                    month = index / 3 + 1;
+                    continue;
+                }
+            }
+            if ((year < 0) && (digits >= 2) && (digits <= 4)) {
+                year = Integer.parseInt(token.substring(0, digits));
+            }
+        }
+
+        if ((70 <= year) && (year <= 99)) {
+            year += 1900;
+        } else if ((0 <= year) && (year <= 69)) {
+            year += 2000;
+        }
+        if ((hour < 0) || (day < 1) || (day > 31) || (month < 0) || (year < 1601) || (hour > 23) || (minute > 59)
+                || (second > 59)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second).toInstant(ZoneOffset.UTC);
+        } catch (RuntimeException re) {
+            // For example the 31st of a 30 day month.
+            return null;
+        }
+    }
+
+    private static boolean isDateDelimiter(char c) {
+        return (0x09 == c) || ((0x20 <= c) && (c <= 0x2f)) || ((0x3b <= c) && (c <= 0x40))
+                || ((0x5b <= c) && (c <= 0x60)) || ((0x7b <= c) && (c <= 0x7e));
+    }
+
+    private static int leadingDigits(String token) {
+        int digits = 0;
+        while ((digits < token.length()) && (token.charAt(digits) >= '0') && (token.charAt(digits) <= '9')) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int[] parseTime(String token) {
+        String[] fields = token.split(":", -1);
+        if (3 != fields.length) {
+            return null;
+        }
+        int[] time = new int[3];
+        for (int i = 0; i < 3; i++) {
+            int digits = leadingDigits(fields[i]);
+            if ((digits < 1) || (digits > 2) || ((i < 2) && (digits != fields[i].length()))) {
+                return null;
+            }
+            time[i] = Integer.parseInt(fields[i].substring(0, digits));
+        }
+        return time;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return Returns the Domain attribute in lower case and without a leading dot, or null for a host-only cookie.
+     */
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return Returns the Path attribute, or null if there is none or it does not start with a slash.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return Returns the Expires attribute, or null if there is none.
+     */
+    public Instant getExpires() {
+        return expires;
+    }
+
+    /**
+     * @return Returns the Max-Age attribute in seconds, or {@link #NO_MAX_AGE} if there is none.
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public boolean isHttpOnly() {
+        return httpOnly;
+    }
+
+    /**
+     * @return Returns the SameSite attribute as sent, or null if there is none.
+     */
+    public String getSameSite() {
+        return sameSite;
+    }
+
+    /**
+     * Determines whether this cookie lasts only as long as the session, having neither Max-Age nor Expires.
+     *
+     * @return Returns true if this is a session cookie.
+     */
+    public boolean isSession() {
+        return (NO_MAX_AGE == maxAge) && (null == expires);
+    }
+
+    /**
+     * Formats this cookie as the value of a Set-Cookie header.
+     *
+     * @return Returns the Set-Cookie header value.
+     */
+    public String toSetCookieHeader() {
+        StringBuilder header = new StringBuilder(name.length() + value.length() + 64);
+        header.append(name).append('=').append(value);
+        if (null != expires) {
+            header.append("; Expires=").append(EXPIRES_FORMAT.format(expires));
+        }
+        if (NO_MAX_AGE != maxAge) {
+            header.append("; Max-Age=").append(maxAge);
+        }
+        if (null != domain) {
+            header.append("; Domain=").append(domain);
+        }
+        if (null != path) {
+            header.append("; Path=").append(path);
+        }
+        if (secure) {
+            header.append("; Secure");
+        }
+        if (httpOnly) {
+            header.append("; HttpOnly");
+        }
+        if (null != sameSite) {
+            header.append("; SameSite=").append(sameSite);
+        }
+        return header.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (0 == h) {
+            h = Objects.hashCode(name, value, domain, path, expires, maxAge, secure, httpOnly, sameSite);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HttpCookie)) {
+            return false;
+        }
+        HttpCookie that = (HttpCookie) obj;
+        return name.equals(that.name) && value.equals(that.value) && Objects.equal(domain, that.domain)
+                && Objects.equal(path, that.path) && Objects.equal(expires, that.expires) && (maxAge == that.maxAge)
+                && (secure == that.secure) && (httpOnly == that.httpOnly) && Objects.equal(sameSite, that.sameSite);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("name", name).add("value", value).add("domain", domain)
+                .add("path", path).add("expires", expires).add("maxAge", (NO_MAX_AGE != maxAge) ? maxAge : null)
+                .add("secure", secure).add("httpOnly", httpOnly).add("sameSite", sameSite).omitNullValues()
+                .toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link HttpCookie}.
+     */
+    public static class Builder {
+
+        private final String name;
+        private String value;
+        private String domain;
+        private String path;
+        private Instant expires;
+        private long maxAge = NO_MAX_AGE;
+        private boolean secure;
+        private boolean httpOnly;
+        private String sameSite;
+
+        private Builder(String name, String value) {
+            if ((null == name) || name.isEmpty()) {
+                throw new IllegalArgumentException("The cookie name must be set");
+            }
+            this.name = name;
+            this.value = (null != value) ? value : "";
+        }
+
+        private Builder(HttpCookie template) {
+            this.name = template.name;
+            this.value = template.value;
+            this.domain = template.domain;
+            this.path = template.path;
+            this.expires = template.expires;
+            this.maxAge = template.maxAge;
+            this.secure = template.secure;
+            this.httpOnly = template.httpOnly;
+            this.sameSite = template.sameSite;
+        }
+
+        public HttpCookie build() {
+            return new HttpCookie(this);
+        }
+
+        public Builder setValue(String value) {
+            this.value = (null != value) ? value : "";
+            return this;
+        }
+
+        /**
+         * Sets the Domain attribute. A leading dot is dropped and the domain is kept in lower case.
+         *
+         * @param domain The domain, or null for a host-only cookie.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setDomain(String domain) {
+            if (null != domain) {
+                String trimmed = domain.startsWith(".") ? domain.substring(1) : domain;
+                this.domain = trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+            } else {
+                this.domain = null;
+            }
+            return this;
+        }
+
+        public Builder setPath(String path) {
+            this.path = path;
+            return this;
+        }
+
+        public Builder setExpires(Instant expires) {
+            this.expires = expires;
+            return this;
+        }
+
+        /**
+         * Sets the Max-Age attribute.
+         *
+         * @param maxAge The lifetime in seconds, zero or less to expire the cookie at once, or {@link #NO_MAX_AGE}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxAge(long maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        public Builder setSecure(boolean secure) {
+            this.secure = secure;
+            return this;
+        }
+
+        public Builder setHttpOnly(boolean httpOnly) {
+            this.httpOnly = httpOnly;
+            return this;
+        }
+
+        public Builder setSameSite(String sameSite) {
+            this.sameSite = sameSite;
+            return this;
+        }
+    }
+
+}
@@ -2,6 +2,22 @@ package com.interzonedev.httpcore;
 
 /**
  * Unchecked exception for HTTP actions.
+ *
+ * <p>
+ * The subclasses describe failures of an exchange: {@link HttpStatusException} and its subclasses for error
+ * statuses, {@link HttpTimeoutException} and {@link HttpConnectionException} for exchanges that did not complete,
+ * {@link HttpRejectedException} for those refused by an overloaded client and {@link HttpTransportException} for any
+ * other failure. They carry the {@link Request}, the {@link Response} if there was one, and its status. Those that
+ * are worth trying again implement {@link Retryable}.
+ * </p>
+ *
+ * <p>
+ * These failures can be thrown thousands of times a second when an upstream browns out, so their constructors do not
+ * capture a stack trace, which is most of the cost of creating an exception and says little about a failure of the
+ * network or the server. Set the system property {@value #FULL_STACK_TRACES_PROPERTY} to {@code true}, or call
+ * {@link #setFullStackTraces(boolean)}, to capture them while debugging. The public constructors of this class
+ * always capture one, as they always have.
+ * </p>
  * 
  * @author mark@interzonedev.com
  */
@@ -9,24 +25,101 @@ public class HttpException extends RuntimeException {
 
     private static final long serialVersionUID = 4915090233972408400L;
 
+    public static final String FULL_STACK_TRACES_PROPERTY = "com.interzonedev.httpcore.fullStackTraces";
+
+    private static volatile boolean fullStackTraces = Boolean.getBoolean(FULL_STACK_TRACES_PROPERTY);
+
+    /**
+     * Not serialized, since neither {@link Request} nor {@link Response} is serializable.
+     */
+    private final transient Request request;
+    private final transient Response response;
+
     public HttpException() {
         super();
+        this.request = null;
+        this.response = null;
     }
 
     public HttpException(String message) {
         super(message);
+        this.request = null;
+        this.response = null;
     }
 
     public HttpException(Throwable cause) {
         super(cause);
+        this.request = null;
+        this.response = null;
     }
 
     public HttpException(String message, Throwable cause) {
         super(message, cause);
+        this.request = null;
+        this.response = null;
     }
 
     public HttpException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
+        this.request = null;
+        this.response = null;
+    }
+
+    /**
+     * Creates an exception for a failed exchange, capturing a stack trace only if full stack traces are on.
+     *
+     * @param message The detail message.
+     * @param cause The cause, or null.
+     * @param request The {@link Request} of the exchange, or null.
+     * @param response The {@link Response} of the exchange, or null if there was none.
+     */
+    protected HttpException(String message, Throwable cause, Request request, Response response) {
+        super(message, cause, true, fullStackTraces);
+        this.request = (null != request) ? request : ((null != response) ? response.getRequest() : null);
+        this.response = response;
+    }
+
+    /**
+     * Turns the capture of stack traces by the exchange failures on or off for the whole JVM.
+     *
+     * @param enabled True to capture full stack traces.
+     */
+    public static void setFullStackTraces(boolean enabled) {
+        fullStackTraces = enabled;
+    }
+
+    public static boolean isFullStackTraces() {
+        return fullStackTraces;
+    }
+
+    /**
+     * @return Returns the {@link Request} of the failed exchange, or null if it is not known.
+     */
+    public Request getRequest() {
+        return request;
+    }
+
+    /**
+     * @return Returns the {@link Response} of the failed exchange, or null if there was none.
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return Returns the status of the {@link Response}, or 0 if there was none.
+     */
+    public int getStatus() {
+        return (null != response) ? response.getStatus() : 0;
+    }
+
+    /**
+     * Determines whether the failed exchange is worth trying again, if its method allows.
+     *
+     * @return Returns true if this exception is {@link Retryable}.
+     */
+    public boolean isRetryable() {
+        return this instanceof Retryable;
     }
 
 }
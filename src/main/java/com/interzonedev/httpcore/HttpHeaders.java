@@ -0,0 +1,215 @@
+package com.interzonedev.httpcore;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Immutable, multi-valued collection of HTTP headers with case-insensitive lookup of header names.
+ *
+ * <p>
+ * Headers are stored in flat parallel arrays: one array of distinct names, one array of the case-insensitive hash of
+ * each name, one array of offsets and one array holding every value, grouped by name. Looking a header up computes the
+ * case-insensitive hash of the requested name, scans the hash array and confirms candidates with an ASCII
+ * case-insensitive comparison, so lookups never allocate. Well known header names are interned so that headers built
+ * from parsed input share a single {@link String} instance per name.
+ * </p>
+ *
+ * <p>
+ * The original spelling of each name is preserved. Names that differ only in case are treated as the same header and
+ * their values are merged under the first spelling seen. {@link #asMap()} provides a read-only {@link Map} view for
+ * callers that work with {@code Map<String, List<String>>}; its {@link Map#get(Object)} and
+ * {@link Map#containsKey(Object)} are also case-insensitive.
+ * </p>
+ *
+ * <p>
+ * Use {@link #newBuilder(HttpHeaders)} to derive new headers from existing ones. The builder shares the arrays of the
+ * template until it is first modified.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HttpHeaders extends FlatMultimap<HttpHeaders> {
+
+    private static final HttpHeaders EMPTY = new HttpHeaders(NO_STRINGS, NO_INTS, EMPTY_OFFSETS, NO_STRINGS, 0);
+
+    /**
+     * Well known header names in their canonical and lower case spellings, each keyed by itself. The map iterates in
+     * a fixed order, each canonical spelling followed by its lower case spelling, and the binary codec numbers the
+     * names by that order, so names may only be appended to the list below, together with a new codec format version.
+     */
+    private static final Map<String, String> WELL_KNOWN_NAMES;
+
+    static {
+        ImmutableMap.Builder<String, String> names = ImmutableMap.builder();
+        for (String name : new String[]{"Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language",
+                "Accept-Ranges", "Age", "Allow", "Authorization", "Cache-Control", "Connection", "Content-Disposition",
+                "Content-Encoding", "Content-Language", "Content-Length", "Content-Location", "Content-Range",
+                "Content-Type", "Cookie", "Date", "ETag", "Expect", "Expires", "Forwarded", "From", "Host", "If-Match",
+                "If-Modified-Since", "If-None-Match", "If-Range", "If-Unmodified-Since", "Keep-Alive",
+                "Last-Modified", "Link", "Location", "Origin", "Pragma", "Proxy-Authenticate", "Proxy-Authorization",
+                "Range", "Referer", "Retry-After", "Server", "Set-Cookie", "Strict-Transport-Security", "TE",
+                "Trailer", "Transfer-Encoding", "Upgrade", "User-Agent", "Vary", "Via", "Warning",
+                "WWW-Authenticate", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Proto", "X-Request-Id"}) {
+            names.put(name, name);
+            names.put(name.toLowerCase(Locale.ROOT), name.toLowerCase(Locale.ROOT));
+        }
+        WELL_KNOWN_NAMES = names.build();
+    }
+
+    private HttpHeaders(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+        super(names, nameHashes, offsets, values, size);
+    }
+
+    /**
+     * Gets the empty {@link HttpHeaders}.
+     *
+     * @return Returns a shared {@link HttpHeaders} with no headers.
+     */
+    public static HttpHeaders of() {
+        return EMPTY;
+    }
+
+    /**
+     * Copies the specified headers into a new {@link HttpHeaders}. The value lists are copied, so later changes to
+     * them are not reflected. A null value list is treated as an empty one.
+     *
+     * @param headers The headers to copy, keyed by header name.
+     *
+     * @return Returns an {@link HttpHeaders} holding the specified headers, or the empty {@link HttpHeaders} if the
+     *         specified headers are null or empty.
+     */
+    public static HttpHeaders copyOf(Map<String, ? extends Collection<String>> headers) {
+        if ((null == headers) || headers.isEmpty()) {
+            return EMPTY;
+        }
+
+        if ((headers instanceof MapView) && (((MapView) headers).map() instanceof HttpHeaders)) {
+            return (HttpHeaders) ((MapView) headers).map();
+        }
+
+        return newBuilder().addAll(headers).build();
+    }
+
+    /**
+     * Gets a {@link Builder} with no initial headers.
+     *
+     * @return Returns a {@link Builder} with no initial headers.
+     */
+    public static Builder newBuilder() {
+        return new Builder(EMPTY);
+    }
+
+    /**
+     * Gets a {@link Builder} whose initial headers are those of the specified template. Nothing is copied until the
+     * {@link Builder} is first modified.
+     *
+     * @param template The {@link HttpHeaders} from which to get the initial headers.
+     *
+     * @return Returns a {@link Builder} whose initial headers are those of the specified template.
+     */
+    public static Builder newBuilder(HttpHeaders template) {
+        return new Builder(template);
+    }
+
+    @Override
+    HttpHeaders create(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+        return (0 == size) ? EMPTY : new HttpHeaders(names, nameHashes, offsets, values, size);
+    }
+
+    @Override
+    int nameHash(CharSequence name) {
+        return caseInsensitiveHash(name);
+    }
+
+    @Override
+    boolean nameEquals(String stored, CharSequence requested) {
+        return equalsIgnoreAsciiCase(stored, requested);
+    }
+
+    /**
+     * Computes a hash of the specified name that is the same for any spelling of the name that differs only in the
+     * case of ASCII letters.
+     *
+     * @param name The name to hash.
+     *
+     * @return Returns the case-insensitive hash of the specified name.
+     */
+    static int caseInsensitiveHash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + toLowerAscii(name.charAt(i));
+        }
+        return h;
+    }
+
+    /**
+     * Determines whether the specified names are equal ignoring the case of ASCII letters.
+     *
+     * @param left A name.
+     * @param right Another name.
+     *
+     * @return Returns true if the names are equal ignoring the case of ASCII letters.
+     */
+    static boolean equalsIgnoreAsciiCase(CharSequence left, CharSequence right) {
+        int length = left.length();
+        if (length != right.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char l = left.charAt(i);
+            char r = right.charAt(i);
+            if ((l != r) && (toLowerAscii(l) != toLowerAscii(r))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the shared instance of the specified name if it is a well known header name in its canonical or lower
+     * case spelling.
+     *
+     * @param name The header name.
+     *
+     * @return Returns the shared instance of the specified name, or the name itself if it is not well known.
+     */
+    static String intern(String name) {
+        String interned = WELL_KNOWN_NAMES.get(name);
+        return (null != interned) ? interned : name;
+    }
+
+    /**
+     * Gets the shared instances of the well known header names, in both their canonical and lower case spellings.
+     * Parsers that recognize these names can use the returned instances instead of allocating new strings.
+     *
+     * @return Returns an immutable collection of the well known header names, each canonical spelling followed by
+     *         its lower case spelling, in an order that only ever grows at the end.
+     */
+    public static Collection<String> wellKnownNames() {
+        return WELL_KNOWN_NAMES.values();
+    }
+
+    private static char toLowerAscii(char c) {
+        return ((c >= 'A') && (c <= 'Z')) ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Mutable, copy-on-write builder for creating instances of {@link HttpHeaders}. Header names are matched
+     * case-insensitively.
+     */
+    public static final class Builder extends FlatMultimap.Editor<HttpHeaders, Builder> {
+
+        private Builder(HttpHeaders template) {
+            super(template);
+        }
+
+        @Override
+        String canonicalName(String name) {
+            return intern(name);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.interzonedev.httpcore;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Immutable, multi-valued collection of request parameters. Parameter names are case-sensitive.
+ *
+ * <p>
+ * Stored in the same flat parallel arrays as {@link HttpHeaders}. {@link #asMap()} provides a read-only {@link Map}
+ * view for callers that work with {@code Map<String, List<String>>}. Use {@link #newBuilder(HttpParameters)} to derive
+ * new parameters from existing ones; the builder shares the arrays of the template until it is first modified.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HttpParameters extends FlatMultimap<HttpParameters> {
+
+    private static final HttpParameters EMPTY = new HttpParameters(NO_STRINGS, NO_INTS, EMPTY_OFFSETS, NO_STRINGS, 0);
+
+    private HttpParameters(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+        super(names, nameHashes, offsets, values, size);
+    }
+
+    /**
+     * Gets the empty {@link HttpParameters}.
+     *
+     * @return Returns a shared {@link HttpParameters} with no parameters.
+     */
+    public static HttpParameters of() {
+        return EMPTY;
+    }
+
+    /**
+     * Copies the specified parameters into a new {@link HttpParameters}. The value lists are copied, so later changes
+     * to them are not reflected. A null value list is treated as an empty one.
+     *
+     * @param parameters The parameters to copy, keyed by parameter name.
+     *
+     * @return Returns an {@link HttpParameters} holding the specified parameters, or the empty {@link HttpParameters}
+     *         if the specified parameters are null or empty.
+     */
+    public static HttpParameters copyOf(Map<String, ? extends Collection<String>> parameters) {
+        if ((null == parameters) || parameters.isEmpty()) {
+            return EMPTY;
+        }
+
+        if ((parameters instanceof MapView) && (((MapView) parameters).map() instanceof HttpParameters)) {
+            return (HttpParameters) ((MapView) parameters).map();
+        }
+
+        return newBuilder().addAll(parameters).build();
+    }
+
+    /**
+     * Gets a {@link Builder} with no initial parameters.
+     *
+     * @return Returns a {@link Builder} with no initial parameters.
+     */
+    public static Builder newBuilder() {
+        return new Builder(EMPTY);
+    }
+
+    /**
+     * Gets a {@link Builder} whose initial parameters are those of the specified template. Nothing is copied until
+     * the {@link Builder} is first modified.
+     *
+     * @param template The {@link HttpParameters} from which to get the initial parameters.
+     *
+     * @return Returns a {@link Builder} whose initial parameters are those of the specified template.
+     */
+    public static Builder newBuilder(HttpParameters template) {
+        return new Builder(template);
+    }
+
+    @Override
+    HttpParameters create(String[] names, int[] nameHashes, int[] offsets, String[] values, int size) {
+        return (0 == size) ? EMPTY : new HttpParameters(names, nameHashes, offsets, values, size);
+    }
+
+    @Override
+    int nameHash(CharSequence name) {
+        return (name instanceof String) ? name.hashCode() : name.toString().hashCode();
+    }
+
+    @Override
+    boolean nameEquals(String stored, CharSequence requested) {
+        return stored.contentEquals(requested);
+    }
+
+    /**
+     * Mutable, copy-on-write builder for creating instances of {@link HttpParameters}.
+     */
+    public static final class Builder extends FlatMultimap.Editor<HttpParameters, Builder> {
+
+        private Builder(HttpParameters template) {
+            super(template);
+        }
+    }
+
+}
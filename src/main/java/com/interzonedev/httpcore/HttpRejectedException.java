@@ -0,0 +1,23 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpException} for an exchange that was never started because the client was overloaded: the queue for its
+ * host was full or an executor refused the work. Not {@link Retryable}, since trying again at once only adds to the
+ * load that caused the rejection.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpRejectedException extends HttpException {
+
+    private static final long serialVersionUID = 6270417398205318734L;
+
+    /**
+     * @param message The detail message.
+     * @param cause The cause, or null.
+     * @param request The {@link Request} that was rejected, or null if it is not known.
+     */
+    public HttpRejectedException(String message, Throwable cause, Request request) {
+        super(message, cause, request, null);
+    }
+
+}
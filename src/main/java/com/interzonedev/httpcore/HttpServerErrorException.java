@@ -0,0 +1,17 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpStatusException} for a 5xx status, which the server caused. Only 502 Bad Gateway, 503 Service
+ * Unavailable and 504 Gateway Timeout are {@link Retryable}. Created by {@link HttpStatusException#of(Response)}.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpServerErrorException extends HttpStatusException {
+
+    private static final long serialVersionUID = -5260312826187760329L;
+
+    protected HttpServerErrorException(String message, Response response) {
+        super(message, response);
+    }
+
+}
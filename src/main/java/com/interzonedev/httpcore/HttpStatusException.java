@@ -0,0 +1,77 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpException} for a {@link Response} with an error status: {@link HttpClientErrorException} for 4xx and
+ * {@link HttpServerErrorException} for 5xx.
+ *
+ * @author mark@interzonedev.com
+ */
+public abstract class HttpStatusException extends HttpException {
+
+    private static final long serialVersionUID = -1630463236004317342L;
+
+    protected HttpStatusException(String message, Response response) {
+        super(message, null, null, response);
+    }
+
+    /**
+     * Creates the exception for the status of the specified {@link Response}.
+     *
+     * @param response The {@link Response} with an error status.
+     *
+     * @return Returns the {@link HttpClientErrorException} or {@link HttpServerErrorException}, which is
+     *         {@link Retryable} for 408, 429, 502, 503 and 504.
+     *
+     * @throws IllegalArgumentException Thrown if the status is not an error.
+     */
+    public static HttpStatusException of(Response response) {
+        int status = response.getStatus();
+        Request request = response.getRequest();
+        String message = "Status " + status
+                + ((null != request) ? " for " + request.getMethod() + " " + request.getUrl() : "");
+        if ((status >= 400) && (status < 500)) {
+            return ((408 == status) || (429 == status)) ? new RetryableClientError(message, response)
+                    : new HttpClientErrorException(message, response);
+        }
+        if ((status >= 500) && (status < 600)) {
+            return ((502 == status) || (503 == status) || (504 == status)) ? new RetryableServerError(message, response)
+                    : new HttpServerErrorException(message, response);
+        }
+        throw new IllegalArgumentException("Not an error status: " + status);
+    }
+
+    /**
+     * Throws the exception for the status of the specified {@link Response} if it is an error.
+     *
+     * @param response The {@link Response} to check.
+     *
+     * @return Returns the specified {@link Response} if its status is not an error.
+     *
+     * @throws HttpStatusException Thrown if the status is 400 or more.
+     */
+    public static Response check(Response response) {
+        if (response.getStatus() >= 400) {
+            throw of(response);
+        }
+        return response;
+    }
+
+    private static final class RetryableClientError extends HttpClientErrorException implements Retryable {
+
+        private static final long serialVersionUID = 2301848735411009287L;
+
+        private RetryableClientError(String message, Response response) {
+            super(message, response);
+        }
+    }
+
+    private static final class RetryableServerError extends HttpServerErrorException implements Retryable {
+
+        private static final long serialVersionUID = -2877209136735853018L;
+
+        private RetryableServerError(String message, Response response) {
+            super(message, response);
+        }
+    }
+
+}
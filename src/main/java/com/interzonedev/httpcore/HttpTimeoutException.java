@@ -0,0 +1,22 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpException} for an exchange that did not complete in time, whether waiting for a connection, for the
+ * response or for a shared execution. Always {@link Retryable}.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpTimeoutException extends HttpException implements Retryable {
+
+    private static final long serialVersionUID = 3573417066493101522L;
+
+    /**
+     * @param message The detail message.
+     * @param cause The cause, or null.
+     * @param request The {@link Request} that timed out.
+     */
+    public HttpTimeoutException(String message, Throwable cause, Request request) {
+        super(message, cause, request, null);
+    }
+
+}
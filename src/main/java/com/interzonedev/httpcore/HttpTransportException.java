@@ -0,0 +1,22 @@
+package com.interzonedev.httpcore;
+
+/**
+ * {@link HttpException} for an exchange that failed with an error other than a timeout, a network failure or an error
+ * status, usually one that a transport or an executor did not type itself. Not {@link Retryable}.
+ *
+ * @author mark@interzonedev.com
+ */
+public class HttpTransportException extends HttpException {
+
+    private static final long serialVersionUID = -2904781653119420867L;
+
+    /**
+     * @param message The detail message.
+     * @param cause The cause, or null.
+     * @param request The {@link Request} that failed, or null if it is not known.
+     */
+    public HttpTransportException(String message, Throwable cause, Request request) {
+        super(message, cause, request, null);
+    }
+
+}
@@ -0,0 +1,466 @@
+package com.interzonedev.httpcore;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable, parsed view of a URL, either absolute ({@code https://example.com:8443/a/b?x=1#top}), scheme-relative
+ * ({@code //example.com/a}) or a path with an optional query ({@code /a/b?x=1}), as in the target of an HTTP/1.1
+ * request line.
+ *
+ * <p>
+ * Parsing is a single pass that records where each component starts and ends in the original string, so components
+ * are only extracted when asked for. The decoded path segments and query parameters are cached on first use. The
+ * {@code with} methods splice a new path or query into the string and shift the recorded positions, rather than
+ * parsing or encoding the whole URL again, and keep the cached parts that did not change.
+ * </p>
+ *
+ * <p>
+ * Parsing is lenient: anything that is not recognized as a scheme or an authority is part of the path, and invalid
+ * percent escapes are kept literally. Only a port that is not a number fails, with an {@link HttpException}. Two
+ * {@link HttpUrl}s are equal if their strings are equal.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HttpUrl {
+
+    private final String url;
+
+    /**
+     * The end of the scheme, at its colon, or -1 if there is none.
+     */
+    private final int schemeEnd;
+
+    /**
+     * The bounds of the host, or -1 for both if there is no authority.
+     */
+    private final int hostStart;
+    private final int hostEnd;
+
+    /**
+     * The explicit port, or -1 if there is none.
+     */
+    private final int port;
+
+    private final int pathStart;
+
+    /**
+     * The end of the path, at the question mark of the query if there is one.
+     */
+    private final int pathEnd;
+
+    /**
+     * The end of the query, at the number sign of the fragment if there is one.
+     */
+    private final int queryEnd;
+
+    /**
+     * Cached decoded path segments and query parameters. Null until first computed, which is safe to race on because
+     * every thread computes equal values.
+     */
+    private List<String> pathSegments;
+    private HttpParameters queryParameters;
+
+    private HttpUrl(String url, int schemeEnd, int hostStart, int hostEnd, int port, int pathStart, int pathEnd,
+            int queryEnd) {
+        this.url = url;
+        this.schemeEnd = schemeEnd;
+        this.hostStart = hostStart;
+        this.hostEnd = hostEnd;
+        this.port = port;
+        this.pathStart = pathStart;
+        this.pathEnd = pathEnd;
+        this.queryEnd = queryEnd;
+    }
+
+    /**
+     * Parses the specified URL.
+     *
+     * @param url The URL to parse.
+     *
+     * @return Returns the parsed {@link HttpUrl}.
+     *
+     * @throws HttpException Thrown if the URL has a port that is not a number.
+     */
+    public static HttpUrl parse(String url) {
+        if (null == url) {
+            throw new IllegalArgumentException("The URL must be set");
+        }
+
+        int length = url.length();
+        int queryEnd = url.indexOf('#');
+        if (queryEnd < 0) {
+            queryEnd = length;
+        }
+
+        int schemeEnd = schemeEnd(url, queryEnd);
+        int position = (schemeEnd >= 0) ? schemeEnd + 1 : 0;
+
+        int hostStart = -1;
+        int hostEnd = -1;
+        int port = -1;
+        if (url.startsWith("//", position)) {
+            int authorityStart = position + 2;
+            int authorityEnd = authorityStart;
+            while ((authorityEnd < queryEnd) && ('/' != url.charAt(authorityEnd))
+                    && ('?' != url.charAt(authorityEnd))) {
+                authorityEnd++;
+            }
+
+            hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+            if (hostStart < authorityStart) {
+                hostStart = authorityStart;
+            }
+            int portColon = -1;
+            if ((hostStart < authorityEnd) && ('[' == url.charAt(hostStart))) {
+                int closing = url.indexOf(']', hostStart);
+                hostEnd = ((closing >= 0) && (closing < authorityEnd)) ? closing + 1 : authorityEnd;
+                if ((hostEnd < authorityEnd) && (':' == url.charAt(hostEnd))) {
+                    portColon = hostEnd;
+                }
+            } else {
+                portColon = url.indexOf(':', hostStart);
+                if (portColon >= authorityEnd) {
+                    portColon = -1;
+                }
+                hostEnd = (portColon >= 0) ? portColon : authorityEnd;
+            }
+            if ((portColon >= 0) && (portColon + 1 < authorityEnd)) {
+                port = parsePort(url, portColon + 1, authorityEnd);
+            }
+            position = authorityEnd;
+        }
+
+        int pathEnd = url.indexOf('?', position);
+        if ((pathEnd < 0) || (pathEnd > queryEnd)) {
+            pathEnd = queryEnd;
+        }
+
+        return new HttpUrl(url, schemeEnd, hostStart, hostEnd, port, position, pathEnd, queryEnd);
+    }
+
+    /**
+     * Finds the colon that ends a scheme, which is a letter followed by letters, digits, {@code +}, {@code -} and
+     * {@code .}.
+     */
+    private static int schemeEnd(String url, int end) {
+        for (int i = 0; i < end; i++) {
+            char c = url.charAt(i);
+            if (':' == c) {
+                return (i > 0) ? i : -1;
+            }
+            boolean letter = ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'));
+            boolean other = ((c >= '0') && (c <= '9')) || ('+' == c) || ('-' == c) || ('.' == c);
+            if (!letter && ((0 == i) || !other)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int parsePort(String url, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = url.charAt(i) - '0';
+            if ((digit < 0) || (digit > 9) || (value > 65535)) {
+                throw new HttpException("Malformed port in URL: " + url);
+            }
+            value = value * 10 + digit;
+        }
+        if (value > 65535) {
+            throw new HttpException("Malformed port in URL: " + url);
+        }
+        return value;
+    }
+
+    /**
+     * @return Returns true if the URL has a scheme and a host.
+     */
+    public boolean isAbsolute() {
+        return (schemeEnd >= 0) && (hostStart >= 0);
+    }
+
+    /**
+     * @return Returns the scheme in lower case, or null if there is none.
+     */
+    public String getScheme() {
+        return (schemeEnd >= 0) ? url.substring(0, schemeEnd).toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * @return Returns the host in lower case, with the brackets of an IPv6 address, or null if there is no authority.
+     */
+    public String getHost() {
+        return (hostStart >= 0) ? url.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * @return Returns the port, which is the default port of the scheme if the URL names none, or -1 if neither is
+     *         known.
+     */
+    public int getPort() {
+        if (port >= 0) {
+            return port;
+        }
+        return defaultPort(getScheme());
+    }
+
+    private static int defaultPort(String scheme) {
+        if ("http".equals(scheme) || "ws".equals(scheme)) {
+            return 80;
+        }
+        if ("https".equals(scheme) || "wss".equals(scheme)) {
+            return 443;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the origin of the URL, {@code scheme://host:port} with the port always present, which identifies the
+     * server the URL is on.
+     *
+     * @return Returns the origin, or null if the URL is not absolute.
+     */
+    public String getOrigin() {
+        if (!isAbsolute()) {
+            return null;
+        }
+        return getScheme() + "://" + getHost() + ":" + getPort();
+    }
+
+    /**
+     * @return Returns the path as it appears in the URL, or an empty string if there is none.
+     */
+    public String getEncodedPath() {
+        return url.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * @return Returns the percent-decoded path, or an empty string if there is none.
+     */
+    public String getPath() {
+        return decode(url, pathStart, pathEnd, false);
+    }
+
+    /**
+     * Gets the percent-decoded segments of the path. The path {@code /a/b%2Fc/} has the segments {@code a},
+     * {@code b/c} and an empty last segment.
+     *
+     * @return Returns an immutable list of the path segments, which is empty if there is no path.
+     */
+    public List<String> getPathSegments() {
+        List<String> segments = pathSegments;
+        if (null == segments) {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            int start = ((pathStart < pathEnd) && ('/' == url.charAt(pathStart))) ? pathStart + 1 : pathStart;
+            if ((start < pathEnd) || (start > pathStart)) {
+                for (int i = start; i <= pathEnd; i++) {
+                    if ((i == pathEnd) || ('/' == url.charAt(i))) {
+                        builder.add(decode(url, start, i, false));
+                        start = i + 1;
+                    }
+                }
+            }
+            segments = builder.build();
+            pathSegments = segments;
+        }
+        return segments;
+    }
+
+    /**
+     * @return Returns the query as it appears in the URL, without the question mark, or null if there is none.
+     */
+    public String getEncodedQuery() {
+        return (pathEnd < queryEnd) ? url.substring(pathEnd + 1, queryEnd) : null;
+    }
+
+    /**
+     * Gets the decoded parameters of the query, in order. Both {@code +} and {@code %20} decode to a space. A
+     * parameter without an equals sign has a null value.
+     *
+     * @return Returns the query parameters, which are empty if there is no query.
+     */
+    public HttpParameters getQueryParameters() {
+        HttpParameters parameters = queryParameters;
+        if (null == parameters) {
+            parameters = parseQuery();
+            queryParameters = parameters;
+        }
+        return parameters;
+    }
+
+    private HttpParameters parseQuery() {
+        if (pathEnd + 1 >= queryEnd) {
+            return HttpParameters.of();
+        }
+        HttpParameters.Builder parameters = HttpParameters.newBuilder();
+        int start = pathEnd + 1;
+        for (int i = start; i <= queryEnd; i++) {
+            if ((i == queryEnd) || ('&' == url.charAt(i))) {
+                if (i > start) {
+                    int equals = url.indexOf('=', start);
+                    if ((equals < 0) || (equals > i)) {
+                        parameters.add(decode(url, start, i, true), (String) null);
+                    } else {
+                        parameters.add(decode(url, start, equals, true), decode(url, equals + 1, i, true));
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return parameters.build();
+    }
+
+    /**
+     * @return Returns the fragment as it appears in the URL, without the number sign, or null if there is none.
+     */
+    public String getFragment() {
+        return (queryEnd < url.length()) ? url.substring(queryEnd + 1) : null;
+    }
+
+    /**
+     * Gets a copy of this URL with the specified path. Only the path is replaced in the string; the scheme, authority,
+     * query and fragment are kept as they are, along with the cached query parameters.
+     *
+     * @param encodedPath The percent-encoded path. A path that does not start with {@code /} gets one if the URL has
+     *            an authority.
+     *
+     * @return Returns the new {@link HttpUrl}.
+     */
+    public HttpUrl withEncodedPath(String encodedPath) {
+        String path = (null != encodedPath) ? encodedPath : "";
+        if ((path.indexOf('?') >= 0) || (path.indexOf('#') >= 0)) {
+            throw new IllegalArgumentException("A path cannot contain '?' or '#': " + path);
+        }
+        if ((hostStart >= 0) && !path.isEmpty() && ('/' != path.charAt(0))) {
+            path = "/" + path;
+        }
+
+        String spliced = url.substring(0, pathStart) + path + url.substring(pathEnd);
+        int shift = path.length() - (pathEnd - pathStart);
+        HttpUrl result = new HttpUrl(spliced, schemeEnd, hostStart, hostEnd, port, pathStart, pathEnd + shift,
+                queryEnd + shift);
+        result.queryParameters = queryParameters;
+        return result;
+    }
+
+    /**
+     * Gets a copy of this URL with the specified query. Only the query is replaced in the string; the scheme,
+     * authority, path and fragment are kept as they are, along with the cached path segments.
+     *
+     * @param encodedQuery The percent-encoded query, without the question mark, or null to remove the query.
+     *
+     * @return Returns the new {@link HttpUrl}.
+     */
+    public HttpUrl withEncodedQuery(String encodedQuery) {
+        if ((null != encodedQuery) && (encodedQuery.indexOf('#') >= 0)) {
+            throw new IllegalArgumentException("A query cannot contain '#': " + encodedQuery);
+        }
+
+        String query = (null != encodedQuery) ? "?" + encodedQuery : "";
+        String spliced = url.substring(0, pathEnd) + query + url.substring(queryEnd);
+        HttpUrl result = new HttpUrl(spliced, schemeEnd, hostStart, hostEnd, port, pathStart, pathEnd,
+                pathEnd + query.length());
+        result.pathSegments = pathSegments;
+        return result;
+    }
+
+    /**
+     * Gets a copy of this URL whose query holds the specified parameters, encoded as an HTML form would encode them.
+     * A parameter with a null value is written without an equals sign.
+     *
+     * @param parameters The parameters of the query, or empty parameters to remove the query.
+     *
+     * @return Returns the new {@link HttpUrl}.
+     */
+    public HttpUrl withQueryParameters(HttpParameters parameters) {
+        if (parameters.isEmpty()) {
+            HttpUrl result = withEncodedQuery(null);
+            result.queryParameters = HttpParameters.of();
+            return result;
+        }
+
+        StringBuilder query = new StringBuilder(16 * parameters.valueCount());
+        for (int i = 0; i < parameters.size(); i++) {
+            String name = URLEncoder.encode(parameters.getName(i), StandardCharsets.UTF_8);
+            for (String value : parameters.getValues(i)) {
+                if (query.length() > 0) {
+                    query.append('&');
+                }
+                query.append(name);
+                if (null != value) {
+                    query.append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        HttpUrl result = withEncodedQuery(query.toString());
+        result.queryParameters = parameters;
+        return result;
+    }
+
+    /**
+     * Percent-decodes the specified range of the string as UTF-8. Returns a substring without copying characters one
+     * by one when there is nothing to decode.
+     */
+    static String decode(String s, int start, int end, boolean plusIsSpace) {
+        int first = start;
+        while ((first < end) && ('%' != s.charAt(first)) && (!plusIsSpace || ('+' != s.charAt(first)))) {
+            first++;
+        }
+        if (first == end) {
+            return s.substring(start, end);
+        }
+
+        StringBuilder decoded = new StringBuilder(end - start).append(s, start, first);
+        byte[] bytes = null;
+        int i = first;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (('%' == c) && isEscape(s, i, end)) {
+                if (null == bytes) {
+                    bytes = new byte[(end - i) / 3];
+                }
+                int count = 0;
+                while ((i < end) && ('%' == s.charAt(i)) && isEscape(s, i, end)) {
+                    bytes[count++] = (byte) ((Character.digit(s.charAt(i + 1), 16) << 4)
+                            | Character.digit(s.charAt(i + 2), 16));
+                    i += 3;
+                }
+                decoded.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+            } else {
+                decoded.append((plusIsSpace && ('+' == c)) ? ' ' : c);
+                i++;
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static boolean isEscape(String s, int i, int end) {
+        return (i + 2 < end) && (Character.digit(s.charAt(i + 1), 16) >= 0)
+                && (Character.digit(s.charAt(i + 2), 16) >= 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (this == obj) || ((obj instanceof HttpUrl) && url.equals(((HttpUrl) obj).url));
+    }
+
+    /**
+     * @return Returns the URL as a string, exactly as parsed or spliced.
+     */
+    @Override
+    public String toString() {
+        return url;
+    }
+
+}
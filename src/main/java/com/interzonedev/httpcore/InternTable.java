@@ -0,0 +1,71 @@
+package com.interzonedev.httpcore;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, thread-safe table of canonical instances, organized like a direct-mapped cache: each value hashes to one
+ * slot, and a value that finds its slot taken by a different value replaces it. Lookups and inserts take no locks and
+ * never allocate, and the table never holds more than its capacity. A replaced value stays valid for the objects
+ * that already refer to it; only later equal values stop sharing it.
+ *
+ * @param <T> The type of the values, whose {@link Object#hashCode()} should be cheap, as it is for strings and
+ *            requests, which cache it.
+ *
+ * @author mark@interzonedev.com
+ */
+final class InternTable<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    /**
+     * Creates a table with the specified number of slots, rounded up to a power of two.
+     *
+     * @param capacity The number of slots.
+     */
+    InternTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the canonical instance equal to the specified value, making the value canonical if there is none.
+     *
+     * @param value The value, which must not be null.
+     *
+     * @return Returns the stored equal instance, or the specified value.
+     */
+    T intern(T value) {
+        int index = indexOf(value);
+        T current = slots.get(index);
+        if ((current == value) || ((null != current) && current.equals(value))) {
+            return current;
+        }
+        slots.set(index, value);
+        return value;
+    }
+
+    /**
+     * Determines whether the specified instance is the canonical one, and so is shared rather than owned by whatever
+     * refers to it.
+     *
+     * @param value The value.
+     *
+     * @return Returns true if the table holds this very instance.
+     */
+    boolean holds(T value) {
+        return (null != value) && (slots.get(indexOf(value)) == value);
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    private int indexOf(T value) {
+        int h = value.hashCode();
+        // Spreads the high bits down, since only the low bits pick the slot.
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+}
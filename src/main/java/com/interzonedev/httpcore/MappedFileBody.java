@@ -0,0 +1,78 @@
+package com.interzonedev.httpcore;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link Body} held in a read-only memory-mapped file. Created by {@link BodySpooler} when a body exceeds its memory
+ * threshold. Files larger than {@link BodySpooler#MAX_REGION_SIZE} are mapped as several regions, one per chunk.
+ * 
+ * @author mark@interzonedev.com
+ */
+final class MappedFileBody extends Body {
+
+    private final List<ByteBuffer> regions;
+    private final long length;
+
+    MappedFileBody(MappedByteBuffer[] regions, long length) {
+        this(Arrays.<ByteBuffer>asList(regions), length);
+    }
+
+    private MappedFileBody(List<ByteBuffer> regions, long length) {
+        this.regions = Collections.unmodifiableList(regions);
+        this.length = length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets a read-only view of the mapped file.
+     *
+     * @throws HttpException Thrown if the file was mapped as more than one region. Use {@link #chunks()} instead.
+     */
+    @Override
+    public ByteBuffer asByteBuffer() {
+        if (1 != regions.size()) {
+            throw new HttpException("Body of " + length + " bytes does not fit in a single buffer, use chunks()");
+        }
+        return regions.get(0).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * Gets a slice that shares the mapped regions, and so is still not held in memory.
+     */
+    @Override
+    public Body slice(long offset, long sliceLength) {
+        checkSlice(offset, sliceLength);
+        if ((0L == offset) && (sliceLength == length)) {
+            return this;
+        }
+        return new MappedFileBody(sliceChunks(regions, offset, sliceLength), sliceLength);
+    }
+
+    /**
+     * Copies the regions into one heap buffer when there is more than one, for decoding and copying.
+     */
+    @Override
+    ByteBuffer internalBuffer() {
+        List<ByteBuffer> all = regions;
+        return (1 == all.size()) ? all.get(0).asReadOnlyBuffer() : copyChunks(all, length);
+    }
+
+    @Override
+    List<ByteBuffer> internalChunks() {
+        return regions;
+    }
+
+}
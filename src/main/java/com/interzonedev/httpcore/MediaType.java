@@ -0,0 +1,467 @@
+package com.interzonedev.httpcore;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Immutable, parsed media type as found in the Content-Type and Accept headers: a type, a subtype and parameters,
+ * with the {@link Charset} named by the charset parameter resolved once.
+ *
+ * <p>
+ * Parsed values are kept in a small JVM-wide cache keyed by the raw value, organized like a direct-mapped cache so
+ * that lookups take no locks, so the handful of values an application actually sees, such as
+ * {@code application/json; charset=utf-8}, are parsed and their charset looked up only once. The type, subtype and
+ * parameter names are lower-cased, as is the value of the charset parameter; other parameter values are kept as
+ * given, unquoted.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class MediaType {
+
+    /**
+     * The name of the Accept header.
+     */
+    public static final String ACCEPT = "Accept";
+
+    private static final String CHARSET = "charset";
+
+    private static final String WILDCARD_TYPE = "*";
+
+    /**
+     * The number of slots in the cache of parsed values, a power of two.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * Longer values are parsed but not cached, so that odd values cannot pin large strings.
+     */
+    private static final int MAX_CACHED_LENGTH = 256;
+
+    private static final AtomicReferenceArray<MediaType> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    public static final MediaType ANY = of(WILDCARD_TYPE, WILDCARD_TYPE);
+
+    public static final MediaType APPLICATION_JSON = of("application", "json");
+
+    public static final MediaType APPLICATION_OCTET_STREAM = of("application", "octet-stream");
+
+    public static final MediaType APPLICATION_FORM_URLENCODED = of("application", "x-www-form-urlencoded");
+
+    public static final MediaType MULTIPART_FORM_DATA = of("multipart", "form-data");
+
+    public static final MediaType TEXT_HTML = of("text", "html");
+
+    public static final MediaType TEXT_PLAIN = of("text", "plain");
+
+    private final String type;
+    private final String subtype;
+    private final ImmutableMap<String, String> parameters;
+    private final Charset charset;
+
+    /**
+     * The raw value this media type was parsed from, which is its key in the cache, or null if it was not parsed.
+     */
+    private final String source;
+
+    /**
+     * Cached formatted value. Null until first computed, which is safe to race on because every thread computes
+     * equal values.
+     */
+    private String text;
+
+    private MediaType(String type, String subtype, ImmutableMap<String, String> parameters, String source) {
+        this.type = type;
+        this.subtype = subtype;
+        this.parameters = parameters;
+        this.charset = charsetNamed(parameters.get(CHARSET));
+        this.source = source;
+    }
+
+    /**
+     * Creates a media type without parameters.
+     *
+     * @param type The type, for example {@code text}.
+     * @param subtype The subtype, for example {@code plain}.
+     *
+     * @return Returns the {@link MediaType}.
+     *
+     * @throws IllegalArgumentException Thrown if the type or subtype is not a token.
+     */
+    public static MediaType of(String type, String subtype) {
+        if (!isToken(type) || !isToken(subtype)) {
+            throw new IllegalArgumentException("Invalid media type: " + type + "/" + subtype);
+        }
+        return new MediaType(type.toLowerCase(Locale.ROOT), subtype.toLowerCase(Locale.ROOT), ImmutableMap.of(),
+                null);
+    }
+
+    /**
+     * Parses the specified value of a Content-Type header or of one element of an Accept header.
+     *
+     * @param value The raw value, for example {@code text/html; charset=ISO-8859-1}.
+     *
+     * @return Returns the parsed {@link MediaType}, possibly shared with earlier calls for an equal value.
+     *
+     * @throws HttpException Thrown if the value is not a media type.
+     */
+    public static MediaType parse(String value) {
+        MediaType parsed = tryParse(value);
+        if (null == parsed) {
+            throw new HttpException("Invalid media type: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses the specified value like {@link #parse(String)}, but leniently, as suits values received from a peer.
+     *
+     * @param value The raw value, possibly null.
+     *
+     * @return Returns the parsed {@link MediaType}, or null if the value is null or is not a media type.
+     */
+    public static MediaType tryParse(String value) {
+        if (null == value) {
+            return null;
+        }
+
+        int h = value.hashCode();
+        int index = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+        MediaType cached = CACHE.get(index);
+        if ((null != cached) && value.equals(cached.source)) {
+            return cached;
+        }
+
+        MediaType parsed = parseUncached(value);
+        if ((null != parsed) && (value.length() <= MAX_CACHED_LENGTH)) {
+            CACHE.set(index, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses the comma-separated media types of the specified header values, for example those of an Accept header,
+     * skipping any that are malformed.
+     *
+     * @param values The raw header values.
+     *
+     * @return Returns the parsed media types in order.
+     */
+    public static List<MediaType> parseList(List<String> values) {
+        ImmutableList.Builder<MediaType> mediaTypes = ImmutableList.builder();
+        for (String value : values) {
+            int start = 0;
+            int length = value.length();
+            while (start < length) {
+                int end = nextComma(value, start);
+                MediaType mediaType = tryParse(value.substring(start, end).trim());
+                if (null != mediaType) {
+                    mediaTypes.add(mediaType);
+                }
+                start = end + 1;
+            }
+        }
+        return mediaTypes.build();
+    }
+
+    /**
+     * Formats the specified media types as the value of an Accept header.
+     *
+     * @param mediaTypes The media types in order of preference.
+     *
+     * @return Returns the comma-separated media types.
+     */
+    public static String toHeaderValue(List<MediaType> mediaTypes) {
+        StringBuilder value = new StringBuilder();
+        for (MediaType mediaType : mediaTypes) {
+            if (value.length() > 0) {
+                value.append(", ");
+            }
+            value.append(mediaType);
+        }
+        return value.toString();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSubtype() {
+        return subtype;
+    }
+
+    /**
+     * @return Returns the parameters in order, by lower-cased name.
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @param name The case-insensitive name of the parameter.
+     *
+     * @return Returns the value of the parameter, or null if there is none.
+     */
+    public String getParameter(String name) {
+        return parameters.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return Returns the {@link Charset} named by the charset parameter, or null if there is none or it is not
+     *         supported.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Gets this media type with the specified parameter set, replacing any value it had.
+     *
+     * @param name The case-insensitive name of the parameter.
+     * @param value The value of the parameter.
+     *
+     * @return Returns the new {@link MediaType}.
+     *
+     * @throws IllegalArgumentException Thrown if the name is not a token.
+     */
+    public MediaType withParameter(String name, String value) {
+        if (!isToken(name) || (null == value)) {
+            throw new IllegalArgumentException("Invalid media type parameter: " + name + "=" + value);
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        Map<String, String> copy = new LinkedHashMap<>(parameters);
+        copy.put(key, normalize(key, value));
+        return new MediaType(type, subtype, ImmutableMap.copyOf(copy), null);
+    }
+
+    public MediaType withCharset(Charset charset) {
+        return withParameter(CHARSET, charset.name());
+    }
+
+    public MediaType withoutParameters() {
+        return parameters.isEmpty() ? this : new MediaType(type, subtype, ImmutableMap.of(), null);
+    }
+
+    /**
+     * Determines whether this media type has the same type and subtype as the specified one, ignoring parameters.
+     *
+     * @param other The other {@link MediaType}.
+     *
+     * @return Returns true if the types and subtypes are equal.
+     */
+    public boolean is(MediaType other) {
+        return type.equals(other.type) && subtype.equals(other.subtype);
+    }
+
+    /**
+     * Determines whether this media type falls within the specified range, as an element of an Accept header would
+     * select it: the range may use a wildcard type or subtype, and each of its parameters other than the quality
+     * {@code q} must be present with an equal value.
+     *
+     * @param range The media range, for example {@code text/*}.
+     *
+     * @return Returns true if this media type is within the range.
+     */
+    public boolean matches(MediaType range) {
+        if (!WILDCARD_TYPE.equals(range.type) && !type.equals(range.type)) {
+            return false;
+        }
+        if (!WILDCARD_TYPE.equals(range.subtype) && !subtype.equals(range.subtype)) {
+            return false;
+        }
+        for (Map.Entry<String, String> parameter : range.parameters.entrySet()) {
+            if (!"q".equals(parameter.getKey())
+                    && !parameter.getValue().equalsIgnoreCase(parameters.get(parameter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(type, subtype, parameters);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof MediaType)) {
+            return false;
+        }
+
+        MediaType that = (MediaType) obj;
+
+        return type.equals(that.type) && subtype.equals(that.subtype) && parameters.equals(that.parameters);
+    }
+
+    /**
+     * Formats this media type as a header value, quoting parameter values that are not tokens.
+     */
+    @Override
+    public String toString() {
+        String current = text;
+        if (null == current) {
+            StringBuilder formatted = new StringBuilder(type).append('/').append(subtype);
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                formatted.append("; ").append(parameter.getKey()).append('=');
+                String value = parameter.getValue();
+                if (isToken(value)) {
+                    formatted.append(value);
+                } else {
+                    formatted.append('"');
+                    for (int i = 0; i < value.length(); i++) {
+                        char c = value.charAt(i);
+                        if (('"' == c) || ('\\' == c)) {
+                            formatted.append('\\');
+                        }
+                        formatted.append(c);
+                    }
+                    formatted.append('"');
+                }
+            }
+            current = formatted.toString();
+            text = current;
+        }
+        return current;
+    }
+
+    private static MediaType parseUncached(String value) {
+        int length = value.length();
+        int end = value.indexOf(';');
+        if (end < 0) {
+            end = length;
+        }
+        int slash = value.indexOf('/');
+        if ((slash < 0) || (slash > end)) {
+            return null;
+        }
+
+        String type = value.substring(0, slash).trim().toLowerCase(Locale.ROOT);
+        String subtype = value.substring(slash + 1, end).trim().toLowerCase(Locale.ROOT);
+        if (!isToken(type) || !isToken(subtype)) {
+            return null;
+        }
+
+        Map<String, String> parameters = null;
+        int position = end;
+        while (position < length) {
+            // The character at position is the semicolon that starts a parameter.
+            int nameEnd = position + 1;
+            while ((nameEnd < length) && ('=' != value.charAt(nameEnd)) && (';' != value.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            if ((nameEnd >= length) || (';' == value.charAt(nameEnd))) {
+                // A parameter without a value, or an empty one, is ignored.
+                position = nameEnd;
+                continue;
+            }
+            String name = value.substring(position + 1, nameEnd).trim().toLowerCase(Locale.ROOT);
+
+            int valueStart = nameEnd + 1;
+            while ((valueStart < length) && (' ' == value.charAt(valueStart) || '\t' == value.charAt(valueStart))) {
+                valueStart++;
+            }
+            String parameterValue;
+            if ((valueStart < length) && ('"' == value.charAt(valueStart))) {
+                StringBuilder unquoted = new StringBuilder();
+                int i = valueStart + 1;
+                while ((i < length) && ('"' != value.charAt(i))) {
+                    char c = value.charAt(i);
+                    if (('\\' == c) && (i + 1 < length)) {
+                        c = value.charAt(++i);
+                    }
+                    unquoted.append(c);
+                    i++;
+                }
+                if (i >= length) {
+                    return null;
+                }
+                parameterValue = unquoted.toString();
+                position = value.indexOf(';', i + 1);
+            } else {
+                position = value.indexOf(';', valueStart);
+                parameterValue = value.substring(valueStart, (position < 0) ? length : position).trim();
+            }
+            if (position < 0) {
+                position = length;
+            }
+
+            if (isToken(name)) {
+                if (null == parameters) {
+                    parameters = new LinkedHashMap<>();
+                }
+                parameters.putIfAbsent(name, normalize(name, parameterValue));
+            }
+        }
+
+        return new MediaType(type, subtype, (null != parameters) ? ImmutableMap.copyOf(parameters) : ImmutableMap.of(),
+                value);
+    }
+
+    /**
+     * Finds the next comma that is not within a quoted string.
+     */
+    private static int nextComma(String value, int start) {
+        boolean quoted = false;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quoted && ('\\' == c)) {
+                i++;
+            } else if ('"' == c) {
+                quoted = !quoted;
+            } else if ((',' == c) && !quoted) {
+                return i;
+            }
+        }
+        return value.length();
+    }
+
+    /**
+     * Determines whether the specified value is a non-empty token, as defined by RFC 7230 section 3.2.6.
+     */
+    private static boolean isToken(String value) {
+        if ((null == value) || value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c <= ' ') || (c >= 127) || ("()<>@,;:\\\"/[]?={}".indexOf(c) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower-cases the value of the charset parameter, which is case-insensitive, so that equal media types are equal.
+     */
+    private static String normalize(String name, String value) {
+        return CHARSET.equals(name) ? value.toLowerCase(Locale.ROOT) : value;
+    }
+
+    private static Charset charsetNamed(String name) {
+        if (null == name) {
+            return null;
+        }
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+}
@@ -1,10 +1,106 @@
 package com.interzonedev.httpcore;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Enumeration of allowed HTTP request methods.
- * 
+ *
  * @author mark@interzonedev.com
  */
 public enum Method {
-    GET, HEAD, POST, PUT, DELETE, OPTIONS, TRACE, CONNECT
+    GET, HEAD, POST, PUT, DELETE, OPTIONS, TRACE, CONNECT, PATCH;
+
+    /**
+     * Methods indexed by the length of their name. Method names are case-sensitive, so the bytes are compared exactly.
+     */
+    private static final Method[][] BY_LENGTH;
+
+    static {
+        int maximumLength = 0;
+        for (Method method : values()) {
+            maximumLength = Math.max(maximumLength, method.name().length());
+        }
+
+        BY_LENGTH = new Method[maximumLength + 1][];
+        for (int length = 0; length <= maximumLength; length++) {
+            int count = 0;
+            for (Method method : values()) {
+                if (method.name().length() == length) {
+                    count++;
+                }
+            }
+            BY_LENGTH[length] = new Method[count];
+            count = 0;
+            for (Method method : values()) {
+                if (method.name().length() == length) {
+                    BY_LENGTH[length][count++] = method;
+                }
+            }
+        }
+    }
+
+    private final byte[] token = name().getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Finds the method whose name is the specified bytes of the specified buffer, without allocating. The position
+     * and limit of the buffer are not changed.
+     *
+     * @param buffer The buffer holding the method token.
+     * @param offset The absolute index of the first byte of the token.
+     * @param length The length of the token.
+     *
+     * @return Returns the method or null if the token is not a known method name.
+     */
+    public static Method lookup(ByteBuffer buffer, int offset, int length) {
+        if ((length <= 0) || (length >= BY_LENGTH.length)) {
+            return null;
+        }
+
+        for (Method method : BY_LENGTH[length]) {
+            byte[] candidate = method.token;
+            int i = 0;
+            while ((i < length) && (buffer.get(offset + i) == candidate[i])) {
+                i++;
+            }
+            if (i == length) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the method whose name is the specified bytes of the specified array, as
+     * {@link #lookup(ByteBuffer, int, int)} does for a buffer wrapping the array.
+     *
+     * @param bytes The array holding the method token.
+     * @param offset The index of the first byte of the token.
+     * @param length The length of the token.
+     *
+     * @return Returns the method or null if the token is not a known method name.
+     */
+    public static Method lookup(byte[] bytes, int offset, int length) {
+        return lookup(ByteBuffer.wrap(bytes), offset, length);
+    }
+
+    /**
+     * Finds the method with the specified name, which is matched case-sensitively, without allocating or throwing.
+     *
+     * @param name The method name.
+     *
+     * @return Returns the method or null if the name is null or not a known method name.
+     */
+    public static Method lookup(String name) {
+        if ((null == name) || name.isEmpty() || (name.length() >= BY_LENGTH.length)) {
+            return null;
+        }
+
+        for (Method method : BY_LENGTH[name.length()]) {
+            if (method.name().equals(name)) {
+                return method;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,180 @@
+package com.interzonedev.httpcore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Static helpers that answer Range requests (RFC 7233) from a complete {@link Response}. The selected ranges are
+ * slices of the complete {@link Body}, so no bytes are copied, and a body from {@link Body#ofFile(java.nio.file.Path)}
+ * is still written to the connection straight from its file. Several ranges are sent as one
+ * {@code multipart/byteranges} body whose part headers are the only new bytes.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class PartialContent {
+
+    /**
+     * The name of the Accept-Ranges header.
+     */
+    public static final String ACCEPT_RANGES = "Accept-Ranges";
+
+    /**
+     * The name of the If-Range header.
+     */
+    public static final String IF_RANGE = "If-Range";
+
+    public static final MediaType MULTIPART_BYTERANGES = MediaType.of("multipart", "byteranges");
+
+    /**
+     * Requests for more ranges than this are answered with the complete response, since many small ranges cost more
+     * to serve than the whole and are a known means of abuse.
+     */
+    public static final int DEFAULT_MAX_RANGES = 16;
+
+    private static final char[] BOUNDARY_CHARACTERS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private PartialContent() {
+    }
+
+    /**
+     * Answers the Range header of the specified request with {@link #DEFAULT_MAX_RANGES}.
+     *
+     * @param request The {@link Request}, whose Range and If-Range headers are honored.
+     * @param full The complete 200 {@link Response} to the request.
+     *
+     * @return Returns the response to send. See {@link #respond(Request, Response, int)}.
+     */
+    public static Response respond(Request request, Response full) {
+        return respond(request, full, DEFAULT_MAX_RANGES);
+    }
+
+    /**
+     * Answers the Range header of the specified request from the specified complete response.
+     *
+     * @param request The {@link Request}, whose Range and If-Range headers are honored.
+     * @param full The complete 200 {@link Response} to the request.
+     * @param maxRanges The greatest number of ranges to serve as partial content.
+     *
+     * @return Returns the complete response, with Accept-Ranges, if the request is not a GET, has no usable Range
+     *         header, fails its If-Range condition or asks for too many ranges; a 206 Partial Content response if
+     *         some range is satisfiable; or a 416 Range Not Satisfiable response otherwise. Any other response than a
+     *         200 with a body is returned unchanged.
+     */
+    public static Response respond(Request request, Response full, int maxRanges) {
+        Body entity = full.getEntity();
+        if ((200 != full.getStatus()) || (null == entity)) {
+            return full;
+        }
+        Response ranged = full.getHttpHeaders().contains(ACCEPT_RANGES) ? full
+                : Response.newBuilder(full).setHeader(ACCEPT_RANGES, ByteRange.BYTES).build();
+
+        HttpHeaders headers = request.getHttpHeaders();
+        if (Method.GET != request.getMethod()) {
+            return ranged;
+        }
+        List<ByteRange> ranges = ByteRange.parse(headers.getFirst(ByteRange.RANGE));
+        if (ranges.isEmpty() || (ranges.size() > maxRanges)) {
+            return ranged;
+        }
+        String ifRange = headers.getFirst(IF_RANGE);
+        if ((null != ifRange) && !isCurrent(ifRange.trim(), full.getHttpHeaders())) {
+            return ranged;
+        }
+
+        long completeLength = entity.length();
+        List<ContentRange> selected = new ArrayList<>(ranges.size());
+        for (ByteRange range : ranges) {
+            ContentRange resolved = range.resolve(completeLength);
+            if (null != resolved) {
+                selected.add(resolved);
+            }
+        }
+
+        if (selected.isEmpty()) {
+            return Response.newBuilder(ranged).setStatus(416)
+                    .setHeader(ContentRange.CONTENT_RANGE, ContentRange.unsatisfied(completeLength).toString())
+                    .removeHeader("Content-Length").setEntity(Body.empty()).setContentLength(0L).build();
+        }
+
+        if (1 == selected.size()) {
+            ContentRange range = selected.get(0);
+            return Response.newBuilder(ranged).setStatus(206)
+                    .setHeader(ContentRange.CONTENT_RANGE, range.toString()).removeHeader("Content-Length")
+                    .setEntity(entity.slice(range.getFirst(), range.getLength())).setContentLength(range.getLength())
+                    .build();
+        }
+
+        String boundary = randomBoundary();
+        String partType = full.getContentType();
+        if (null == partType) {
+            partType = full.getHttpHeaders().getFirst(ContentTypes.CONTENT_TYPE);
+        }
+        Body body = toMultipartBody(entity, selected, boundary, partType);
+        MediaType mediaType = MULTIPART_BYTERANGES.withParameter("boundary", boundary);
+        Response.Builder multipart = Response.newBuilder(ranged).setStatus(206).setMediaType(mediaType)
+                .removeHeader("Content-Length").setEntity(body).setContentLength(body.length());
+        if (full.getHttpHeaders().contains(ContentTypes.CONTENT_TYPE)) {
+            multipart.setHeader(ContentTypes.CONTENT_TYPE, mediaType.toString());
+        }
+        return multipart.build();
+    }
+
+    /**
+     * Builds the {@code multipart/byteranges} body of the specified ranges of the specified body.
+     *
+     * @param entity The complete {@link Body}.
+     * @param ranges The ranges of the parts in order.
+     * @param boundary The boundary of the parts.
+     * @param partType The Content-Type of each part, or null for none.
+     *
+     * @return Returns the multipart {@link Body}, which shares the bytes of the specified body.
+     */
+    public static Body toMultipartBody(Body entity, List<ContentRange> ranges, String boundary, String partType) {
+        List<Body> parts = new ArrayList<>(2 * ranges.size() + 1);
+        for (int i = 0; i < ranges.size(); i++) {
+            ContentRange range = ranges.get(i);
+            StringBuilder head = new StringBuilder();
+            if (i > 0) {
+                head.append("\r\n");
+            }
+            head.append("--").append(boundary).append("\r\n");
+            if (null != partType) {
+                head.append(ContentTypes.CONTENT_TYPE).append(": ").append(partType).append("\r\n");
+            }
+            head.append(ContentRange.CONTENT_RANGE).append(": ").append(range).append("\r\n\r\n");
+            parts.add(latin1(head));
+            parts.add(entity.slice(range.getFirst(), range.getLength()));
+        }
+        parts.add(latin1(new StringBuilder("\r\n--").append(boundary).append("--\r\n")));
+        return Body.concat(parts);
+    }
+
+    /**
+     * Evaluates an If-Range validator against the headers of the current representation. An entity tag must match
+     * the ETag strongly; a date must equal the Last-Modified value exactly.
+     */
+    private static boolean isCurrent(String validator, HttpHeaders current) {
+        if (validator.startsWith("\"") || validator.startsWith("W/")) {
+            String etag = current.getFirst("ETag");
+            return !validator.startsWith("W/") && (null != etag) && validator.equals(etag.trim());
+        }
+        String lastModified = current.getFirst("Last-Modified");
+        return (null != lastModified) && validator.equals(lastModified.trim());
+    }
+
+    private static Body latin1(StringBuilder text) {
+        return Body.wrap(text.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String randomBoundary() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder boundary = new StringBuilder("httpcore-ranges-");
+        for (int i = 0; i < 24; i++) {
+            boundary.append(BOUNDARY_CHARACTERS[random.nextInt(BOUNDARY_CHARACTERS.length)]);
+        }
+        return boundary.toString();
+    }
+
+}
@@ -1,24 +1,80 @@
 package com.interzonedev.httpcore;
 
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
-import com.google.common.collect.ImmutableMap;
 
 /**
  * Immutable value object representing an HTTP request.
+ *
+ * <p>
+ * The headers, parameters and body may be supplied lazily, for example by an adapter over a servlet request, in which
+ * case each is materialized on first access, at most once, and never if it is not used.
+ * </p>
+ *
+ * <p>
+ * The URL is kept as given and parsed into an {@link HttpUrl} on first use of {@link #getHttpUrl()}, at most once per
+ * instance. {@link #getMergedParameters()} folds its query parameters and the separately set parameters into one
+ * view, so that routing code reads both from the same place.
+ * </p>
  * 
  * @author mark@interzonedev.com
  */
 public class Request {
 
+    /**
+     * Marks a body that has not been materialized yet, since null is a valid body.
+     */
+    private static final Body PENDING_BODY = Body.wrap(new byte[0]);
+
     private final String url;
     private final Method method;
-    private final Map<String, List<String>> headers;
-    private final Map<String, List<String>> parameters;
-    private final String body;
+
+    /**
+     * The parsed URL and the merged parameters. Null until first computed, which is safe to race on because every
+     * thread computes equal values.
+     */
+    private HttpUrl httpUrl;
+    private HttpParameters mergedParameters;
+
+    /**
+     * The headers, or null until they are materialized from {@link #lazyHeaders}.
+     */
+    private volatile HttpHeaders headers;
+    private Supplier<HttpHeaders> lazyHeaders;
+
+    /**
+     * The parameters, or null until they are materialized from {@link #lazyParameters}.
+     */
+    private volatile HttpParameters parameters;
+    private Supplier<HttpParameters> lazyParameters;
+
+    /**
+     * The body, or {@link #PENDING_BODY} until it is materialized from {@link #lazyBody}.
+     */
+    private volatile Body body;
+    private Supplier<Body> lazyBody;
+
+    /**
+     * The charset of the Content-Type header. Written before {@link #headers} and read after it.
+     */
+    private MediaType mediaType;
+    private Charset charset;
+
+    /**
+     * Cached hash code. Zero until first computed, which is safe to race on because every thread computes the same
+     * value.
+     */
+    private int hash;
+
+    /**
+     * Cached key for the most recently used {@link RequestKey.Projection}.
+     */
+    private volatile RequestKey key;
 
     /**
      * Creates a new {@link Request} from the values set on the specified {@link Builder}.
@@ -28,9 +84,31 @@ public class Request {
     private Request(Builder builder) {
         this.url = builder.url;
         this.method = builder.method;
-        this.headers = builder.headers;
-        this.parameters = builder.parameters;
-        this.body = builder.body;
+        this.httpUrl = builder.httpUrl;
+
+        if ((null != builder.lazyHeaders) && (null == builder.bodyText)) {
+            this.lazyHeaders = builder.lazyHeaders;
+        } else {
+            HttpHeaders resolved = (null != builder.lazyHeaders) ? builder.lazyHeaders.get() : builder.headers;
+            this.mediaType = mediaTypeOf(resolved);
+            this.charset = (null != mediaType) ? mediaType.getCharset() : null;
+            this.headers = (null != resolved) ? resolved : HttpHeaders.of();
+        }
+
+        if (null != builder.lazyParameters) {
+            this.lazyParameters = builder.lazyParameters;
+        } else {
+            this.parameters = builder.parameters;
+        }
+
+        if (null != builder.bodyText) {
+            this.body = Body.of(builder.bodyText, (null != charset) ? charset : Body.DEFAULT_CHARSET);
+        } else if (null != builder.lazyBody) {
+            this.lazyBody = builder.lazyBody;
+            this.body = PENDING_BODY;
+        } else {
+            this.body = builder.body;
+        }
     }
 
     /**
@@ -57,45 +135,227 @@ public class Request {
         return url;
     }
 
+    /**
+     * Gets the URL parsed into its components. It is parsed on the first call only.
+     *
+     * @return Returns the parsed {@link HttpUrl}, or null if there is no URL.
+     *
+     * @throws HttpException Thrown if the URL has a port that is not a number.
+     */
+    public HttpUrl getHttpUrl() {
+        HttpUrl parsed = httpUrl;
+        if ((null == parsed) && (null != url)) {
+            parsed = HttpUrl.parse(url);
+            httpUrl = parsed;
+        }
+        return parsed;
+    }
+
     public Method getMethod() {
         return method;
     }
 
+    /**
+     * Gets a read-only {@link Map} view of the headers. Lookups through the view match header names
+     * case-insensitively.
+     *
+     * @return Returns a read-only {@link Map} view of the headers.
+     */
     public Map<String, List<String>> getHeaders() {
-        return headers;
+        return getHttpHeaders().asMap();
+    }
+
+    public HttpHeaders getHttpHeaders() {
+        HttpHeaders current = headers;
+        return (null != current) ? current : materializeHeaders();
     }
 
+    /**
+     * Gets a read-only {@link Map} view of the parameters.
+     *
+     * @return Returns a read-only {@link Map} view of the parameters.
+     */
     public Map<String, List<String>> getParameters() {
-        return parameters;
+        return getHttpParameters().asMap();
+    }
+
+    /**
+     * Gets the parameters set on this request, apart from those in the query string of the URL. They never repeat the
+     * query parameters, since a transport appends them to the URL as they are; {@link #getMergedParameters()} gives
+     * both.
+     *
+     * @return Returns the {@link HttpParameters} of this request.
+     */
+    public HttpParameters getHttpParameters() {
+        HttpParameters current = parameters;
+        return (null != current) ? current : materializeParameters();
     }
 
+    /**
+     * Gets the parameters of the query string of the URL followed by the parameters set on this request. A name that
+     * appears in both has the values from the query first. Computed on the first call only.
+     *
+     * @return Returns the merged {@link HttpParameters}.
+     *
+     * @throws HttpException Thrown if the URL has a port that is not a number.
+     */
+    public HttpParameters getMergedParameters() {
+        HttpParameters merged = mergedParameters;
+        if (null == merged) {
+            HttpUrl parsed = getHttpUrl();
+            HttpParameters query = (null != parsed) ? parsed.getQueryParameters() : HttpParameters.of();
+            HttpParameters own = getHttpParameters();
+            if (query.isEmpty()) {
+                merged = own;
+            } else if (own.isEmpty()) {
+                merged = query;
+            } else {
+                HttpParameters.Builder builder = HttpParameters.newBuilder(query);
+                for (int i = 0; i < own.size(); i++) {
+                    builder.add(own.getName(i), own.getValues(i));
+                }
+                merged = builder.build();
+            }
+            mergedParameters = merged;
+        }
+        return merged;
+    }
+
+    /**
+     * Gets the body of this request decoded as text. The body is decoded with the charset of the Content-Type header,
+     * or {@link Body#DEFAULT_CHARSET} if there is none, on the first call only.
+     *
+     * @return Returns the body of this request as text or null if there is no body.
+     */
     public String getBody() {
+        Body entity = getEntity();
+        if (null == entity) {
+            return null;
+        }
+        getHttpHeaders();
+        return entity.asString(charset);
+    }
+
+    /**
+     * Gets the Content-Type header parsed, which is shared by every request with an equal content type.
+     *
+     * @return Returns the {@link MediaType} of the body, or null if there is no Content-Type header or it is
+     *         malformed.
+     */
+    public MediaType getMediaType() {
+        getHttpHeaders();
+        return mediaType;
+    }
+
+    /**
+     * Gets the media types of the Accept header, in the order they appear, skipping any that are malformed.
+     *
+     * @return Returns the accepted {@link MediaType}s, empty if there is no Accept header.
+     */
+    public List<MediaType> getAcceptedMediaTypes() {
+        return MediaType.parseList(getHttpHeaders().getAll(MediaType.ACCEPT));
+    }
+
+    /**
+     * Gets the body of this request as bytes without decoding it.
+     *
+     * @return Returns the {@link Body} of this request or null if there is no body.
+     */
+    public Body getEntity() {
+        Body current = body;
+        return (PENDING_BODY != current) ? current : materializeBody();
+    }
+
+    private synchronized HttpHeaders materializeHeaders() {
+        if (null == headers) {
+            HttpHeaders supplied = lazyHeaders.get();
+            HttpHeaders resolved = (null != supplied) ? supplied : HttpHeaders.of();
+            mediaType = mediaTypeOf(resolved);
+            charset = (null != mediaType) ? mediaType.getCharset() : null;
+            headers = resolved;
+            lazyHeaders = null;
+        }
+        return headers;
+    }
+
+    private synchronized HttpParameters materializeParameters() {
+        if (null == parameters) {
+            HttpParameters supplied = lazyParameters.get();
+            parameters = (null != supplied) ? supplied : HttpParameters.of();
+            lazyParameters = null;
+        }
+        return parameters;
+    }
+
+    private synchronized Body materializeBody() {
+        if (PENDING_BODY == body) {
+            body = lazyBody.get();
+            lazyBody = null;
+        }
         return body;
     }
 
+    private static MediaType mediaTypeOf(HttpHeaders headers) {
+        return (null != headers) ? MediaType.tryParse(headers.getFirst(ContentTypes.CONTENT_TYPE)) : null;
+    }
+
+    /**
+     * Gets the key of this request under the specified projection, reusing the key from the previous call if it was
+     * made with the same projection.
+     *
+     * @param projection The {@link RequestKey.Projection} with which to create the key.
+     *
+     * @return Returns the {@link RequestKey} of this request under the specified projection.
+     */
+    RequestKey keyFor(RequestKey.Projection projection) {
+        RequestKey current = key;
+        if ((null == current) || (current.getProjection() != projection)) {
+            current = projection.computeKey(this);
+            key = current;
+        }
+        return current;
+    }
+
+    /**
+     * Computed once and cached, since a {@link Request} is immutable.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(url, method, headers, parameters, body);
+        int h = hash;
+        if (0 == h) {
+            h = Objects.hashCode(url, method, getHttpHeaders(), getHttpParameters(), getEntity());
+            hash = h;
+        }
+        return h;
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
         if (!(obj instanceof Request)) {
             return false;
         }
 
         Request that = (Request) obj;
 
+        if ((0 != hash) && (0 != that.hash) && (hash != that.hash)) {
+            return false;
+        }
+
         return Objects.equal(url, that.url) && Objects.equal(method, that.method)
-                && Objects.equal(headers, that.headers) && Objects.equal(parameters, that.parameters)
-                && Objects.equal(body, that.body);
+                && Objects.equal(getHttpHeaders(), that.getHttpHeaders())
+                && Objects.equal(getHttpParameters(), that.getHttpParameters())
+                && Objects.equal(getEntity(), that.getEntity());
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getName() + "@" + Integer.toHexString(hashCode())).add("url", url)
-                .add("method", method).add("headers", headers).add("parameters", parameters).add("body", body)
-                .toString();
+                .add("method", method).add("headers", getHttpHeaders()).add("parameters", getHttpParameters())
+                .add("body", getEntity()).toString();
     }
 
     /**
@@ -104,10 +364,17 @@ public class Request {
     public static class Builder {
 
         private String url;
+        private HttpUrl httpUrl;
         private Method method;
-        private Map<String, List<String>> headers = ImmutableMap.of();
-        private Map<String, List<String>> parameters = ImmutableMap.of();
-        private String body;
+        private HttpHeaders headers = HttpHeaders.of();
+        private HttpHeaders.Builder headersBuilder;
+        private Supplier<HttpHeaders> lazyHeaders;
+        private HttpParameters parameters = HttpParameters.of();
+        private HttpParameters.Builder parametersBuilder;
+        private Supplier<HttpParameters> lazyParameters;
+        private Body body;
+        private String bodyText;
+        private Supplier<Body> lazyBody;
 
         /**
          * Default constructor. Allows for building a {@link Request} starting with default values.
@@ -123,10 +390,28 @@ public class Request {
          */
         private Builder(Request template) {
             this.url = template.url;
+            this.httpUrl = template.httpUrl;
             this.method = template.method;
-            this.headers = template.headers;
-            this.parameters = template.parameters;
-            this.body = template.body;
+
+            // Parts the template has not materialized stay lazy, and are materialized once, by the template.
+            HttpHeaders templateHeaders = template.headers;
+            if (null != templateHeaders) {
+                this.headers = templateHeaders;
+            } else {
+                this.lazyHeaders = template::getHttpHeaders;
+            }
+            HttpParameters templateParameters = template.parameters;
+            if (null != templateParameters) {
+                this.parameters = templateParameters;
+            } else {
+                this.lazyParameters = template::getHttpParameters;
+            }
+            Body templateBody = template.body;
+            if (PENDING_BODY != templateBody) {
+                this.body = templateBody;
+            } else {
+                this.lazyBody = template::getEntity;
+            }
         }
 
         /**
@@ -135,11 +420,33 @@ public class Request {
          * @return Returns a new {@link Request} from the values set on this {@link Builder}.
          */
         public Request build() {
+            if (null != headersBuilder) {
+                headers = headersBuilder.build();
+            }
+            if (null != parametersBuilder) {
+                parameters = parametersBuilder.build();
+            }
             return new Request(this);
         }
 
         public Builder setUrl(String url) {
             this.url = url;
+            this.httpUrl = null;
+            return this;
+        }
+
+        /**
+         * Sets the URL from one already parsed, which the built {@link Request} keeps rather than parsing it again.
+         * Combined with {@link HttpUrl#withEncodedPath(String)} or {@link HttpUrl#withEncodedQuery(String)}, this
+         * rebuilds a request for a new path or query without parsing or encoding the rest of the URL.
+         *
+         * @param url The {@link HttpUrl}, or null for no URL.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setHttpUrl(HttpUrl url) {
+            this.url = (null != url) ? url.toString() : null;
+            this.httpUrl = url;
             return this;
         }
 
@@ -149,25 +456,230 @@ public class Request {
         }
 
         public Builder setHeaders(Map<String, List<String>> headers) {
+            this.headers = HttpHeaders.copyOf(headers);
+            this.headersBuilder = null;
+            this.lazyHeaders = null;
+            return this;
+        }
+
+        public Builder setHttpHeaders(HttpHeaders headers) {
             if (null != headers) {
-                this.headers = ImmutableMap.copyOf(headers);
+                this.headers = headers;
             } else {
-                this.headers = ImmutableMap.of();
+                this.headers = HttpHeaders.of();
             }
+            this.headersBuilder = null;
+            this.lazyHeaders = null;
+            return this;
+        }
+
+        /**
+         * Sets a supplier of the headers, which is called at most once, when the headers of the built {@link Request}
+         * are first used. Editing the headers on this builder, or setting the body as text, calls it right away.
+         *
+         * @param headers The supplier of the headers.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setLazyHeaders(Supplier<HttpHeaders> headers) {
+            this.lazyHeaders = headers;
+            this.headersBuilder = null;
+            return this;
+        }
+
+        /**
+         * Adds a value to the specified header, after any values it already has. Headers not edited are shared with
+         * the template rather than copied.
+         *
+         * @param name The case-insensitive name of the header.
+         * @param value The value to add.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder addHeader(String name, String value) {
+            headersBuilder().add(name, value);
+            return this;
+        }
+
+        /**
+         * Replaces all of the values of the specified header with the specified value.
+         *
+         * @param name The case-insensitive name of the header.
+         * @param value The only value of the header.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setHeader(String name, String value) {
+            headersBuilder().set(name, value);
+            return this;
+        }
+
+        /**
+         * Sets the Content-Type header to the specified media type.
+         *
+         * @param mediaType The {@link MediaType} of the body.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMediaType(MediaType mediaType) {
+            return setHeader(ContentTypes.CONTENT_TYPE, mediaType.toString());
+        }
+
+        /**
+         * Sets the Accept header to the specified media types.
+         *
+         * @param mediaTypes The accepted {@link MediaType}s in order of preference.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setAccept(List<MediaType> mediaTypes) {
+            return setHeader(MediaType.ACCEPT, MediaType.toHeaderValue(mediaTypes));
+        }
+
+        /**
+         * Removes the specified header and all of its values.
+         *
+         * @param name The case-insensitive name of the header.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder removeHeader(String name) {
+            headersBuilder().remove(name);
             return this;
         }
 
+        private HttpHeaders.Builder headersBuilder() {
+            if (null == headersBuilder) {
+                if (null != lazyHeaders) {
+                    setHttpHeaders(lazyHeaders.get());
+                }
+                headersBuilder = HttpHeaders.newBuilder(headers);
+            }
+            return headersBuilder;
+        }
+
         public Builder setParameters(Map<String, List<String>> parameters) {
+            this.parameters = HttpParameters.copyOf(parameters);
+            this.parametersBuilder = null;
+            this.lazyParameters = null;
+            return this;
+        }
+
+        public Builder setHttpParameters(HttpParameters parameters) {
             if (null != parameters) {
-                this.parameters = ImmutableMap.copyOf(parameters);
+                this.parameters = parameters;
             } else {
-                this.parameters = ImmutableMap.of();
+                this.parameters = HttpParameters.of();
             }
+            this.parametersBuilder = null;
+            this.lazyParameters = null;
+            return this;
+        }
+
+        /**
+         * Sets a supplier of the parameters, which is called at most once, when the parameters of the built
+         * {@link Request} are first used. Editing the parameters on this builder calls it right away.
+         *
+         * @param parameters The supplier of the parameters.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setLazyParameters(Supplier<HttpParameters> parameters) {
+            this.lazyParameters = parameters;
+            this.parametersBuilder = null;
+            return this;
+        }
+
+        /**
+         * Adds a value to the specified parameter, after any values it already has. Parameters not edited are shared
+         * with the template rather than copied.
+         *
+         * @param name The name of the parameter.
+         * @param value The value to add.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder addParameter(String name, String value) {
+            parametersBuilder().add(name, value);
+            return this;
+        }
+
+        /**
+         * Replaces all of the values of the specified parameter with the specified value.
+         *
+         * @param name The name of the parameter.
+         * @param value The only value of the parameter.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setParameter(String name, String value) {
+            parametersBuilder().set(name, value);
             return this;
         }
 
+        /**
+         * Removes the specified parameter and all of its values.
+         *
+         * @param name The name of the parameter.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder removeParameter(String name) {
+            parametersBuilder().remove(name);
+            return this;
+        }
+
+        private HttpParameters.Builder parametersBuilder() {
+            if (null == parametersBuilder) {
+                if (null != lazyParameters) {
+                    setHttpParameters(lazyParameters.get());
+                }
+                parametersBuilder = HttpParameters.newBuilder(parameters);
+            }
+            return parametersBuilder;
+        }
+
+        /**
+         * Sets the body as text. The text is encoded with the charset of the Content-Type header, or
+         * {@link Body#DEFAULT_CHARSET} if there is none, when the {@link Request} is built.
+         *
+         * @param body The text of the body.
+         *
+         * @return Returns this {@link Builder}.
+         */
         public Builder setBody(String body) {
-            this.body = body;
+            this.bodyText = body;
+            this.body = null;
+            this.lazyBody = null;
+            return this;
+        }
+
+        /**
+         * Sets the body as bytes. The bytes are not copied or decoded.
+         *
+         * @param entity The {@link Body} of the request.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setEntity(Body entity) {
+            this.body = entity;
+            this.bodyText = null;
+            this.lazyBody = null;
+            return this;
+        }
+
+        /**
+         * Sets a supplier of the body, which is called at most once, when the body of the built {@link Request} is
+         * first used. The supplier may return null for a request without a body.
+         *
+         * @param entity The supplier of the {@link Body}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setLazyEntity(Supplier<Body> entity) {
+            this.lazyBody = entity;
+            this.body = null;
+            this.bodyText = null;
             return this;
         }
     }
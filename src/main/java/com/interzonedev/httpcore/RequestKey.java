@@ -0,0 +1,429 @@
+package com.interzonedev.httpcore;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Immutable key identifying a {@link Request} for caching and deduplication. A key holds only the parts of the
+ * {@link Request} selected by its {@link Projection}, and carries a precomputed 64-bit fingerprint of them so that
+ * comparing keys is usually a single {@code long} comparison.
+ *
+ * <p>
+ * Two keys are equal if they were created with the same {@link Projection} and hold equal parts, including the names
+ * of the headers whose values they hold. The fingerprint is only used to reject unequal keys quickly, so fingerprint
+ * collisions never make unequal keys equal.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class RequestKey {
+
+    private static final HashFunction FINGERPRINT = Hashing.farmHashFingerprint64();
+
+    private static final HashFunction BODY_DIGEST = Hashing.murmur3_128();
+
+    private final Projection projection;
+    private final Method method;
+    private final String url;
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final HttpParameters parameters;
+    private final HashCode bodyDigest;
+    private final long fingerprint;
+
+    private RequestKey(Projection projection, Method method, String url, String[] headerNames, String[] headerValues,
+            HttpParameters parameters, HashCode bodyDigest) {
+        this.projection = projection;
+        this.method = method;
+        this.url = url;
+        this.headerNames = headerNames;
+        this.headerValues = headerValues;
+        this.parameters = parameters;
+        this.bodyDigest = bodyDigest;
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Gets the key of the specified {@link Request} under {@link Projection#DEFAULT}.
+     *
+     * @param request The {@link Request} for which to get the key.
+     *
+     * @return Returns the key of the specified {@link Request}.
+     */
+    public static RequestKey of(Request request) {
+        return Projection.DEFAULT.keyOf(request);
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Gets the method, or null if the projection does not include it.
+     *
+     * @return Returns the method or null.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the URL, normalized if the projection normalizes URLs.
+     *
+     * @return Returns the URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the names of the headers whose values this key holds, in lower case.
+     *
+     * @return Returns an immutable list of the lower case names of the headers included in this key.
+     */
+    public List<String> getHeaderNames() {
+        return Collections.unmodifiableList(Arrays.asList(headerNames));
+    }
+
+    /**
+     * Gets the value of each header named by {@link #getHeaderNames()}, in the same order, with multiple values joined
+     * by commas. Absent headers have a null value.
+     *
+     * @return Returns an immutable list of the values of the headers named by the projection.
+     */
+    public List<String> getHeaderValues() {
+        return Collections.unmodifiableList(Arrays.asList(headerValues));
+    }
+
+    /**
+     * Gets the 64-bit fingerprint of the parts of the {@link Request} held by this key.
+     *
+     * @return Returns the fingerprint of this key.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    private long computeFingerprint() {
+        Hasher hasher = FINGERPRINT.newHasher();
+        putString(hasher, (null != method) ? method.name() : null);
+        putString(hasher, url);
+        hasher.putInt(headerNames.length);
+        for (int i = 0; i < headerNames.length; i++) {
+            putString(hasher, headerNames[i]);
+            putString(hasher, headerValues[i]);
+        }
+        if (null != parameters) {
+            hasher.putInt(parameters.size());
+            for (int i = 0; i < parameters.size(); i++) {
+                putString(hasher, parameters.getName(i));
+                List<String> values = parameters.getValues(i);
+                hasher.putInt(values.size());
+                for (String value : values) {
+                    putString(hasher, value);
+                }
+            }
+        }
+        if (null != bodyDigest) {
+            hasher.putBytes(bodyDigest.asBytes());
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Writes the specified string prefixed by its length, so that adjacent strings cannot run into each other.
+     */
+    private static void putString(Hasher hasher, String value) {
+        if (null == value) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putUnencodedChars(value);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof RequestKey)) {
+            return false;
+        }
+
+        RequestKey that = (RequestKey) obj;
+
+        return (fingerprint == that.fingerprint) && (projection == that.projection)
+                && Objects.equal(method, that.method) && Objects.equal(url, that.url)
+                && ((headerNames == that.headerNames) || Arrays.equals(headerNames, that.headerNames))
+                && Arrays.equals(headerValues, that.headerValues) && Objects.equal(parameters, that.parameters)
+                && Objects.equal(bodyDigest, that.bodyDigest);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("fingerprint", Long.toHexString(fingerprint))
+                .add("method", method).add("url", url).add("headerNames", Arrays.toString(headerNames))
+                .add("headerValues", Arrays.toString(headerValues))
+                .add("parameters", parameters).add("bodyDigest", bodyDigest).toString();
+    }
+
+    /**
+     * Normalizes the specified URL for comparison. The scheme and host are lower-cased, a default port is removed, an
+     * empty path becomes {@code /} and the fragment is dropped. URLs that cannot be parsed are returned unchanged.
+     *
+     * @param url The URL to normalize.
+     *
+     * @return Returns the normalized URL.
+     */
+    static String normalizeUrl(String url) {
+        if (null == url) {
+            return null;
+        }
+
+        try {
+            URI uri = new URI(url);
+            if (uri.isOpaque() || (null == uri.getScheme())) {
+                return url;
+            }
+
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = (null != uri.getHost()) ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+            int port = uri.getPort();
+            if ((("http".equals(scheme)) && (80 == port)) || (("https".equals(scheme)) && (443 == port))) {
+                port = -1;
+            }
+
+            StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append("://");
+            if (null != uri.getRawUserInfo()) {
+                normalized.append(uri.getRawUserInfo()).append('@');
+            }
+            if (null != host) {
+                normalized.append(host);
+            } else if (null != uri.getRawAuthority()) {
+                normalized.append(uri.getRawAuthority());
+            }
+            if (port >= 0) {
+                normalized.append(':').append(port);
+            }
+
+            String path = uri.getRawPath();
+            normalized.append(((null == path) || path.isEmpty()) ? "/" : path);
+
+            if (null != uri.getRawQuery()) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+
+            return normalized.toString();
+        } catch (URISyntaxException use) {
+            return url;
+        }
+    }
+
+    /**
+     * Selects which parts of a {@link Request} make up its {@link RequestKey}. Projections are immutable and compared
+     * by identity, so create each one once and reuse it.
+     */
+    public static final class Projection {
+
+        /**
+         * Includes the method, the normalized URL and the parameters, but no headers and no body.
+         */
+        public static final Projection DEFAULT = newBuilder().build();
+
+        private final boolean includeMethod;
+        private final boolean normalizeUrl;
+        private final boolean includeParameters;
+        private final boolean includeBody;
+        private final String[] headerNames;
+        private final String[] keyHeaderNames;
+
+        private Projection(Builder builder) {
+            this.includeMethod = builder.includeMethod;
+            this.normalizeUrl = builder.normalizeUrl;
+            this.includeParameters = builder.includeParameters;
+            this.includeBody = builder.includeBody;
+            this.headerNames = builder.headerNames;
+            this.keyHeaderNames = toKeyHeaderNames(builder.headerNames);
+        }
+
+        /**
+         * Gets a {@link Builder} with default initial values: the method, normalized URL and parameters are included,
+         * the body and headers are not.
+         *
+         * @return Returns a {@link Builder} with default initial values.
+         */
+        public static Builder newBuilder() {
+            return new Builder();
+        }
+
+        /**
+         * Gets the names of the headers included in keys created with this projection.
+         *
+         * @return Returns an immutable list of the names of the headers included in keys.
+         */
+        public List<String> getHeaderNames() {
+            return Collections.unmodifiableList(Arrays.asList(headerNames));
+        }
+
+        /**
+         * Gets the key of the specified {@link Request} under this projection. The key is cached on the
+         * {@link Request}, so asking again with the same projection does not recompute it.
+         *
+         * @param request The {@link Request} for which to get the key.
+         *
+         * @return Returns the key of the specified {@link Request}.
+         */
+        public RequestKey keyOf(Request request) {
+            return request.keyFor(this);
+        }
+
+        /**
+         * Gets the key of the specified {@link Request} including the specified header names in addition to the
+         * header names of this projection, for example the names listed by the Vary header of a cached response.
+         *
+         * @param request The {@link Request} for which to get the key.
+         * @param varyHeaderNames The names of the headers to include after those of this projection.
+         *
+         * @return Returns the key of the specified {@link Request}.
+         */
+        public RequestKey keyOf(Request request, List<String> varyHeaderNames) {
+            if (varyHeaderNames.isEmpty()) {
+                return computeKey(request, keyHeaderNames);
+            }
+            String[] names = Arrays.copyOf(keyHeaderNames, keyHeaderNames.length + varyHeaderNames.size());
+            for (int i = 0; i < varyHeaderNames.size(); i++) {
+                names[keyHeaderNames.length + i] = varyHeaderNames.get(i).toLowerCase(Locale.ROOT);
+            }
+            return computeKey(request, names);
+        }
+
+        RequestKey computeKey(Request request) {
+            return computeKey(request, keyHeaderNames);
+        }
+
+        /**
+         * Lower-cases the specified header names, so that keys compare the names they hold as case-insensitively as
+         * the names are matched. Keys of the same projection share the resulting array.
+         */
+        private static String[] toKeyHeaderNames(String[] names) {
+            String[] keyNames = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                keyNames[i] = names[i].toLowerCase(Locale.ROOT);
+            }
+            return keyNames;
+        }
+
+        private RequestKey computeKey(Request request, String[] names) {
+            Method method = includeMethod ? request.getMethod() : null;
+            String url = normalizeUrl ? normalizeUrl(request.getUrl()) : request.getUrl();
+
+            HttpHeaders headers = request.getHttpHeaders();
+            String[] headerValues = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                List<String> values = headers.getAll(names[i]);
+                if (!values.isEmpty()) {
+                    headerValues[i] = (1 == values.size()) ? values.get(0) : String.join(",", values);
+                }
+            }
+
+            HttpParameters parameters = includeParameters ? request.getHttpParameters() : null;
+
+            HashCode bodyDigest = null;
+            if (includeBody && (null != request.getEntity())) {
+                Hasher hasher = BODY_DIGEST.newHasher();
+                for (ByteBuffer chunk : request.getEntity().internalChunks()) {
+                    hasher.putBytes(chunk.duplicate());
+                }
+                bodyDigest = hasher.hash();
+            }
+
+            return new RequestKey(this, method, url, names, headerValues, parameters, bodyDigest);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this).add("includeMethod", includeMethod)
+                    .add("normalizeUrl", normalizeUrl).add("includeParameters", includeParameters)
+                    .add("includeBody", includeBody).add("headerNames", Arrays.toString(headerNames)).toString();
+        }
+
+        /**
+         * Mutable builder for creating instances of {@link Projection}.
+         */
+        public static class Builder {
+
+            private boolean includeMethod = true;
+            private boolean normalizeUrl = true;
+            private boolean includeParameters = true;
+            private boolean includeBody;
+            private String[] headerNames = new String[0];
+
+            private Builder() {
+            }
+
+            public Projection build() {
+                return new Projection(this);
+            }
+
+            public Builder setIncludeMethod(boolean includeMethod) {
+                this.includeMethod = includeMethod;
+                return this;
+            }
+
+            public Builder setNormalizeUrl(boolean normalizeUrl) {
+                this.normalizeUrl = normalizeUrl;
+                return this;
+            }
+
+            public Builder setIncludeParameters(boolean includeParameters) {
+                this.includeParameters = includeParameters;
+                return this;
+            }
+
+            /**
+             * Sets whether a digest of the body is included. The digest is computed over the body's bytes in place.
+             *
+             * @param includeBody Whether to include a digest of the body.
+             *
+             * @return Returns this {@link Builder}.
+             */
+            public Builder setIncludeBody(boolean includeBody) {
+                this.includeBody = includeBody;
+                return this;
+            }
+
+            /**
+             * Sets the names of the headers, such as those listed by a Vary header, whose values are included. Names
+             * are matched case-insensitively.
+             *
+             * @param headerNames The names of the headers to include.
+             *
+             * @return Returns this {@link Builder}.
+             */
+            public Builder setHeaderNames(String... headerNames) {
+                this.headerNames = (null != headerNames) ? headerNames.clone() : new String[0];
+                return this;
+            }
+        }
+    }
+
+}
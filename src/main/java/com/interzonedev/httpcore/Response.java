@@ -1,17 +1,25 @@
 package com.interzonedev.httpcore;
 
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import javax.servlet.http.Cookie;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 /**
  * Immutable value object representing an HTTP response.
+ *
+ * <p>
+ * The headers may be supplied lazily, for example by an adapter over a servlet response, in which case they are
+ * materialized on first access, at most once.
+ * </p>
  * 
  * @author mark@interzonedev.com
  */
@@ -20,11 +28,33 @@ public class Response {
     private final Request request;
     private final int status;
     private final String contentType;
+    private final MediaType mediaType;
     private final long contentLength;
-    private final Map<String, List<String>> headers;
+
+    /**
+     * The headers, or null until they are materialized from {@link #lazyHeaders}.
+     */
+    private volatile HttpHeaders headers;
+    private Supplier<HttpHeaders> lazyHeaders;
+
     private final Map<String, Cookie> cookies;
-    private final String content;
+
+    /**
+     * The cookies of the Set-Cookie headers. Null until first parsed, which is safe to race on because every thread
+     * parses equal values.
+     */
+    private List<HttpCookie> httpCookies;
+
+    private final Body content;
+    private final Charset charset;
     private final Locale locale;
+    private final Timing timing;
+
+    /**
+     * Cached hash code. Zero until first computed, which is safe to race on because every thread computes the same
+     * value.
+     */
+    private int hash;
 
     /**
      * Creates a new {@link Response} from the values set on the specified {@link Builder}.
@@ -35,11 +65,26 @@ public class Response {
         this.request = builder.request;
         this.status = builder.status;
         this.contentType = builder.contentType;
+        this.mediaType = MediaType.tryParse(builder.contentType);
         this.contentLength = builder.contentLength;
-        this.headers = builder.headers;
+        if (null != builder.lazyHeaders) {
+            this.lazyHeaders = builder.lazyHeaders;
+        } else {
+            this.headers = builder.headers;
+        }
         this.cookies = builder.cookies;
-        this.content = builder.content;
+        this.charset = (null != mediaType) ? mediaType.getCharset() : null;
+        Charset textCharset = (null != charset) ? charset : Body.DEFAULT_CHARSET;
+        if (null != builder.contentText) {
+            this.content = Body.of(builder.contentText, textCharset);
+        } else if ((null != builder.templateCharset) && !builder.templateCharset.equals(textCharset)) {
+            // The text copied from the template is carried over to the new charset, as if it were set as text.
+            this.content = Body.of(builder.content.asString(builder.templateCharset), textCharset);
+        } else {
+            this.content = builder.content;
+        }
         this.locale = builder.locale;
+        this.timing = builder.timing;
     }
 
     /**
@@ -74,19 +119,98 @@ public class Response {
         return contentType;
     }
 
+    /**
+     * Gets the content type parsed, which is shared by every response with an equal content type.
+     *
+     * @return Returns the {@link MediaType} of the content, or null if there is no content type or it is malformed.
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the length of the content as it was sent. For a response decoded by
+     * {@link ContentEncoding#decoded(Response)} this is the encoded length, and the length of {@link #getEntity()} is
+     * the decoded length.
+     *
+     * @return Returns the length of the content on the wire.
+     */
     public long getContentLength() {
         return contentLength;
     }
 
+    /**
+     * Gets a read-only {@link Map} view of the headers. Lookups through the view match header names
+     * case-insensitively.
+     *
+     * @return Returns a read-only {@link Map} view of the headers.
+     */
     public Map<String, List<String>> getHeaders() {
+        return getHttpHeaders().asMap();
+    }
+
+    public HttpHeaders getHttpHeaders() {
+        HttpHeaders current = headers;
+        return (null != current) ? current : materializeHeaders();
+    }
+
+    private synchronized HttpHeaders materializeHeaders() {
+        if (null == headers) {
+            HttpHeaders supplied = lazyHeaders.get();
+            headers = (null != supplied) ? supplied : HttpHeaders.of();
+            lazyHeaders = null;
+        }
         return headers;
     }
 
+    /**
+     * Gets the servlet cookies set on this response, for use with the servlet adapters. Code that does not otherwise
+     * use the servlet API should use {@link #getHttpCookies()} instead.
+     *
+     * @return Returns the servlet cookies by name.
+     */
     public Map<String, Cookie> getCookies() {
         return cookies;
     }
 
+    /**
+     * Gets the cookies of the Set-Cookie headers, in header order. The headers are parsed on the first call only, so
+     * a response whose cookies are never read never parses them. Headers that are not valid cookies are skipped.
+     *
+     * @return Returns an immutable list of the {@link HttpCookie}s set by this response.
+     */
+    public List<HttpCookie> getHttpCookies() {
+        List<HttpCookie> current = httpCookies;
+        if (null == current) {
+            ImmutableList.Builder<HttpCookie> parsed = ImmutableList.builder();
+            for (String setCookie : getHttpHeaders().getAll("Set-Cookie")) {
+                HttpCookie cookie = HttpCookie.parse(setCookie);
+                if (null != cookie) {
+                    parsed.add(cookie);
+                }
+            }
+            current = parsed.build();
+            httpCookies = current;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the content of this response decoded as text. The content is decoded with the charset of the content type,
+     * or {@link Body#DEFAULT_CHARSET} if there is none, on the first call only.
+     *
+     * @return Returns the content of this response as text or null if there is no content.
+     */
     public String getContent() {
+        return (null != content) ? content.asString(charset) : null;
+    }
+
+    /**
+     * Gets the content of this response as bytes without decoding it.
+     *
+     * @return Returns the {@link Body} of this response or null if there is no content.
+     */
+    public Body getEntity() {
         return content;
     }
 
@@ -94,22 +218,50 @@ public class Response {
         return locale;
     }
 
+    /**
+     * Gets how long the exchange that produced this response took and how many bytes it moved. The timing describes
+     * one execution rather than the response itself, so it is not part of {@link #equals(Object)} and
+     * {@link #hashCode()}.
+     *
+     * @return Returns the {@link Timing} of this response, or null if it was not measured.
+     */
+    public Timing getTiming() {
+        return timing;
+    }
+
+    /**
+     * Computed once and cached, since a {@link Response} is immutable.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(request, status, contentType, contentLength, headers, cookies, content, locale);
+        int h = hash;
+        if (0 == h) {
+            h = Objects.hashCode(request, status, contentType, contentLength, getHttpHeaders(), cookies, content,
+                    locale);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
         if (!(obj instanceof Response)) {
             return false;
         }
 
         Response that = (Response) obj;
 
+        if ((0 != hash) && (0 != that.hash) && (hash != that.hash)) {
+            return false;
+        }
+
         return Objects.equal(request, that.request) && Objects.equal(status, that.status)
                 && Objects.equal(contentType, that.contentType) && Objects.equal(contentLength, that.contentLength)
-                && Objects.equal(headers, that.headers) && Objects.equal(cookies, that.cookies)
+                && Objects.equal(getHttpHeaders(), that.getHttpHeaders()) && Objects.equal(cookies, that.cookies)
                 && Objects.equal(content, that.content) && Objects.equal(locale, that.locale);
     }
 
@@ -117,8 +269,8 @@ public class Response {
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getName() + "@" + Integer.toHexString(hashCode()))
                 .add("request", request).add("status", status).add("contentType", contentType)
-                .add("contentLength", contentLength).add("headers", headers).add("cookies", cookies)
-                .add("content", content).add("locale", locale).toString();
+                .add("contentLength", contentLength).add("headers", getHttpHeaders()).add("cookies", cookies)
+                .add("content", content).add("locale", locale).add("timing", timing).toString();
     }
 
     /**
@@ -130,10 +282,19 @@ public class Response {
         private int status;
         private String contentType;
         private long contentLength;
-        private Map<String, List<String>> headers = ImmutableMap.of();
+        private HttpHeaders headers = HttpHeaders.of();
+        private HttpHeaders.Builder headersBuilder;
+        private Supplier<HttpHeaders> lazyHeaders;
         private Map<String, Cookie> cookies = ImmutableMap.of();
-        private String content;
+        private Body content;
+        private String contentText;
+        /**
+         * The charset of the text content copied from a template, or null once the content is set or if it is not
+         * text. The content is re-encoded if the content type given to the copy has another charset.
+         */
+        private Charset templateCharset;
         private Locale locale;
+        private Timing timing;
 
         /**
          * Default constructor. Allows for building a {@link Response} starting with default values.
@@ -143,7 +304,8 @@ public class Response {
 
         /**
          * Allows for building a {@link Response} starting with initial values set from the specified template
-         * {@link Response}.
+         * {@link Response}. Text content keeps its text, rather than its bytes, if the copy is given a content type
+         * with another charset.
          *
          * @param template A {@link Response} from which to get the initial values for building a new {@link Response}.
          */
@@ -152,10 +314,20 @@ public class Response {
             this.status = template.status;
             this.contentType = template.contentType;
             this.contentLength = template.contentLength;
-            this.headers = template.headers;
+            HttpHeaders templateHeaders = template.headers;
+            if (null != templateHeaders) {
+                this.headers = templateHeaders;
+            } else {
+                // Materialized once, by the template, if at all.
+                this.lazyHeaders = template::getHttpHeaders;
+            }
             this.cookies = template.cookies;
             this.content = template.content;
+            if (null != template.content) {
+                this.templateCharset = (null != template.charset) ? template.charset : template.content.textCharset();
+            }
             this.locale = template.locale;
+            this.timing = template.timing;
         }
 
         /**
@@ -164,6 +336,9 @@ public class Response {
          * @return Returns a new {@link Response} from the values set on this {@link Builder}.
          */
         public Response build() {
+            if (null != headersBuilder) {
+                headers = headersBuilder.build();
+            }
             return new Response(this);
         }
 
@@ -182,20 +357,97 @@ public class Response {
             return this;
         }
 
+        public Builder setMediaType(MediaType mediaType) {
+            this.contentType = (null != mediaType) ? mediaType.toString() : null;
+            return this;
+        }
+
         public Builder setContentLength(long contentLength) {
             this.contentLength = contentLength;
             return this;
         }
 
         public Builder setHeaders(Map<String, List<String>> headers) {
+            this.headers = HttpHeaders.copyOf(headers);
+            this.headersBuilder = null;
+            this.lazyHeaders = null;
+            return this;
+        }
+
+        public Builder setHttpHeaders(HttpHeaders headers) {
             if (null != headers) {
-                this.headers = ImmutableMap.copyOf(headers);
+                this.headers = headers;
             } else {
-                this.headers = ImmutableMap.of();
+                this.headers = HttpHeaders.of();
             }
+            this.headersBuilder = null;
+            this.lazyHeaders = null;
+            return this;
+        }
+
+        /**
+         * Sets a supplier of the headers, which is called at most once, when the headers of the built {@link Response}
+         * are first used. Editing the headers on this builder calls it right away.
+         *
+         * @param headers The supplier of the headers.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setLazyHeaders(Supplier<HttpHeaders> headers) {
+            this.lazyHeaders = headers;
+            this.headersBuilder = null;
+            return this;
+        }
+
+        /**
+         * Adds a value to the specified header, after any values it already has. Headers not edited are shared with
+         * the template rather than copied.
+         *
+         * @param name The case-insensitive name of the header.
+         * @param value The value to add.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder addHeader(String name, String value) {
+            headersBuilder().add(name, value);
+            return this;
+        }
+
+        /**
+         * Replaces all of the values of the specified header with the specified value.
+         *
+         * @param name The case-insensitive name of the header.
+         * @param value The only value of the header.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setHeader(String name, String value) {
+            headersBuilder().set(name, value);
             return this;
         }
 
+        /**
+         * Removes the specified header and all of its values.
+         *
+         * @param name The case-insensitive name of the header.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder removeHeader(String name) {
+            headersBuilder().remove(name);
+            return this;
+        }
+
+        private HttpHeaders.Builder headersBuilder() {
+            if (null == headersBuilder) {
+                if (null != lazyHeaders) {
+                    setHttpHeaders(lazyHeaders.get());
+                }
+                headersBuilder = HttpHeaders.newBuilder(headers);
+            }
+            return headersBuilder;
+        }
+
         public Builder setCookies(Map<String, Cookie> cookies) {
             if (null != cookies) {
                 this.cookies = ImmutableMap.copyOf(cookies);
@@ -205,8 +457,32 @@ public class Response {
             return this;
         }
 
+        /**
+         * Sets the content as text. The text is encoded with the charset of the content type, or
+         * {@link Body#DEFAULT_CHARSET} if there is none, when the {@link Response} is built.
+         *
+         * @param content The text of the content.
+         *
+         * @return Returns this {@link Builder}.
+         */
         public Builder setContent(String content) {
-            this.content = content;
+            this.contentText = content;
+            this.content = null;
+            this.templateCharset = null;
+            return this;
+        }
+
+        /**
+         * Sets the content as bytes. The bytes are not copied or decoded.
+         *
+         * @param entity The {@link Body} of the response.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setEntity(Body entity) {
+            this.content = entity;
+            this.contentText = null;
+            this.templateCharset = null;
             return this;
         }
 
@@ -214,5 +490,10 @@ public class Response {
             this.locale = locale;
             return this;
         }
+
+        public Builder setTiming(Timing timing) {
+            this.timing = timing;
+            return this;
+        }
     }
 }
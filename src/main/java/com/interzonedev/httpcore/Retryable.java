@@ -0,0 +1,12 @@
+package com.interzonedev.httpcore;
+
+/**
+ * Marks an {@link HttpException} whose exchange may succeed if it is tried again, because the failure was transient:
+ * a timeout, a connection that failed or a status such as 503 Service Unavailable. Whether it is safe to try again
+ * still depends on the method of the {@link Request}.
+ *
+ * @author mark@interzonedev.com
+ */
+public interface Retryable {
+
+}
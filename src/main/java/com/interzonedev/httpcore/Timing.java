@@ -0,0 +1,218 @@
+package com.interzonedev.httpcore;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * Immutable record of when the phases of an HTTP exchange happened and how many bytes it moved. Timestamps are
+ * {@link System#nanoTime()} values, so only differences between them are meaningful. A phase the transport could not
+ * observe is {@link #UNKNOWN}, as is a byte count it could not observe.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Timing {
+
+    /**
+     * Marks a timestamp or byte count that was not observed.
+     */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final long startNanos;
+    private final long connectedNanos;
+    private final long requestSentNanos;
+    private final long firstByteNanos;
+    private final long completeNanos;
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    private Timing(Builder builder) {
+        this.startNanos = builder.startNanos;
+        this.connectedNanos = builder.connectedNanos;
+        this.requestSentNanos = builder.requestSentNanos;
+        this.firstByteNanos = builder.firstByteNanos;
+        this.completeNanos = builder.completeNanos;
+        this.bytesSent = builder.bytesSent;
+        this.bytesReceived = builder.bytesReceived;
+    }
+
+    /**
+     * Gets a {@link Builder} with every timestamp and byte count {@link #UNKNOWN}.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Returns when the exchange started.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return Returns when the connection was established, or {@link #UNKNOWN}.
+     */
+    public long getConnectedNanos() {
+        return connectedNanos;
+    }
+
+    /**
+     * @return Returns when the last byte of the request was sent, or {@link #UNKNOWN}.
+     */
+    public long getRequestSentNanos() {
+        return requestSentNanos;
+    }
+
+    /**
+     * @return Returns when the first byte of the response arrived, or {@link #UNKNOWN}.
+     */
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * @return Returns when the last byte of the response arrived, or {@link #UNKNOWN}.
+     */
+    public long getCompleteNanos() {
+        return completeNanos;
+    }
+
+    /**
+     * @return Returns the number of bytes sent on the wire, or {@link #UNKNOWN}.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return Returns the number of bytes received on the wire, or {@link #UNKNOWN}.
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return Returns the time taken to connect, or null if it was not observed.
+     */
+    public Duration getConnectTime() {
+        return between(startNanos, connectedNanos);
+    }
+
+    /**
+     * @return Returns the time from the start until the first byte of the response, or null if it was not observed.
+     */
+    public Duration getTimeToFirstByte() {
+        return between(startNanos, firstByteNanos);
+    }
+
+    /**
+     * @return Returns the time from the first to the last byte of the response, or null if it was not observed.
+     */
+    public Duration getTransferTime() {
+        return between(firstByteNanos, completeNanos);
+    }
+
+    /**
+     * @return Returns the time from the start until the last byte of the response, or null if it was not observed.
+     */
+    public Duration getTotalTime() {
+        return between(startNanos, completeNanos);
+    }
+
+    private static Duration between(long from, long to) {
+        return ((UNKNOWN == from) || (UNKNOWN == to)) ? null : Duration.ofNanos(to - from);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(startNanos, connectedNanos, requestSentNanos, firstByteNanos, completeNanos, bytesSent,
+                bytesReceived);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof Timing)) {
+            return false;
+        }
+
+        Timing that = (Timing) obj;
+
+        return (startNanos == that.startNanos) && (connectedNanos == that.connectedNanos)
+                && (requestSentNanos == that.requestSentNanos) && (firstByteNanos == that.firstByteNanos)
+                && (completeNanos == that.completeNanos) && (bytesSent == that.bytesSent)
+                && (bytesReceived == that.bytesReceived);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues().add("connectTime", getConnectTime())
+                .add("timeToFirstByte", getTimeToFirstByte()).add("transferTime", getTransferTime())
+                .add("totalTime", getTotalTime()).add("bytesSent", (UNKNOWN != bytesSent) ? bytesSent : null)
+                .add("bytesReceived", (UNKNOWN != bytesReceived) ? bytesReceived : null).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link Timing}.
+     */
+    public static class Builder {
+
+        private long startNanos = UNKNOWN;
+        private long connectedNanos = UNKNOWN;
+        private long requestSentNanos = UNKNOWN;
+        private long firstByteNanos = UNKNOWN;
+        private long completeNanos = UNKNOWN;
+        private long bytesSent = UNKNOWN;
+        private long bytesReceived = UNKNOWN;
+
+        private Builder() {
+        }
+
+        public Timing build() {
+            return new Timing(this);
+        }
+
+        public Builder setStartNanos(long startNanos) {
+            this.startNanos = startNanos;
+            return this;
+        }
+
+        public Builder setConnectedNanos(long connectedNanos) {
+            this.connectedNanos = connectedNanos;
+            return this;
+        }
+
+        public Builder setRequestSentNanos(long requestSentNanos) {
+            this.requestSentNanos = requestSentNanos;
+            return this;
+        }
+
+        public Builder setFirstByteNanos(long firstByteNanos) {
+            this.firstByteNanos = firstByteNanos;
+            return this;
+        }
+
+        public Builder setCompleteNanos(long completeNanos) {
+            this.completeNanos = completeNanos;
+            return this;
+        }
+
+        public Builder setBytesSent(long bytesSent) {
+            this.bytesSent = bytesSent;
+            return this;
+        }
+
+        public Builder setBytesReceived(long bytesReceived) {
+            this.bytesReceived = bytesReceived;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.interzonedev.httpcore.cache;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Immutable, parsed Cache-Control directives, together with the legacy {@code Pragma: no-cache}.
+ *
+ * <p>
+ * Only the directives that affect a private, in-process cache are kept. Unknown directives are ignored, and a
+ * directive whose delta-seconds value is malformed is treated as absent.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CacheControl {
+
+    /**
+     * Marks a delta-seconds directive that was not present.
+     */
+    public static final long ABSENT = -1L;
+
+    private static final CacheControl NONE = new CacheControl(false, false, false, false, ABSENT, ABSENT, ABSENT,
+            ABSENT);
+
+    private final boolean noStore;
+    private final boolean noCache;
+    private final boolean mustRevalidate;
+    private final boolean onlyIfCached;
+    private final long maxAgeSeconds;
+    private final long maxStaleSeconds;
+    private final long minFreshSeconds;
+    private final long staleWhileRevalidateSeconds;
+
+    private CacheControl(boolean noStore, boolean noCache, boolean mustRevalidate, boolean onlyIfCached,
+            long maxAgeSeconds, long maxStaleSeconds, long minFreshSeconds, long staleWhileRevalidateSeconds) {
+        this.noStore = noStore;
+        this.noCache = noCache;
+        this.mustRevalidate = mustRevalidate;
+        this.onlyIfCached = onlyIfCached;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.maxStaleSeconds = maxStaleSeconds;
+        this.minFreshSeconds = minFreshSeconds;
+        this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * Parses the Cache-Control and Pragma headers of the specified {@link HttpHeaders}.
+     *
+     * @param headers The {@link HttpHeaders} to parse.
+     *
+     * @return Returns the parsed {@link CacheControl}.
+     */
+    public static CacheControl parse(HttpHeaders headers) {
+        List<String> values = headers.getAll("Cache-Control");
+        boolean pragmaNoCache = false;
+        for (String pragma : headers.getAll("Pragma")) {
+            pragmaNoCache |= (null != pragma) && pragma.toLowerCase(Locale.ROOT).contains("no-cache");
+        }
+
+        if (values.isEmpty() && !pragmaNoCache) {
+            return NONE;
+        }
+
+        boolean noStore = false;
+        boolean noCache = pragmaNoCache;
+        boolean mustRevalidate = false;
+        boolean onlyIfCached = false;
+        long maxAge = ABSENT;
+        long maxStale = ABSENT;
+        long minFresh = ABSENT;
+        long staleWhileRevalidate = ABSENT;
+
+        for (String value : values) {
+            if (null == value) {
+                continue;
+            }
+            for (String directive : value.split(",")) {
+                String trimmed = directive.trim();
+                int equals = trimmed.indexOf('=');
+                String name = ((equals < 0) ? trimmed : trimmed.substring(0, equals).trim()).toLowerCase(Locale.ROOT);
+                String argument = (equals < 0) ? null : trimmed.substring(equals + 1).trim();
+
+                switch (name) {
+                    case "no-store":
+                        noStore = true;
+                        break;
+                    case "no-cache":
+                        noCache = true;
+                        break;
+                    case "must-revalidate":
+                    case "proxy-revalidate":
+                        mustRevalidate = true;
+                        break;
+                    case "only-if-cached":
+                        onlyIfCached = true;
+                        break;
+                    case "max-age":
+                        maxAge = parseSeconds(argument);
+                        break;
+                    case "max-stale":
+                        // A max-stale without a value accepts a response of any staleness.
+                        maxStale = (null == argument) ? Long.MAX_VALUE : parseSeconds(argument);
+                        break;
+                    case "min-fresh":
+                        minFresh = parseSeconds(argument);
+                        break;
+                    case "stale-while-revalidate":
+                        staleWhileRevalidate = parseSeconds(argument);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        return new CacheControl(noStore, noCache, mustRevalidate, onlyIfCached, maxAge, maxStale, minFresh,
+                staleWhileRevalidate);
+    }
+
+    private static long parseSeconds(String argument) {
+        if ((null == argument) || argument.isEmpty()) {
+            return ABSENT;
+        }
+
+        String digits = argument;
+        if ((digits.length() > 1) && digits.startsWith("\"") && digits.endsWith("\"")) {
+            digits = digits.substring(1, digits.length() - 1);
+        }
+
+        try {
+            long seconds = Long.parseLong(digits);
+            return (seconds < 0) ? ABSENT : seconds;
+        } catch (NumberFormatException nfe) {
+            // Values too large to represent are treated as effectively infinite, per RFC 7234 section 1.2.1.
+            return digits.chars().allMatch(Character::isDigit) && !digits.isEmpty() ? Integer.MAX_VALUE : ABSENT;
+        }
+    }
+
+    public boolean isNoStore() {
+        return noStore;
+    }
+
+    public boolean isNoCache() {
+        return noCache;
+    }
+
+    public boolean isMustRevalidate() {
+        return mustRevalidate;
+    }
+
+    public boolean isOnlyIfCached() {
+        return onlyIfCached;
+    }
+
+    /**
+     * @return Returns the max-age in seconds or {@link #ABSENT}.
+     */
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    /**
+     * @return Returns the max-stale in seconds, {@link Long#MAX_VALUE} if it had no value, or {@link #ABSENT}.
+     */
+    public long getMaxStaleSeconds() {
+        return maxStaleSeconds;
+    }
+
+    /**
+     * @return Returns the min-fresh in seconds or {@link #ABSENT}.
+     */
+    public long getMinFreshSeconds() {
+        return minFreshSeconds;
+    }
+
+    /**
+     * @return Returns the stale-while-revalidate in seconds or {@link #ABSENT}.
+     */
+    public long getStaleWhileRevalidateSeconds() {
+        return staleWhileRevalidateSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("noStore", noStore).add("noCache", noCache)
+                .add("mustRevalidate", mustRevalidate).add("onlyIfCached", onlyIfCached)
+                .add("maxAgeSeconds", maxAgeSeconds).add("maxStaleSeconds", maxStaleSeconds)
+                .add("minFreshSeconds", minFreshSeconds).add("staleWhileRevalidateSeconds", staleWhileRevalidateSeconds)
+                .toString();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.interzonedev.httpcore.cache;
+
+import java.util.List;
+
+import com.interzonedev.httpcore.RequestKey;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Immutable entry of a {@link ResponseCache}. All times are in milliseconds of the cache's clock.
+ *
+ * @author mark@interzonedev.com
+ */
+final class CacheEntry {
+
+    final RequestKey primaryKey;
+    final RequestKey key;
+    final List<String> varyHeaderNames;
+    final Response response;
+    final CacheControl cacheControl;
+    final long requestTime;
+    final long responseTime;
+    final long correctedInitialAge;
+    final long freshnessLifetime;
+    final String etag;
+    final String lastModified;
+    final long weight;
+
+    CacheEntry(RequestKey primaryKey, RequestKey key, List<String> varyHeaderNames, Response response,
+            CacheControl cacheControl, long requestTime, long responseTime, long correctedInitialAge,
+            long freshnessLifetime, String etag, String lastModified, long weight) {
+        this.primaryKey = primaryKey;
+        this.key = key;
+        this.varyHeaderNames = varyHeaderNames;
+        this.response = response;
+        this.cacheControl = cacheControl;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        this.correctedInitialAge = correctedInitialAge;
+        this.freshnessLifetime = freshnessLifetime;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.weight = weight;
+    }
+
+    /**
+     * Computes the current age of the response per RFC 7234 section 4.2.3.
+     */
+    long currentAge(long now) {
+        return correctedInitialAge + Math.max(0L, now - responseTime);
+    }
+
+    boolean hasValidators() {
+        return (null != etag) || (null != lastModified);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.interzonedev.httpcore.cache;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Immutable result of looking a {@link Request} up in a {@link ResponseCache}.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CacheLookup {
+
+    /**
+     * The outcome of a lookup.
+     */
+    public enum Status {
+        /**
+         * A fresh response was found and can be used as is.
+         */
+        HIT,
+
+        /**
+         * A stale response with validators was found. Send the conditional request and pass the result to
+         * {@link ResponseCache#revalidated(Request, Response)}.
+         */
+        STALE,
+
+        /**
+         * Nothing usable was found.
+         */
+        MISS
+    }
+
+    private static final CacheLookup MISS = new CacheLookup(Status.MISS, null, null);
+
+    private final Status status;
+    private final Response response;
+    private final Request conditionalRequest;
+
+    private CacheLookup(Status status, Response response, Request conditionalRequest) {
+        this.status = status;
+        this.response = response;
+        this.conditionalRequest = conditionalRequest;
+    }
+
+    static CacheLookup hit(Response response) {
+        return new CacheLookup(Status.HIT, response, null);
+    }
+
+    static CacheLookup stale(Response response, Request conditionalRequest) {
+        return new CacheLookup(Status.STALE, response, conditionalRequest);
+    }
+
+    static CacheLookup miss() {
+        return MISS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Returns the cached response, with an updated Age header, or null on a miss.
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return Returns the original request with If-None-Match and If-Modified-Since added from the stale response, or
+     *         null unless the status is {@link Status#STALE}.
+     */
+    public Request getConditionalRequest() {
+        return conditionalRequest;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("status", status).add("response", response)
+                .add("conditionalRequest", conditionalRequest).toString();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.interzonedev.httpcore.cache;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable snapshot of the statistics of a {@link ResponseCache}.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long staleCount;
+    private final long revalidationCount;
+    private final long putCount;
+    private final long rejectionCount;
+    private final long evictionCount;
+    private final long evictionWeight;
+
+    CacheStats(long hitCount, long missCount, long staleCount, long revalidationCount, long putCount,
+            long rejectionCount, long evictionCount, long evictionWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.staleCount = staleCount;
+        this.revalidationCount = revalidationCount;
+        this.putCount = putCount;
+        this.rejectionCount = rejectionCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+    }
+
+    /**
+     * @return Returns the number of lookups that found a fresh response.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Returns the number of lookups that found nothing usable.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Returns the number of lookups that found a stale response that could be revalidated.
+     */
+    public long getStaleCount() {
+        return staleCount;
+    }
+
+    /**
+     * @return Returns the number of stale responses refreshed by a 304 Not Modified.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount;
+    }
+
+    /**
+     * @return Returns the number of responses stored.
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /**
+     * @return Returns the number of cacheable responses that were not stored, either because they were too heavy or
+     *         because the admission filter judged them less popular than the entry they would have evicted.
+     */
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * @return Returns the number of entries evicted to stay within the bounds of the cache.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Returns the total estimated weight of the evicted entries, in bytes.
+     */
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    /**
+     * @return Returns the ratio of hits to lookups, or 1.0 if there have been no lookups.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount + staleCount;
+        return (0 == lookups) ? 1.0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("hitCount", hitCount).add("missCount", missCount)
+                .add("staleCount", staleCount).add("revalidationCount", revalidationCount).add("putCount", putCount)
+                .add("rejectionCount", rejectionCount).add("evictionCount", evictionCount)
+                .add("evictionWeight", evictionWeight).toString();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.interzonedev.httpcore.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate, lock-free frequency counter used as the TinyLFU admission filter of {@link ResponseCache}.
+ *
+ * <p>
+ * A count-min sketch of 4-bit counters, sixteen to a {@code long}, with four hash functions. Counters saturate at 15.
+ * Once the number of increments reaches ten times the capacity all counters are halved, so the sketch favors recent
+ * popularity over lifetime popularity. Halving races with concurrent increments, which can only lose increments, and
+ * that is acceptable for an admission heuristic.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates a sketch sized for the specified number of distinct entries.
+     *
+     * @param capacity The expected maximum number of entries in the cache.
+     */
+    FrequencySketch(long capacity) {
+        int maximum = (int) Math.min(Math.max(capacity, 16L), 1 << 28);
+        int length = Integer.highestOneBit(maximum - 1) << 1;
+        this.table = new AtomicLongArray(length);
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(10L * maximum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimates how often the item with the specified hash has been seen recently.
+     *
+     * @param hash The hash of the item.
+     *
+     * @return Returns the estimated frequency, from 0 to 15.
+     */
+    int frequency(int hash) {
+        int frequency = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long slot = slot(hash, i);
+            int index = (int) (slot >>> 32) & tableMask;
+            int shift = ((int) slot & 15) << 2;
+            frequency = Math.min(frequency, (int) ((table.get(index) >>> shift) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an occurrence of the item with the specified hash.
+     *
+     * @param hash The hash of the item.
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long slot = slot(hash, i);
+            int index = (int) (slot >>> 32) & tableMask;
+            int shift = ((int) slot & 15) << 2;
+            added |= incrementAt(index, shift);
+        }
+
+        if (added && (size.incrementAndGet() >= sampleSize)) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int shift) {
+        long mask = 0xfL << shift;
+        while (true) {
+            long current = table.get(index);
+            if ((current & mask) == mask) {
+                return false;
+            }
+            if (table.compareAndSet(index, current, current + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        size.set(size.get() / 2);
+        for (int i = 0; i < table.length(); i++) {
+            long current = table.get(i);
+            table.compareAndSet(i, current, (current >>> 1) & RESET_MASK);
+        }
+    }
+
+    private static long slot(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return h ^ (h >>> 29);
+    }
+
+}
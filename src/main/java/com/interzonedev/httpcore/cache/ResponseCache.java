@@ -0,0 +1,823 @@
+package com.interzonedev.httpcore.cache;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.interzonedev.httpcore.Compactor;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.RequestKey;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Private, in-process HTTP response cache keyed by {@link Request} that follows the caching rules of RFC 7234.
+ *
+ * <p>
+ * Freshness comes from Cache-Control max-age, then Expires, then a heuristic of ten percent of the time since
+ * Last-Modified. Responses are selected by the request headers named in their Vary header, and stale responses with an
+ * ETag or Last-Modified can be revalidated with a conditional request. Request directives no-cache, no-store, max-age,
+ * max-stale and min-fresh are honored. Only GET and HEAD responses are stored.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded by both the number of entries and their total estimated weight in bytes. Entries are split
+ * across independently locked segments, so there is no global lock. Each segment evicts its least recently used
+ * entries, and a TinyLFU admission filter keeps a new entry out of a full segment when it has been requested less
+ * often than the entry it would evict, which protects popular entries from one-off scans.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public class ResponseCache {
+
+    private static final ImmutableSet<Integer> CACHEABLE_STATUSES = ImmutableSet.of(200, 203, 204, 300, 301, 308, 404,
+            405, 410, 414, 501);
+
+    private static final long HEURISTIC_FRESHNESS_LIMIT = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Headers of a 304 Not Modified that must not replace the stored ones, per RFC 7232 section 4.1.
+     */
+    private static final ImmutableSet<String> NOT_UPDATED_HEADERS = ImmutableSet.of("content-length",
+            "content-encoding", "transfer-encoding", "content-range");
+
+    private final Clock clock;
+    private final RequestKey.Projection projection;
+    private final ToLongFunction<Response> weigher;
+    private final Compactor compactor;
+    private final long maximumWeight;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final FrequencySketch sketch;
+
+    /**
+     * The Vary header names stored for each primary key, with the keys of its stored variants.
+     */
+    private final ConcurrentHashMap<RequestKey, Variants> variants = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder staleCount = new LongAdder();
+    private final LongAdder revalidationCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+
+    /**
+     * Creates a new {@link ResponseCache} from the values set on the specified {@link Builder}.
+     *
+     * @param builder The {@link Builder} that holds the values for the {@link ResponseCache} to create.
+     */
+    private ResponseCache(Builder builder) {
+        this.clock = builder.clock;
+        this.projection = builder.projection;
+        this.weigher = builder.weigher;
+        this.compactor = builder.compactor;
+        this.maximumWeight = builder.maximumWeight;
+
+        int segmentCount = Integer.highestOneBit(
+                (int) Math.max(1L, Math.min(builder.concurrencyLevel, builder.maximumEntries / 4)));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        long entriesPerSegment = Math.max(1L, builder.maximumEntries / segmentCount);
+        long weightPerSegment = Math.max(1L, builder.maximumWeight / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(entriesPerSegment, weightPerSegment);
+        }
+
+        this.sketch = new FrequencySketch(builder.maximumEntries);
+    }
+
+    /**
+     * Gets a {@link Builder} with default initial values.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Looks up the specified {@link Request}.
+     *
+     * @param request The {@link Request} to look up.
+     *
+     * @return Returns a {@link CacheLookup} holding a fresh response, a stale response to revalidate, or nothing.
+     */
+    public CacheLookup lookup(Request request) {
+        if (!isCacheableMethod(request.getMethod())) {
+            missCount.increment();
+            return CacheLookup.miss();
+        }
+
+        CacheControl requestCacheControl = CacheControl.parse(request.getHttpHeaders());
+        if (requestCacheControl.isNoStore()) {
+            missCount.increment();
+            return CacheLookup.miss();
+        }
+
+        RequestKey primaryKey = projection.keyOf(request);
+        Variants stored = variants.get(primaryKey);
+        if (null == stored) {
+            missCount.increment();
+            sketch.increment(primaryKey.hashCode());
+            return CacheLookup.miss();
+        }
+
+        RequestKey key = projection.keyOf(request, stored.headerNames);
+        sketch.increment(key.hashCode());
+        CacheEntry entry = segmentFor(key).get(key);
+        if (null == entry) {
+            missCount.increment();
+            return CacheLookup.miss();
+        }
+
+        long now = clock.millis();
+        long age = entry.currentAge(now);
+
+        if (isFresh(entry, requestCacheControl, age)) {
+            hitCount.increment();
+            return CacheLookup.hit(withAge(entry.response, age));
+        }
+
+        if (entry.hasValidators()) {
+            staleCount.increment();
+            return CacheLookup.stale(withAge(entry.response, age), conditionalRequest(request, entry));
+        }
+
+        missCount.increment();
+        return CacheLookup.miss();
+    }
+
+    /**
+     * Gets a fresh cached response for the specified {@link Request}.
+     *
+     * @param request The {@link Request} to look up.
+     *
+     * @return Returns a fresh cached {@link Response} or null if there is none.
+     */
+    public Response get(Request request) {
+        CacheLookup lookup = lookup(request);
+        return (CacheLookup.Status.HIT == lookup.getStatus()) ? lookup.getResponse() : null;
+    }
+
+    /**
+     * Stores the specified {@link Response} to the specified {@link Request}, if it is cacheable, timing it as if it
+     * had just been received.
+     *
+     * @param request The {@link Request} the {@link Response} answers.
+     * @param response The {@link Response} to store.
+     *
+     * @return Returns true if the {@link Response} was stored.
+     */
+    public boolean put(Request request, Response response) {
+        long now = clock.millis();
+        return put(request, response, now, now);
+    }
+
+    /**
+     * Stores the specified {@link Response} to the specified {@link Request}, if it is cacheable.
+     *
+     * @param request The {@link Request} the {@link Response} answers.
+     * @param response The {@link Response} to store.
+     * @param requestTime When the {@link Request} was sent, in milliseconds of the cache's clock.
+     * @param responseTime When the {@link Response} was received, in milliseconds of the cache's clock.
+     *
+     * @return Returns true if the {@link Response} was stored.
+     */
+    public boolean put(Request request, Response response, long requestTime, long responseTime) {
+        if (!isCacheableMethod(request.getMethod()) || !CACHEABLE_STATUSES.contains(response.getStatus())) {
+            return false;
+        }
+
+        CacheControl requestCacheControl = CacheControl.parse(request.getHttpHeaders());
+        CacheControl responseCacheControl = CacheControl.parse(response.getHttpHeaders());
+        if (requestCacheControl.isNoStore() || responseCacheControl.isNoStore()) {
+            return false;
+        }
+
+        List<String> varyHeaderNames = varyHeaderNames(response.getHttpHeaders());
+        if (null == varyHeaderNames) {
+            return false;
+        }
+
+        CacheEntry entry = newEntry(projection.keyOf(request), projection.keyOf(request, varyHeaderNames),
+                varyHeaderNames, response, responseCacheControl, requestTime, responseTime);
+        if ((entry.freshnessLifetime <= 0L) && !entry.hasValidators()) {
+            return false;
+        }
+
+        return store(entry);
+    }
+
+    /**
+     * Completes the revalidation of a stale response. A 304 Not Modified refreshes the stored response with its
+     * headers and returns the refreshed response. Any other response replaces the stored one, if cacheable, and is
+     * returned as is.
+     *
+     * @param request The original {@link Request} whose lookup was {@link CacheLookup.Status#STALE}.
+     * @param validation The {@link Response} to the conditional request.
+     *
+     * @return Returns the {@link Response} to use for the original {@link Request}.
+     */
+    public Response revalidated(Request request, Response validation) {
+        if (304 != validation.getStatus()) {
+            put(request, validation);
+            return validation;
+        }
+
+        RequestKey primaryKey = projection.keyOf(request);
+        Variants stored = variants.get(primaryKey);
+        CacheEntry entry = null;
+        if (null != stored) {
+            RequestKey key = projection.keyOf(request, stored.headerNames);
+            entry = segmentFor(key).get(key);
+        }
+
+        if (null == entry) {
+            // The stale entry was evicted meanwhile, so there is nothing to refresh.
+            return validation;
+        }
+
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder(entry.response.getHttpHeaders());
+        HttpHeaders validationHeaders = validation.getHttpHeaders();
+        for (int i = 0; i < validationHeaders.size(); i++) {
+            String name = validationHeaders.getName(i);
+            if (!NOT_UPDATED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.set(name, validationHeaders.getValues(i));
+            }
+        }
+
+        Response refreshed = Response.newBuilder(entry.response).setHttpHeaders(headers.build()).build();
+        long now = clock.millis();
+        CacheEntry refreshedEntry = newEntry(primaryKey, entry.key, entry.varyHeaderNames, refreshed,
+                CacheControl.parse(refreshed.getHttpHeaders()), now, now);
+        store(refreshedEntry);
+        revalidationCount.increment();
+
+        return refreshed;
+    }
+
+    /**
+     * Removes every stored variant of the specified {@link Request}.
+     *
+     * @param request The {@link Request} whose responses to remove.
+     */
+    public void invalidate(Request request) {
+        // The variants are removed with their record, whatever the Vary values of this request.
+        variants.computeIfPresent(projection.keyOf(request), (primaryKey, current) -> {
+            for (RequestKey key : current.keys) {
+                segmentFor(key).remove(key);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            for (CacheEntry removed : segment.clear()) {
+                releaseVariant(removed);
+            }
+        }
+    }
+
+    /**
+     * @return Returns the number of stored entries.
+     */
+    public long size() {
+        long size = 0L;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return Returns the total estimated weight of the stored entries, in bytes.
+     */
+    public long weight() {
+        long weight = 0L;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * @return Returns a snapshot of the statistics of this cache.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), staleCount.sum(), revalidationCount.sum(),
+                putCount.sum(), rejectionCount.sum(), evictionCount.sum(), evictionWeight.sum());
+    }
+
+    /**
+     * Estimates the retained size of a {@link Response} from its content and headers. Used when no weigher is set.
+     *
+     * @param response The {@link Response} to weigh.
+     *
+     * @return Returns the estimated retained size of the {@link Response} in bytes.
+     */
+    public static long estimateWeight(Response response) {
+        long weight = 256L;
+        if (null != response.getEntity() && response.getEntity().isInMemory()) {
+            weight += response.getEntity().length();
+        }
+        HttpHeaders headers = response.getHttpHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            weight += 48L + 2L * headers.getName(i).length();
+            for (String value : headers.getValues(i)) {
+                weight += 40L + ((null != value) ? 2L * value.length() : 0L);
+            }
+        }
+        if ((null != response.getRequest()) && (null != response.getRequest().getUrl())) {
+            weight += 40L + 2L * response.getRequest().getUrl().length();
+        }
+        return weight;
+    }
+
+    /**
+     * Stores the specified entry. The entry is put into its segment inside the {@code compute} of its
+     * {@link Variants}, so that the record and the variants stored under it change together.
+     */
+    private boolean store(CacheEntry entry) {
+        if (entry.weight > maximumWeight) {
+            rejectionCount.increment();
+            return false;
+        }
+
+        StoreResult[] result = new StoreResult[1];
+        variants.compute(entry.primaryKey, (primaryKey, current) -> {
+            Variants stored = current;
+            if ((null == current) || !current.headerNames.equals(entry.varyHeaderNames)) {
+                if (null != current) {
+                    // A changed Vary header makes the old variants unreachable, so they are removed with the record.
+                    for (RequestKey old : current.keys) {
+                        segmentFor(old).remove(old);
+                    }
+                }
+                stored = new Variants(entry.varyHeaderNames);
+            }
+
+            result[0] = segmentFor(entry.key).put(entry.key, entry, sketch);
+            if (result[0].stored) {
+                stored.keys.add(entry.key);
+            }
+            return stored.keys.isEmpty() ? null : stored;
+        });
+
+        for (CacheEntry evicted : result[0].evicted) {
+            evictionCount.increment();
+            evictionWeight.add(evicted.weight);
+            releaseVariant(evicted);
+        }
+
+        if (!result[0].stored) {
+            rejectionCount.increment();
+            return false;
+        }
+
+        putCount.increment();
+        return true;
+    }
+
+    /**
+     * Forgets the key of the specified entry, which has been removed from its segment, unless the key was stored
+     * again meanwhile. The record of the primary key is removed with its last variant.
+     */
+    private void releaseVariant(CacheEntry removed) {
+        variants.computeIfPresent(removed.primaryKey, (primaryKey, current) -> {
+            if (!segmentFor(removed.key).contains(removed.key)) {
+                current.keys.remove(removed.key);
+            }
+            return current.keys.isEmpty() ? null : current;
+        });
+    }
+
+    private CacheEntry newEntry(RequestKey primaryKey, RequestKey key, List<String> varyHeaderNames,
+            Response response, CacheControl cacheControl, long requestTime, long responseTime) {
+        Response stored = (null != compactor) ? compactor.compact(response) : response;
+        HttpHeaders headers = stored.getHttpHeaders();
+        Long date = parseDate(headers.getFirst("Date"));
+        long dateValue = (null != date) ? date : responseTime;
+
+        long apparentAge = Math.max(0L, responseTime - dateValue);
+        long ageValue = parseSecondsHeader(headers.getFirst("Age")) * 1000L;
+        long responseDelay = Math.max(0L, responseTime - requestTime);
+        long correctedInitialAge = Math.max(apparentAge, ageValue + responseDelay);
+
+        String lastModified = headers.getFirst("Last-Modified");
+        long freshnessLifetime;
+        if (cacheControl.getMaxAgeSeconds() >= 0L) {
+            freshnessLifetime = TimeUnit.SECONDS.toMillis(cacheControl.getMaxAgeSeconds());
+        } else if (headers.contains("Expires")) {
+            Long expires = parseDate(headers.getFirst("Expires"));
+            freshnessLifetime = (null != expires) ? Math.max(0L, expires - dateValue) : 0L;
+        } else if (null != lastModified) {
+            Long lastModifiedValue = parseDate(lastModified);
+            freshnessLifetime = (null != lastModifiedValue)
+                    ? Math.min(HEURISTIC_FRESHNESS_LIMIT, Math.max(0L, (dateValue - lastModifiedValue) / 10L))
+                    : 0L;
+        } else {
+            freshnessLifetime = 0L;
+        }
+
+        if (cacheControl.isNoCache()) {
+            freshnessLifetime = 0L;
+        }
+
+        return new CacheEntry(primaryKey, key, varyHeaderNames, stored, cacheControl, requestTime, responseTime,
+                correctedInitialAge, freshnessLifetime, headers.getFirst("ETag"), lastModified,
+                weigher.applyAsLong(stored));
+    }
+
+    private static boolean isFresh(CacheEntry entry, CacheControl requestCacheControl, long age) {
+        if (requestCacheControl.isNoCache()) {
+            return false;
+        }
+
+        if ((requestCacheControl.getMaxAgeSeconds() >= 0L)
+                && (age > TimeUnit.SECONDS.toMillis(requestCacheControl.getMaxAgeSeconds()))) {
+            return false;
+        }
+
+        long remaining = entry.freshnessLifetime - age;
+        if (requestCacheControl.getMinFreshSeconds() >= 0L) {
+            remaining -= TimeUnit.SECONDS.toMillis(requestCacheControl.getMinFreshSeconds());
+        }
+
+        if (remaining > 0L) {
+            return true;
+        }
+
+        long maxStale = requestCacheControl.getMaxStaleSeconds();
+        if ((maxStale >= 0L) && !entry.cacheControl.isMustRevalidate() && (entry.freshnessLifetime > 0L)) {
+            return (Long.MAX_VALUE == maxStale) || (-remaining <= TimeUnit.SECONDS.toMillis(maxStale));
+        }
+
+        return false;
+    }
+
+    private static Request conditionalRequest(Request request, CacheEntry entry) {
+        Request.Builder conditional = Request.newBuilder(request);
+        if (null != entry.etag) {
+            conditional.setHeader("If-None-Match", entry.etag);
+        }
+        if (null != entry.lastModified) {
+            conditional.setHeader("If-Modified-Since", entry.lastModified);
+        }
+        return conditional.build();
+    }
+
+    private static Response withAge(Response response, long ageMillis) {
+        return Response.newBuilder(response).setHeader("Age", Long.toString(ageMillis / 1000L)).build();
+    }
+
+    /**
+     * Gets the header names listed by the Vary header.
+     *
+     * @return Returns the header names in the order listed, or null if the response varies on everything.
+     */
+    private static List<String> varyHeaderNames(HttpHeaders headers) {
+        List<String> varyValues = headers.getAll("Vary");
+        if (varyValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (String varyValue : varyValues) {
+            if (null == varyValue) {
+                continue;
+            }
+            for (String name : varyValue.split(",")) {
+                String trimmed = name.trim();
+                if ("*".equals(trimmed)) {
+                    return null;
+                }
+                if (!trimmed.isEmpty()) {
+                    names.add(trimmed.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names.build();
+    }
+
+    private static Long parseDate(String value) {
+        if (null == value) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException dtpe) {
+            return null;
+        }
+    }
+
+    private static long parseSecondsHeader(String value) {
+        if (null == value) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        } catch (NumberFormatException nfe) {
+            return 0L;
+        }
+    }
+
+    private static boolean isCacheableMethod(Method method) {
+        return (Method.GET == method) || (Method.HEAD == method);
+    }
+
+    private Segment segmentFor(RequestKey key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * The Vary header names of a primary key and the keys of the variants stored under it. The keys are only read and
+     * changed inside {@code compute} and {@code computeIfPresent} of the record, which serialize them.
+     */
+    private static final class Variants {
+
+        private final List<String> headerNames;
+        private final Set<RequestKey> keys = new HashSet<>(4);
+
+        private Variants(List<String> headerNames) {
+            this.headerNames = headerNames;
+        }
+    }
+
+    /**
+     * What happened when an entry was put into a {@link Segment}.
+     */
+    private static final class StoreResult {
+
+        private final boolean stored;
+        private final boolean replaced;
+        private final List<CacheEntry> evicted;
+
+        private StoreResult(boolean stored, boolean replaced, List<CacheEntry> evicted) {
+            this.stored = stored;
+            this.replaced = replaced;
+            this.evicted = evicted;
+        }
+    }
+
+    /**
+     * Independently locked share of the cache, holding its entries in least recently used order.
+     */
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<RequestKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumEntries;
+        private final long maximumWeight;
+        private long weight;
+
+        private Segment(long maximumEntries, long maximumWeight) {
+            this.maximumEntries = maximumEntries;
+            this.maximumWeight = maximumWeight;
+        }
+
+        CacheEntry get(RequestKey key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Determines whether the specified key is stored, without counting it as a use.
+         */
+        boolean contains(RequestKey key) {
+            lock.lock();
+            try {
+                return entries.containsKey(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CacheEntry remove(RequestKey key) {
+            lock.lock();
+            try {
+                CacheEntry removed = entries.remove(key);
+                if (null != removed) {
+                    weight -= removed.weight;
+                }
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<CacheEntry> clear() {
+            lock.lock();
+            try {
+                List<CacheEntry> removed = new ArrayList<>(entries.values());
+                entries.clear();
+                weight = 0L;
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        StoreResult put(RequestKey key, CacheEntry entry, FrequencySketch sketch) {
+            lock.lock();
+            try {
+                if (entry.weight > maximumWeight) {
+                    return new StoreResult(false, false, Collections.<CacheEntry>emptyList());
+                }
+
+                CacheEntry previous = entries.get(key);
+                long weightAfter = weight + entry.weight - ((null != previous) ? previous.weight : 0L);
+                long sizeAfter = entries.size() + ((null != previous) ? 0 : 1);
+
+                List<CacheEntry> evicted = Collections.emptyList();
+                if ((weightAfter > maximumWeight) || (sizeAfter > maximumEntries)) {
+                    Iterator<Map.Entry<RequestKey, CacheEntry>> eldest = entries.entrySet().iterator();
+                    RequestKey victimKey = eldest.hasNext() ? eldest.next().getKey() : null;
+                    if ((null == previous) && (null != victimKey)
+                            && (sketch.frequency(key.hashCode()) <= sketch.frequency(victimKey.hashCode()))) {
+                        return new StoreResult(false, false, evicted);
+                    }
+
+                    evicted = new ArrayList<>();
+                    Iterator<Map.Entry<RequestKey, CacheEntry>> victims = entries.entrySet().iterator();
+                    while (((weightAfter > maximumWeight) || (sizeAfter > maximumEntries)) && victims.hasNext()) {
+                        Map.Entry<RequestKey, CacheEntry> victim = victims.next();
+                        if (victim.getKey().equals(key)) {
+                            continue;
+                        }
+                        victims.remove();
+                        weight -= victim.getValue().weight;
+                        weightAfter -= victim.getValue().weight;
+                        sizeAfter--;
+                        evicted.add(victim.getValue());
+                    }
+                }
+
+                entries.put(key, entry);
+                weight += entry.weight - ((null != previous) ? previous.weight : 0L);
+
+                return new StoreResult(true, null != previous, evicted);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long weight() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link ResponseCache}.
+     */
+    public static class Builder {
+
+        private long maximumEntries = 10_000L;
+        private long maximumWeight = 64L * 1024L * 1024L;
+        private int concurrencyLevel = 16;
+        private Clock clock = Clock.systemUTC();
+        private RequestKey.Projection projection = RequestKey.Projection.DEFAULT;
+        private ToLongFunction<Response> weigher = ResponseCache::estimateWeight;
+        private Compactor compactor;
+
+        private Builder() {
+        }
+
+        public ResponseCache build() {
+            return new ResponseCache(this);
+        }
+
+        public Builder setMaximumEntries(long maximumEntries) {
+            if (maximumEntries < 1L) {
+                throw new IllegalArgumentException("The maximum number of entries must be positive");
+            }
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total estimated weight of the entries, in bytes.
+         *
+         * @param maximumWeight The maximum total weight.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaximumWeight(long maximumWeight) {
+            if (maximumWeight < 1L) {
+                throw new IllegalArgumentException("The maximum weight must be positive");
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the number of independently locked segments, rounded down to a power of two. Small caches use fewer
+         * segments so that each segment has room for several entries.
+         *
+         * @param concurrencyLevel The number of segments.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setConcurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel < 1) {
+                throw new IllegalArgumentException("The concurrency level must be positive");
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public Builder setClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets the projection that selects which parts of a {@link Request} identify the resource. The headers named
+         * by the Vary header of each stored response are added to those of the projection to select the variant.
+         *
+         * @param projection The {@link RequestKey.Projection} of the primary key.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setProjection(RequestKey.Projection projection) {
+            this.projection = projection;
+            return this;
+        }
+
+        /**
+         * Sets the function that estimates the retained size of a {@link Response} in bytes. Defaults to
+         * {@link ResponseCache#estimateWeight(Response)}.
+         *
+         * @param weigher The function that weighs responses.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setWeigher(ToLongFunction<Response> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Sets a {@link Compactor} through which every stored {@link Response} passes, and weighs responses with its
+         * {@link Compactor#estimateRetainedBytes(Response)}. Call {@link #setWeigher(ToLongFunction)} afterwards to
+         * weigh them differently. Defaults to none, which stores responses as they are.
+         *
+         * @param compactor The {@link Compactor}, which may be shared with other caches, or null.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setCompactor(Compactor compactor) {
+            this.compactor = compactor;
+            if (null != compactor) {
+                this.weigher = compactor::estimateRetainedBytes;
+            }
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.interzonedev.httpcore.capture;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.interzonedev.httpcore.HttpException;
+
+/**
+ * Layout of the files of a capture log, shared by {@link CaptureLog} and {@link CaptureReader}.
+ *
+ * <p>
+ * A segment file starts with an 8-byte header, the magic number and the format version, followed by records aligned
+ * to 8 bytes. Each record has a 16-byte header, the payload length, a reserved int and the timestamp in microseconds
+ * since the epoch, followed by the payload: one {@link com.interzonedev.httpcore.codec.HttpCodec} response frame. The
+ * payload length is written last, with release semantics, so a record whose length reads as zero has not been
+ * committed yet, and a length of {@link #END_OF_SEGMENT} marks the end of a sealed segment.
+ * </p>
+ *
+ * <p>
+ * The index file of a sealed segment holds 16-byte entries, the timestamp of a record and its offset in the segment,
+ * one for the first record and one for the first record at or after every index interval.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+final class CaptureFormat {
+
+    static final int MAGIC = 0x48434150;
+
+    static final int VERSION = 1;
+
+    static final int SEGMENT_HEADER_SIZE = 8;
+
+    static final int RECORD_HEADER_SIZE = 16;
+
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    static final int END_OF_SEGMENT = -1;
+
+    static final String SEGMENT_SUFFIX = ".log";
+
+    static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Ordered access to the aligned length field of a record in a mapped segment.
+     */
+    static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private CaptureFormat() {
+    }
+
+    static int align(long size) {
+        long aligned = (size + 7L) & ~7L;
+        return (aligned > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) aligned;
+    }
+
+    static String segmentName(long number) {
+        return String.format("%020d%s", number, SEGMENT_SUFFIX);
+    }
+
+    static Path indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    static long numberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Lists the segment files of the specified directory in the order they were written.
+     */
+    static List<Path> segments(Path directory) {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                if (isSegmentName(segment.getFileName().toString())) {
+                    segments.add(segment);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new HttpException("Error listing capture segments in " + directory, ioe);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static boolean isSegmentName(String name) {
+        if (name.length() != 20 + SEGMENT_SUFFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < 20; i++) {
+            if ((name.charAt(i) < '0') || (name.charAt(i) > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
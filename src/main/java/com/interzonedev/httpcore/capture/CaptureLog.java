@@ -0,0 +1,490 @@
+package com.interzonedev.httpcore.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.codec.HttpCodec;
+
+/**
+ * Append-only log of captured {@link Request}/{@link Response} exchanges, written to a directory of memory-mapped
+ * segment files for {@link CaptureReader} to read back.
+ *
+ * <p>
+ * Appending is lock-free: a writer reserves the space of its record with a single atomic add on the tail of the
+ * current segment and copies the encoded exchange straight into the mapping, so concurrent writers never wait for
+ * each other and no system call is made. The writer whose record crosses the end of a segment opens the next one,
+ * the only step that takes a lock, while the others wait for it. It then hands the full segment to the seal executor
+ * and carries on, so no append waits for the disk. Sealing waits until every record reserved in the segment is
+ * committed, writes an end marker, forces the mapping to disk and writes an index of record timestamps next to it.
+ * </p>
+ *
+ * <p>
+ * Timestamps are in microseconds since the epoch, taken from {@link System#nanoTime()} relative to the time the log
+ * was opened, so they never go backwards. They are taken before the record is reserved, so records appended
+ * concurrently may be stored slightly out of timestamp order.
+ * </p>
+ *
+ * <p>
+ * The pages of a segment reach the disk when the operating system writes them back, when the segment is sealed or
+ * when {@link #flush()} is called. An I/O error while opening the next segment closes the log. An error while sealing
+ * a segment in the background is thrown by {@link #close()}.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CaptureLog implements Closeable {
+
+    /**
+     * The default size of a segment file, 64 MiB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * The default distance between index entries, 64 KiB.
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 64 << 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final LongSupplier clock;
+    private final Executor sealExecutor;
+
+    /**
+     * The executor created for this log when none was set, shut down by {@link #close()}.
+     */
+    private final ExecutorService ownSealExecutor;
+
+    private final Set<Segment> sealing = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<HttpException> sealFailure = new AtomicReference<>();
+    private final LongAdder appendCount = new LongAdder();
+
+    private volatile Segment current;
+    private volatile boolean closed;
+
+    /**
+     * Guarded by this log.
+     */
+    private long nextNumber;
+
+    private CaptureLog(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize & ~7;
+        this.indexInterval = builder.indexInterval;
+        this.clock = (null != builder.clock) ? builder.clock : epochMicros();
+        this.ownSealExecutor = (null != builder.sealExecutor) ? null
+                : Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "capture-log-sealer " + builder.directory);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.sealExecutor = (null != builder.sealExecutor) ? builder.sealExecutor : ownSealExecutor;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ioe) {
+            throw new HttpException("Error creating capture directory " + directory, ioe);
+        }
+        List<Path> existing = CaptureFormat.segments(directory);
+        nextNumber = existing.isEmpty() ? 0L : CaptureFormat.numberOf(existing.get(existing.size() - 1)) + 1L;
+        current = openSegment(nextNumber++);
+    }
+
+    /**
+     * Gets a {@link Builder} for a log in the specified directory. The directory is created if needed. Segments
+     * already in it are kept, and new ones are numbered after them.
+     *
+     * @param directory The directory of the segment files.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    private static LongSupplier epochMicros() {
+        long baseMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long baseNanos = System.nanoTime();
+        return () -> baseMicros + (System.nanoTime() - baseNanos) / 1000L;
+    }
+
+    /**
+     * Appends the specified {@link Response} together with its {@link Request}.
+     *
+     * @param response The {@link Response} to append.
+     *
+     * @throws HttpException Thrown if the log is closed or the encoded exchange does not fit in a segment.
+     */
+    public void append(Response response) {
+        ByteBuffer frame = HttpCodec.encode(response);
+        int size = CaptureFormat.align(CaptureFormat.RECORD_HEADER_SIZE + (long) frame.remaining());
+        if (size > segmentSize - CaptureFormat.SEGMENT_HEADER_SIZE) {
+            throw new HttpException("Exchange of " + frame.remaining() + " bytes does not fit in a segment of "
+                    + segmentSize + " bytes");
+        }
+        long timestamp = clock.getAsLong();
+
+        while (true) {
+            if (closed) {
+                throw new HttpException("Capture log is closed");
+            }
+
+            Segment segment = current;
+            long position = segment.tail.getAndAdd(size);
+            if (position + size <= segmentSize) {
+                segment.write((int) position, size, timestamp, frame);
+                appendCount.increment();
+                return;
+            }
+
+            if (position <= segmentSize) {
+                // This record is the one that crosses the end, so this writer rolls the segment.
+                roll(segment, position);
+            } else {
+                while ((current == segment) && !closed) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the specified {@link Request} and the {@link Response} to it. If the {@link Response} does not already
+     * refer to the {@link Request}, a copy of it that does is appended.
+     *
+     * @param request The {@link Request} to append.
+     * @param response The {@link Response} to append.
+     *
+     * @throws HttpException Thrown if the log is closed or the encoded exchange does not fit in a segment.
+     */
+    public void append(Request request, Response response) {
+        if (request == response.getRequest()) {
+            append(response);
+        } else {
+            append(Response.newBuilder(response).setRequest(request).build());
+        }
+    }
+
+    private void roll(Segment full, long end) {
+        try {
+            synchronized (this) {
+                sealing.add(full);
+                if (!closed) {
+                    try {
+                        current = openSegment(nextNumber++);
+                    } catch (HttpException he) {
+                        closed = true;
+                        throw he;
+                    }
+                }
+            }
+        } finally {
+            sealInBackground(full, end);
+        }
+    }
+
+    private void sealInBackground(Segment segment, long end) {
+        try {
+            sealExecutor.execute(() -> {
+                try {
+                    seal(segment, end);
+                } catch (HttpException he) {
+                    sealFailure.compareAndSet(null, he);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            seal(segment, end);
+        }
+    }
+
+    private Segment openSegment(long number) {
+        Path file = directory.resolve(CaptureFormat.segmentName(number));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, segmentSize);
+            buffer.putInt(0, CaptureFormat.MAGIC);
+            buffer.putInt(4, CaptureFormat.VERSION);
+            return new Segment(file, buffer);
+        } catch (IOException ioe) {
+            throw new HttpException("Error creating capture segment " + file, ioe);
+        }
+    }
+
+    /**
+     * Waits for every record reserved before the specified end to be committed, then marks the end, forces the
+     * segment to disk and writes its index.
+     */
+    private void seal(Segment segment, long end) {
+        try {
+            while (segment.committed.get() < end) {
+                Thread.onSpinWait();
+            }
+            if (end + 4L <= segmentSize) {
+                CaptureFormat.LENGTH.setRelease(segment.buffer, (int) end, CaptureFormat.END_OF_SEGMENT);
+            }
+            segment.buffer.force();
+            writeIndex(segment, (int) Math.min(end, segmentSize));
+        } finally {
+            sealing.remove(segment);
+            segment.sealed.countDown();
+        }
+    }
+
+    private void writeIndex(Segment segment, int end) {
+        ByteBuffer index = ByteBuffer.allocate(CaptureFormat.INDEX_ENTRY_SIZE * (end / indexInterval + 2));
+        int position = CaptureFormat.SEGMENT_HEADER_SIZE;
+        long nextEntry = position;
+        while (position + CaptureFormat.RECORD_HEADER_SIZE <= end) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0) {
+                break;
+            }
+            if (position >= nextEntry) {
+                index.putLong(segment.buffer.getLong(position + 8)).putLong(position);
+                nextEntry = position + (long) indexInterval;
+            }
+            position += CaptureFormat.align(CaptureFormat.RECORD_HEADER_SIZE + (long) length);
+        }
+        index.flip();
+
+        Path file = CaptureFormat.indexOf(segment.file);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+            channel.force(true);
+        } catch (IOException ioe) {
+            throw new HttpException("Error writing capture index " + temporary, ioe);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            throw new HttpException("Error renaming capture index " + temporary, ioe);
+        }
+    }
+
+    /**
+     * Forces the records appended so far to disk.
+     */
+    public void flush() {
+        current.buffer.force();
+    }
+
+    /**
+     * Closes the log, sealing its last segment and waiting for the segments still being sealed in the background.
+     * Appends that race with closing may fail with an {@link HttpException}. Closing an already closed log has no
+     * effect.
+     *
+     * @throws HttpException Thrown if sealing a segment failed.
+     */
+    @Override
+    public void close() {
+        Segment last;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            last = current;
+            sealing.add(last);
+        }
+
+        // Reserve the rest of the segment so that no further record can be committed in it.
+        long end = last.tail.getAndAdd(segmentSize + 1L);
+        if (end <= segmentSize) {
+            seal(last, end);
+        }
+
+        boolean interrupted = false;
+        for (Segment segment : sealing) {
+            while (true) {
+                try {
+                    segment.sealed.await();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (null != ownSealExecutor) {
+            ownSealExecutor.shutdown();
+        }
+        HttpException failure = sealFailure.get();
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return Returns the directory of the segment files.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return Returns the number of exchanges appended.
+     */
+    public long getAppendCount() {
+        return appendCount.sum();
+    }
+
+    /**
+     * @return Returns true if the log is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("directory", directory).add("segmentSize", segmentSize)
+                .add("appendCount", getAppendCount()).add("closed", closed).toString();
+    }
+
+    /**
+     * A mapped segment file and the positions of the records being written to it.
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final AtomicLong tail = new AtomicLong(CaptureFormat.SEGMENT_HEADER_SIZE);
+        private final AtomicLong committed = new AtomicLong(CaptureFormat.SEGMENT_HEADER_SIZE);
+        private final CountDownLatch sealed = new CountDownLatch(1);
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        void write(int position, int size, long timestamp, ByteBuffer frame) {
+            try {
+                ByteBuffer target = buffer.duplicate();
+                target.position(position + CaptureFormat.RECORD_HEADER_SIZE);
+                int length = frame.remaining();
+                target.put(frame);
+                buffer.putLong(position + 8, timestamp);
+                CaptureFormat.LENGTH.setRelease(buffer, position, length);
+            } finally {
+                committed.addAndGet(size);
+            }
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CaptureLog}.
+     */
+    public static class Builder {
+
+        private final Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int indexInterval = DEFAULT_INDEX_INTERVAL;
+        private Executor sealExecutor;
+        private LongSupplier clock;
+
+        private Builder(Path directory) {
+            if (null == directory) {
+                throw new IllegalArgumentException("The directory must be set");
+            }
+            this.directory = directory;
+        }
+
+        /**
+         * Creates the log, creating its first segment.
+         *
+         * @return Returns a new {@link CaptureLog}.
+         *
+         * @throws HttpException Thrown if the directory or the segment cannot be created.
+         */
+        public CaptureLog build() {
+            return new CaptureLog(this);
+        }
+
+        /**
+         * Sets the size of each segment file, which is also the limit on the size of one encoded exchange. It is
+         * rounded down to a multiple of eight. Defaults to {@link #DEFAULT_SEGMENT_SIZE}.
+         *
+         * @param segmentSize The size in bytes, at least 1024.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            if (segmentSize < 1024) {
+                throw new IllegalArgumentException("The segment size must be at least 1024 bytes");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the distance between the records listed in the index of a segment. Smaller intervals make seeking by
+         * timestamp skip closer to the target at the cost of a larger index. Defaults to
+         * {@link #DEFAULT_INDEX_INTERVAL}.
+         *
+         * @param indexInterval The interval in bytes.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setIndexInterval(int indexInterval) {
+            if (indexInterval <= 0) {
+                throw new IllegalArgumentException("The index interval must be positive");
+            }
+            this.indexInterval = indexInterval;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Executor} that seals full segments, away from the append that filled them. Sealing forces a
+         * segment to disk, so the executor must tolerate blocking tasks. Defaults to a daemon thread of the log's own,
+         * which {@link CaptureLog#close()} stops.
+         *
+         * @param sealExecutor The {@link Executor}, or null for the default.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setSealExecutor(Executor sealExecutor) {
+            this.sealExecutor = sealExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the source of record timestamps, in microseconds since the epoch.
+         */
+        Builder setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+    }
+
+}
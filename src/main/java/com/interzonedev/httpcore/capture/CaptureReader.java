@@ -0,0 +1,370 @@
+package com.interzonedev.httpcore.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.AbstractIterator;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.codec.HttpCodec;
+
+/**
+ * Reads the exchanges of a {@link CaptureLog} back in the order they were appended, optionally filtered by
+ * {@link Method}, URL prefix, status and time. Each call to {@link #iterator()} lists the segments anew and maps them
+ * one at a time, so a reader can follow a log that is still being written: iteration ends at the first record that is
+ * not committed yet.
+ *
+ * <p>
+ * Seeking to the start time skips whole segments whose successor starts earlier, then jumps to the closest entry of
+ * the segment index before it. Segments without an index, such as the one being written or one left by a crash, are
+ * scanned from the start. As records appended concurrently may be slightly out of timestamp order, the time bounds are
+ * applied as filters, and iteration stops at the first record after the end time.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CaptureReader implements Iterable<CapturedExchange> {
+
+    private final Path directory;
+    private final Set<Method> methods;
+    private final String urlPrefix;
+    private final BitSet statuses;
+    private final long fromMicros;
+    private final long untilMicros;
+
+    private CaptureReader(Builder builder) {
+        this.directory = builder.directory;
+        this.methods = builder.methods;
+        this.urlPrefix = builder.urlPrefix;
+        this.statuses = builder.statuses;
+        this.fromMicros = builder.fromMicros;
+        this.untilMicros = builder.untilMicros;
+    }
+
+    /**
+     * Gets a {@link Builder} for a reader of the log in the specified directory.
+     *
+     * @param directory The directory of the segment files.
+     *
+     * @return Returns a {@link Builder} with default initial values, which read every exchange.
+     */
+    public static Builder newBuilder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Gets an iterator over the matching exchanges.
+     *
+     * @throws HttpException Thrown by the iterator if a segment cannot be read or is corrupt.
+     */
+    @Override
+    public Iterator<CapturedExchange> iterator() {
+        return new ExchangeIterator(CaptureFormat.segments(directory));
+    }
+
+    private boolean matches(CapturedExchange exchange) {
+        if (exchange.getTimestampMicros() < fromMicros) {
+            return false;
+        }
+        Response response = exchange.getResponse();
+        if ((null != statuses) && ((response.getStatus() < 0) || !statuses.get(response.getStatus()))) {
+            return false;
+        }
+        if ((null == methods) && (null == urlPrefix)) {
+            return true;
+        }
+        Request request = response.getRequest();
+        if (null == request) {
+            return false;
+        }
+        if ((null != methods) && ((null == request.getMethod()) || !methods.contains(request.getMethod()))) {
+            return false;
+        }
+        return (null == urlPrefix) || ((null != request.getUrl()) && request.getUrl().startsWith(urlPrefix));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("directory", directory).add("methods", methods)
+                .add("urlPrefix", urlPrefix).add("statuses", statuses).toString();
+    }
+
+    private static MappedByteBuffer map(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), Integer.MAX_VALUE & ~7);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            if ((size < CaptureFormat.SEGMENT_HEADER_SIZE) || (CaptureFormat.MAGIC != buffer.getInt(0))) {
+                throw new HttpException("Not a capture segment: " + segment);
+            }
+            if (CaptureFormat.VERSION != buffer.getInt(4)) {
+                throw new HttpException("Unsupported capture format version " + buffer.getInt(4) + ": " + segment);
+            }
+            return buffer;
+        } catch (IOException ioe) {
+            throw new HttpException("Error mapping capture segment " + segment, ioe);
+        }
+    }
+
+    /**
+     * Reads the timestamp of the first record of the specified segment, or {@link Long#MAX_VALUE} if it has none.
+     */
+    private static long firstTimestamp(Path segment) {
+        ByteBuffer head = ByteBuffer.allocate(CaptureFormat.SEGMENT_HEADER_SIZE + CaptureFormat.RECORD_HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading capture segment " + segment, ioe);
+        }
+        if (head.hasRemaining() || (head.getInt(CaptureFormat.SEGMENT_HEADER_SIZE) <= 0)) {
+            return Long.MAX_VALUE;
+        }
+        return head.getLong(CaptureFormat.SEGMENT_HEADER_SIZE + 8);
+    }
+
+    /**
+     * Finds the offset of the last indexed record of the specified segment that is earlier than the specified time,
+     * or the offset of the first record if there is no usable index.
+     */
+    private static int seek(Path segment, long micros, int capacity) {
+        byte[] index;
+        try {
+            index = Files.readAllBytes(CaptureFormat.indexOf(segment));
+        } catch (NoSuchFileException nsfe) {
+            return CaptureFormat.SEGMENT_HEADER_SIZE;
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading capture index of " + segment, ioe);
+        }
+
+        ByteBuffer entries = ByteBuffer.wrap(index);
+        int low = 0;
+        int high = index.length / CaptureFormat.INDEX_ENTRY_SIZE - 1;
+        long offset = CaptureFormat.SEGMENT_HEADER_SIZE;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = middle * CaptureFormat.INDEX_ENTRY_SIZE;
+            if (entries.getLong(entry) < micros) {
+                offset = entries.getLong(entry + 8);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        boolean usable = (offset >= CaptureFormat.SEGMENT_HEADER_SIZE) && (offset < capacity) && (0 == (offset & 7));
+        return usable ? (int) offset : CaptureFormat.SEGMENT_HEADER_SIZE;
+    }
+
+    /**
+     * Walks the records of the segments in order, mapping one segment at a time.
+     */
+    private final class ExchangeIterator extends AbstractIterator<CapturedExchange> {
+
+        private final List<Path> segments;
+        private int segmentIndex = -1;
+        private MappedByteBuffer buffer;
+        private int position;
+
+        ExchangeIterator(List<Path> segments) {
+            this.segments = segments;
+            if (Long.MIN_VALUE != fromMicros) {
+                while ((segmentIndex + 2 < segments.size()) && (firstTimestamp(segments.get(segmentIndex + 2))
+                        < fromMicros)) {
+                    segmentIndex++;
+                }
+            }
+        }
+
+        @Override
+        protected CapturedExchange computeNext() {
+            while (true) {
+                if (null == buffer) {
+                    if (!openNextSegment()) {
+                        return endOfData();
+                    }
+                }
+
+                int length = (position + CaptureFormat.RECORD_HEADER_SIZE <= buffer.capacity())
+                        ? (int) CaptureFormat.LENGTH.getAcquire(buffer, position) : CaptureFormat.END_OF_SEGMENT;
+                if (0 == length) {
+                    if (segmentIndex + 1 >= segments.size()) {
+                        // The tail of the segment being written.
+                        return endOfData();
+                    }
+                    length = CaptureFormat.END_OF_SEGMENT;
+                }
+                if (length < 0) {
+                    buffer = null;
+                    continue;
+                }
+                if (length > buffer.capacity() - position - CaptureFormat.RECORD_HEADER_SIZE) {
+                    throw new HttpException("Corrupt capture record of " + length + " bytes at offset " + position
+                            + " of " + segments.get(segmentIndex));
+                }
+
+                long timestamp = buffer.getLong(position + 8);
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(position + CaptureFormat.RECORD_HEADER_SIZE);
+                payload.limit(position + CaptureFormat.RECORD_HEADER_SIZE + length);
+                position += CaptureFormat.align(CaptureFormat.RECORD_HEADER_SIZE + (long) length);
+
+                if (timestamp > untilMicros) {
+                    return endOfData();
+                }
+                if (timestamp < fromMicros) {
+                    continue;
+                }
+
+                CapturedExchange exchange = new CapturedExchange(timestamp, HttpCodec.decodeResponse(payload));
+                if (matches(exchange)) {
+                    return exchange;
+                }
+            }
+        }
+
+        private boolean openNextSegment() {
+            segmentIndex++;
+            if (segmentIndex >= segments.size()) {
+                return false;
+            }
+            Path segment = segments.get(segmentIndex);
+            buffer = map(segment);
+            position = (Long.MIN_VALUE != fromMicros) ? seek(segment, fromMicros, buffer.capacity())
+                    : CaptureFormat.SEGMENT_HEADER_SIZE;
+            return true;
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CaptureReader}.
+     */
+    public static class Builder {
+
+        private final Path directory;
+        private Set<Method> methods;
+        private String urlPrefix;
+        private BitSet statuses;
+        private long fromMicros = Long.MIN_VALUE;
+        private long untilMicros = Long.MAX_VALUE;
+
+        private Builder(Path directory) {
+            if (null == directory) {
+                throw new IllegalArgumentException("The directory must be set");
+            }
+            this.directory = directory;
+        }
+
+        public CaptureReader build() {
+            return new CaptureReader(this);
+        }
+
+        /**
+         * Restricts the reader to exchanges whose {@link Request} has one of the specified methods.
+         *
+         * @param methods The {@link Method} values to read, or none to read every method.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMethods(Method... methods) {
+            return setMethods(Arrays.asList(methods));
+        }
+
+        /**
+         * Restricts the reader to exchanges whose {@link Request} has one of the specified methods.
+         *
+         * @param methods The {@link Method} values to read, or an empty collection to read every method.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMethods(Collection<Method> methods) {
+            this.methods = methods.isEmpty() ? null : EnumSet.copyOf(methods);
+            return this;
+        }
+
+        /**
+         * Restricts the reader to exchanges whose {@link Request} URL starts with the specified prefix.
+         *
+         * @param urlPrefix The prefix, or null to read every URL.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setUrlPrefix(String urlPrefix) {
+            this.urlPrefix = urlPrefix;
+            return this;
+        }
+
+        /**
+         * Restricts the reader to exchanges whose {@link Response} has one of the specified statuses.
+         *
+         * @param statuses The statuses to read, or none to read every status.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setStatuses(int... statuses) {
+            if (0 == statuses.length) {
+                this.statuses = null;
+                return this;
+            }
+            BitSet set = new BitSet();
+            for (int status : statuses) {
+                if (status < 0) {
+                    throw new IllegalArgumentException("Invalid status: " + status);
+                }
+                set.set(status);
+            }
+            this.statuses = set;
+            return this;
+        }
+
+        /**
+         * Restricts the reader to exchanges appended at or after the specified time.
+         *
+         * @param from The earliest time, or null for no limit.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setFrom(Instant from) {
+            this.fromMicros = (null != from) ? toMicros(from) : Long.MIN_VALUE;
+            return this;
+        }
+
+        /**
+         * Restricts the reader to exchanges appended at or before the specified time.
+         *
+         * @param until The latest time, or null for no limit.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setUntil(Instant until) {
+            this.untilMicros = (null != until) ? toMicros(until) : Long.MAX_VALUE;
+            return this;
+        }
+
+        private static long toMicros(Instant instant) {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), TimeUnit.SECONDS.toMicros(1L)),
+                    TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.interzonedev.httpcore.capture;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.client.HttpExecutor;
+
+/**
+ * Replays the {@link Request}s of captured exchanges through an {@link HttpExecutor}, keeping the recorded spacing
+ * between them scaled by a rate multiplier: at 2.0 the traffic is replayed twice as fast as it was recorded. The
+ * calling thread paces the requests and each one is sent asynchronously, so slow responses do not delay later
+ * requests until the limit on outstanding requests is reached.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CaptureReplayer {
+
+    private final HttpExecutor executor;
+    private final double rateMultiplier;
+    private final int maxOutstanding;
+    private final UnaryOperator<Request> requestMapper;
+
+    private CaptureReplayer(Builder builder) {
+        this.executor = builder.executor;
+        this.rateMultiplier = builder.rateMultiplier;
+        this.maxOutstanding = builder.maxOutstanding;
+        this.requestMapper = builder.requestMapper;
+    }
+
+    /**
+     * Gets a {@link Builder} for a replayer that sends requests through the specified executor.
+     *
+     * @param executor The {@link HttpExecutor} to send the replayed requests through.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor executor) {
+        return new Builder(executor);
+    }
+
+    /**
+     * Replays the specified exchanges in order, typically read by a {@link CaptureReader}, and waits for every
+     * response. Exchanges appended without a {@link Request} are skipped.
+     *
+     * @param exchanges The exchanges to replay.
+     *
+     * @return Returns the {@link ReplayStats} of the replay.
+     *
+     * @throws HttpException Thrown if reading the exchanges fails or the calling thread is interrupted.
+     */
+    public ReplayStats replay(Iterable<CapturedExchange> exchanges) {
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long sent = 0L;
+        long maxLag = 0L;
+        long startNanos = 0L;
+        long firstMicros = 0L;
+
+        try {
+            for (CapturedExchange exchange : exchanges) {
+                Request request = exchange.getRequest();
+                if (null == request) {
+                    continue;
+                }
+                if (0L == sent) {
+                    startNanos = System.nanoTime();
+                    firstMicros = exchange.getTimestampMicros();
+                }
+
+                long offset = TimeUnit.MICROSECONDS.toNanos(exchange.getTimestampMicros() - firstMicros);
+                long due = startNanos + (long) (offset / rateMultiplier);
+                for (long wait = due - System.nanoTime(); wait > 0L; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                outstanding.acquire();
+                maxLag = Math.max(maxLag, System.nanoTime() - due);
+
+                CompletableFuture<Response> future;
+                try {
+                    future = executor.execute(requestMapper.apply(request));
+                } catch (RuntimeException re) {
+                    future = CompletableFuture.failedFuture(re);
+                }
+                sent++;
+                future.whenComplete((response, failure) -> {
+                    if (null != failure) {
+                        failed.increment();
+                    } else {
+                        succeeded.increment();
+                    }
+                    outstanding.release();
+                });
+            }
+            outstanding.acquire(maxOutstanding);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new HttpException("Interrupted while replaying", ie);
+        }
+
+        Duration elapsed = (0L == sent) ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - startNanos);
+        return new ReplayStats(sent, succeeded.sum(), failed.sum(), Duration.ofNanos(maxLag), elapsed);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("executor", executor).add("rateMultiplier", rateMultiplier)
+                .add("maxOutstanding", maxOutstanding).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CaptureReplayer}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor executor;
+        private double rateMultiplier = 1.0;
+        private int maxOutstanding = 1024;
+        private UnaryOperator<Request> requestMapper = UnaryOperator.identity();
+
+        private Builder(HttpExecutor executor) {
+            if (null == executor) {
+                throw new IllegalArgumentException("The executor must be set");
+            }
+            this.executor = executor;
+        }
+
+        public CaptureReplayer build() {
+            return new CaptureReplayer(this);
+        }
+
+        /**
+         * Sets how much faster than recorded the traffic is replayed. Defaults to 1.0, the recorded rate.
+         *
+         * @param rateMultiplier The multiplier, or {@link Double#POSITIVE_INFINITY} to send requests as fast as the
+         *            limit on outstanding requests allows.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setRateMultiplier(double rateMultiplier) {
+            if (!(rateMultiplier > 0.0)) {
+                throw new IllegalArgumentException("The rate multiplier must be positive");
+            }
+            this.rateMultiplier = rateMultiplier;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests awaiting a response. Once reached, the next request waits and the
+         * replay falls behind schedule. Defaults to 1024.
+         *
+         * @param maxOutstanding The maximum number of requests.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxOutstanding(int maxOutstanding) {
+            if (maxOutstanding <= 0) {
+                throw new IllegalArgumentException("The maximum number of outstanding requests must be positive");
+            }
+            this.maxOutstanding = maxOutstanding;
+            return this;
+        }
+
+        /**
+         * Sets a function applied to each recorded {@link Request} before it is sent, for example to point it at a
+         * test environment or to drop credentials. Defaults to the identity.
+         *
+         * @param requestMapper The function.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setRequestMapper(UnaryOperator<Request> requestMapper) {
+            if (null == requestMapper) {
+                throw new IllegalArgumentException("The request mapper must not be null");
+            }
+            this.requestMapper = requestMapper;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.interzonedev.httpcore.capture;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Immutable exchange read back from a {@link CaptureLog}: a {@link Response}, the {@link Request} it answered and the
+ * time it was appended.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CapturedExchange {
+
+    private final long timestampMicros;
+    private final Response response;
+
+    CapturedExchange(long timestampMicros, Response response) {
+        this.timestampMicros = timestampMicros;
+        this.response = response;
+    }
+
+    /**
+     * @return Returns the time the exchange was appended, in microseconds since the epoch.
+     */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    /**
+     * @return Returns the time the exchange was appended.
+     */
+    public Instant getTimestamp() {
+        long seconds = Math.floorDiv(timestampMicros, TimeUnit.SECONDS.toMicros(1L));
+        long micros = Math.floorMod(timestampMicros, TimeUnit.SECONDS.toMicros(1L));
+        return Instant.ofEpochSecond(seconds, TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    /**
+     * @return Returns the {@link Request}, or null if the {@link Response} was appended without one.
+     */
+    public Request getRequest() {
+        return response.getRequest();
+    }
+
+    public Response getResponse() {
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("timestamp", getTimestamp()).add("response", response).toString();
+    }
+
+}
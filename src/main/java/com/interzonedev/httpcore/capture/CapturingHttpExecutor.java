@@ -0,0 +1,115 @@
+package com.interzonedev.httpcore.capture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.client.HttpExecutor;
+
+/**
+ * {@link HttpExecutor} that appends every successful exchange to a {@link CaptureLog}. The future of the delegate is
+ * returned as is and the exchange is appended by the thread that completes it, so capturing adds no stage between the
+ * response and the caller. Failed requests are not captured, and an exchange that cannot be appended, because the log
+ * is closed or the exchange is too large, is counted as dropped rather than failing the request.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CapturingHttpExecutor implements HttpExecutor {
+
+    private final HttpExecutor delegate;
+    private final CaptureLog log;
+    private final Predicate<Response> filter;
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private CapturingHttpExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.log = builder.log;
+        this.filter = builder.filter;
+    }
+
+    /**
+     * Gets a {@link Builder} for an executor that captures the exchanges of the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes the requests.
+     * @param log The {@link CaptureLog} to append to.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate, CaptureLog log) {
+        return new Builder(delegate, log);
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        CompletableFuture<Response> future = delegate.execute(request);
+        future.thenAccept(response -> capture(request, response));
+        return future;
+    }
+
+    private void capture(Request request, Response response) {
+        if ((null != filter) && !filter.test(response)) {
+            return;
+        }
+        try {
+            log.append(request, response);
+        } catch (HttpException he) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * @return Returns the number of exchanges that could not be appended to the log.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("log", log).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CapturingHttpExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private final CaptureLog log;
+        private Predicate<Response> filter;
+
+        private Builder(HttpExecutor delegate, CaptureLog log) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            if (null == log) {
+                throw new IllegalArgumentException("The capture log must be set");
+            }
+            this.delegate = delegate;
+            this.log = log;
+        }
+
+        public CapturingHttpExecutor build() {
+            return new CapturingHttpExecutor(this);
+        }
+
+        /**
+         * Sets which exchanges are captured, for example to sample them or to leave out large bodies. Defaults to
+         * every successful exchange.
+         *
+         * @param filter The predicate that accepts the {@link Response} of each exchange to capture, or null.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setFilter(Predicate<Response> filter) {
+            this.filter = filter;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.interzonedev.httpcore.capture;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable summary of one replay by a {@link CaptureReplayer}.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ReplayStats {
+
+    private final long sentCount;
+    private final long succeededCount;
+    private final long failedCount;
+    private final Duration maxLag;
+    private final Duration elapsed;
+
+    ReplayStats(long sentCount, long succeededCount, long failedCount, Duration maxLag, Duration elapsed) {
+        this.sentCount = sentCount;
+        this.succeededCount = succeededCount;
+        this.failedCount = failedCount;
+        this.maxLag = maxLag;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return Returns the number of requests sent.
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * @return Returns the number of requests that completed with a {@link com.interzonedev.httpcore.Response}.
+     */
+    public long getSucceededCount() {
+        return succeededCount;
+    }
+
+    /**
+     * @return Returns the number of requests that failed.
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return Returns the longest time a request was sent after its scheduled time. A lag that keeps growing means
+     *         the target or the limit on outstanding requests cannot sustain the replay rate.
+     */
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    /**
+     * @return Returns the time from the first request being sent to the last one completing.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("sentCount", sentCount).add("succeededCount", succeededCount)
+                .add("failedCount", failedCount).add("maxLag", maxLag).add("elapsed", elapsed).toString();
+    }
+
+}
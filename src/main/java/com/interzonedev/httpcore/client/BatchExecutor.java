@@ -0,0 +1,250 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Executes collections of {@link Request}s through an {@link HttpExecutor}. Requests are grouped by origin, and each
+ * origin gets a window of at most {@link Builder#setMaxConcurrentPerHost(int)} requests in flight at a time within the
+ * batch, while all origins proceed in parallel. Each completion launches the next request of its origin from the
+ * completing thread, so a batch costs no thread handoffs of its own.
+ *
+ * <p>
+ * Keeping the requests of an origin together lets the underlying client reuse its connections: the
+ * {@link JdkHttpTransport} multiplexes them over one HTTP/2 connection where the server supports it, and reuses
+ * keep-alive connections otherwise. HTTP/1.1 pipelining is not used, since the JDK client does not support it.
+ * </p>
+ *
+ * <p>
+ * A batch never fails as a whole. Each request yields a {@link BatchResult} holding either its {@link Response} or
+ * the {@link HttpException} it failed with.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class BatchExecutor {
+
+    public static final int DEFAULT_MAX_CONCURRENT_PER_HOST = 6;
+
+    private final HttpExecutor delegate;
+    private final int maxConcurrentPerHost;
+
+    private BatchExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxConcurrentPerHost = builder.maxConcurrentPerHost;
+    }
+
+    /**
+     * Gets a {@link Builder} for a batch executor that executes requests through the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes the requests.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * Executes the specified requests and collects their results in the iteration order of the collection.
+     *
+     * @param requests The requests to execute.
+     *
+     * @return Returns a future that completes with one {@link BatchResult} per request, in order, once every request
+     *         has completed. It never completes exceptionally.
+     */
+    public CompletableFuture<List<BatchResult>> executeAll(Collection<Request> requests) {
+        BatchResult[] results = new BatchResult[requests.size()];
+        return executeEach(requests, result -> results[result.getIndex()] = result)
+                .thenApply(done -> Collections.unmodifiableList(Arrays.asList(results)));
+    }
+
+    /**
+     * Executes the specified requests, passing each result to the specified listener as soon as it is available. The
+     * listener may be called concurrently from several threads, and should not block.
+     *
+     * @param requests The requests to execute.
+     * @param listener Receives each {@link BatchResult} as its request completes.
+     *
+     * @return Returns a future that completes once every request has completed and its result has been passed to the
+     *         listener. It completes exceptionally only if the listener threw.
+     */
+    public CompletableFuture<Void> executeEach(Collection<Request> requests, Consumer<BatchResult> listener) {
+        Batch batch = new Batch(requests.size(), listener);
+        if (requests.isEmpty()) {
+            batch.done.complete(null);
+            return batch.done;
+        }
+
+        Map<String, Origin> origins = new LinkedHashMap<>();
+        int index = 0;
+        for (Request request : requests) {
+            String hostKey;
+            try {
+                hostKey = PooledHttpExecutor.hostKeyOf(request);
+            } catch (HttpException he) {
+                batch.deliver(index++, request, null, he);
+                continue;
+            }
+            origins.computeIfAbsent(hostKey, key -> new Origin(batch)).add(index++, request);
+        }
+
+        for (Origin origin : origins.values()) {
+            int window = Math.min(maxConcurrentPerHost, origin.requests.size());
+            for (int i = 0; i < window; i++) {
+                origin.drain();
+            }
+        }
+        return batch.done;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate)
+                .add("maxConcurrentPerHost", maxConcurrentPerHost).toString();
+    }
+
+    /**
+     * The state shared by all origins of one batch.
+     */
+    private static final class Batch {
+
+        private final AtomicInteger remaining;
+        private final Consumer<BatchResult> listener;
+        private final AtomicReference<Throwable> listenerFailure = new AtomicReference<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Batch(int size, Consumer<BatchResult> listener) {
+            this.remaining = new AtomicInteger(size);
+            this.listener = listener;
+        }
+
+        void deliver(int index, Request request, Response response, Throwable failure) {
+            HttpException httpFailure = (null != failure) ? Failures.toHttpException(failure) : null;
+            try {
+                listener.accept(new BatchResult(index, request, response, httpFailure));
+            } catch (RuntimeException re) {
+                listenerFailure.compareAndSet(null, re);
+            }
+
+            if (0 == remaining.decrementAndGet()) {
+                Throwable thrown = listenerFailure.get();
+                if (null != thrown) {
+                    done.completeExceptionally(thrown);
+                } else {
+                    done.complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * The requests of one batch to one origin, launched in order.
+     */
+    private final class Origin {
+
+        private final Batch batch;
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<Request> requests = new ArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        Origin(Batch batch) {
+            this.batch = batch;
+        }
+
+        void add(int index, Request request) {
+            indexes.add(index);
+            requests.add(request);
+        }
+
+        /**
+         * Launches requests until one is in flight or none are left. Requests that complete synchronously are
+         * delivered in the loop rather than by recursion.
+         */
+        void drain() {
+            while (true) {
+                int next = cursor.getAndIncrement();
+                if (next >= requests.size()) {
+                    return;
+                }
+
+                int index = indexes.get(next);
+                Request request = requests.get(next);
+                CompletableFuture<Response> future;
+                try {
+                    future = delegate.execute(request);
+                } catch (RuntimeException re) {
+                    future = CompletableFuture.failedFuture(re);
+                }
+
+                if (!future.isDone()) {
+                    future.whenComplete((response, failure) -> {
+                        batch.deliver(index, request, response, failure);
+                        drain();
+                    });
+                    return;
+                }
+
+                Response response = null;
+                Throwable failure = null;
+                try {
+                    response = future.join();
+                } catch (RuntimeException re) {
+                    failure = re;
+                }
+                batch.deliver(index, request, response, failure);
+            }
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link BatchExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private int maxConcurrentPerHost = DEFAULT_MAX_CONCURRENT_PER_HOST;
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public BatchExecutor build() {
+            return new BatchExecutor(this);
+        }
+
+        /**
+         * Sets the most requests of one batch that may be in flight to one origin at a time. This budget is per
+         * batch; the limits of the delegate still apply across batches.
+         *
+         * @param maxConcurrentPerHost The maximum number of requests in flight per origin.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxConcurrentPerHost(int maxConcurrentPerHost) {
+            if (maxConcurrentPerHost < 1) {
+                throw new IllegalArgumentException("The maximum concurrent requests per host must be positive");
+            }
+            this.maxConcurrentPerHost = maxConcurrentPerHost;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.interzonedev.httpcore.client;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Immutable outcome of one {@link Request} of a batch executed by a {@link BatchExecutor}: either its
+ * {@link Response} or the {@link HttpException} it failed with.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class BatchResult {
+
+    private final int index;
+    private final Request request;
+    private final Response response;
+    private final HttpException failure;
+
+    BatchResult(int index, Request request, Response response, HttpException failure) {
+        this.index = index;
+        this.request = request;
+        this.response = response;
+        this.failure = failure;
+    }
+
+    /**
+     * @return Returns the position of the request in the batch, in the iteration order of the collection.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    /**
+     * @return Returns the {@link Response}, or null if the request failed.
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return Returns the {@link HttpException} the request failed with, or null if it succeeded.
+     */
+    public HttpException getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return null == failure;
+    }
+
+    /**
+     * Gets the {@link Response}, throwing the failure if the request failed.
+     *
+     * @return Returns the {@link Response}.
+     *
+     * @throws HttpException Thrown if the request failed.
+     */
+    public Response getResponseOrThrow() {
+        if (null != failure) {
+            throw failure;
+        }
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("index", index).add("request", request).add("response", response)
+                .add("failure", failure).toString();
+    }
+
+}
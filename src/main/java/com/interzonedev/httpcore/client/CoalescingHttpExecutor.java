@@ -0,0 +1,209 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpTimeoutException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.RequestKey;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * {@link HttpExecutor} that coalesces identical requests in flight: while a request is being executed, every
+ * identical request shares its execution and receives the same immutable {@link Response}, rather than being sent
+ * again. Once the execution completes, the next identical request starts a new one, so nothing is cached.
+ *
+ * <p>
+ * Requests are identical if they are equal, or, when a {@link RequestKey.Projection} is set, if they have equal keys
+ * under it. The shared {@link Response} refers to the {@link Request} that started the execution. Only requests whose
+ * method is coalesced share executions, GET and HEAD by default; the rest pass straight through.
+ * </p>
+ *
+ * <p>
+ * The executions in flight live in a {@link ConcurrentHashMap}, so requests for different keys never contend on a
+ * lock. Each caller receives its own future: cancelling it does not cancel the shared execution.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CoalescingHttpExecutor implements HttpExecutor {
+
+    private final HttpExecutor delegate;
+    private final RequestKey.Projection projection;
+    private final Set<Method> coalescedMethods;
+    private final Duration timeout;
+
+    private final ConcurrentMap<Object, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder passThroughCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private CoalescingHttpExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.projection = builder.projection;
+        this.coalescedMethods = EnumSet.copyOf(builder.coalescedMethods);
+        this.timeout = builder.timeout;
+    }
+
+    /**
+     * Gets a {@link Builder} for an executor that coalesces requests sent through the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes the requests.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        if (!coalescedMethods.contains(request.getMethod())) {
+            passThroughCount.increment();
+            return delegate.execute(request);
+        }
+
+        Object key = (null != projection) ? projection.keyOf(request) : request;
+
+        CompletableFuture<Response> shared = inFlight.get(key);
+        if (null == shared) {
+            CompletableFuture<Response> created = new CompletableFuture<>();
+            shared = inFlight.putIfAbsent(key, created);
+            if (null == shared) {
+                executionCount.increment();
+                start(key, request, created);
+                return created.copy();
+            }
+        }
+
+        coalescedCount.increment();
+        return shared.copy();
+    }
+
+    private void start(Object key, Request request, CompletableFuture<Response> shared) {
+        CompletableFuture<Response> started;
+        try {
+            started = delegate.execute(request);
+        } catch (RuntimeException re) {
+            started = CompletableFuture.failedFuture(re);
+        }
+        CompletableFuture<Response> execution = started;
+        CompletableFuture<Response> upstream = (null != timeout)
+                ? execution.copy().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS) : execution;
+
+        upstream.whenComplete((response, failure) -> {
+            // Removed before completing, so that callers arriving from now on start a new execution.
+            inFlight.remove(key, shared);
+            if (null == failure) {
+                shared.complete(response);
+            } else if (Failures.unwrap(failure) instanceof TimeoutException) {
+                timeoutCount.increment();
+                execution.cancel(true);
+                shared.completeExceptionally(new HttpTimeoutException("Timed out after " + timeout + " waiting for "
+                        + request.getMethod() + " " + request.getUrl(), Failures.unwrap(failure), request));
+            } else {
+                shared.completeExceptionally(Failures.toHttpException(failure));
+            }
+        });
+    }
+
+    /**
+     * Gets the number of executions in flight, each shared by one or more requests.
+     *
+     * @return Returns the number of executions in flight.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public CoalescingStats stats() {
+        return new CoalescingStats(executionCount.sum(), coalescedCount.sum(), passThroughCount.sum(),
+                timeoutCount.sum());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("projection", projection)
+                .add("coalescedMethods", coalescedMethods).add("timeout", timeout).add("inFlight", inFlight.size())
+                .toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CoalescingHttpExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private RequestKey.Projection projection;
+        private Set<Method> coalescedMethods = EnumSet.of(Method.GET, Method.HEAD);
+        private Duration timeout;
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public CoalescingHttpExecutor build() {
+            return new CoalescingHttpExecutor(this);
+        }
+
+        /**
+         * Sets the projection whose keys decide which requests are identical. Defaults to null, under which requests
+         * are identical only if they are equal.
+         *
+         * @param projection The {@link RequestKey.Projection}, or null.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setProjection(RequestKey.Projection projection) {
+            this.projection = projection;
+            return this;
+        }
+
+        /**
+         * Sets the methods whose requests are coalesced. Coalescing is only safe for methods without side effects.
+         *
+         * @param coalescedMethods The methods to coalesce.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setCoalescedMethods(Set<Method> coalescedMethods) {
+            this.coalescedMethods = EnumSet.noneOf(Method.class);
+            this.coalescedMethods.addAll(coalescedMethods);
+            return this;
+        }
+
+        /**
+         * Sets how long a shared execution may take before every request sharing it fails with an
+         * {@link HttpException}, freeing the key for a new execution. The future of the delegate is cancelled, so that
+         * a slow execution does not keep running beside the new one. Defaults to null, leaving timeouts to the
+         * delegate.
+         *
+         * @param timeout The timeout of each shared execution, or null.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setTimeout(Duration timeout) {
+            if ((null != timeout) && (timeout.isNegative() || timeout.isZero())) {
+                throw new IllegalArgumentException("The timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.interzonedev.httpcore.client;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable snapshot of the statistics of a {@link CoalescingHttpExecutor}.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CoalescingStats {
+
+    private final long executionCount;
+    private final long coalescedCount;
+    private final long passThroughCount;
+    private final long timeoutCount;
+
+    CoalescingStats(long executionCount, long coalescedCount, long passThroughCount, long timeoutCount) {
+        this.executionCount = executionCount;
+        this.coalescedCount = coalescedCount;
+        this.passThroughCount = passThroughCount;
+        this.timeoutCount = timeoutCount;
+    }
+
+    /**
+     * @return Returns the number of coalescable requests that started an execution of their own.
+     */
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * @return Returns the number of requests that shared an execution already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * @return Returns the number of requests passed straight through because their method is not coalesced.
+     */
+    public long getPassThroughCount() {
+        return passThroughCount;
+    }
+
+    /**
+     * @return Returns the number of shared executions that timed out.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return Returns the ratio of coalesced requests to coalescable requests, or 0.0 if there have been none.
+     */
+    public double getCoalescingRatio() {
+        long requests = executionCount + coalescedCount;
+        return (0 == requests) ? 0.0 : (double) coalescedCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("executionCount", executionCount)
+                .add("coalescedCount", coalescedCount).add("passThroughCount", passThroughCount)
+                .add("timeoutCount", timeoutCount).toString();
+    }
+
+}
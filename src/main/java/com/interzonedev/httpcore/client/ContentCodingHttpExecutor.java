@@ -0,0 +1,146 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ContentEncoding;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * {@link HttpExecutor} that negotiates content codings with the server. Requests without an Accept-Encoding header
+ * are sent with one, and responses are returned with {@link ContentEncoding#decoded(Response)}, so their entities stay
+ * compressed until they are read. Request bodies can also be compressed, once they reach a minimum size.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ContentCodingHttpExecutor implements HttpExecutor {
+
+    private final HttpExecutor delegate;
+    private final String acceptEncoding;
+    private final ContentEncoding requestEncoding;
+    private final long minRequestSize;
+
+    private ContentCodingHttpExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.acceptEncoding = builder.acceptEncoding;
+        this.requestEncoding = builder.requestEncoding;
+        this.minRequestSize = builder.minRequestSize;
+    }
+
+    /**
+     * Gets a {@link Builder} for an executor that negotiates content codings for the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes the requests.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        Request sent;
+        try {
+            sent = prepare(request);
+        } catch (HttpException he) {
+            return CompletableFuture.failedFuture(he);
+        }
+        return delegate.execute(sent).thenApply(ContentEncoding::decoded);
+    }
+
+    private Request prepare(Request request) {
+        HttpHeaders headers = request.getHttpHeaders();
+        Body entity = request.getEntity();
+        boolean accept = (null != acceptEncoding) && !headers.contains(ContentEncoding.ACCEPT_ENCODING);
+        boolean encode = (ContentEncoding.IDENTITY != requestEncoding) && (null != entity)
+                && (entity.length() >= minRequestSize) && !headers.contains(ContentEncoding.CONTENT_ENCODING);
+        if (!accept && !encode) {
+            return request;
+        }
+
+        Request prepared = encode ? requestEncoding.encode(request) : request;
+        if (accept) {
+            prepared = Request.newBuilder(prepared).setHeader(ContentEncoding.ACCEPT_ENCODING, acceptEncoding).build();
+        }
+        return prepared;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("acceptEncoding", acceptEncoding)
+                .add("requestEncoding", requestEncoding).add("minRequestSize", minRequestSize).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link ContentCodingHttpExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private String acceptEncoding = ContentEncoding.ACCEPTED;
+        private ContentEncoding requestEncoding = ContentEncoding.IDENTITY;
+        private long minRequestSize = 1024L;
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public ContentCodingHttpExecutor build() {
+            return new ContentCodingHttpExecutor(this);
+        }
+
+        /**
+         * Sets the Accept-Encoding header added to requests that have none. Defaults to
+         * {@link ContentEncoding#ACCEPTED}.
+         *
+         * @param acceptEncoding The header value, or null to leave requests as they are.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setAcceptEncoding(String acceptEncoding) {
+            this.acceptEncoding = acceptEncoding;
+            return this;
+        }
+
+        /**
+         * Sets the coding of request bodies. Defaults to {@link ContentEncoding#IDENTITY}, which sends them as they
+         * are. Requests that already have a Content-Encoding header are not encoded again.
+         *
+         * @param requestEncoding The {@link ContentEncoding} of request bodies.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setRequestEncoding(ContentEncoding requestEncoding) {
+            if (null == requestEncoding) {
+                throw new IllegalArgumentException("The request encoding must be set");
+            }
+            this.requestEncoding = requestEncoding;
+            return this;
+        }
+
+        /**
+         * Sets the smallest request body worth encoding. Defaults to 1 KiB, below which compression rarely pays for
+         * its headers.
+         *
+         * @param minRequestSize The size in bytes.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMinRequestSize(long minRequestSize) {
+            if (minRequestSize < 0L) {
+                throw new IllegalArgumentException("The minimum request size must not be negative");
+            }
+            this.minRequestSize = minRequestSize;
+            return this;
+        }
+    }
+
+}
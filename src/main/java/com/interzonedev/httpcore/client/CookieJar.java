@@ -0,0 +1,492 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.interzonedev.httpcore.HttpCookie;
+import com.interzonedev.httpcore.HttpUrl;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Thread-safe store of {@link HttpCookie}s that follows the storage and retrieval rules of RFC 6265 sections 5.3 and
+ * 5.4 for an HTTP client.
+ *
+ * <p>
+ * Cookies are indexed by the domain they belong to: the request host for host-only cookies, the Domain attribute
+ * otherwise. Finding the cookies for a URL looks up the host and each of its parent domains, one hash lookup per
+ * label, and only checks the path, expiry and Secure flag of the few cookies found there, so the cost does not grow
+ * with the number of cookies stored for other domains. Each domain holds an immutable array that is replaced on
+ * every change, so lookups take no locks.
+ * </p>
+ *
+ * <p>
+ * There is no public suffix list, so a Domain attribute is only rejected if the request host is not within it or it
+ * is a single label, such as {@code com}. SameSite and HttpOnly have no meaning outside a browser and are ignored.
+ * When more than the maximum number of cookies are stored, expired cookies are removed first and then the oldest.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class CookieJar {
+
+    public static final int DEFAULT_MAX_COOKIES = 3000;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * Cookies that apply to longer paths come first, then older cookies, as RFC 6265 section 5.4 recommends.
+     */
+    private static final Comparator<Entry> SEND_ORDER = Comparator.<Entry>comparingInt(entry -> -entry.path.length())
+            .thenComparingLong(entry -> entry.creation);
+
+    private final int maxCookies;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, Entry[]> domains = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong creationSequence = new AtomicLong();
+
+    private CookieJar(Builder builder) {
+        this.maxCookies = builder.maxCookies;
+        this.clock = builder.clock;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Stores the cookies set by the specified {@link Response}, as received for the URL of its {@link Request}.
+     *
+     * @param response The {@link Response} whose Set-Cookie headers to store.
+     *
+     * @return Returns the number of cookies stored or removed, or zero if the response has no request with an
+     *         absolute URL.
+     */
+    public int store(Response response) {
+        Request request = response.getRequest();
+        if ((null == request) || (null == request.getUrl())) {
+            return 0;
+        }
+        List<HttpCookie> cookies = response.getHttpCookies();
+        return cookies.isEmpty() ? 0 : store(request.getHttpUrl(), cookies);
+    }
+
+    /**
+     * Stores the specified cookies as received for the specified URL. A cookie with a Max-Age of zero or less, or an
+     * Expires date in the past, removes the stored cookie it replaces.
+     *
+     * @param url The URL of the request whose response set the cookies.
+     * @param cookies The cookies to store.
+     *
+     * @return Returns the number of cookies stored or removed, or zero if the URL is not absolute.
+     */
+    public int store(HttpUrl url, List<HttpCookie> cookies) {
+        if (!url.isAbsolute()) {
+            return 0;
+        }
+        String host = url.getHost();
+        boolean secure = isSecure(url);
+        String defaultPath = defaultPath(url.getEncodedPath());
+        long now = clock.getAsLong();
+
+        int stored = 0;
+        for (HttpCookie cookie : cookies) {
+            String domain = cookie.getDomain();
+            boolean hostOnly = (null == domain);
+            if (hostOnly) {
+                domain = host;
+            } else if (!domainMatches(host, domain) || ((domain.indexOf('.') < 0) && !domain.equals(host))) {
+                continue;
+            }
+            if (cookie.isSecure() && !secure) {
+                continue;
+            }
+            String path = (null != cookie.getPath()) ? cookie.getPath() : defaultPath;
+            long creation = creationSequence.getAndIncrement();
+            put(new Entry(cookie, domain, hostOnly, path, expiresAt(cookie, now), creation), now);
+            stored++;
+        }
+        if (size.get() > maxCookies) {
+            evict();
+        }
+        return stored;
+    }
+
+    private void put(Entry entry, long now) {
+        boolean expired = entry.expiresAt <= now;
+        domains.compute(entry.domain, (key, entries) -> {
+            Entry[] current = (null != entries) ? entries : NO_ENTRIES;
+            int existing = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].replaces(entry)) {
+                    existing = i;
+                    break;
+                }
+            }
+
+            if (existing < 0) {
+                if (expired) {
+                    return entries;
+                }
+                Entry[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = entry;
+                size.incrementAndGet();
+                return grown;
+            }
+            if (expired) {
+                size.decrementAndGet();
+                return remove(current, existing);
+            }
+            Entry[] replaced = current.clone();
+            // A replaced cookie keeps its creation time, and with it its place in the send order.
+            replaced[existing] = entry.withCreation(current[existing].creation);
+            return replaced;
+        });
+    }
+
+    private static Entry[] remove(Entry[] entries, int index) {
+        if (1 == entries.length) {
+            return null;
+        }
+        Entry[] shrunk = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, shrunk, 0, index);
+        System.arraycopy(entries, index + 1, shrunk, index, entries.length - index - 1);
+        return shrunk;
+    }
+
+    /**
+     * Gets the cookies to send with a request to the specified URL, in the order they should be sent.
+     *
+     * @param url The URL of the request.
+     *
+     * @return Returns an immutable list of the matching {@link HttpCookie}s, which is empty if the URL is not
+     *         absolute.
+     */
+    public List<HttpCookie> cookiesFor(HttpUrl url) {
+        List<Entry> matches = matches(url);
+        if (matches.isEmpty()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<HttpCookie> cookies = ImmutableList.builderWithExpectedSize(matches.size());
+        for (Entry entry : matches) {
+            cookies.add(entry.cookie);
+        }
+        return cookies.build();
+    }
+
+    /**
+     * Formats the Cookie header to send with a request to the specified URL.
+     *
+     * @param url The URL of the request.
+     *
+     * @return Returns the value of the Cookie header, or null if no cookies match.
+     */
+    public String cookieHeaderFor(HttpUrl url) {
+        List<Entry> matches = matches(url);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        StringBuilder header = new StringBuilder(32 * matches.size());
+        for (Entry entry : matches) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(entry.cookie.getName()).append('=').append(entry.cookie.getValue());
+        }
+        return header.toString();
+    }
+
+    /**
+     * Gets a copy of the specified {@link Request} with the matching cookies in its Cookie header, after any cookies
+     * it already has.
+     *
+     * @param request The {@link Request} to send.
+     *
+     * @return Returns the {@link Request} with its cookies, or the specified one if no cookies match.
+     */
+    public Request attach(Request request) {
+        if (null == request.getUrl()) {
+            return request;
+        }
+        String cookies = cookieHeaderFor(request.getHttpUrl());
+        if (null == cookies) {
+            return request;
+        }
+        String existing = request.getHttpHeaders().getFirst("Cookie");
+        String header = ((null != existing) && !existing.isEmpty()) ? existing + "; " + cookies : cookies;
+        return Request.newBuilder(request).setHeader("Cookie", header).build();
+    }
+
+    private List<Entry> matches(HttpUrl url) {
+        if (!url.isAbsolute()) {
+            return ImmutableList.of();
+        }
+        String host = url.getHost();
+        boolean secure = isSecure(url);
+        String path = url.getEncodedPath().isEmpty() ? "/" : url.getEncodedPath();
+        long now = clock.getAsLong();
+
+        List<Entry> matches = null;
+        String domain = host;
+        boolean exactHost = true;
+        while (true) {
+            Entry[] entries = domains.get(domain);
+            if (null != entries) {
+                for (Entry entry : entries) {
+                    if ((entry.hostOnly && !exactHost) || (entry.expiresAt <= now)
+                            || (entry.cookie.isSecure() && !secure) || !pathMatches(path, entry.path)) {
+                        continue;
+                    }
+                    if (null == matches) {
+                        matches = new ArrayList<>();
+                    }
+                    matches.add(entry);
+                }
+            }
+            int dot = domain.indexOf('.');
+            if ((dot < 0) || isIpAddress(host)) {
+                break;
+            }
+            domain = domain.substring(dot + 1);
+            exactHost = false;
+        }
+
+        if (null == matches) {
+            return ImmutableList.of();
+        }
+        matches.sort(SEND_ORDER);
+        return matches;
+    }
+
+    /**
+     * @return Returns the number of cookies stored, including any that have expired but not yet been removed.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes every cookie.
+     */
+    public void clear() {
+        for (String domain : domains.keySet()) {
+            Entry[] removed = domains.remove(domain);
+            if (null != removed) {
+                size.addAndGet(-removed.length);
+            }
+        }
+    }
+
+    /**
+     * Removes the cookies that have expired. Expired cookies are never sent, so this only frees their memory.
+     *
+     * @return Returns the number of cookies removed.
+     */
+    public int removeExpired() {
+        long now = clock.getAsLong();
+        AtomicInteger removed = new AtomicInteger();
+        for (String domain : domains.keySet()) {
+            domains.computeIfPresent(domain, (key, entries) -> {
+                int live = 0;
+                for (Entry entry : entries) {
+                    if (entry.expiresAt > now) {
+                        live++;
+                    }
+                }
+                if (live == entries.length) {
+                    return entries;
+                }
+                Entry[] kept = new Entry[live];
+                int next = 0;
+                for (Entry entry : entries) {
+                    if (entry.expiresAt > now) {
+                        kept[next++] = entry;
+                    }
+                }
+                removed.addAndGet(entries.length - live);
+                size.addAndGet(live - entries.length);
+                return (0 == live) ? null : kept;
+            });
+        }
+        return removed.get();
+    }
+
+    /**
+     * Brings the number of cookies back down to the maximum, removing expired cookies and then the oldest.
+     */
+    private void evict() {
+        removeExpired();
+        int excess = size.get() - maxCookies;
+        if (excess <= 0) {
+            return;
+        }
+
+        List<Entry> all = new ArrayList<>(size.get());
+        for (Entry[] entries : domains.values()) {
+            all.addAll(Arrays.asList(entries));
+        }
+        all.sort(Comparator.comparingLong(entry -> entry.creation));
+        for (int i = 0; (i < excess) && (i < all.size()); i++) {
+            removeEntry(all.get(i));
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        domains.computeIfPresent(entry.domain, (key, entries) -> {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == entry) {
+                    size.decrementAndGet();
+                    return remove(entries, i);
+                }
+            }
+            return entries;
+        });
+    }
+
+    private static long expiresAt(HttpCookie cookie, long now) {
+        long maxAge = cookie.getMaxAge();
+        if (HttpCookie.NO_MAX_AGE != maxAge) {
+            if (maxAge <= 0L) {
+                return Long.MIN_VALUE;
+            }
+            return (maxAge >= (Long.MAX_VALUE - now) / 1000L) ? Long.MAX_VALUE : now + 1000L * maxAge;
+        }
+        return (null != cookie.getExpires()) ? cookie.getExpires().toEpochMilli() : Long.MAX_VALUE;
+    }
+
+    private static boolean isSecure(HttpUrl url) {
+        String scheme = url.getScheme();
+        return "https".equals(scheme) || "wss".equals(scheme);
+    }
+
+    /**
+     * The default path of RFC 6265 section 5.1.4: the request path up to, but not including, its last slash.
+     */
+    static String defaultPath(String path) {
+        int lastSlash = path.lastIndexOf('/');
+        if (!path.startsWith("/") || (lastSlash <= 0)) {
+            return "/";
+        }
+        return path.substring(0, lastSlash);
+    }
+
+    static boolean domainMatches(String host, String domain) {
+        if (host.equals(domain)) {
+            return true;
+        }
+        return host.endsWith(domain) && ('.' == host.charAt(host.length() - domain.length() - 1))
+                && !isIpAddress(host);
+    }
+
+    static boolean pathMatches(String requestPath, String cookiePath) {
+        if (!requestPath.startsWith(cookiePath)) {
+            return false;
+        }
+        return (requestPath.length() == cookiePath.length()) || cookiePath.endsWith("/")
+                || ('/' == requestPath.charAt(cookiePath.length()));
+    }
+
+    private static boolean isIpAddress(String host) {
+        if (host.startsWith("[")) {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if ((c != '.') && ((c < '0') || (c > '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("size", size.get()).add("domains", domains.size())
+                .add("maxCookies", maxCookies).toString();
+    }
+
+    /**
+     * A stored cookie with the domain matching, path and expiry rules resolved when it was stored.
+     */
+    private static final class Entry {
+
+        private final HttpCookie cookie;
+        private final String domain;
+        private final boolean hostOnly;
+        private final String path;
+        private final long expiresAt;
+        private final long creation;
+
+        private Entry(HttpCookie cookie, String domain, boolean hostOnly, String path, long expiresAt, long creation) {
+            this.cookie = cookie;
+            this.domain = domain;
+            this.hostOnly = hostOnly;
+            this.path = path;
+            this.expiresAt = expiresAt;
+            this.creation = creation;
+        }
+
+        /**
+         * Cookies with the same name, domain and path replace each other, whether or not either is host-only, per RFC
+         * 6265 section 5.3 step 11. Entries are only compared within the array of their domain.
+         */
+        private boolean replaces(Entry other) {
+            return cookie.getName().equals(other.cookie.getName()) && path.equals(other.path);
+        }
+
+        private Entry withCreation(long originalCreation) {
+            return new Entry(cookie, domain, hostOnly, path, expiresAt, originalCreation);
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link CookieJar}.
+     */
+    public static class Builder {
+
+        private int maxCookies = DEFAULT_MAX_COOKIES;
+        private LongSupplier clock = System::currentTimeMillis;
+
+        private Builder() {
+        }
+
+        public CookieJar build() {
+            return new CookieJar(this);
+        }
+
+        /**
+         * Sets the maximum number of cookies stored. Defaults to {@link #DEFAULT_MAX_COOKIES}.
+         *
+         * @param maxCookies The maximum number of cookies.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxCookies(int maxCookies) {
+            if (maxCookies <= 0) {
+                throw new IllegalArgumentException("The maximum number of cookies must be positive");
+            }
+            this.maxCookies = maxCookies;
+            return this;
+        }
+
+        /**
+         * Sets the source of the current time, in milliseconds since the epoch.
+         */
+        Builder setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+    }
+
+}
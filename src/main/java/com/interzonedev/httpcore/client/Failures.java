@@ -0,0 +1,57 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpRejectedException;
+import com.interzonedev.httpcore.HttpTransportException;
+
+/**
+ * Helpers for the failures that travel through the futures of an {@link HttpExecutor}.
+ *
+ * @author mark@interzonedev.com
+ */
+final class Failures {
+
+    private Failures() {
+    }
+
+    /**
+     * Strips the {@link CompletionException} and {@link ExecutionException} wrappers that futures add.
+     *
+     * @param failure The failure as seen by a dependent stage.
+     *
+     * @return Returns the underlying failure.
+     */
+    static Throwable unwrap(Throwable failure) {
+        Throwable current = failure;
+        while (((current instanceof CompletionException) || (current instanceof ExecutionException))
+                && (null != current.getCause())) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Gets the specified failure as an {@link HttpException}, wrapping it only if it is not one already. The wrappers
+     * capture no stack trace, since these failures multiply when an upstream browns out: an executor that refuses the
+     * work gives an {@link HttpRejectedException} and anything else an {@link HttpTransportException}.
+     *
+     * @param failure The failure, possibly wrapped by a future.
+     *
+     * @return Returns an {@link HttpException} for the failure.
+     */
+    static HttpException toHttpException(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof HttpException) {
+            return (HttpException) cause;
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return new HttpRejectedException(String.valueOf(cause.getMessage()), cause, null);
+        }
+        return new HttpTransportException(String.valueOf(cause.getMessage()), cause, null);
+    }
+
+}
@@ -0,0 +1,349 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * {@link HttpExecutor} that hedges slow requests: if a request has not completed once it has taken longer than a
+ * percentile of the recent latencies of its host, an identical request is sent, the first response to arrive wins, and
+ * the other attempt is cancelled. This trims the tail latency caused by an occasional slow replica at the cost of a
+ * few extra requests, which a {@link RetryBudget} keeps to a fraction of the traffic.
+ *
+ * <p>
+ * Only requests with a method that is safe to send twice are hedged: GET, HEAD and OPTIONS by default. Latencies are
+ * kept per host in a {@link LatencyHistogram}, and a host is not hedged until its histogram holds enough samples.
+ * Each request contributes the latency of its original attempt, including when a hedge wins and the original is
+ * cancelled, so that slow originals keep counting towards the percentile. A failed attempt does not fail the request
+ * while the other attempt is still in flight, and cancelling the returned future cancels both attempts.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HedgingHttpExecutor implements HttpExecutor {
+
+    private final HttpExecutor delegate;
+    private final double percentile;
+    private final Duration minimumDelay;
+    private final long minimumSamples;
+    private final Set<Method> hedgedMethods;
+    private final RetryBudget budget;
+    private final Duration window;
+    private final int slices;
+
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    private HedgingHttpExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.percentile = builder.percentile;
+        this.minimumDelay = builder.minimumDelay;
+        this.minimumSamples = builder.minimumSamples;
+        this.hedgedMethods = EnumSet.copyOf(builder.hedgedMethods);
+        this.budget = builder.budget;
+        this.window = builder.window;
+        this.slices = builder.slices;
+    }
+
+    /**
+     * Gets a {@link Builder} for an executor that hedges requests sent through the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes each attempt.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        String hostKey;
+        try {
+            hostKey = PooledHttpExecutor.hostKeyOf(request);
+        } catch (HttpException he) {
+            return delegate.execute(request);
+        }
+
+        LatencyHistogram histogram = latencies.computeIfAbsent(hostKey, key -> new LatencyHistogram(window, slices));
+        if (!hedgedMethods.contains(request.getMethod())) {
+            return timed(request, histogram);
+        }
+
+        budget.onRequest();
+        Hedged hedged = new Hedged(request, histogram);
+        hedged.launch(false);
+
+        Duration delay = hedgeDelay(histogram);
+        if (null != delay) {
+            CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (!hedged.result.isDone() && budget.tryAcquire() && hedged.join()) {
+                    hedgeCount.increment();
+                    hedged.launch(true);
+                }
+            });
+        }
+        return hedged.result;
+    }
+
+    /**
+     * Gets the delay after which a request to the host of the specified histogram is hedged.
+     *
+     * @param histogram The latencies of the host.
+     *
+     * @return Returns the delay, or null if the host has too few samples to hedge.
+     */
+    private Duration hedgeDelay(LatencyHistogram histogram) {
+        if (histogram.count() < minimumSamples) {
+            return null;
+        }
+        Duration delay = histogram.percentile(percentile);
+        if (null == delay) {
+            return null;
+        }
+        return (delay.compareTo(minimumDelay) < 0) ? minimumDelay : delay;
+    }
+
+    private CompletableFuture<Response> timed(Request request, LatencyHistogram histogram) {
+        long start = System.nanoTime();
+        CompletableFuture<Response> future = delegate.execute(request);
+        future.whenComplete((response, failure) -> {
+            if (null == failure) {
+                histogram.record(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the latencies recorded for the host of the specified URL.
+     *
+     * @param url A URL on the host.
+     *
+     * @return Returns the {@link LatencyHistogram} of the host, or null if no request was sent to it.
+     */
+    public LatencyHistogram latencyOf(String url) {
+        return latencies.get(PooledHttpExecutor.hostKeyOf(url));
+    }
+
+    /**
+     * @return Returns the number of hedged requests sent.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * @return Returns the number of hedged requests whose response arrived first.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("percentile", percentile)
+                .add("minimumDelay", minimumDelay).add("minimumSamples", minimumSamples)
+                .add("hedgedMethods", hedgedMethods).add("budget", budget).toString();
+    }
+
+    /**
+     * One request and its attempts: the original and, if it was slow, the hedge.
+     */
+    private final class Hedged {
+
+        private final Request request;
+        private final LatencyHistogram histogram;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private volatile CompletableFuture<Response> original;
+        private volatile CompletableFuture<Response> hedge;
+        private volatile boolean hedgeWon;
+
+        Hedged(Request request, LatencyHistogram histogram) {
+            this.request = request;
+            this.histogram = histogram;
+            result.whenComplete((response, failure) -> {
+                if (result.isCancelled()) {
+                    cancel(original);
+                    cancel(hedge);
+                }
+            });
+        }
+
+        /**
+         * Counts the hedge among the attempts in flight, unless the request is already complete. Once the original
+         * has failed the request no attempt is outstanding, so a hedge can never start after that.
+         *
+         * @return Returns true if the hedge should be launched.
+         */
+        boolean join() {
+            if (0 == outstanding.getAndUpdate(count -> (count > 0) ? count + 1 : count)) {
+                return false;
+            }
+            if (result.isDone()) {
+                outstanding.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void launch(boolean isHedge) {
+            long start = System.nanoTime();
+            CompletableFuture<Response> attempt;
+            try {
+                attempt = delegate.execute(request);
+            } catch (RuntimeException re) {
+                attempt = CompletableFuture.failedFuture(re);
+            }
+            if (isHedge) {
+                hedge = attempt;
+            } else {
+                original = attempt;
+            }
+            if (result.isDone()) {
+                // The other attempt won, or the caller cancelled, while this one was being sent.
+                attempt.cancel(true);
+            }
+
+            CompletableFuture<Response> launched = attempt;
+            attempt.whenComplete((response, failure) -> {
+                if (!isHedge && ((null == failure) || (launched.isCancelled() && hedgeWon))) {
+                    // A slow original cut short by the hedge still took at least this long.
+                    histogram.record(System.nanoTime() - start);
+                }
+                if (null == failure) {
+                    if (result.complete(response)) {
+                        if (isHedge) {
+                            hedgeWon = true;
+                            hedgeWinCount.increment();
+                        }
+                        cancel(isHedge ? original : hedge);
+                    }
+                } else if (0 == outstanding.decrementAndGet()) {
+                    result.completeExceptionally(Failures.toHttpException(failure));
+                }
+            });
+        }
+
+        private void cancel(CompletableFuture<Response> attempt) {
+            if (null != attempt) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link HedgingHttpExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private double percentile = 0.95;
+        private Duration minimumDelay = Duration.ofMillis(5L);
+        private long minimumSamples = 20L;
+        private Set<Method> hedgedMethods = EnumSet.of(Method.GET, Method.HEAD, Method.OPTIONS);
+        private RetryBudget budget = RetryBudget.create(0.05, 5);
+        private Duration window = LatencyHistogram.DEFAULT_WINDOW;
+        private int slices = LatencyHistogram.DEFAULT_SLICES;
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public HedgingHttpExecutor build() {
+            return new HedgingHttpExecutor(this);
+        }
+
+        /**
+         * Sets the percentile of the recent latencies of a host after which a request to it is hedged. Defaults to
+         * 0.95, which hedges about one request in twenty.
+         *
+         * @param percentile The percentile as a fraction between 0 and 1.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setPercentile(double percentile) {
+            if ((percentile <= 0.0) || (percentile >= 1.0)) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 1");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the shortest delay before a hedge, however fast the host has been. Defaults to five milliseconds.
+         *
+         * @param minimumDelay The shortest delay before a hedge.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMinimumDelay(Duration minimumDelay) {
+            this.minimumDelay = minimumDelay;
+            return this;
+        }
+
+        /**
+         * Sets how many latencies a host must have within the window before its requests are hedged. Defaults to 20.
+         *
+         * @param minimumSamples The minimum number of samples.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMinimumSamples(long minimumSamples) {
+            this.minimumSamples = minimumSamples;
+            return this;
+        }
+
+        public Builder setHedgedMethods(Set<Method> hedgedMethods) {
+            this.hedgedMethods = EnumSet.noneOf(Method.class);
+            this.hedgedMethods.addAll(hedgedMethods);
+            return this;
+        }
+
+        /**
+         * Sets the budget that limits hedges across all requests. Defaults to hedges for 5% of requests, with a burst
+         * of up to five.
+         *
+         * @param budget The {@link RetryBudget}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setBudget(RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Sets the sliding window of the latency histogram of each host.
+         *
+         * @param window How far back latencies are counted.
+         * @param slices The number of slices the window moves by.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setWindow(Duration window, int slices) {
+            this.window = window;
+            this.slices = slices;
+            return this;
+        }
+    }
+
+}
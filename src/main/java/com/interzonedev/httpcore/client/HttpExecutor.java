@@ -0,0 +1,54 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Executes {@link Request}s. Every failure, whether returned through the future or thrown by
+ * {@link #executeBlocking(Request)}, is an {@link HttpException}.
+ *
+ * @author mark@interzonedev.com
+ */
+public interface HttpExecutor {
+
+    /**
+     * Starts executing the specified {@link Request}. Never blocks on the network.
+     *
+     * @param request The {@link Request} to execute.
+     *
+     * @return Returns a future that completes with the {@link Response}, or exceptionally with an
+     *         {@link HttpException}.
+     */
+    CompletableFuture<Response> execute(Request request);
+
+    /**
+     * Executes the specified {@link Request} and waits for its {@link Response}. Only the calling thread waits, which
+     * makes this the natural call from a virtual thread. Interrupting the calling thread cancels the request.
+     *
+     * @param request The {@link Request} to execute.
+     *
+     * @return Returns the {@link Response}.
+     *
+     * @throws HttpException Thrown if the request fails, is cancelled or the calling thread is interrupted.
+     */
+    default Response executeBlocking(Request request) {
+        CompletableFuture<Response> future = execute(request);
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            throw Failures.toHttpException(ee.getCause());
+        } catch (CancellationException ce) {
+            throw new HttpException("Request cancelled", ce);
+        } catch (InterruptedException ie) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HttpException("Interrupted while waiting for a response", ie);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Sends a single {@link Request} over the network. This is the extension point beneath {@link PooledHttpExecutor},
+ * which applies connection limits and timeouts and then hands each request to its transport. Implementations must not
+ * block the calling thread.
+ *
+ * @author mark@interzonedev.com
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+    /**
+     * Sends the specified {@link Request}.
+     *
+     * @param request The {@link Request} to send. Its URL is absolute.
+     * @param timeout How long to wait for the response headers after the request is sent.
+     *
+     * @return Returns a future that completes with the {@link Response}, or exceptionally with an
+     *         {@link HttpException}. Cancelling the future should abort the exchange as far as the transport can.
+     */
+    CompletableFuture<Response> send(Request request, Duration timeout);
+
+}
@@ -0,0 +1,155 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Timing;
+
+/**
+ * {@link MetricsRecorder} that keeps a {@link LatencyHistogram} for each combination of method, host and status class,
+ * along with the bytes each host moved. Once a combination has been seen, recording it allocates nothing and takes no
+ * lock: the host is found in a {@link ConcurrentHashMap} by its string, the histogram in an array by the ordinal of
+ * the method and the status class, and the counters are incremented atomically.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+
+    /**
+     * Status class 0 holds failed requests; classes 1 to 5 hold the 1xx to 5xx responses.
+     */
+    public static final int FAILED = 0;
+
+    private static final int STATUS_CLASSES = 6;
+
+    /**
+     * One slot per method, plus one for requests without a method.
+     */
+    private static final int METHOD_SLOTS = Method.values().length + 1;
+
+    private final Duration window;
+    private final int slices;
+    private final ConcurrentMap<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a recorder whose histograms cover {@link LatencyHistogram#DEFAULT_WINDOW}.
+     */
+    public InMemoryMetricsRecorder() {
+        this(LatencyHistogram.DEFAULT_WINDOW, LatencyHistogram.DEFAULT_SLICES);
+    }
+
+    /**
+     * Creates a recorder whose histograms cover the specified sliding window.
+     *
+     * @param window How far back latencies are counted.
+     * @param slices The number of slices the window moves by.
+     */
+    public InMemoryMetricsRecorder(Duration window, int slices) {
+        this.window = window;
+        this.slices = slices;
+    }
+
+    @Override
+    public void record(Method method, String host, int status, long latencyNanos, Timing timing) {
+        HostMetrics metrics = hosts.get(host);
+        if (null == metrics) {
+            metrics = hosts.computeIfAbsent(host, key -> new HostMetrics());
+        }
+
+        int slot = slotOf(method, statusClassOf(status));
+        LatencyHistogram histogram = metrics.latencies.get(slot);
+        if (null == histogram) {
+            metrics.latencies.compareAndSet(slot, null, new LatencyHistogram(window, slices));
+            histogram = metrics.latencies.get(slot);
+        }
+        histogram.record(latencyNanos);
+
+        if (null != timing) {
+            if (Timing.UNKNOWN != timing.getBytesSent()) {
+                metrics.bytesSent.add(timing.getBytesSent());
+            }
+            if (Timing.UNKNOWN != timing.getBytesReceived()) {
+                metrics.bytesReceived.add(timing.getBytesReceived());
+            }
+        }
+    }
+
+    /**
+     * Gets the latencies of the requests with the specified method to the specified host whose responses fell in the
+     * specified status class.
+     *
+     * @param method The method, or null for requests without one.
+     * @param host The scheme, host and port, as passed to {@link #record(Method, String, int, long, Timing)}.
+     * @param statusClass The status class from 1 to 5, or {@link #FAILED}.
+     *
+     * @return Returns the {@link LatencyHistogram}, or null if no such request was recorded.
+     */
+    public LatencyHistogram getLatency(Method method, String host, int statusClass) {
+        HostMetrics metrics = hosts.get(host);
+        if ((null == metrics) || (statusClass < 0) || (statusClass >= STATUS_CLASSES)) {
+            return null;
+        }
+        return metrics.latencies.get(slotOf(method, statusClass));
+    }
+
+    /**
+     * @param host The scheme, host and port.
+     *
+     * @return Returns the total bytes sent to the host, where known.
+     */
+    public long getBytesSent(String host) {
+        HostMetrics metrics = hosts.get(host);
+        return (null != metrics) ? metrics.bytesSent.sum() : 0L;
+    }
+
+    /**
+     * @param host The scheme, host and port.
+     *
+     * @return Returns the total bytes received from the host, where known.
+     */
+    public long getBytesReceived(String host) {
+        HostMetrics metrics = hosts.get(host);
+        return (null != metrics) ? metrics.bytesReceived.sum() : 0L;
+    }
+
+    /**
+     * @return Returns the hosts recorded so far.
+     */
+    public Set<String> getHosts() {
+        return Collections.unmodifiableSet(hosts.keySet());
+    }
+
+    static int statusClassOf(int status) {
+        int statusClass = status / 100;
+        return ((statusClass >= 1) && (statusClass < STATUS_CLASSES)) ? statusClass : FAILED;
+    }
+
+    private static int slotOf(Method method, int statusClass) {
+        int methodSlot = (null != method) ? method.ordinal() : METHOD_SLOTS - 1;
+        return methodSlot * STATUS_CLASSES + statusClass;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("window", window).add("hosts", hosts.keySet()).toString();
+    }
+
+    /**
+     * The histograms and byte counts of one host.
+     */
+    private static final class HostMetrics {
+
+        private final AtomicReferenceArray<LatencyHistogram> latencies = new AtomicReferenceArray<>(
+                METHOD_SLOTS * STATUS_CLASSES);
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+    }
+
+}
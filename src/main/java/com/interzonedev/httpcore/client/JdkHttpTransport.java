@@ -0,0 +1,242 @@
+package com.interzonedev.httpcore.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.collect.ImmutableSet;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpConnectionException;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.HttpTimeoutException;
+import com.interzonedev.httpcore.HttpTransportException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.Timing;
+
+/**
+ * {@link HttpTransport} backed by the JDK's {@link HttpClient}, which pools and reuses connections and negotiates
+ * HTTP/2 where the server supports it.
+ *
+ * <p>
+ * Parameters of the {@link Request} are appended to the query string of its URL. The body is streamed from the
+ * {@link Body} with its length declared up front. Connection management headers, such as Host, Connection and
+ * Content-Length, are left to the client and not copied from the {@link Request}. The response body is read into
+ * memory.
+ * </p>
+ *
+ * <p>
+ * Each {@link Response} carries a {@link Timing}. The JDK client does not expose its connections, so the connect
+ * time is unknown, and the byte counts cover the bodies only. The request counts as sent once its body has been read
+ * to the end, and the first byte as arrived once the response headers have.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class JdkHttpTransport implements HttpTransport {
+
+    /**
+     * Header names, lower case, that the JDK client either rejects or sets itself.
+     */
+    private static final ImmutableSet<String> CLIENT_MANAGED_HEADERS = ImmutableSet.of("connection", "content-length",
+            "expect", "host", "upgrade", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding");
+
+    private final HttpClient client;
+
+    /**
+     * Creates a transport over a new {@link HttpClient} with a connect timeout of ten seconds that does not follow
+     * redirects.
+     */
+    public JdkHttpTransport() {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10L)).build());
+    }
+
+    /**
+     * Creates a transport over the specified {@link HttpClient}, which may be shared.
+     *
+     * @param client The {@link HttpClient} that sends the requests.
+     */
+    public JdkHttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout) {
+        Probe probe = new Probe(System.nanoTime());
+        HttpRequest jdkRequest;
+        try {
+            jdkRequest = toJdkRequest(request, timeout, probe);
+        } catch (IllegalArgumentException | HttpException e) {
+            return CompletableFuture.failedFuture(Failures.toHttpException(e));
+        }
+
+        HttpResponse.BodyHandler<byte[]> handler = responseInfo -> {
+            probe.firstByteNanos = System.nanoTime();
+            return HttpResponse.BodySubscribers.ofByteArray();
+        };
+        CompletableFuture<HttpResponse<byte[]>> exchange = client.sendAsync(jdkRequest, handler);
+        CompletableFuture<Response> sent = exchange.handle((jdkResponse, failure) -> {
+            if (null != failure) {
+                throw toHttpException(request, Failures.unwrap(failure));
+            }
+            return toResponse(request, jdkResponse, probe.toTiming(request, jdkResponse.body()));
+        });
+        // A dependent stage does not cancel the client's future, which on JDK 16 and later aborts the exchange.
+        sent.whenComplete((response, failure) -> {
+            if (sent.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return sent;
+    }
+
+    private static HttpRequest toJdkRequest(Request request, Duration timeout, Probe probe) {
+        if (null == request.getMethod()) {
+            throw new HttpException("Cannot send a request without a method");
+        }
+        if (null == request.getUrl()) {
+            throw new HttpException("Cannot send a request without a URL");
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uriOf(request)).timeout(timeout);
+
+        HttpHeaders headers = request.getHttpHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.getName(i);
+            if (CLIENT_MANAGED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : headers.getValues(i)) {
+                builder.header(name, (null != value) ? value : "");
+            }
+        }
+
+        Body entity = request.getEntity();
+        HttpRequest.BodyPublisher publisher;
+        if ((null == entity) || (0L == entity.length())) {
+            // A publisher with a content length must have a positive one.
+            publisher = HttpRequest.BodyPublishers.noBody();
+        } else {
+            publisher = HttpRequest.BodyPublishers.fromPublisher(
+                    HttpRequest.BodyPublishers.ofInputStream(() -> probe.watch(entity.openStream())), entity.length());
+        }
+        return builder.method(request.getMethod().name(), publisher).build();
+    }
+
+    private static URI uriOf(Request request) {
+        HttpParameters parameters = request.getHttpParameters();
+        if (parameters.isEmpty()) {
+            return URI.create(request.getUrl());
+        }
+
+        String url = request.getUrl();
+        int fragment = url.indexOf('#');
+        StringBuilder uri = new StringBuilder(url.length() + 16 * parameters.valueCount());
+        uri.append(url, 0, (fragment >= 0) ? fragment : url.length());
+        char separator = (uri.indexOf("?") >= 0) ? '&' : '?';
+        for (int i = 0; i < parameters.size(); i++) {
+            String name = URLEncoder.encode(parameters.getName(i), StandardCharsets.UTF_8);
+            for (String value : parameters.getValues(i)) {
+                uri.append(separator).append(name);
+                if (null != value) {
+                    uri.append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                }
+                separator = '&';
+            }
+        }
+        return URI.create(uri.toString());
+    }
+
+    private static Response toResponse(Request request, HttpResponse<byte[]> jdkResponse, Timing timing) {
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder();
+        for (Map.Entry<String, List<String>> entry : jdkResponse.headers().map().entrySet()) {
+            // HTTP/2 pseudo-headers such as :status are not headers of the message.
+            if (!entry.getKey().startsWith(":")) {
+                headers.add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        int status = jdkResponse.statusCode();
+        byte[] bytes = jdkResponse.body();
+        boolean bodiless = (Method.HEAD == request.getMethod()) || (status < 200) || (204 == status)
+                || (304 == status);
+        Body entity = (bodiless && ((null == bytes) || (0 == bytes.length))) ? null : Body.wrap(bytes);
+
+        return Response.newBuilder().setRequest(request).setStatus(status)
+                .setContentType(jdkResponse.headers().firstValue("Content-Type").orElse(null))
+                .setContentLength((null != entity) ? entity.length() : 0L).setHttpHeaders(headers.build())
+                .setEntity(entity).setTiming(timing).build();
+    }
+
+    /**
+     * Observes the phases of one exchange.
+     */
+    private static final class Probe {
+
+        private final long startNanos;
+        private volatile long requestSentNanos = Timing.UNKNOWN;
+        private volatile long firstByteNanos = Timing.UNKNOWN;
+
+        Probe(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        InputStream watch(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    return sentIfEnd(super.read());
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return sentIfEnd(super.read(b, off, len));
+                }
+            };
+        }
+
+        private int sentIfEnd(int read) {
+            if ((read < 0) && (Timing.UNKNOWN == requestSentNanos)) {
+                requestSentNanos = System.nanoTime();
+            }
+            return read;
+        }
+
+        Timing toTiming(Request request, byte[] body) {
+            Body entity = request.getEntity();
+            return Timing.newBuilder().setStartNanos(startNanos).setRequestSentNanos(requestSentNanos)
+                    .setFirstByteNanos(firstByteNanos).setCompleteNanos(System.nanoTime())
+                    .setBytesSent((null != entity) ? entity.length() : 0L)
+                    .setBytesReceived((null != body) ? body.length : 0L).build();
+        }
+    }
+
+    private static HttpException toHttpException(Request request, Throwable failure) {
+        if (failure instanceof HttpException) {
+            return (HttpException) failure;
+        }
+        String target = request.getMethod() + " " + request.getUrl();
+        if (failure instanceof java.net.http.HttpTimeoutException) {
+            return new HttpTimeoutException("Timed out waiting for " + target, failure, request);
+        }
+        if (failure instanceof IOException) {
+            return new HttpConnectionException("Error sending " + target, failure, request);
+        }
+        return new HttpTransportException("Unexpected failure sending " + target, failure, request);
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Histogram of latencies over a sliding window of time, cheap enough to keep per host. Latencies are counted in
+ * log-linear buckets of microseconds, eight per power of two, so a percentile is accurate to within 12.5%. The window
+ * is a ring of slices; recording increments one counter of the current slice, and a slice is cleared when the ring
+ * comes back around to it.
+ *
+ * <p>
+ * Recording is lock-free. A slice is cleared under its own lock, and a latency recorded concurrently with the clearing
+ * may be lost, which is acceptable for an estimate.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class LatencyHistogram {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1L);
+
+    public static final int DEFAULT_SLICES = 6;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Latencies are capped at 2^40 microseconds, about 12 days.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final Slice[] slices;
+    private final long sliceNanos;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Creates a histogram over {@link #DEFAULT_WINDOW} in {@link #DEFAULT_SLICES} slices.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW, DEFAULT_SLICES);
+    }
+
+    /**
+     * Creates a histogram over the specified window, which slides in steps of one slice.
+     *
+     * @param window How far back latencies are counted.
+     * @param sliceCount The number of slices in the window.
+     */
+    public LatencyHistogram(Duration window, int sliceCount) {
+        this(window, sliceCount, System::nanoTime);
+    }
+
+    LatencyHistogram(Duration window, int sliceCount, LongSupplier nanoTime) {
+        if ((sliceCount < 1) || (window.toNanos() < sliceCount)) {
+            throw new IllegalArgumentException("Invalid window or slice count");
+        }
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice();
+        }
+        this.sliceNanos = window.toNanos() / sliceCount;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative latencies are recorded as zero.
+     */
+    public void record(long nanos) {
+        long tick = nanoTime.getAsLong() / sliceNanos;
+        Slice slice = slices[(int) Math.floorMod(tick, (long) slices.length)];
+        if (slice.tick != tick) {
+            slice.rotate(tick);
+        }
+        slice.counts.incrementAndGet(bucketOf(Math.max(0L, nanos) / 1000L));
+    }
+
+    /**
+     * Gets the number of latencies recorded within the window.
+     *
+     * @return Returns the number of latencies in the window.
+     */
+    public long count() {
+        long[] counts = snapshot();
+        long total = 0L;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets an upper bound of the specified percentile of the latencies within the window.
+     *
+     * @param quantile The percentile as a fraction between 0 and 1, such as 0.99.
+     *
+     * @return Returns the percentile, or null if no latencies were recorded within the window.
+     */
+    public Duration percentile(double quantile) {
+        if ((quantile < 0.0) || (quantile > 1.0)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+
+        long[] counts = snapshot();
+        long total = 0L;
+        for (long count : counts) {
+            total += count;
+        }
+        if (0L == total) {
+            return null;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(upperBoundOf(i) * 1000L);
+            }
+        }
+        return Duration.ofNanos(upperBoundOf(BUCKETS - 1) * 1000L);
+    }
+
+    private long[] snapshot() {
+        long now = nanoTime.getAsLong() / sliceNanos;
+        long[] counts = new long[BUCKETS];
+        for (Slice slice : slices) {
+            long tick = slice.tick;
+            if ((tick > now - slices.length) && (tick <= now)) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += slice.counts.get(i);
+                }
+            }
+        }
+        return counts;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (shift + 1) * SUB_BUCKETS + subBucket);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1L;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("count", count()).add("p50", percentile(0.5))
+                .add("p99", percentile(0.99)).toString();
+    }
+
+    /**
+     * The counts of one slice of the window.
+     */
+    private static final class Slice {
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        /**
+         * The tick this slice counts, in units of the slice length since the origin of {@link System#nanoTime()}.
+         */
+        private volatile long tick = Long.MIN_VALUE;
+
+        synchronized void rotate(long newTick) {
+            if (tick < newTick) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts.set(i, 0L);
+                }
+                tick = newTick;
+            }
+        }
+    }
+
+}
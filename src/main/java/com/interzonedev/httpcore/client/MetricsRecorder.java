@@ -0,0 +1,33 @@
+package com.interzonedev.httpcore.client;
+
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Timing;
+
+/**
+ * Receives a measurement for every request an executor completes. Implementations are called on the completing
+ * thread, concurrently, and should neither block nor allocate.
+ *
+ * @author mark@interzonedev.com
+ */
+@FunctionalInterface
+public interface MetricsRecorder {
+
+    /**
+     * Discards every measurement.
+     */
+    MetricsRecorder NONE = (method, host, status, latencyNanos, timing) -> {
+    };
+
+    /**
+     * Records the outcome of one request.
+     *
+     * @param method The method of the {@link Request}, or null.
+     * @param host The scheme, host and port the request was sent to, such as {@code https://example.com:443}.
+     * @param status The status of the response, or 0 if the request failed.
+     * @param latencyNanos The time from when the request was executed until it completed, in nanoseconds.
+     * @param timing The {@link Timing} of the response, or null if it failed or was not measured.
+     */
+    void record(Method method, String host, int status, long latencyNanos, Timing timing);
+
+}
@@ -0,0 +1,412 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpRejectedException;
+import com.interzonedev.httpcore.HttpTimeoutException;
+import com.interzonedev.httpcore.HttpUrl;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * {@link HttpExecutor} that limits the number of requests in flight to each host and hands the requests to an
+ * {@link HttpTransport}, by default a {@link JdkHttpTransport}. Requests beyond the limit wait in a bounded queue per
+ * host, in order, and are rejected with an {@link HttpRejectedException} once the queue is full. Time spent waiting in
+ * the queue counts against the timeout of the request, and a request still queued when its timeout passes fails at
+ * once.
+ *
+ * <p>
+ * Cancelling a returned future takes a waiting request out of the queue, or cancels the transport's future of a sent
+ * request and frees its slot for the next one.
+ * </p>
+ *
+ * <p>
+ * Returned futures complete on the transport's threads, unless an {@link Executor} is set, in which case they
+ * complete on it. On a JDK with virtual threads, setting a virtual thread per task executor lets dependent stages
+ * block without tying up the transport.
+ * </p>
+ *
+ * <p>
+ * Every completed request is reported to a {@link MetricsRecorder}, with its latency measured from the moment it was
+ * executed, queueing included.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class PooledHttpExecutor implements HttpExecutor {
+
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 8;
+
+    public static final int DEFAULT_MAX_QUEUED_PER_HOST = 1024;
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30L);
+
+    private final HttpTransport transport;
+    private final int maxRequestsPerHost;
+    private final int maxQueuedPerHost;
+    private final Duration timeout;
+    private final Executor executor;
+    private final MetricsRecorder metricsRecorder;
+
+    /**
+     * Hosts seen so far, keyed by scheme, host and port. Hosts are never removed, so the map grows with the number of
+     * distinct hosts, not requests.
+     */
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private PooledHttpExecutor(Builder builder) {
+        this.transport = (null != builder.transport) ? builder.transport : new JdkHttpTransport();
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.maxQueuedPerHost = builder.maxQueuedPerHost;
+        this.timeout = builder.timeout;
+        this.executor = builder.executor;
+        this.metricsRecorder = builder.metricsRecorder;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        String hostKey;
+        try {
+            hostKey = hostKeyOf(request);
+        } catch (HttpException he) {
+            return CompletableFuture.failedFuture(he);
+        }
+
+        CompletableFuture<Response> result = hosts.computeIfAbsent(hostKey, Host::new).submit(request);
+        if (null == executor) {
+            return result;
+        }
+
+        CompletableFuture<Response> returned = result.whenCompleteAsync((response, failure) -> {
+        }, executor);
+        // A dependent stage does not cancel the stage it depends on, so cancellation is passed back explicitly.
+        returned.whenComplete((response, failure) -> {
+            if (returned.isCancelled()) {
+                result.cancel(true);
+            }
+        });
+        return returned;
+    }
+
+    /**
+     * Gets the number of requests to the specified host that are in flight.
+     *
+     * @param url A URL on the host.
+     *
+     * @return Returns the number of requests in flight to the host of the URL.
+     */
+    public int activeRequests(String url) {
+        Host host = hosts.get(hostKeyOf(url));
+        return (null != host) ? host.active() : 0;
+    }
+
+    static String hostKeyOf(String url) {
+        if (null == url) {
+            throw new HttpException("Cannot send a request without a URL");
+        }
+        return hostKeyOf(HttpUrl.parse(url));
+    }
+
+    /**
+     * Gets the host key of the specified {@link Request} from its parsed URL, which the {@link Request} caches for
+     * every executor it passes through.
+     */
+    static String hostKeyOf(Request request) {
+        if (null == request.getUrl()) {
+            throw new HttpException("Cannot send a request without a URL");
+        }
+        return hostKeyOf(request.getHttpUrl());
+    }
+
+    private static String hostKeyOf(HttpUrl url) {
+        String origin = url.getOrigin();
+        if ((null == origin) || (url.getPort() < 0) || url.getHost().isEmpty()) {
+            throw new HttpException("Cannot send a request to a relative URL: " + url);
+        }
+        return origin;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("transport", transport)
+                .add("maxRequestsPerHost", maxRequestsPerHost).add("maxQueuedPerHost", maxQueuedPerHost)
+                .add("timeout", timeout).add("hosts", hosts.size()).toString();
+    }
+
+    /**
+     * The requests in flight and waiting for one host.
+     */
+    private final class Host {
+
+        private final String key;
+
+        /**
+         * Guarded by this.
+         */
+        private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+
+        /**
+         * Guarded by this.
+         */
+        private int active;
+
+        Host(String key) {
+            this.key = key;
+        }
+
+        CompletableFuture<Response> submit(Request request) {
+            Pending pending = new Pending(request, System.nanoTime());
+            boolean queued;
+            synchronized (this) {
+                queued = active >= maxRequestsPerHost;
+                if (queued) {
+                    if (queue.size() >= maxQueuedPerHost) {
+                        return CompletableFuture.failedFuture(
+                                new HttpRejectedException("Too many requests queued for " + key, null, request));
+                    }
+                    queue.add(pending);
+                } else {
+                    active++;
+                }
+            }
+
+            pending.result.whenComplete((response, failure) -> pending.abandon());
+            if (queued) {
+                // The task keeps the request reachable until its timeout, even if it leaves the queue earlier.
+                CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(pending::expire);
+            } else {
+                start(pending);
+            }
+            return pending.result;
+        }
+
+        synchronized int active() {
+            return active;
+        }
+
+        private void start(Pending pending) {
+            Pending next = pending;
+            while (null != next) {
+                if (next.begin()) {
+                    return;
+                }
+                // The request was cancelled or timed out while it waited, so its slot goes to the next one.
+                next = release();
+            }
+        }
+
+        /**
+         * Frees a slot, or hands it straight to the next waiting request.
+         *
+         * @return Returns the waiting request that now holds the slot, or null if the slot was freed.
+         */
+        private synchronized Pending release() {
+            Pending next = queue.poll();
+            if (null == next) {
+                active--;
+            }
+            return next;
+        }
+
+        /**
+         * Takes the specified request out of the queue.
+         *
+         * @return Returns true if the request was waiting in the queue.
+         */
+        private synchronized boolean remove(Pending pending) {
+            return queue.remove(pending);
+        }
+
+        /**
+         * A request and the future of its response.
+         */
+        private final class Pending {
+
+            private final Request request;
+            private final long enqueuedNanos;
+            private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+            /**
+             * The transport's future, once the request is sent.
+             */
+            private volatile CompletableFuture<Response> sent;
+
+            Pending(Request request, long enqueuedNanos) {
+                this.request = request;
+                this.enqueuedNanos = enqueuedNanos;
+            }
+
+            /**
+             * Fails the request if it is still waiting in the queue when its timeout passes.
+             */
+            void expire() {
+                if (remove(this)) {
+                    metricsRecorder.record(request.getMethod(), key, 0, System.nanoTime() - enqueuedNanos, null);
+                    result.completeExceptionally(
+                            new HttpTimeoutException("Timed out waiting for a connection to " + key, null, request));
+                }
+            }
+
+            /**
+             * Stops the request once its result is complete. Unless the transport completed it, the caller cancelled
+             * it or it timed out in the queue, so a waiting request leaves the queue and a sent one is cancelled,
+             * which frees its slot.
+             */
+            void abandon() {
+                CompletableFuture<Response> inFlight = sent;
+                if (null != inFlight) {
+                    inFlight.cancel(true);
+                } else {
+                    remove(this);
+                }
+            }
+
+            /**
+             * Hands the request to the transport, if it is still wanted.
+             *
+             * @return Returns true if the request now holds its slot until the transport completes.
+             */
+            boolean begin() {
+                if (result.isDone()) {
+                    return false;
+                }
+                Duration remaining = timeout.minusNanos(System.nanoTime() - enqueuedNanos);
+                if (remaining.isNegative() || remaining.isZero()) {
+                    metricsRecorder.record(request.getMethod(), key, 0, System.nanoTime() - enqueuedNanos, null);
+                    result.completeExceptionally(
+                            new HttpTimeoutException("Timed out waiting for a connection to " + key, null, request));
+                    return false;
+                }
+
+                CompletableFuture<Response> sent;
+                try {
+                    sent = transport.send(request, remaining);
+                } catch (RuntimeException re) {
+                    sent = CompletableFuture.failedFuture(re);
+                }
+                this.sent = sent;
+                sent.whenComplete((response, failure) -> {
+                    Pending next = release();
+                    long latencyNanos = System.nanoTime() - enqueuedNanos;
+                    if (null != failure) {
+                        metricsRecorder.record(request.getMethod(), key, 0, latencyNanos, null);
+                        result.completeExceptionally(Failures.toHttpException(failure));
+                    } else {
+                        metricsRecorder.record(request.getMethod(), key, response.getStatus(), latencyNanos,
+                                response.getTiming());
+                        result.complete(response);
+                    }
+                    start(next);
+                });
+                if (result.isDone()) {
+                    // The result was cancelled while the request was handed over, before abandon() could see it.
+                    sent.cancel(true);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link PooledHttpExecutor}.
+     */
+    public static class Builder {
+
+        private HttpTransport transport;
+        private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+        private int maxQueuedPerHost = DEFAULT_MAX_QUEUED_PER_HOST;
+        private Duration timeout = DEFAULT_TIMEOUT;
+        private Executor executor;
+        private MetricsRecorder metricsRecorder = MetricsRecorder.NONE;
+
+        private Builder() {
+        }
+
+        public PooledHttpExecutor build() {
+            return new PooledHttpExecutor(this);
+        }
+
+        /**
+         * Sets the transport that sends the requests. Defaults to a new {@link JdkHttpTransport}.
+         *
+         * @param transport The {@link HttpTransport}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setTransport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("The maximum requests per host must be positive");
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        public Builder setMaxQueuedPerHost(int maxQueuedPerHost) {
+            if (maxQueuedPerHost < 0) {
+                throw new IllegalArgumentException("The maximum queued requests per host must not be negative");
+            }
+            this.maxQueuedPerHost = maxQueuedPerHost;
+            return this;
+        }
+
+        /**
+         * Sets how long a request may take from the moment it is executed until its response headers arrive,
+         * including any time spent waiting for a slot.
+         *
+         * @param timeout The timeout of each request.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setTimeout(Duration timeout) {
+            if ((null == timeout) || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("The timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Executor} on which returned futures complete. Defaults to completing on the transport's
+         * threads.
+         *
+         * @param executor The {@link Executor}, or null.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the recorder that receives a measurement for every completed request. Defaults to
+         * {@link MetricsRecorder#NONE}.
+         *
+         * @param metricsRecorder The {@link MetricsRecorder}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMetricsRecorder(MetricsRecorder metricsRecorder) {
+            this.metricsRecorder = (null != metricsRecorder) ? metricsRecorder : MetricsRecorder.NONE;
+            return this;
+        }
+    }
+
+}
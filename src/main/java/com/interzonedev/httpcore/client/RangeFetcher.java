@@ -0,0 +1,285 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ByteRange;
+import com.interzonedev.httpcore.ContentEncoding;
+import com.interzonedev.httpcore.ContentRange;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.PartialContent;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Fetches one large resource as parallel Range requests through an {@link HttpExecutor} and reassembles the parts
+ * into a single 200 {@link Response}. The bodies of the parts are concatenated with {@link Body#concat}, so
+ * reassembly copies no bytes.
+ *
+ * <p>
+ * The first part is fetched alone, and its Content-Range gives the length of the resource. The rest are then fetched
+ * with at most {@link Builder#setMaxConcurrentParts(int)} in flight, each conditional on the ETag or Last-Modified of
+ * the first part through If-Range, so that a resource that changes during the fetch fails it with an
+ * {@link HttpException} rather than yielding a mix of versions. A server that ignores ranges simply answers the first
+ * request with the whole resource, which is returned as it is.
+ * </p>
+ *
+ * <p>
+ * Ranges apply to the bytes as sent, so the part requests ask for the identity coding unless the request names an
+ * Accept-Encoding itself. Only GET requests without a Range header of their own are split; any other request is
+ * executed unchanged.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class RangeFetcher {
+
+    public static final long DEFAULT_PART_SIZE = 8L * 1024L * 1024L;
+
+    public static final int DEFAULT_MAX_CONCURRENT_PARTS = 4;
+
+    private final HttpExecutor delegate;
+    private final long partSize;
+    private final int maxConcurrentParts;
+
+    private RangeFetcher(Builder builder) {
+        this.delegate = builder.delegate;
+        this.partSize = builder.partSize;
+        this.maxConcurrentParts = builder.maxConcurrentParts;
+    }
+
+    /**
+     * Gets a {@link Builder} for a fetcher that executes the part requests through the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes the part requests.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * Fetches the resource of the specified request.
+     *
+     * @param request The GET {@link Request} of the resource.
+     *
+     * @return Returns a future that completes with the reassembled 200 {@link Response}, with any non-206 response to
+     *         the first part, or exceptionally with an {@link HttpException} if a part fails or the resource changes.
+     */
+    public CompletableFuture<Response> fetch(Request request) {
+        if ((Method.GET != request.getMethod()) || request.getHttpHeaders().contains(ByteRange.RANGE)) {
+            return delegate.execute(request);
+        }
+        Request first = partRequest(request, ByteRange.of(0L, partSize - 1L), null);
+        return delegate.execute(first).thenCompose(response -> fetchRest(request, response));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("partSize", partSize)
+                .add("maxConcurrentParts", maxConcurrentParts).toString();
+    }
+
+    private CompletableFuture<Response> fetchRest(Request request, Response first) {
+        if (416 == first.getStatus()) {
+            // An empty resource has no satisfiable range.
+            return delegate.execute(request);
+        }
+        if (206 != first.getStatus()) {
+            return CompletableFuture.completedFuture(first);
+        }
+
+        ContentRange range = ContentRange.parse(first.getHttpHeaders().getFirst(ContentRange.CONTENT_RANGE));
+        if ((null == range) || !range.isSatisfied() || (0L != range.getFirst()) || !hasLength(first, range)) {
+            return CompletableFuture.failedFuture(new HttpException("Invalid first part of " + request.getUrl() + ": "
+                    + first.getHttpHeaders().getFirst(ContentRange.CONTENT_RANGE)));
+        }
+        if (ContentRange.UNKNOWN_LENGTH == range.getCompleteLength()) {
+            // Without the length the parts cannot be planned, so the resource is fetched whole.
+            return delegate.execute(request);
+        }
+        if (range.getLength() == range.getCompleteLength()) {
+            return CompletableFuture.completedFuture(assemble(first, new Body[]{first.getEntity()}, range));
+        }
+
+        Fetch fetch = new Fetch(request, first, range);
+        int window = Math.min(maxConcurrentParts, fetch.parts.length - 1);
+        for (int i = 0; i < window; i++) {
+            fetch.drain();
+        }
+        return fetch.result;
+    }
+
+    private static Request partRequest(Request request, ByteRange range, String validator) {
+        Request.Builder part = Request.newBuilder(request)
+                .setHeader(ByteRange.RANGE, ByteRange.toHeaderValue(Collections.singletonList(range)));
+        if (!request.getHttpHeaders().contains(ContentEncoding.ACCEPT_ENCODING)) {
+            part.setHeader(ContentEncoding.ACCEPT_ENCODING, ContentEncoding.IDENTITY.getToken());
+        }
+        if (null != validator) {
+            part.setHeader(PartialContent.IF_RANGE, validator);
+        }
+        return part.build();
+    }
+
+    /**
+     * Gets the strong validator of the first part for If-Range: its ETag unless that is weak, else its Last-Modified.
+     */
+    private static String validatorOf(Response first) {
+        String etag = first.getHttpHeaders().getFirst("ETag");
+        if ((null != etag) && !etag.trim().startsWith("W/")) {
+            return etag.trim();
+        }
+        return first.getHttpHeaders().getFirst("Last-Modified");
+    }
+
+    private static boolean hasLength(Response part, ContentRange range) {
+        return (null != part.getEntity()) && (part.getEntity().length() == range.getLength());
+    }
+
+    private static Response assemble(Response first, Body[] parts, ContentRange range) {
+        long length = range.getCompleteLength();
+        return Response.newBuilder(first).setStatus(200).removeHeader(ContentRange.CONTENT_RANGE)
+                .setHeader("Content-Length", Long.toString(length)).setContentLength(length)
+                .setEntity(Body.concat(Arrays.asList(parts))).build();
+    }
+
+    /**
+     * The state of one fetch: the bodies of the parts by index, the first included, and the next part to launch.
+     */
+    private final class Fetch {
+
+        private final Request request;
+        private final Response first;
+        private final ContentRange firstRange;
+        private final String validator;
+        private final Body[] parts;
+        private final AtomicInteger cursor = new AtomicInteger(1);
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+        Fetch(Request request, Response first, ContentRange firstRange) {
+            this.request = request;
+            this.first = first;
+            this.firstRange = firstRange;
+            this.validator = validatorOf(first);
+            long rest = firstRange.getCompleteLength() - firstRange.getLength();
+            this.parts = new Body[1 + (int) ((rest + partSize - 1L) / partSize)];
+            this.parts[0] = first.getEntity();
+            this.remaining = new AtomicInteger(parts.length - 1);
+        }
+
+        /**
+         * Launches parts until one is in flight or none are left. Parts that complete synchronously are handled in
+         * the loop rather than by recursion.
+         */
+        void drain() {
+            while (!result.isDone()) {
+                int index = cursor.getAndIncrement();
+                if (index >= parts.length) {
+                    return;
+                }
+
+                long start = firstRange.getLength() + (index - 1L) * partSize;
+                long last = Math.min(start + partSize, firstRange.getCompleteLength()) - 1L;
+                ContentRange expected = ContentRange.of(start, last, firstRange.getCompleteLength());
+                CompletableFuture<Response> future;
+                try {
+                    future = delegate.execute(partRequest(request, ByteRange.of(start, last), validator));
+                } catch (RuntimeException re) {
+                    future = CompletableFuture.failedFuture(re);
+                }
+
+                if (!future.isDone()) {
+                    future.whenComplete((response, failure) -> {
+                        complete(index, expected, response, failure);
+                        drain();
+                    });
+                    return;
+                }
+                future.whenComplete((response, failure) -> complete(index, expected, response, failure));
+            }
+        }
+
+        private void complete(int index, ContentRange expected, Response response, Throwable failure) {
+            if (null != failure) {
+                result.completeExceptionally(Failures.toHttpException(failure));
+                return;
+            }
+            if (206 != response.getStatus()) {
+                result.completeExceptionally(new HttpException("Status " + response.getStatus() + " for bytes "
+                        + expected.getFirst() + "-" + expected.getLast() + " of " + request.getUrl()
+                        + ((200 == response.getStatus()) ? ", the resource changed during the fetch" : "")));
+                return;
+            }
+            String contentRange = response.getHttpHeaders().getFirst(ContentRange.CONTENT_RANGE);
+            if (!expected.equals(ContentRange.parse(contentRange)) || !hasLength(response, expected)) {
+                result.completeExceptionally(new HttpException("Unexpected part of " + request.getUrl() + ": "
+                        + contentRange + " instead of " + expected));
+                return;
+            }
+
+            parts[index] = response.getEntity();
+            // The decrement publishes the part to whichever thread completes the last one.
+            if (0 == remaining.decrementAndGet()) {
+                result.complete(assemble(first, parts, firstRange));
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private long partSize = DEFAULT_PART_SIZE;
+        private int maxConcurrentParts = DEFAULT_MAX_CONCURRENT_PARTS;
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public RangeFetcher build() {
+            return new RangeFetcher(this);
+        }
+
+        /**
+         * Sets the number of bytes requested by each part. Defaults to {@link #DEFAULT_PART_SIZE}.
+         *
+         * @param partSize The size of a part, at least 1.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setPartSize(long partSize) {
+            if (partSize < 1L) {
+                throw new IllegalArgumentException("The part size must be at least 1");
+            }
+            this.partSize = partSize;
+            return this;
+        }
+
+        /**
+         * Sets the greatest number of parts in flight at once, after the first. Defaults to
+         * {@link #DEFAULT_MAX_CONCURRENT_PARTS}.
+         *
+         * @param maxConcurrentParts The number of parts, at least 1.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxConcurrentParts(int maxConcurrentParts) {
+            if (maxConcurrentParts < 1) {
+                throw new IllegalArgumentException("The maximum number of concurrent parts must be at least 1");
+            }
+            this.maxConcurrentParts = maxConcurrentParts;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.interzonedev.httpcore.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Limits extra attempts, such as retries and hedged requests, to a fraction of the requests executed, so that a
+ * failing or slow upstream is not hit with a multiple of its normal load. Each request deposits the fraction of a
+ * token, each extra attempt withdraws a whole token, and the balance is capped, so over any period the extra attempts
+ * number at most the fraction of the requests plus the cap.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class RetryBudget {
+
+    /**
+     * Tokens are kept in thousandths so that the balance is a single atomic long.
+     */
+    private static final long SCALE = 1000L;
+
+    private static final RetryBudget UNLIMITED = new RetryBudget(0.0, 0, true);
+
+    private final long deposit;
+    private final long capacity;
+    private final boolean unlimited;
+    private final AtomicLong balance;
+
+    private RetryBudget(double ratio, int capacity, boolean unlimited) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = capacity * SCALE;
+        this.unlimited = unlimited;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    /**
+     * Creates a budget that allows extra attempts for the specified fraction of the requests, and starts full.
+     *
+     * @param ratio The fraction of requests that may have an extra attempt, such as 0.1.
+     * @param capacity The most tokens the budget holds, which bounds a burst of extra attempts.
+     *
+     * @return Returns a new {@link RetryBudget}.
+     */
+    public static RetryBudget create(double ratio, int capacity) {
+        if ((ratio < 0.0) || (capacity < 0)) {
+            throw new IllegalArgumentException("The ratio and capacity must not be negative");
+        }
+        return new RetryBudget(ratio, capacity, false);
+    }
+
+    /**
+     * Creates a budget that never runs out.
+     *
+     * @return Returns an unlimited {@link RetryBudget}.
+     */
+    public static RetryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Deposits the share of one request.
+     */
+    public void onRequest() {
+        if (unlimited) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * Withdraws a token for an extra attempt, if one is available.
+     *
+     * @return Returns true if the extra attempt may be made.
+     */
+    public boolean tryAcquire() {
+        if (unlimited) {
+            return true;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * @return Returns the number of whole tokens available, or {@link Long#MAX_VALUE} if the budget is unlimited.
+     */
+    public long available() {
+        return unlimited ? Long.MAX_VALUE : balance.get() / SCALE;
+    }
+
+    @Override
+    public String toString() {
+        if (unlimited) {
+            return MoreObjects.toStringHelper(this).add("unlimited", true).toString();
+        }
+        return MoreObjects.toStringHelper(this).add("ratio", (double) deposit / SCALE)
+                .add("capacity", capacity / SCALE).add("available", available()).toString();
+    }
+
+}
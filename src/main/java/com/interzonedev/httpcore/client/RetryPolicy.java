@@ -0,0 +1,224 @@
+package com.interzonedev.httpcore.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpStatusException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.Retryable;
+
+/**
+ * Immutable policy deciding which outcomes of a {@link Request} are retried, how often, and after how long.
+ *
+ * <p>
+ * Only requests with an idempotent method are retried: GET, HEAD, OPTIONS, TRACE, PUT and DELETE by default. A
+ * {@link Response} is retried if its status is retryable, by default 429, 502, 503 and 504. A failure is retried if the
+ * cause of its {@link HttpException} is retryable, by default any {@link IOException} or {@link TimeoutException},
+ * which covers refused and reset connections and timeouts. The delay before each retry is drawn uniformly between zero
+ * and an exponentially growing cap ("full jitter"), unless the response carries a Retry-After header in seconds.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class RetryPolicy {
+
+    /**
+     * Allows three attempts in all, with a base delay of 100 milliseconds growing to at most five seconds.
+     */
+    public static final RetryPolicy DEFAULT = newBuilder().build();
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Set<Method> retryableMethods;
+    private final Set<Integer> retryableStatuses;
+    private final Predicate<Throwable> retryableCause;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.retryableMethods = EnumSet.copyOf(builder.retryableMethods);
+        this.retryableStatuses = ImmutableSet.copyOf(builder.retryableStatuses);
+        this.retryableCause = builder.retryableCause;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Returns the maximum number of attempts, including the first.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Determines whether the specified {@link Request} may be retried at all.
+     *
+     * @param request The {@link Request}.
+     *
+     * @return Returns true if the method of the request is retryable.
+     */
+    public boolean isRetryable(Request request) {
+        return retryableMethods.contains(request.getMethod());
+    }
+
+    /**
+     * Determines whether the specified {@link Response} should be retried.
+     *
+     * @param response The {@link Response}.
+     *
+     * @return Returns true if the status of the response is retryable.
+     */
+    public boolean isRetryable(Response response) {
+        return retryableStatuses.contains(response.getStatus());
+    }
+
+    /**
+     * Determines whether the specified failure should be retried. An {@link HttpStatusException} is judged by the
+     * status of its {@link Response}, as any other {@link Response} would be; any other {@link HttpException} is
+     * retried if it is {@link Retryable} or if its cause passes the test of retryable causes.
+     *
+     * @param failure The {@link HttpException} the attempt failed with.
+     *
+     * @return Returns true if the failure is retryable.
+     */
+    public boolean isRetryable(HttpException failure) {
+        if (failure instanceof HttpStatusException) {
+            return isRetryable(failure.getResponse());
+        }
+        if (failure.isRetryable()) {
+            return true;
+        }
+        Throwable cause = (null != failure.getCause()) ? failure.getCause() : failure;
+        return retryableCause.test(cause);
+    }
+
+    /**
+     * Gets the delay before the specified retry.
+     *
+     * @param retry The number of the retry, starting at 1.
+     * @param response The retryable {@link Response}, or null if the attempt failed.
+     *
+     * @return Returns the delay before the retry.
+     */
+    public Duration delayBefore(int retry, Response response) {
+        if (null != response) {
+            Duration retryAfter = retryAfterOf(response);
+            if (null != retryAfter) {
+                return (retryAfter.compareTo(maxDelay) > 0) ? maxDelay : retryAfter;
+            }
+        }
+
+        long cap = baseDelay.toNanos() << Math.min(retry - 1, 30);
+        if ((cap <= 0L) || (cap > maxDelay.toNanos())) {
+            cap = maxDelay.toNanos();
+        }
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(cap + 1L));
+    }
+
+    private static Duration retryAfterOf(Response response) {
+        String value = response.getHttpHeaders().getFirst("Retry-After");
+        if (null == value) {
+            return null;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            return (seconds >= 0L) ? Duration.ofSeconds(seconds) : null;
+        } catch (NumberFormatException nfe) {
+            // An HTTP date; fall back to the computed delay.
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("maxAttempts", maxAttempts).add("baseDelay", baseDelay)
+                .add("maxDelay", maxDelay).add("retryableMethods", retryableMethods)
+                .add("retryableStatuses", retryableStatuses).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link RetryPolicy}.
+     */
+    public static class Builder {
+
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(100L);
+        private Duration maxDelay = Duration.ofSeconds(5L);
+        private Set<Method> retryableMethods = EnumSet.of(Method.GET, Method.HEAD, Method.OPTIONS, Method.TRACE,
+                Method.PUT, Method.DELETE);
+        private Set<Integer> retryableStatuses = ImmutableSet.of(429, 502, 503, 504);
+        private Predicate<Throwable> retryableCause = cause -> (cause instanceof IOException)
+                || (cause instanceof TimeoutException);
+
+        private Builder() {
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("The maximum number of attempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the base and maximum delays. The cap on the delay before retry n is the base delay times 2^(n-1),
+         * limited to the maximum delay.
+         *
+         * @param baseDelay The cap on the delay before the first retry.
+         * @param maxDelay The largest delay before any retry.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setDelays(Duration baseDelay, Duration maxDelay) {
+            if (baseDelay.isNegative() || (maxDelay.compareTo(baseDelay) < 0)) {
+                throw new IllegalArgumentException("Invalid retry delays");
+            }
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder setRetryableMethods(Set<Method> retryableMethods) {
+            this.retryableMethods = EnumSet.noneOf(Method.class);
+            this.retryableMethods.addAll(retryableMethods);
+            return this;
+        }
+
+        public Builder setRetryableStatuses(Set<Integer> retryableStatuses) {
+            this.retryableStatuses = ImmutableSet.copyOf(retryableStatuses);
+            return this;
+        }
+
+        /**
+         * Sets the test of the cause of an {@link HttpException} that decides whether the failure is retried.
+         *
+         * @param retryableCause The test of the cause.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setRetryableCause(Predicate<Throwable> retryableCause) {
+            this.retryableCause = retryableCause;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.interzonedev.httpcore.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * {@link HttpExecutor} that retries requests according to a {@link RetryPolicy}, within a {@link RetryBudget}. Once
+ * the attempts or the budget run out, the last outcome is returned as is: a retryable {@link Response} is completed
+ * normally, so the caller still sees its status, and a failure is completed exceptionally.
+ *
+ * <p>
+ * Retries are scheduled with {@link CompletableFuture#delayedExecutor(long, TimeUnit)}, so no thread waits out the
+ * delay. Cancelling the returned future stops further retries.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class RetryingHttpExecutor implements HttpExecutor {
+
+    private final HttpExecutor delegate;
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+    private RetryingHttpExecutor(Builder builder) {
+        this.delegate = builder.delegate;
+        this.policy = builder.policy;
+        this.budget = builder.budget;
+    }
+
+    /**
+     * Gets a {@link Builder} for an executor that retries requests sent through the specified executor.
+     *
+     * @param delegate The {@link HttpExecutor} that executes each attempt.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(HttpExecutor delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        budget.onRequest();
+        if (!policy.isRetryable(request) || (1 == policy.getMaxAttempts())) {
+            return delegate.execute(request);
+        }
+
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        attempt(request, 1, result);
+        return result;
+    }
+
+    private void attempt(Request request, int attempt, CompletableFuture<Response> result) {
+        if (result.isDone()) {
+            return;
+        }
+
+        CompletableFuture<Response> future;
+        try {
+            future = delegate.execute(request);
+        } catch (RuntimeException re) {
+            future = CompletableFuture.failedFuture(re);
+        }
+
+        future.whenComplete((response, failure) -> {
+            HttpException httpFailure = (null != failure) ? Failures.toHttpException(failure) : null;
+            boolean retryable = (null != httpFailure) ? policy.isRetryable(httpFailure) : policy.isRetryable(response);
+
+            if (retryable && (attempt < policy.getMaxAttempts()) && !result.isDone()) {
+                if (budget.tryAcquire()) {
+                    retryCount.increment();
+                    Duration delay = policy.delayBefore(attempt, response);
+                    Executor delayed = CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS);
+                    delayed.execute(() -> attempt(request, attempt + 1, result));
+                    return;
+                }
+                budgetExhaustedCount.increment();
+            }
+
+            if (null != httpFailure) {
+                result.completeExceptionally(httpFailure);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    /**
+     * @return Returns the number of retries made.
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * @return Returns the number of retryable outcomes that were not retried because the budget was exhausted.
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("delegate", delegate).add("policy", policy).add("budget", budget)
+                .toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link RetryingHttpExecutor}.
+     */
+    public static class Builder {
+
+        private final HttpExecutor delegate;
+        private RetryPolicy policy = RetryPolicy.DEFAULT;
+        private RetryBudget budget = RetryBudget.create(0.2, 10);
+
+        private Builder(HttpExecutor delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("The delegate executor must be set");
+            }
+            this.delegate = delegate;
+        }
+
+        public RetryingHttpExecutor build() {
+            return new RetryingHttpExecutor(this);
+        }
+
+        public Builder setPolicy(RetryPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the budget that limits retries across all requests. Defaults to retries for 20% of requests, with a
+         * burst of up to ten.
+         *
+         * @param budget The {@link RetryBudget}.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setBudget(RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.interzonedev.httpcore.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.interzonedev.httpcore.HttpException;
+
+/**
+ * Reads the primitives written by {@link BinaryWriter} from a {@link ByteBuffer}, checking every length against the
+ * bytes that remain so that malformed input fails with an {@link HttpException} rather than a huge allocation.
+ *
+ * @author mark@interzonedev.com
+ */
+final class BinaryReader {
+
+    private final ByteBuffer buffer;
+
+    BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        require(1);
+        return buffer.get() & 0xff;
+    }
+
+    long readVarint() {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new HttpException("Malformed varint");
+    }
+
+    long readSignedVarint() {
+        long encoded = readVarint();
+        return (encoded >>> 1) ^ -(encoded & 1L);
+    }
+
+    /**
+     * Reads an unsigned varint that must fit in a non-negative {@code int}.
+     */
+    int readLength() {
+        long value = readVarint();
+        if ((value < 0L) || (value > Integer.MAX_VALUE)) {
+            throw new HttpException("Malformed length: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a count of items that are each at least one byte long, so it cannot exceed the bytes that remain.
+     */
+    int readCount() {
+        int count = readLength();
+        require(count);
+        return count;
+    }
+
+    String readString() {
+        int encodedLength = readLength();
+        if (0 == encodedLength) {
+            return null;
+        }
+
+        int length = encodedLength - 1;
+        require(length);
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void require(int length) {
+        if (buffer.remaining() < length) {
+            throw new HttpException("Truncated message: needed " + length + " bytes, " + buffer.remaining()
+                    + " remain");
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.interzonedev.httpcore.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.interzonedev.httpcore.HttpException;
+
+/**
+ * Growable byte array that the codec encodes into. A writer is reused across encodings by the same thread, so once it
+ * has grown to fit typical messages encoding allocates nothing but the UTF-8 bytes of non-ASCII strings.
+ *
+ * @author mark@interzonedev.com
+ */
+final class BinaryWriter {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    /**
+     * A writer that grew beyond this many bytes for an unusually large message shrinks back when reset, so a thread
+     * does not hold on to a large buffer indefinitely.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int position;
+
+    /**
+     * Discards the written bytes.
+     */
+    void reset() {
+        position = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    int length() {
+        return position;
+    }
+
+    void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, seven bits per byte, least significant group first.
+     */
+    void writeVarint(long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7fL) != 0L) {
+            buffer[position++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    /**
+     * Writes a signed variable-length integer in zig-zag encoding, so that small negative values stay short.
+     */
+    void writeSignedVarint(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a string as its UTF-8 length plus one followed by its UTF-8 bytes. Null is written as a length of zero.
+     * ASCII strings, by far the most common in HTTP, are copied without an intermediate byte array.
+     */
+    void writeString(String value) {
+        if (null == value) {
+            writeVarint(0L);
+            return;
+        }
+
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+
+        if (ascii) {
+            writeVarint(length + 1L);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            writeRaw(utf8, 0, utf8.length);
+        }
+    }
+
+    void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    void writeRaw(ByteBuffer bytes) {
+        int length = bytes.remaining();
+        ensureCapacity(length);
+        bytes.duplicate().get(buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Copies the written bytes to the specified buffer.
+     */
+    void copyTo(ByteBuffer target) {
+        target.put(buffer, 0, position);
+    }
+
+    /**
+     * Writes the written bytes to the specified stream.
+     */
+    void copyTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.length - position < needed) {
+            long minimum = (long) position + needed;
+            if (minimum > MAX_ARRAY_SIZE) {
+                throw new HttpException("Encoded message too large: " + minimum + " bytes");
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.max(minimum, Math.min(2L * buffer.length, MAX_ARRAY_SIZE)));
+        }
+    }
+
+}
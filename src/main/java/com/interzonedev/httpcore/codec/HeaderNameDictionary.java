@@ -0,0 +1,59 @@
+package com.interzonedev.httpcore.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Static dictionary of common header names for version 1 of the binary format. A name in the dictionary is written as
+ * its index instead of its characters. Each name has two entries, its canonical spelling and its lower-case spelling,
+ * so that both the HTTP/1.1 and the HTTP/2 conventions encode compactly and decode to the exact spelling written.
+ *
+ * <p>
+ * The dictionary is the table of {@link HttpHeaders#wellKnownNames()}, in its order, which is part of the format.
+ * Names may only be appended to that table, together with a new format version.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+final class HeaderNameDictionary {
+
+    private static final String[] SPELLINGS = HttpHeaders.wellKnownNames().toArray(new String[0]);
+
+    private static final Map<String, Integer> INDEXES;
+
+    static {
+        INDEXES = new HashMap<>(SPELLINGS.length * 2);
+        for (int i = 0; i < SPELLINGS.length; i++) {
+            INDEXES.put(SPELLINGS[i], i);
+        }
+    }
+
+    private HeaderNameDictionary() {
+    }
+
+    /**
+     * Gets the index of the exact spelling of the specified header name.
+     *
+     * @param name The header name.
+     *
+     * @return Returns the index of the name or -1 if it is not in the dictionary.
+     */
+    static int indexOf(String name) {
+        Integer index = INDEXES.get(name);
+        return (null != index) ? index : -1;
+    }
+
+    /**
+     * Gets the header name at the specified index.
+     *
+     * @param index The index of the name.
+     *
+     * @return Returns the header name or null if the index is out of range.
+     */
+    static String nameAt(int index) {
+        return ((index >= 0) && (index < SPELLINGS.length)) ? SPELLINGS[index] : null;
+    }
+
+}
@@ -0,0 +1,554 @@
+package com.interzonedev.httpcore.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.Cookie;
+
+import com.google.common.collect.ImmutableMap;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.Timing;
+
+/**
+ * Compact, versioned binary encoding of {@link Request} and {@link Response}.
+ *
+ * <p>
+ * Each message is a self-delimiting frame: its length as a varint, then a format version byte, a message type byte and
+ * the fields. Integers and lengths are varints, strings are UTF-8, common header names are written as an index into a
+ * fixed dictionary, and bodies are written as raw bytes. Frames can be concatenated in a buffer, file or stream and
+ * read back one at a time.
+ * </p>
+ *
+ * <p>
+ * Encoding goes through a per-thread scratch buffer, so the hot path allocates nothing beyond the result. Decoding
+ * copies every byte it keeps, so the source buffer may be reused as soon as a decode returns. Malformed, truncated or
+ * unsupported frames fail with an {@link HttpException}.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class HttpCodec {
+
+    /**
+     * The format version written by this codec. Frames of this or an earlier version can be decoded.
+     */
+    public static final int VERSION = 1;
+
+    private static final int REQUEST = 1;
+
+    private static final int RESPONSE = 2;
+
+    private static final int COOKIE_SECURE = 1;
+
+    private static final int COOKIE_HTTP_ONLY = 2;
+
+    /**
+     * The {@link Method} values in the order of their codes. Methods may only be appended.
+     */
+    private static final Method[] METHODS = Method.values();
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private HttpCodec() {
+    }
+
+    /**
+     * Encodes the specified {@link Request} into a new buffer.
+     *
+     * @param request The {@link Request} to encode.
+     *
+     * @return Returns a buffer holding exactly the encoded frame, ready to be read.
+     */
+    public static ByteBuffer encode(Request request) {
+        BinaryWriter payload = encodePayload(REQUEST, request, null);
+        return toBuffer(payload);
+    }
+
+    /**
+     * Encodes the specified {@link Response} into a new buffer. The {@link Request} of the {@link Response}, if any,
+     * is included. Its {@link Timing}, which only describes the exchange, is not.
+     *
+     * @param response The {@link Response} to encode.
+     *
+     * @return Returns a buffer holding exactly the encoded frame, ready to be read.
+     */
+    public static ByteBuffer encode(Response response) {
+        BinaryWriter payload = encodePayload(RESPONSE, null, response);
+        return toBuffer(payload);
+    }
+
+    /**
+     * Encodes the specified {@link Request} into the specified buffer, starting at its position.
+     *
+     * @param request The {@link Request} to encode.
+     * @param target The buffer to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws BufferOverflowException Thrown if the frame does not fit, in which case nothing is written.
+     */
+    public static int encode(Request request, ByteBuffer target) {
+        return copyTo(encodePayload(REQUEST, request, null), target);
+    }
+
+    /**
+     * Encodes the specified {@link Response} into the specified buffer, starting at its position.
+     *
+     * @param response The {@link Response} to encode.
+     * @param target The buffer to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws BufferOverflowException Thrown if the frame does not fit, in which case nothing is written.
+     */
+    public static int encode(Response response, ByteBuffer target) {
+        return copyTo(encodePayload(RESPONSE, null, response), target);
+    }
+
+    /**
+     * Writes the specified {@link Request} to the specified stream as one frame. The stream is not flushed.
+     *
+     * @param request The {@link Request} to write.
+     * @param out The stream to write to.
+     *
+     * @throws IOException Thrown if writing to the stream fails.
+     */
+    public static void write(Request request, OutputStream out) throws IOException {
+        copyTo(encodePayload(REQUEST, request, null), out);
+    }
+
+    /**
+     * Writes the specified {@link Response} to the specified stream as one frame. The stream is not flushed.
+     *
+     * @param response The {@link Response} to write.
+     * @param out The stream to write to.
+     *
+     * @throws IOException Thrown if writing to the stream fails.
+     */
+    public static void write(Response response, OutputStream out) throws IOException {
+        copyTo(encodePayload(RESPONSE, null, response), out);
+    }
+
+    /**
+     * Decodes the {@link Request} frame at the position of the specified buffer and advances the position past it.
+     *
+     * @param source The buffer to read from.
+     *
+     * @return Returns the decoded {@link Request}.
+     */
+    public static Request decodeRequest(ByteBuffer source) {
+        BinaryReader reader = openFrame(source, REQUEST);
+        return readRequest(reader);
+    }
+
+    /**
+     * Decodes the {@link Response} frame at the position of the specified buffer and advances the position past it.
+     *
+     * @param source The buffer to read from.
+     *
+     * @return Returns the decoded {@link Response}.
+     */
+    public static Response decodeResponse(ByteBuffer source) {
+        BinaryReader reader = openFrame(source, RESPONSE);
+        return readResponse(reader);
+    }
+
+    /**
+     * Reads the next {@link Request} frame from the specified stream.
+     *
+     * @param in The stream to read from.
+     *
+     * @return Returns the decoded {@link Request} or null if the stream ended before the frame.
+     *
+     * @throws IOException Thrown if reading from the stream fails or the stream ends inside the frame.
+     */
+    public static Request readRequest(InputStream in) throws IOException {
+        ByteBuffer payload = readPayload(in);
+        return (null != payload) ? readRequest(openPayload(payload, REQUEST)) : null;
+    }
+
+    /**
+     * Reads the next {@link Response} frame from the specified stream.
+     *
+     * @param in The stream to read from.
+     *
+     * @return Returns the decoded {@link Response} or null if the stream ended before the frame.
+     *
+     * @throws IOException Thrown if reading from the stream fails or the stream ends inside the frame.
+     */
+    public static Response readResponse(InputStream in) throws IOException {
+        ByteBuffer payload = readPayload(in);
+        return (null != payload) ? readResponse(openPayload(payload, RESPONSE)) : null;
+    }
+
+    private static BinaryWriter encodePayload(int type, Request request, Response response) {
+        BinaryWriter writer = SCRATCH.get().writer;
+        writer.reset();
+        writer.writeByte(VERSION);
+        writer.writeByte(type);
+        if (REQUEST == type) {
+            writeRequest(writer, request);
+        } else {
+            writeResponse(writer, response);
+        }
+        return writer;
+    }
+
+    private static ByteBuffer toBuffer(BinaryWriter payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(varintSize(payload.length()) + payload.length());
+        copyTo(payload, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int copyTo(BinaryWriter payload, ByteBuffer target) {
+        int length = payload.length();
+        int frameLength = varintSize(length) + length;
+        if (target.remaining() < frameLength) {
+            throw new BufferOverflowException();
+        }
+        int prefix = length;
+        while ((prefix & ~0x7f) != 0) {
+            target.put((byte) ((prefix & 0x7f) | 0x80));
+            prefix >>>= 7;
+        }
+        target.put((byte) prefix);
+        payload.copyTo(target);
+        return frameLength;
+    }
+
+    private static void copyTo(BinaryWriter payload, OutputStream out) throws IOException {
+        int prefix = payload.length();
+        while ((prefix & ~0x7f) != 0) {
+            out.write((prefix & 0x7f) | 0x80);
+            prefix >>>= 7;
+        }
+        out.write(prefix);
+        payload.copyTo(out);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        int v = value;
+        while ((v & ~0x7f) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static BinaryReader openFrame(ByteBuffer source, int expectedType) {
+        BinaryReader prefixReader = new BinaryReader(source);
+        int length = prefixReader.readLength();
+        if (source.remaining() < length) {
+            throw new HttpException("Truncated frame: " + length + " bytes declared, " + source.remaining()
+                    + " remain");
+        }
+
+        ByteBuffer payload = source.slice();
+        payload.limit(length);
+        source.position(source.position() + length);
+
+        return openPayload(payload, expectedType);
+    }
+
+    private static BinaryReader openPayload(ByteBuffer payload, int expectedType) {
+        BinaryReader reader = new BinaryReader(payload);
+        int version = reader.readByte();
+        if ((version < 1) || (version > VERSION)) {
+            throw new HttpException("Unsupported format version: " + version);
+        }
+        int type = reader.readByte();
+        if (type != expectedType) {
+            throw new HttpException("Expected message type " + expectedType + " but found " + type);
+        }
+        return reader;
+    }
+
+    /**
+     * Reads the length and then the payload of the next frame into the per-thread frame buffer.
+     */
+    private static ByteBuffer readPayload(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+
+        long length = 0L;
+        int b = first;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new HttpException("Malformed frame length");
+            }
+            length |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            b = in.read();
+            if (b < 0) {
+                throw new EOFException("Stream ended inside a frame length");
+            }
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new HttpException("Malformed frame length: " + length);
+        }
+
+        int frameLength = (int) length;
+        byte[] bytes = SCRATCH.get().frame(frameLength);
+        int read = 0;
+        while (read < frameLength) {
+            int count = in.read(bytes, read, frameLength - read);
+            if (count < 0) {
+                throw new EOFException("Stream ended inside a frame: read " + read + " of " + frameLength + " bytes");
+            }
+            read += count;
+        }
+
+        return ByteBuffer.wrap(bytes, 0, frameLength);
+    }
+
+    private static void writeRequest(BinaryWriter writer, Request request) {
+        writer.writeString(request.getUrl());
+        writer.writeVarint((null != request.getMethod()) ? request.getMethod().ordinal() + 1L : 0L);
+        writeHeaders(writer, request.getHttpHeaders());
+        writeParameters(writer, request.getHttpParameters());
+        writeBody(writer, request.getEntity());
+    }
+
+    private static Request readRequest(BinaryReader reader) {
+        Request.Builder request = Request.newBuilder();
+        request.setUrl(reader.readString());
+        int method = reader.readLength();
+        if (method > METHODS.length) {
+            throw new HttpException("Unknown method code: " + method);
+        }
+        request.setMethod((0 == method) ? null : METHODS[method - 1]);
+        request.setHttpHeaders(readHeaders(reader));
+        request.setHttpParameters(readParameters(reader));
+        request.setEntity(readBody(reader));
+        return request.build();
+    }
+
+    private static void writeResponse(BinaryWriter writer, Response response) {
+        if (null != response.getRequest()) {
+            writer.writeByte(1);
+            writeRequest(writer, response.getRequest());
+        } else {
+            writer.writeByte(0);
+        }
+        writer.writeSignedVarint(response.getStatus());
+        writer.writeString(response.getContentType());
+        writer.writeSignedVarint(response.getContentLength());
+        writeHeaders(writer, response.getHttpHeaders());
+        writeCookies(writer, response.getCookies());
+        writer.writeString((null != response.getLocale()) ? response.getLocale().toLanguageTag() : null);
+        writeBody(writer, response.getEntity());
+    }
+
+    private static Response readResponse(BinaryReader reader) {
+        Response.Builder response = Response.newBuilder();
+        if (0 != reader.readByte()) {
+            response.setRequest(readRequest(reader));
+        }
+        response.setStatus((int) reader.readSignedVarint());
+        response.setContentType(reader.readString());
+        response.setContentLength(reader.readSignedVarint());
+        response.setHttpHeaders(readHeaders(reader));
+        response.setCookies(readCookies(reader));
+        String locale = reader.readString();
+        response.setLocale((null != locale) ? Locale.forLanguageTag(locale) : null);
+        response.setEntity(readBody(reader));
+        return response.build();
+    }
+
+    /**
+     * Writes each header name as its dictionary index times two plus one, or as zero followed by the literal name.
+     */
+    private static void writeHeaders(BinaryWriter writer, HttpHeaders headers) {
+        writer.writeVarint(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.getName(i);
+            int index = HeaderNameDictionary.indexOf(name);
+            if (index >= 0) {
+                writer.writeVarint(2L * index + 1L);
+            } else {
+                writer.writeVarint(0L);
+                writer.writeString(name);
+            }
+            writeValues(writer, headers.getValues(i));
+        }
+    }
+
+    private static HttpHeaders readHeaders(BinaryReader reader) {
+        int size = reader.readCount();
+        if (0 == size) {
+            return HttpHeaders.of();
+        }
+
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder();
+        for (int i = 0; i < size; i++) {
+            int code = reader.readLength();
+            String name;
+            if (0 == code) {
+                name = reader.readString();
+            } else {
+                name = HeaderNameDictionary.nameAt((code - 1) / 2);
+                if ((null == name) || (0 == (code & 1))) {
+                    throw new HttpException("Unknown header name code: " + code);
+                }
+            }
+            readValues(reader, headers, name);
+        }
+        return headers.build();
+    }
+
+    private static void writeParameters(BinaryWriter writer, HttpParameters parameters) {
+        writer.writeVarint(parameters.size());
+        for (int i = 0; i < parameters.size(); i++) {
+            writer.writeString(parameters.getName(i));
+            writeValues(writer, parameters.getValues(i));
+        }
+    }
+
+    private static HttpParameters readParameters(BinaryReader reader) {
+        int size = reader.readCount();
+        if (0 == size) {
+            return HttpParameters.of();
+        }
+
+        HttpParameters.Builder parameters = HttpParameters.newBuilder();
+        for (int i = 0; i < size; i++) {
+            readValues(reader, parameters, reader.readString());
+        }
+        return parameters.build();
+    }
+
+    private static void writeValues(BinaryWriter writer, List<String> values) {
+        writer.writeVarint(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            writer.writeString(values.get(i));
+        }
+    }
+
+    private static void readValues(BinaryReader reader, HttpHeaders.Builder headers, String name) {
+        int count = reader.readCount();
+        if (0 == count) {
+            headers.add(name, Collections.<String>emptyList());
+        }
+        for (int i = 0; i < count; i++) {
+            headers.add(name, reader.readString());
+        }
+    }
+
+    private static void readValues(BinaryReader reader, HttpParameters.Builder parameters, String name) {
+        int count = reader.readCount();
+        if (0 == count) {
+            parameters.add(name, Collections.<String>emptyList());
+        }
+        for (int i = 0; i < count; i++) {
+            parameters.add(name, reader.readString());
+        }
+    }
+
+    private static void writeCookies(BinaryWriter writer, Map<String, Cookie> cookies) {
+        writer.writeVarint(cookies.size());
+        for (Map.Entry<String, Cookie> entry : cookies.entrySet()) {
+            writer.writeString(entry.getKey());
+            Cookie cookie = entry.getValue();
+            writer.writeString(cookie.getName());
+            writer.writeString(cookie.getValue());
+            writer.writeString(cookie.getComment());
+            writer.writeString(cookie.getDomain());
+            writer.writeString(cookie.getPath());
+            writer.writeSignedVarint(cookie.getMaxAge());
+            writer.writeByte((cookie.getSecure() ? COOKIE_SECURE : 0) | (cookie.isHttpOnly() ? COOKIE_HTTP_ONLY : 0));
+            writer.writeVarint(cookie.getVersion());
+        }
+    }
+
+    private static Map<String, Cookie> readCookies(BinaryReader reader) {
+        int size = reader.readCount();
+        if (0 == size) {
+            return ImmutableMap.of();
+        }
+
+        ImmutableMap.Builder<String, Cookie> cookies = ImmutableMap.builder();
+        for (int i = 0; i < size; i++) {
+            String key = reader.readString();
+            Cookie cookie = new Cookie(reader.readString(), reader.readString());
+            cookie.setComment(reader.readString());
+            String domain = reader.readString();
+            if (null != domain) {
+                cookie.setDomain(domain);
+            }
+            cookie.setPath(reader.readString());
+            cookie.setMaxAge((int) reader.readSignedVarint());
+            int flags = reader.readByte();
+            cookie.setSecure(0 != (flags & COOKIE_SECURE));
+            cookie.setHttpOnly(0 != (flags & COOKIE_HTTP_ONLY));
+            cookie.setVersion(reader.readLength());
+            cookies.put(key, cookie);
+        }
+        return cookies.build();
+    }
+
+    /**
+     * Writes the body length plus one, or zero for no body, followed by the bytes of each chunk.
+     */
+    private static void writeBody(BinaryWriter writer, Body body) {
+        if (null == body) {
+            writer.writeVarint(0L);
+            return;
+        }
+        writer.writeVarint(body.length() + 1L);
+        for (ByteBuffer chunk : body.chunks()) {
+            writer.writeRaw(chunk);
+        }
+    }
+
+    private static Body readBody(BinaryReader reader) {
+        int encodedLength = reader.readLength();
+        if (0 == encodedLength) {
+            return null;
+        }
+        int length = encodedLength - 1;
+        return (0 == length) ? Body.empty() : Body.wrap(reader.readBytes(length));
+    }
+
+    /**
+     * Per-thread buffers reused across encodings and stream reads.
+     */
+    private static final class Scratch {
+
+        private static final int MAX_RETAINED_FRAME = 1 << 20;
+
+        private final BinaryWriter writer = new BinaryWriter();
+        private byte[] frame = new byte[512];
+
+        byte[] frame(int length) {
+            if (length <= frame.length) {
+                return frame;
+            }
+            byte[] bytes = new byte[length];
+            if (length <= MAX_RETAINED_FRAME) {
+                frame = bytes;
+            }
+            return bytes;
+        }
+    }
+
+}
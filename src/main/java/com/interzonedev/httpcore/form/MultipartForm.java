@@ -0,0 +1,262 @@
+package com.interzonedev.httpcore.form;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ContentTypes;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Immutable {@code multipart/form-data} form (RFC 7578): a boundary and an ordered list of {@link Part}s.
+ *
+ * <p>
+ * {@link #toBody()} does not copy the content of the parts. The boundary lines and part headers are encoded into small
+ * buffers and joined with the part bodies by {@link Body#concat(List)}, so a file part backed by a memory-mapped spill
+ * file is written straight from the mapping. Incoming forms are read with a {@link MultipartReader}.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class MultipartForm {
+
+    public static final String MEDIA_TYPE = "multipart/form-data";
+
+    private static final char[] BOUNDARY_CHARACTERS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final String boundary;
+    private final List<Part> parts;
+
+    private MultipartForm(Builder builder) {
+        this.boundary = (null != builder.boundary) ? builder.boundary : randomBoundary();
+        this.parts = builder.parts.build();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads the form in the body of the specified {@link Request}, keeping parts of up to 64 KiB in memory.
+     *
+     * @param request The {@link Request} with a {@code multipart/form-data} body.
+     *
+     * @return Returns the {@link MultipartForm}, with the boundary of the request.
+     *
+     * @throws HttpException Thrown if the request has no multipart form body or the body is malformed.
+     */
+    public static MultipartForm fromRequest(Request request) {
+        String contentType = request.getHttpHeaders().getFirst(ContentTypes.CONTENT_TYPE);
+        String boundary = boundaryOf(contentType);
+        if (null == boundary) {
+            throw new HttpException("Not a multipart form: " + contentType);
+        }
+        Body entity = (null != request.getEntity()) ? request.getEntity() : Body.empty();
+
+        MultipartReader reader = MultipartReader.newBuilder(entity.openStream(), boundary).build();
+        return newBuilder().setBoundary(boundary).addParts(reader.readAll()).build();
+    }
+
+    /**
+     * Gets the boundary parameter of a {@code multipart/form-data} Content-Type.
+     *
+     * @param contentType The value of the Content-Type header, possibly null.
+     *
+     * @return Returns the boundary, or null if the content type is not a multipart form or has no boundary.
+     */
+    public static String boundaryOf(String contentType) {
+        if (!UrlEncodedForm.hasMediaType(contentType, MEDIA_TYPE)) {
+            return null;
+        }
+        return Part.parameterOf(contentType, "boundary");
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Gets the text fields, those parts without a file name, as parameters.
+     *
+     * @return Returns the names and values of the text fields in order.
+     */
+    public HttpParameters getParameters() {
+        HttpParameters.Builder parameters = HttpParameters.newBuilder();
+        for (Part part : parts) {
+            if (!part.isFile()) {
+                parameters.add(part.getName(), part.getText());
+            }
+        }
+        return parameters.build();
+    }
+
+    /**
+     * Gets the parts with a file name.
+     *
+     * @return Returns the file parts in order.
+     */
+    public List<Part> getFiles() {
+        ImmutableList.Builder<Part> files = ImmutableList.builder();
+        for (Part part : parts) {
+            if (part.isFile()) {
+                files.add(part);
+            }
+        }
+        return files.build();
+    }
+
+    /**
+     * Gets the Content-Type of the encoded form.
+     *
+     * @return Returns {@code multipart/form-data} with the boundary parameter.
+     */
+    public String getContentType() {
+        return MEDIA_TYPE + "; boundary=" + boundary;
+    }
+
+    /**
+     * Encodes this form without copying the content of its parts.
+     *
+     * @return Returns the encoded form as a {@link Body}.
+     */
+    public Body toBody() {
+        List<Body> bodies = new ArrayList<>(2 * parts.size() + 1);
+        StringBuilder head = new StringBuilder();
+        for (Part part : parts) {
+            // Every delimiter but the first starts with the line break that ends the previous part.
+            head.append("--").append(boundary).append("\r\n");
+            HttpHeaders headers = part.getHttpHeaders();
+            for (int i = 0; i < headers.size(); i++) {
+                for (String value : headers.getValues(i)) {
+                    head.append(headers.getName(i)).append(": ").append(value).append("\r\n");
+                }
+            }
+            head.append("\r\n");
+            bodies.add(utf8(head));
+            bodies.add(part.getContent());
+            head.setLength(0);
+            head.append("\r\n");
+        }
+        head.append("--").append(boundary).append("--\r\n");
+        bodies.add(utf8(head));
+        return Body.concat(bodies);
+    }
+
+    /**
+     * Gets a copy of the specified {@link Request} whose body is this form, with a matching Content-Type header.
+     *
+     * @param request The {@link Request} to copy.
+     *
+     * @return Returns the new {@link Request}.
+     */
+    public Request toRequest(Request request) {
+        return Request.newBuilder(request).setEntity(toBody()).setHeader(ContentTypes.CONTENT_TYPE, getContentType())
+                .build();
+    }
+
+    private static Body utf8(StringBuilder text) {
+        return Body.wrap(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String randomBoundary() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder boundary = new StringBuilder("----httpcore");
+        for (int i = 0; i < 24; i++) {
+            boundary.append(BOUNDARY_CHARACTERS[random.nextInt(BOUNDARY_CHARACTERS.length)]);
+        }
+        return boundary.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(boundary, parts);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MultipartForm)) {
+            return false;
+        }
+        MultipartForm that = (MultipartForm) obj;
+        return Objects.equal(boundary, that.boundary) && Objects.equal(parts, that.parts);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("boundary", boundary).add("parts", parts).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link MultipartForm}.
+     */
+    public static class Builder {
+
+        private String boundary;
+        private final ImmutableList.Builder<Part> parts = ImmutableList.builder();
+
+        private Builder() {
+        }
+
+        public MultipartForm build() {
+            return new MultipartForm(this);
+        }
+
+        /**
+         * Sets the boundary. Defaults to a random boundary that is unlikely to appear in any part.
+         *
+         * @param boundary The boundary, 1 to 70 characters.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setBoundary(String boundary) {
+            if ((null == boundary) || boundary.isEmpty() || (boundary.length() > 70)) {
+                throw new IllegalArgumentException("The boundary must be 1 to 70 characters: " + boundary);
+            }
+            this.boundary = boundary;
+            return this;
+        }
+
+        public Builder addField(String name, String value) {
+            parts.add(Part.field(name, value));
+            return this;
+        }
+
+        public Builder addFile(String name, String filename, String contentType, Body content) {
+            parts.add(Part.file(name, filename, contentType, content));
+            return this;
+        }
+
+        public Builder addPart(Part part) {
+            if (null == part) {
+                throw new IllegalArgumentException("The part must be set");
+            }
+            parts.add(part);
+            return this;
+        }
+
+        public Builder addParts(List<Part> newParts) {
+            for (Part part : newParts) {
+                addPart(part);
+            }
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,379 @@
+package com.interzonedev.httpcore.form;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.BodySpooler;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Streaming reader of a {@code multipart/form-data} body, returning one {@link Part} at a time as it is read from the
+ * source stream.
+ *
+ * <p>
+ * The stream is read through one fixed buffer, and the content of each part is written to a {@link BodySpooler} as
+ * soon as it is known not to belong to a boundary, so the reader holds at most the buffer and one part below the
+ * memory threshold in memory. Parts larger than the threshold, typically file uploads, are spilled to a memory-mapped
+ * temporary file. The preamble before the first boundary and the epilogue after the last are ignored.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread safe. The source stream is not closed.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class MultipartReader {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final int memoryThreshold;
+    private final Path spillDirectory;
+    private final int maxHeaderSize;
+    private final int maxPartCount;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int start;
+    private int end;
+    private boolean endOfStream;
+
+    private boolean started;
+    private boolean finished;
+    private int partCount;
+
+    private MultipartReader(Builder builder) {
+        this.in = builder.in;
+        this.delimiter = ("\r\n--" + builder.boundary).getBytes(StandardCharsets.US_ASCII);
+        this.memoryThreshold = builder.memoryThreshold;
+        this.spillDirectory = builder.spillDirectory;
+        this.maxHeaderSize = builder.maxHeaderSize;
+        this.maxPartCount = builder.maxPartCount;
+
+        // A leading line break lets the first boundary be found like every other delimiter.
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        end = 2;
+    }
+
+    /**
+     * Gets a {@link Builder} for a reader of the specified stream.
+     *
+     * @param in The stream holding the multipart body.
+     * @param boundary The boundary, from the boundary parameter of the Content-Type.
+     *
+     * @return Returns a {@link Builder} with default initial values.
+     */
+    public static Builder newBuilder(InputStream in, String boundary) {
+        return new Builder(in, boundary);
+    }
+
+    /**
+     * Reads the next part.
+     *
+     * @return Returns the next {@link Part}, or null after the last one.
+     *
+     * @throws HttpException Thrown if reading fails, the body is malformed or a limit is exceeded.
+     */
+    public Part next() {
+        if (finished) {
+            return null;
+        }
+        try {
+            if (!started) {
+                skipPreamble();
+                started = true;
+            }
+            if (isCloseDelimiter()) {
+                finished = true;
+                return null;
+            }
+            if (partCount >= maxPartCount) {
+                throw new HttpException("Multipart body has more than " + maxPartCount + " parts");
+            }
+            partCount++;
+
+            HttpHeaders headers = readHeaders();
+            Body content = readContent();
+            return Part.of(headers, content);
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading multipart body", ioe);
+        }
+    }
+
+    /**
+     * Reads every remaining part.
+     *
+     * @return Returns the parts in order.
+     *
+     * @throws HttpException Thrown if reading fails, the body is malformed or a limit is exceeded.
+     */
+    public List<Part> readAll() {
+        List<Part> parts = new ArrayList<>();
+        for (Part part = next(); null != part; part = next()) {
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private void skipPreamble() throws IOException {
+        while (true) {
+            int index = indexOfDelimiter();
+            if (index >= 0) {
+                start = index + delimiter.length;
+                return;
+            }
+            start = Math.max(start, end - delimiter.length + 1);
+            if (!fill()) {
+                throw new HttpException("Multipart body without a boundary");
+            }
+        }
+    }
+
+    /**
+     * Reads what follows a delimiter: {@code --} for the last one, or optional whitespace and a line break before the
+     * headers of the next part.
+     */
+    private boolean isCloseDelimiter() throws IOException {
+        require(2);
+        if (('-' == buffer[start]) && ('-' == buffer[start + 1])) {
+            return true;
+        }
+        while (true) {
+            require(1);
+            byte b = buffer[start];
+            if ((' ' == b) || ('\t' == b)) {
+                start++;
+                continue;
+            }
+            require(2);
+            if (('\r' != buffer[start]) || ('\n' != buffer[start + 1])) {
+                throw new HttpException("Malformed multipart boundary line");
+            }
+            start += 2;
+            return false;
+        }
+    }
+
+    private HttpHeaders readHeaders() throws IOException {
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder();
+        int headerBytes = 0;
+        while (true) {
+            int lineEnd = indexOfLineEnd();
+            while (lineEnd < 0) {
+                if (end - start + headerBytes > maxHeaderSize) {
+                    throw new HttpException("Multipart part headers longer than " + maxHeaderSize + " bytes");
+                }
+                if (!fill()) {
+                    throw new HttpException("Multipart body ended inside part headers");
+                }
+                lineEnd = indexOfLineEnd();
+            }
+
+            int lineLength = lineEnd - start;
+            headerBytes += lineLength + 2;
+            if (headerBytes > maxHeaderSize) {
+                throw new HttpException("Multipart part headers longer than " + maxHeaderSize + " bytes");
+            }
+            if (0 == lineLength) {
+                start += 2;
+                return headers.build();
+            }
+
+            String line = new String(buffer, start, lineLength, StandardCharsets.UTF_8);
+            start = lineEnd + 2;
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new HttpException("Malformed multipart part header: " + line);
+            }
+            headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+    }
+
+    private Body readContent() throws IOException {
+        BodySpooler spooler = new BodySpooler(memoryThreshold, spillDirectory);
+        try {
+            while (true) {
+                int index = indexOfDelimiter();
+                if (index >= 0) {
+                    spooler.write(buffer, start, index - start);
+                    start = index + delimiter.length;
+                    return spooler.finish();
+                }
+
+                // Bytes before the last delimiter length cannot start a delimiter.
+                int safe = end - delimiter.length + 1;
+                if (safe > start) {
+                    spooler.write(buffer, start, safe - start);
+                    start = safe;
+                }
+                if (!fill()) {
+                    throw new HttpException("Multipart body ended inside a part");
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            if (spooler.isSpilled()) {
+                // Finishing deletes the spill file.
+                spooler.finish();
+            }
+            throw e;
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte first = delimiter[0];
+        int last = end - delimiter.length;
+        for (int i = start; i <= last; i++) {
+            if (first != buffer[i]) {
+                continue;
+            }
+            int j = 1;
+            while ((j < delimiter.length) && (buffer[i + j] == delimiter[j])) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfLineEnd() {
+        for (int i = start; i + 1 < end; i++) {
+            if (('\r' == buffer[i]) && ('\n' == buffer[i + 1])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void require(int count) throws IOException {
+        while (end - start < count) {
+            if (!fill()) {
+                throw new HttpException("Multipart body ended after a boundary");
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more after them.
+     *
+     * @return Returns false if the stream has ended or the buffer is full.
+     */
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (endOfStream || (end == buffer.length)) {
+            return false;
+        }
+        int count = in.read(buffer, end, buffer.length - end);
+        if (count < 0) {
+            endOfStream = true;
+            return false;
+        }
+        end += count;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("partCount", partCount).add("finished", finished).toString();
+    }
+
+    /**
+     * Mutable builder for creating instances of {@link MultipartReader}.
+     */
+    public static class Builder {
+
+        private final InputStream in;
+        private final String boundary;
+        private int memoryThreshold = 64 * 1024;
+        private Path spillDirectory;
+        private int maxHeaderSize = 8 * 1024;
+        private int maxPartCount = 1000;
+
+        private Builder(InputStream in, String boundary) {
+            if (null == in) {
+                throw new IllegalArgumentException("The input stream must be set");
+            }
+            if ((null == boundary) || boundary.isEmpty() || (boundary.length() > 70)) {
+                throw new IllegalArgumentException("The boundary must be 1 to 70 characters: " + boundary);
+            }
+            this.in = in;
+            this.boundary = boundary;
+        }
+
+        public MultipartReader build() {
+            return new MultipartReader(this);
+        }
+
+        /**
+         * Sets the largest part kept in memory. Larger parts are spilled to disk. Defaults to 64 KiB.
+         *
+         * @param memoryThreshold The threshold in bytes.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMemoryThreshold(int memoryThreshold) {
+            if (memoryThreshold < 0) {
+                throw new IllegalArgumentException("The memory threshold must not be negative");
+            }
+            this.memoryThreshold = memoryThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the directory of spill files. Defaults to the default temporary directory.
+         *
+         * @param spillDirectory The directory, or null for the default.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setSpillDirectory(Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of the headers of one part. Defaults to 8 KiB.
+         *
+         * @param maxHeaderSize The size in bytes, at most half of the 16 KiB read buffer.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxHeaderSize(int maxHeaderSize) {
+            if ((maxHeaderSize <= 0) || (maxHeaderSize > BUFFER_SIZE / 2)) {
+                throw new IllegalArgumentException("The maximum header size must be between 1 and " + BUFFER_SIZE / 2);
+            }
+            this.maxHeaderSize = maxHeaderSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of parts. Defaults to 1000.
+         *
+         * @param maxPartCount The number of parts.
+         *
+         * @return Returns this {@link Builder}.
+         */
+        public Builder setMaxPartCount(int maxPartCount) {
+            if (maxPartCount <= 0) {
+                throw new IllegalArgumentException("The maximum part count must be positive");
+            }
+            this.maxPartCount = maxPartCount;
+            return this;
+        }
+    }
+
+}
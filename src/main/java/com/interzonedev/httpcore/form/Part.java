@@ -0,0 +1,254 @@
+package com.interzonedev.httpcore.form;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ContentTypes;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Immutable part of a {@link MultipartForm}: a text field, or a file with its file name, each with its own headers and
+ * content. The name and file name come from the Content-Disposition header of the part.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Part {
+
+    static final String CONTENT_DISPOSITION = "Content-Disposition";
+
+    private final String name;
+    private final String filename;
+    private final HttpHeaders headers;
+    private final Body content;
+
+    private Part(String name, String filename, HttpHeaders headers, Body content) {
+        this.name = name;
+        this.filename = filename;
+        this.headers = headers;
+        this.content = content;
+    }
+
+    /**
+     * Creates a text field encoded as UTF-8.
+     *
+     * @param name The name of the field.
+     * @param value The value of the field.
+     *
+     * @return Returns the new {@link Part}.
+     */
+    public static Part field(String name, String value) {
+        HttpHeaders headers = HttpHeaders.newBuilder().add(CONTENT_DISPOSITION, disposition(name, null)).build();
+        return new Part(name, null, headers, Body.of(value, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a file part.
+     *
+     * @param name The name of the field.
+     * @param filename The name of the file.
+     * @param contentType The Content-Type of the file, {@code application/octet-stream} if null.
+     * @param content The content of the file.
+     *
+     * @return Returns the new {@link Part}.
+     */
+    public static Part file(String name, String filename, String contentType, Body content) {
+        if (null == filename) {
+            throw new IllegalArgumentException("The file name must be set");
+        }
+        HttpHeaders headers = HttpHeaders.newBuilder().add(CONTENT_DISPOSITION, disposition(name, filename))
+                .add(ContentTypes.CONTENT_TYPE, (null != contentType) ? contentType : "application/octet-stream")
+                .build();
+        return new Part(name, filename, headers, content);
+    }
+
+    /**
+     * Creates a part from its headers, taking the name and file name from its Content-Disposition header.
+     *
+     * @param headers The headers of the part.
+     * @param content The content of the part.
+     *
+     * @return Returns the new {@link Part}.
+     *
+     * @throws HttpException Thrown if there is no Content-Disposition header with a name.
+     */
+    public static Part of(HttpHeaders headers, Body content) {
+        String disposition = headers.getFirst(CONTENT_DISPOSITION);
+        String name = (null != disposition) ? parameterOf(disposition, "name") : null;
+        if (null == name) {
+            throw new HttpException("Multipart part without a Content-Disposition name: " + disposition);
+        }
+        String filename = parameterOf(disposition, "filename*");
+        if (null != filename) {
+            filename = decodeExtendedValue(filename);
+        }
+        if (null == filename) {
+            filename = parameterOf(disposition, "filename");
+        }
+        return new Part(name, filename, headers, content);
+    }
+
+    /**
+     * Builds a Content-Disposition value, escaping quotes and line breaks in names the way browsers do.
+     */
+    private static String disposition(String name, String filename) {
+        if (null == name) {
+            throw new IllegalArgumentException("The name must be set");
+        }
+        StringBuilder value = new StringBuilder(32 + name.length()).append("form-data; name=\"");
+        appendEscaped(value, name);
+        value.append('"');
+        if (null != filename) {
+            value.append("; filename=\"");
+            appendEscaped(value, filename);
+            value.append('"');
+        }
+        return value.toString();
+    }
+
+    private static void appendEscaped(StringBuilder value, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ('"' == c) {
+                value.append("%22");
+            } else if ('\r' == c) {
+                value.append("%0D");
+            } else if ('\n' == c) {
+                value.append("%0A");
+            } else {
+                value.append(c);
+            }
+        }
+    }
+
+    /**
+     * Gets the value of the specified parameter of a header value such as {@code form-data; name="a"}, unquoting it.
+     */
+    static String parameterOf(String headerValue, String parameter) {
+        int length = headerValue.length();
+        int i = headerValue.indexOf(';');
+        while ((i >= 0) && (i < length)) {
+            i++;
+            while ((i < length) && ((' ' == headerValue.charAt(i)) || ('\t' == headerValue.charAt(i)))) {
+                i++;
+            }
+            int nameStart = i;
+            while ((i < length) && ('=' != headerValue.charAt(i)) && (';' != headerValue.charAt(i))) {
+                i++;
+            }
+            String name = headerValue.substring(nameStart, i).trim();
+            if ((i >= length) || (';' == headerValue.charAt(i))) {
+                continue;
+            }
+            i++;
+
+            String value;
+            if ((i < length) && ('"' == headerValue.charAt(i))) {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while ((i < length) && ('"' != headerValue.charAt(i))) {
+                    char c = headerValue.charAt(i);
+                    if (('\\' == c) && (i + 1 < length)) {
+                        c = headerValue.charAt(++i);
+                    }
+                    quoted.append(c);
+                    i++;
+                }
+                value = quoted.toString();
+                i = headerValue.indexOf(';', i);
+            } else {
+                int end = headerValue.indexOf(';', i);
+                value = headerValue.substring(i, (end >= 0) ? end : length).trim();
+                i = end;
+            }
+            if (name.equalsIgnoreCase(parameter)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes an RFC 8187 extended value such as {@code UTF-8''na%C3%AFve.txt}, or returns null if it is malformed.
+     */
+    private static String decodeExtendedValue(String value) {
+        int firstQuote = value.indexOf('\'');
+        int secondQuote = (firstQuote >= 0) ? value.indexOf('\'', firstQuote + 1) : -1;
+        if (secondQuote < 0) {
+            return null;
+        }
+        Charset charset = ContentTypes.charsetOf("text/plain; charset=" + value.substring(0, firstQuote));
+        if (null == charset) {
+            return null;
+        }
+        return UrlEncodedForm.percentDecode(value.substring(secondQuote + 1), charset);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Returns the file name, or null if the part is a text field.
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isFile() {
+        return null != filename;
+    }
+
+    /**
+     * @return Returns the Content-Type of the part, or null if it has none.
+     */
+    public String getContentType() {
+        return headers.getFirst(ContentTypes.CONTENT_TYPE);
+    }
+
+    public HttpHeaders getHttpHeaders() {
+        return headers;
+    }
+
+    public Body getContent() {
+        return content;
+    }
+
+    /**
+     * Decodes the content with the charset of the Content-Type of the part, or UTF-8 if it names none.
+     *
+     * @return Returns the content as text.
+     */
+    public String getText() {
+        Charset charset = ContentTypes.charsetOf(getContentType());
+        return content.asString((null != charset) ? charset : StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name, filename, headers, content);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Part)) {
+            return false;
+        }
+        Part that = (Part) obj;
+        return Objects.equal(name, that.name) && Objects.equal(filename, that.filename)
+                && Objects.equal(headers, that.headers) && Objects.equal(content, that.content);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("name", name).add("filename", filename).add("headers", headers)
+                .add("content", content).toString();
+    }
+
+}
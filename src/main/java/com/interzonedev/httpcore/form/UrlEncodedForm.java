@@ -0,0 +1,300 @@
+package com.interzonedev.httpcore.form;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ContentTypes;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Codec for {@code application/x-www-form-urlencoded} bodies, which carry parameters as {@code name=value} pairs
+ * joined by {@code &}, with spaces as {@code +} and other reserved bytes percent-encoded.
+ *
+ * <p>
+ * Decoding reads the body one field at a time through a fixed transfer buffer, so memory is bounded by the longest
+ * field rather than by the body. Fields longer than the field length limit, or more fields than the field count limit,
+ * fail with an {@link HttpException}. A field without an equals sign is decoded as a parameter with a null value, and
+ * invalid percent escapes are kept literally.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class UrlEncodedForm {
+
+    /**
+     * The media type of form bodies.
+     */
+    public static final String MEDIA_TYPE = "application/x-www-form-urlencoded";
+
+    /**
+     * The default maximum length of one encoded field, 1 MiB.
+     */
+    public static final int DEFAULT_MAX_FIELD_LENGTH = 1 << 20;
+
+    /**
+     * The default maximum number of fields.
+     */
+    public static final int DEFAULT_MAX_FIELD_COUNT = 10000;
+
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private UrlEncodedForm() {
+    }
+
+    /**
+     * Determines whether the specified Content-Type value names a form body.
+     *
+     * @param contentType The raw Content-Type value, or null.
+     *
+     * @return Returns true if the media type is {@value #MEDIA_TYPE}, in any case and with any parameters.
+     */
+    public static boolean isForm(String contentType) {
+        return hasMediaType(contentType, MEDIA_TYPE);
+    }
+
+    /**
+     * Determines whether the media type of the specified Content-Type value, without its parameters, is the specified
+     * one, ignoring case.
+     */
+    static boolean hasMediaType(String contentType, String mediaType) {
+        if (null == contentType) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon >= 0) ? contentType.substring(0, semicolon) : contentType;
+        return mediaType.equalsIgnoreCase(type.trim());
+    }
+
+    /**
+     * Encodes the specified parameters as a form body.
+     *
+     * @param parameters The parameters to encode.
+     * @param charset The {@link Charset} of names and values before percent-encoding, UTF-8 if null.
+     *
+     * @return Returns the encoded {@link Body}.
+     */
+    public static Body encode(HttpParameters parameters, Charset charset) {
+        return Body.of(encodeToString(parameters, charset), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the specified parameters as a form body to the specified stream, one field at a time. The stream is
+     * neither flushed nor closed.
+     *
+     * @param parameters The parameters to encode.
+     * @param charset The {@link Charset} of names and values before percent-encoding, UTF-8 if null.
+     * @param out The stream to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws IOException Thrown if writing to the stream fails.
+     */
+    public static long writeTo(HttpParameters parameters, Charset charset, OutputStream out) throws IOException {
+        Charset effective = (null != charset) ? charset : StandardCharsets.UTF_8;
+        StringBuilder field = new StringBuilder(64);
+        long written = 0L;
+        for (int i = 0; i < parameters.size(); i++) {
+            String name = URLEncoder.encode(parameters.getName(i), effective);
+            for (String value : parameters.getValues(i)) {
+                field.setLength(0);
+                if (written > 0L) {
+                    field.append('&');
+                }
+                appendField(field, name, value, effective);
+                byte[] bytes = field.toString().getBytes(StandardCharsets.US_ASCII);
+                out.write(bytes);
+                written += bytes.length;
+            }
+        }
+        return written;
+    }
+
+    private static String encodeToString(HttpParameters parameters, Charset charset) {
+        Charset effective = (null != charset) ? charset : StandardCharsets.UTF_8;
+        StringBuilder form = new StringBuilder(16 * parameters.valueCount());
+        for (int i = 0; i < parameters.size(); i++) {
+            String name = URLEncoder.encode(parameters.getName(i), effective);
+            for (String value : parameters.getValues(i)) {
+                if (form.length() > 0) {
+                    form.append('&');
+                }
+                appendField(form, name, value, effective);
+            }
+        }
+        return form.toString();
+    }
+
+    private static void appendField(StringBuilder field, String encodedName, String value, Charset charset) {
+        field.append(encodedName);
+        if (null != value) {
+            field.append('=').append(URLEncoder.encode(value, charset));
+        }
+    }
+
+    /**
+     * Decodes a form body with the default limits.
+     *
+     * @param body The body to decode.
+     * @param charset The {@link Charset} of names and values after percent-decoding, UTF-8 if null.
+     *
+     * @return Returns the decoded parameters in order.
+     *
+     * @throws HttpException Thrown if a limit is exceeded.
+     */
+    public static HttpParameters decode(Body body, Charset charset) {
+        try (InputStream in = body.openStream()) {
+            return decode(in, charset, DEFAULT_MAX_FIELD_LENGTH, DEFAULT_MAX_FIELD_COUNT);
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading form body", ioe);
+        }
+    }
+
+    /**
+     * Decodes a form body from the specified stream, reading it to the end. The stream is not closed.
+     *
+     * @param in The stream holding the body.
+     * @param charset The {@link Charset} of names and values after percent-decoding, UTF-8 if null.
+     * @param maxFieldLength The maximum length of one encoded field, in bytes.
+     * @param maxFieldCount The maximum number of fields.
+     *
+     * @return Returns the decoded parameters in order.
+     *
+     * @throws IOException Thrown if reading from the stream fails.
+     * @throws HttpException Thrown if a limit is exceeded.
+     */
+    public static HttpParameters decode(InputStream in, Charset charset, int maxFieldLength, int maxFieldCount)
+            throws IOException {
+        Charset effective = (null != charset) ? charset : StandardCharsets.UTF_8;
+        HttpParameters.Builder parameters = HttpParameters.newBuilder();
+        byte[] transfer = new byte[TRANSFER_BUFFER_SIZE];
+        byte[] field = new byte[Math.min(256, maxFieldLength)];
+        int fieldLength = 0;
+        int fieldCount = 0;
+
+        while (true) {
+            int count = in.read(transfer);
+            if (count < 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                byte b = transfer[i];
+                if ('&' == b) {
+                    fieldCount = addField(parameters, field, fieldLength, effective, fieldCount, maxFieldCount);
+                    fieldLength = 0;
+                    continue;
+                }
+                if (fieldLength == field.length) {
+                    if (fieldLength >= maxFieldLength) {
+                        throw new HttpException("Form field longer than " + maxFieldLength + " bytes");
+                    }
+                    field = Arrays.copyOf(field, (int) Math.min((long) fieldLength * 2L, maxFieldLength));
+                }
+                field[fieldLength++] = b;
+            }
+        }
+        addField(parameters, field, fieldLength, effective, fieldCount, maxFieldCount);
+
+        return parameters.build();
+    }
+
+    private static int addField(HttpParameters.Builder parameters, byte[] field, int length, Charset charset,
+            int fieldCount, int maxFieldCount) {
+        if (0 == length) {
+            return fieldCount;
+        }
+        if (fieldCount >= maxFieldCount) {
+            throw new HttpException("Form has more than " + maxFieldCount + " fields");
+        }
+
+        int equals = 0;
+        while ((equals < length) && ('=' != field[equals])) {
+            equals++;
+        }
+        String name = decodeField(field, 0, equals, charset, true);
+        String value = (equals < length) ? decodeField(field, equals + 1, length, charset, true) : null;
+        parameters.add(name, value);
+        return fieldCount + 1;
+    }
+
+    /**
+     * Percent-decodes the specified text, leaving {@code +} as is, and decodes the resulting bytes as text.
+     */
+    static String percentDecode(String text, Charset charset) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        return decodeField(bytes, 0, bytes.length, charset, false);
+    }
+
+    /**
+     * Percent-decodes the specified range in place and decodes the resulting bytes as text.
+     */
+    private static String decodeField(byte[] bytes, int start, int end, Charset charset, boolean plusIsSpace) {
+        int out = start;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (plusIsSpace && ('+' == b)) {
+                bytes[out++] = ' ';
+            } else if (('%' == b) && (i + 2 < end) && (hexValue(bytes[i + 1]) >= 0) && (hexValue(bytes[i + 2]) >= 0)) {
+                bytes[out++] = (byte) ((hexValue(bytes[i + 1]) << 4) | hexValue(bytes[i + 2]));
+                i += 2;
+            } else {
+                bytes[out++] = b;
+            }
+        }
+        return new String(bytes, start, out - start, charset);
+    }
+
+    private static int hexValue(byte b) {
+        return Character.digit((char) b, 16);
+    }
+
+    /**
+     * Gets a copy of the specified {@link Request} whose body is its parameters encoded as a form, with a matching
+     * Content-Type header and no parameters left to send separately.
+     *
+     * @param request The {@link Request} whose parameters to encode.
+     *
+     * @return Returns the new {@link Request}.
+     */
+    public static Request encodeParameters(Request request) {
+        return Request.newBuilder(request).setEntity(encode(request.getHttpParameters(), StandardCharsets.UTF_8))
+                .setHeader(ContentTypes.CONTENT_TYPE, MEDIA_TYPE).setHttpParameters(HttpParameters.of()).build();
+    }
+
+    /**
+     * Gets a copy of the specified {@link Request} whose parameters are followed by those decoded from its form body,
+     * if it has one. The body is kept. A {@link Request} without a form body is returned as is.
+     *
+     * @param request The {@link Request} whose body to decode.
+     *
+     * @return Returns the {@link Request} with the form fields among its parameters.
+     *
+     * @throws HttpException Thrown if a limit is exceeded.
+     */
+    public static Request decodeParameters(Request request) {
+        String contentType = request.getHttpHeaders().getFirst(ContentTypes.CONTENT_TYPE);
+        if (!isForm(contentType) || (null == request.getEntity())) {
+            return request;
+        }
+
+        HttpParameters fields = decode(request.getEntity(), ContentTypes.charsetOf(contentType));
+        if (fields.isEmpty()) {
+            return request;
+        }
+        Request.Builder builder = Request.newBuilder(request);
+        for (int i = 0; i < fields.size(); i++) {
+            for (String value : fields.getValues(i)) {
+                builder.addParameter(fields.getName(i), value);
+            }
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.interzonedev.httpcore.servlet;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.HttpUrl;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Adapts {@link HttpServletRequest} to {@link Request}. The URL and method are read up front; the headers, parameters
+ * and body are read from the servlet request only when the {@link Request} is first asked for them, so the parts a
+ * handler never touches are never copied.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ServletRequests {
+
+    private ServletRequests() {
+    }
+
+    /**
+     * Creates a lazily materialized {@link Request} view of the specified servlet request. The view must be
+     * materialized while the servlet request is still in scope, that is, before the servlet's service method returns.
+     *
+     * <p>
+     * The parameters come from {@link HttpServletRequest#getParameterMap()}, which for a form post reads the body. Use
+     * either the parameters or the body of such a request, not both. The values of the query string, which the map
+     * lists first, are left out, since they are already in the URL; {@link Request#getMergedParameters()} gives both.
+     * The body is spooled from the input stream, and is null when the request declares no content. An unsupported
+     * method yields a null method.
+     * </p>
+     *
+     * @param servletRequest The servlet request to adapt.
+     *
+     * @return Returns a {@link Request} backed by the specified servlet request.
+     */
+    public static Request view(HttpServletRequest servletRequest) {
+        return Request.newBuilder().setUrl(urlOf(servletRequest)).setMethod(Method.lookup(servletRequest.getMethod()))
+                .setLazyHeaders(() -> headersOf(servletRequest))
+                .setLazyParameters(() -> parametersOf(servletRequest))
+                .setLazyEntity(() -> bodyOf(servletRequest)).build();
+    }
+
+    private static String urlOf(HttpServletRequest servletRequest) {
+        StringBuffer url = servletRequest.getRequestURL();
+        if (null == url) {
+            return servletRequest.getRequestURI();
+        }
+        String query = servletRequest.getQueryString();
+        if (null != query) {
+            url.append('?').append(query);
+        }
+        return url.toString();
+    }
+
+    private static HttpHeaders headersOf(HttpServletRequest servletRequest) {
+        Enumeration<String> names = servletRequest.getHeaderNames();
+        if ((null == names) || !names.hasMoreElements()) {
+            return HttpHeaders.of();
+        }
+
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            Enumeration<String> values = servletRequest.getHeaders(name);
+            if (null == values) {
+                continue;
+            }
+            while (values.hasMoreElements()) {
+                headers.add(name, values.nextElement());
+            }
+        }
+        return headers.build();
+    }
+
+    private static HttpParameters parametersOf(HttpServletRequest servletRequest) {
+        Map<String, String[]> parameterMap = servletRequest.getParameterMap();
+        if ((null == parameterMap) || parameterMap.isEmpty()) {
+            return HttpParameters.of();
+        }
+
+        String queryString = servletRequest.getQueryString();
+        HttpParameters query = (null != queryString) ? HttpUrl.parse("?" + queryString).getQueryParameters()
+                : HttpParameters.of();
+
+        HttpParameters.Builder parameters = HttpParameters.newBuilder();
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            String[] values = entry.getValue();
+            if (null == values) {
+                continue;
+            }
+            for (int i = queryValueCount(query.getAll(entry.getKey()), values); i < values.length; i++) {
+                parameters.add(entry.getKey(), values[i]);
+            }
+        }
+        return parameters.build();
+    }
+
+    /**
+     * Counts the leading servlet values of a parameter that came from the query string. A query parameter without a
+     * value has an empty servlet value.
+     */
+    private static int queryValueCount(List<String> queryValues, String[] values) {
+        int count = 0;
+        while ((count < queryValues.size()) && (count < values.length)) {
+            String queryValue = queryValues.get(count);
+            if (!((null != queryValue) ? queryValue : "").equals(values[count])) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static Body bodyOf(HttpServletRequest servletRequest) {
+        long contentLength = servletRequest.getContentLengthLong();
+        boolean chunked = null != servletRequest.getHeader("Transfer-Encoding");
+        if ((0L == contentLength) || ((contentLength < 0L) && !chunked)) {
+            return null;
+        }
+
+        try {
+            return Body.spool(servletRequest.getInputStream());
+        } catch (IOException ioe) {
+            throw new HttpException("Error reading the servlet request body", ioe);
+        }
+    }
+
+}
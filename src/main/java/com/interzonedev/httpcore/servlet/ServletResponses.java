@@ -0,0 +1,130 @@
+package com.interzonedev.httpcore.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Adapts between {@link HttpServletResponse} and {@link Response}: a lazily materialized {@link Response} view of a
+ * servlet response, and a fast path for writing a {@link Response} to a servlet response.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class ServletResponses {
+
+    private ServletResponses() {
+    }
+
+    /**
+     * Creates a {@link Response} view of the headers and status set so far on the specified servlet response. The
+     * status, content type, content length and locale are read up front; the headers are read when the
+     * {@link Response} is first asked for them. The servlet API cannot read back cookies or content, so the view has
+     * neither.
+     *
+     * @param servletResponse The servlet response to adapt.
+     *
+     * @return Returns a {@link Response} backed by the specified servlet response.
+     */
+    public static Response view(HttpServletResponse servletResponse) {
+        return Response.newBuilder().setStatus(servletResponse.getStatus())
+                .setContentType(servletResponse.getContentType())
+                .setContentLength(contentLengthOf(servletResponse.getHeader("Content-Length")))
+                .setLocale(servletResponse.getLocale())
+                .setLazyHeaders(() -> headersOf(servletResponse)).build();
+    }
+
+    /**
+     * Writes the specified {@link Response} to the specified servlet response: status, content type, locale, headers,
+     * cookies, then the content, straight from the bytes of its {@link Body}. Content-Length and Transfer-Encoding
+     * headers are not copied, since the content length is set from the {@link Body} and the container frames the
+     * content itself. A Content-Type header is not copied when the content type is set. The output stream is flushed
+     * but not closed, so the container can still complete the response.
+     *
+     * @param response The {@link Response} to write.
+     * @param servletResponse The servlet response to write to. It must not have been committed.
+     *
+     * @return Returns the number of content bytes written.
+     *
+     * @throws IOException Thrown if writing the content fails.
+     */
+    public static long write(Response response, HttpServletResponse servletResponse) throws IOException {
+        servletResponse.setStatus(response.getStatus());
+        if (null != response.getContentType()) {
+            servletResponse.setContentType(response.getContentType());
+        }
+        if (null != response.getLocale()) {
+            servletResponse.setLocale(response.getLocale());
+        }
+
+        boolean contentTypeSet = null != response.getContentType();
+        HttpHeaders headers = response.getHttpHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.getName(i);
+            if (isFramingHeader(name) || (contentTypeSet && "Content-Type".equalsIgnoreCase(name))) {
+                continue;
+            }
+            List<String> values = headers.getValues(i);
+            for (int j = 0; j < values.size(); j++) {
+                servletResponse.addHeader(name, values.get(j));
+            }
+        }
+
+        Map<String, Cookie> cookies = response.getCookies();
+        if (null != cookies) {
+            for (Cookie cookie : cookies.values()) {
+                servletResponse.addCookie(cookie);
+            }
+        }
+
+        Body entity = response.getEntity();
+        if (null == entity) {
+            return 0L;
+        }
+        servletResponse.setContentLengthLong(entity.length());
+        OutputStream out = servletResponse.getOutputStream();
+        long written = entity.writeTo(out);
+        out.flush();
+        return written;
+    }
+
+    private static boolean isFramingHeader(String name) {
+        return "Content-Length".equalsIgnoreCase(name) || "Transfer-Encoding".equalsIgnoreCase(name);
+    }
+
+    private static long contentLengthOf(String value) {
+        if (null == value) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException nfe) {
+            return 0L;
+        }
+    }
+
+    private static HttpHeaders headersOf(HttpServletResponse servletResponse) {
+        Collection<String> names = servletResponse.getHeaderNames();
+        if ((null == names) || names.isEmpty()) {
+            return HttpHeaders.of();
+        }
+
+        HttpHeaders.Builder headers = HttpHeaders.newBuilder();
+        for (String name : names) {
+            Collection<String> values = servletResponse.getHeaders(name);
+            if (null != values) {
+                headers.add(name, values);
+            }
+        }
+        return headers.build();
+    }
+
+}
@@ -0,0 +1,505 @@
+package com.interzonedev.httpcore.wire;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.BodySpooler;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Incremental HTTP/1.1 message parser. Bytes are fed in as they arrive, in buffers of any size, and a message is
+ * returned once it is complete. Bytes past the end of a message are left in the buffer for the next call, so
+ * pipelined messages on one connection are parsed one after the other with the same parser.
+ *
+ * <p>
+ * Start lines and header lines are accumulated into a reusable line buffer. Known header names are looked up from
+ * their bytes, so only header values and unusual names allocate. Bodies framed by Content-Length or by chunked
+ * transfer coding are collected in a {@link BodySpooler}, so large bodies spill to a file instead of the heap.
+ * Malformed messages and messages that exceed the limits fail with an {@link HttpException}.
+ * </p>
+ *
+ * <p>
+ * A parser holds the state of one connection and is not thread-safe.
+ * </p>
+ *
+ * @param <T> The type of message parsed.
+ *
+ * @author mark@interzonedev.com
+ */
+public abstract class Http1Parser<T> {
+
+    /**
+     * Default limit on the length of the start line and of each header line, in bytes.
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 8 * 1024;
+
+    /**
+     * Default limit on the number of header and trailer lines of a message.
+     */
+    public static final int DEFAULT_MAX_HEADER_COUNT = 100;
+
+    /**
+     * Default limit on the length of a body, in bytes.
+     */
+    public static final long DEFAULT_MAX_BODY_LENGTH = 64L * 1024L * 1024L;
+
+    private static final byte CR = '\r';
+
+    private static final byte LF = '\n';
+
+    private static final byte[] HTTP_1_1 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HTTP_1_0 = "HTTP/1.0".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * What the parser expects next.
+     */
+    enum State {
+        START_LINE, HEADER_LINE, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER_LINE, BODY_UNTIL_CLOSE
+    }
+
+    private final int maxLineLength;
+    private final int maxHeaderCount;
+    private final long maxBodyLength;
+
+    private State state = State.START_LINE;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private int headerCount;
+    private HttpHeaders.Builder headers;
+    private BodySpooler body;
+    private long remaining;
+
+    /**
+     * Creates a parser with the specified limits.
+     *
+     * @param maxLineLength The maximum length of the start line and of each header line, in bytes.
+     * @param maxHeaderCount The maximum number of header and trailer lines of a message.
+     * @param maxBodyLength The maximum length of a body, in bytes.
+     */
+    Http1Parser(int maxLineLength, int maxHeaderCount, long maxBodyLength) {
+        if ((maxLineLength < 16) || (maxHeaderCount < 0) || (maxBodyLength < 0L)) {
+            throw new IllegalArgumentException("Invalid parser limits");
+        }
+        this.maxLineLength = maxLineLength;
+        this.maxHeaderCount = maxHeaderCount;
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    /**
+     * Consumes bytes from the position of the specified buffer until a message is complete or the buffer is empty.
+     *
+     * @param in The buffer to read from. Its position is advanced past the consumed bytes.
+     *
+     * @return Returns the message if it is now complete, or null if more bytes are needed.
+     */
+    public T parse(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            switch (state) {
+                case START_LINE:
+                    if (!readLine(in)) {
+                        return null;
+                    }
+                    if (0 == lineLength) {
+                        // RFC 7230 section 3.5 allows empty lines before a start line.
+                        continue;
+                    }
+                    startMessage(line, lineLength);
+                    lineLength = 0;
+                    headers = HttpHeaders.newBuilder();
+                    headerCount = 0;
+                    state = State.HEADER_LINE;
+                    break;
+                case HEADER_LINE:
+                    if (!readLine(in)) {
+                        return null;
+                    }
+                    if (0 == lineLength) {
+                        if (startBody()) {
+                            return complete();
+                        }
+                    } else {
+                        addHeaderLine();
+                    }
+                    break;
+                case FIXED_BODY:
+                    copyBody(in);
+                    if (0L == remaining) {
+                        return complete();
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (!readLine(in)) {
+                        return null;
+                    }
+                    remaining = parseChunkSize();
+                    if (0L == remaining) {
+                        state = State.TRAILER_LINE;
+                    } else {
+                        checkBodyLength(body.length() + remaining);
+                        state = State.CHUNK_DATA;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    copyBody(in);
+                    if (0L == remaining) {
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (!readLine(in)) {
+                        return null;
+                    }
+                    if (0 != lineLength) {
+                        throw new HttpException("Chunk data not followed by CRLF");
+                    }
+                    state = State.CHUNK_SIZE;
+                    break;
+                case TRAILER_LINE:
+                    if (!readLine(in)) {
+                        return null;
+                    }
+                    if (0 == lineLength) {
+                        return complete();
+                    }
+                    addHeaderLine();
+                    break;
+                case BODY_UNTIL_CLOSE:
+                    remaining = in.remaining();
+                    checkBodyLength(body.length() + remaining);
+                    copyBody(in);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown parser state: " + state);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Signals that the connection was closed. A message whose body is delimited by the end of the connection is
+     * complete; a message cut off anywhere else is an error.
+     *
+     * @return Returns the message completed by the end of input, or null if no message was in progress.
+     */
+    public T endOfInput() {
+        if (State.BODY_UNTIL_CLOSE == state) {
+            return complete();
+        }
+        if ((State.START_LINE == state) && (0 == lineLength)) {
+            return null;
+        }
+        State interrupted = state;
+        reset();
+        throw new HttpException("Connection closed inside a message while expecting " + interrupted);
+    }
+
+    /**
+     * Discards any partly parsed message, so the parser can be reused for a new connection.
+     */
+    public void reset() {
+        state = State.START_LINE;
+        lineLength = 0;
+        headerCount = 0;
+        headers = null;
+        body = null;
+        remaining = 0L;
+    }
+
+    /**
+     * Parses the start line of a new message.
+     *
+     * @param bytes The bytes of the start line, without the line ending.
+     * @param length The length of the start line.
+     */
+    abstract void startMessage(byte[] bytes, int length);
+
+    /**
+     * Decides whether the message has a body in the absence of Transfer-Encoding and Content-Length.
+     *
+     * @return Returns true if the body extends to the end of the connection.
+     */
+    abstract boolean readsUntilClose();
+
+    /**
+     * Decides whether the message can have a body at all, regardless of its framing headers.
+     *
+     * @return Returns true if the message may have a body.
+     */
+    abstract boolean mayHaveBody();
+
+    /**
+     * Creates the message from its parsed parts.
+     *
+     * @param headers The headers of the message, including any trailers.
+     * @param body The body of the message or null if it has none.
+     *
+     * @return Returns the message.
+     */
+    abstract T build(HttpHeaders headers, Body body);
+
+    /**
+     * Checks that the specified bytes are a supported HTTP version.
+     */
+    static void checkVersion(byte[] bytes, int offset, int length) {
+        if (!(regionEquals(bytes, offset, length, HTTP_1_1) || regionEquals(bytes, offset, length, HTTP_1_0))) {
+            throw new HttpException("Unsupported HTTP version: " + latin1(bytes, offset, length));
+        }
+    }
+
+    static String latin1(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    static int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(byte[] bytes, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accumulates bytes up to and including the next LF into the line buffer. The line ending, LF or CRLF, is not
+     * kept.
+     *
+     * @return Returns true if a whole line has been read.
+     */
+    private boolean readLine(ByteBuffer in) {
+        int limit = in.limit();
+        int position = in.position();
+        int end = position;
+        boolean found = false;
+        if (in.hasArray()) {
+            byte[] array = in.array();
+            int base = in.arrayOffset();
+            while (end < limit) {
+                if (LF == array[base + end]) {
+                    found = true;
+                    break;
+                }
+                end++;
+            }
+        } else {
+            while (end < limit) {
+                if (LF == in.get(end)) {
+                    found = true;
+                    break;
+                }
+                end++;
+            }
+        }
+
+        int count = end - position;
+        if (lineLength + count > maxLineLength) {
+            throw new HttpException("Line longer than " + maxLineLength + " bytes");
+        }
+        if (lineLength + count > line.length) {
+            line = Arrays.copyOf(line, Math.min(maxLineLength, Math.max(lineLength + count, 2 * line.length)));
+        }
+        in.get(line, lineLength, count);
+        lineLength += count;
+
+        if (!found) {
+            return false;
+        }
+
+        in.get();
+        if ((lineLength > 0) && (CR == line[lineLength - 1])) {
+            lineLength--;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the header line in the line buffer to the headers and clears the line buffer for the next line.
+     */
+    private void addHeaderLine() {
+        if (++headerCount > maxHeaderCount) {
+            throw new HttpException("More than " + maxHeaderCount + " header lines");
+        }
+
+        byte first = line[0];
+        if ((' ' == first) || ('\t' == first)) {
+            throw new HttpException("Obsolete header line folding is not supported");
+        }
+
+        int colon = indexOf(line, 0, lineLength, (byte) ':');
+        if (colon <= 0) {
+            throw new HttpException("Malformed header line: " + latin1(line, 0, lineLength));
+        }
+        byte last = line[colon - 1];
+        if ((' ' == last) || ('\t' == last)) {
+            throw new HttpException("Whitespace before the colon of a header line");
+        }
+
+        String name = KnownHeaderNames.lookup(line, 0, colon);
+        if (null == name) {
+            name = latin1(line, 0, colon);
+        }
+
+        int valueStart = colon + 1;
+        int valueEnd = lineLength;
+        while ((valueStart < valueEnd) && ((' ' == line[valueStart]) || ('\t' == line[valueStart]))) {
+            valueStart++;
+        }
+        while ((valueEnd > valueStart) && ((' ' == line[valueEnd - 1]) || ('\t' == line[valueEnd - 1]))) {
+            valueEnd--;
+        }
+
+        headers.add(name, latin1(line, valueStart, valueEnd - valueStart));
+        lineLength = 0;
+    }
+
+    /**
+     * Chooses how the body is framed once the headers are complete.
+     *
+     * @return Returns true if the message has no body and is therefore complete.
+     */
+    private boolean startBody() {
+        lineLength = 0;
+        if (!mayHaveBody()) {
+            return true;
+        }
+
+        HttpHeaders received = headers.build();
+        headers = HttpHeaders.newBuilder(received);
+
+        List<String> transferCodings = received.getAll("Transfer-Encoding");
+        if (!transferCodings.isEmpty()) {
+            if (!isChunkedLast(transferCodings)) {
+                if (readsUntilClose()) {
+                    body = new BodySpooler();
+                    state = State.BODY_UNTIL_CLOSE;
+                    return false;
+                }
+                throw new HttpException("Request with a transfer coding other than chunked last");
+            }
+            body = new BodySpooler();
+            state = State.CHUNK_SIZE;
+            return false;
+        }
+
+        List<String> contentLengths = received.getAll("Content-Length");
+        if (!contentLengths.isEmpty()) {
+            long length = parseContentLength(contentLengths);
+            checkBodyLength(length);
+            body = new BodySpooler();
+            if (0L == length) {
+                return true;
+            }
+            remaining = length;
+            state = State.FIXED_BODY;
+            return false;
+        }
+
+        if (readsUntilClose()) {
+            body = new BodySpooler();
+            state = State.BODY_UNTIL_CLOSE;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the last of the specified Transfer-Encoding values ends with the chunked coding, the only
+     * arrangement in which chunked frames the body.
+     *
+     * @param transferCodings The values of the Transfer-Encoding headers, at least one.
+     *
+     * @return Returns true if chunked is the last transfer coding.
+     */
+    static boolean isChunkedLast(List<String> transferCodings) {
+        String last = transferCodings.get(transferCodings.size() - 1);
+        if (null == last) {
+            return false;
+        }
+        int comma = last.lastIndexOf(',');
+        return "chunked".equalsIgnoreCase(last.substring(comma + 1).trim());
+    }
+
+    /**
+     * Parses the Content-Length values, which may repeat only if they agree, per RFC 7230 section 3.3.2.
+     */
+    private static long parseContentLength(List<String> values) {
+        long length = -1L;
+        for (String value : values) {
+            for (String part : (null != value) ? value.split(",") : new String[]{""}) {
+                String trimmed = part.trim();
+                long parsed = -1L;
+                if (!trimmed.isEmpty() && (trimmed.length() <= 18) && trimmed.chars().allMatch(Character::isDigit)) {
+                    parsed = Long.parseLong(trimmed);
+                }
+                if ((parsed < 0L) || ((length >= 0L) && (parsed != length))) {
+                    throw new HttpException("Invalid Content-Length: " + values);
+                }
+                length = parsed;
+            }
+        }
+        return length;
+    }
+
+    private long parseChunkSize() {
+        int end = indexOf(line, 0, lineLength, (byte) ';');
+        if (end < 0) {
+            end = lineLength;
+        }
+        while ((end > 0) && ((' ' == line[end - 1]) || ('\t' == line[end - 1]))) {
+            end--;
+        }
+        if ((0 == end) || (end > 15)) {
+            throw new HttpException("Invalid chunk size: " + latin1(line, 0, lineLength));
+        }
+
+        long size = 0L;
+        for (int i = 0; i < end; i++) {
+            int digit = Character.digit(line[i], 16);
+            if (digit < 0) {
+                throw new HttpException("Invalid chunk size: " + latin1(line, 0, lineLength));
+            }
+            size = (size << 4) | digit;
+        }
+        lineLength = 0;
+        return size;
+    }
+
+    private void copyBody(ByteBuffer in) {
+        int count = (int) Math.min(remaining, in.remaining());
+        ByteBuffer slice = in.slice();
+        slice.limit(count);
+        body.write(slice);
+        in.position(in.position() + count);
+        remaining -= count;
+    }
+
+    private void checkBodyLength(long length) {
+        if (length > maxBodyLength) {
+            throw new HttpException("Body longer than " + maxBodyLength + " bytes");
+        }
+    }
+
+    private T complete() {
+        HttpHeaders completeHeaders = headers.build();
+        Body completeBody = (null != body) ? body.finish() : null;
+        reset();
+        return build(completeHeaders, completeBody);
+    }
+
+}
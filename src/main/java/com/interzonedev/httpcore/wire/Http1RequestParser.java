@@ -0,0 +1,73 @@
+package com.interzonedev.httpcore.wire;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+/**
+ * Incremental parser of HTTP/1.1 requests, as read by a server. The request target is used as the URL as is, in
+ * whichever form the client sent it. A request without Content-Length or chunked Transfer-Encoding has no body.
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Http1RequestParser extends Http1Parser<Request> {
+
+    private Method method;
+    private String target;
+
+    /**
+     * Creates a parser with the default limits.
+     */
+    public Http1RequestParser() {
+        this(DEFAULT_MAX_LINE_LENGTH, DEFAULT_MAX_HEADER_COUNT, DEFAULT_MAX_BODY_LENGTH);
+    }
+
+    /**
+     * Creates a parser with the specified limits.
+     *
+     * @param maxLineLength The maximum length of the request line and of each header line, in bytes.
+     * @param maxHeaderCount The maximum number of header and trailer lines of a request.
+     * @param maxBodyLength The maximum length of a request body, in bytes.
+     */
+    public Http1RequestParser(int maxLineLength, int maxHeaderCount, long maxBodyLength) {
+        super(maxLineLength, maxHeaderCount, maxBodyLength);
+    }
+
+    @Override
+    void startMessage(byte[] bytes, int length) {
+        int firstSpace = indexOf(bytes, 0, length, (byte) ' ');
+        int secondSpace = (firstSpace > 0) ? indexOf(bytes, firstSpace + 1, length, (byte) ' ') : -1;
+        if ((firstSpace <= 0) || (secondSpace <= firstSpace + 1)) {
+            throw new HttpException("Malformed request line: " + latin1(bytes, 0, length));
+        }
+
+        method = Method.lookup(bytes, 0, firstSpace);
+        if (null == method) {
+            throw new HttpException("Unsupported method: " + latin1(bytes, 0, firstSpace));
+        }
+        checkVersion(bytes, secondSpace + 1, length - secondSpace - 1);
+        target = latin1(bytes, firstSpace + 1, secondSpace - firstSpace - 1);
+    }
+
+    @Override
+    boolean mayHaveBody() {
+        return true;
+    }
+
+    @Override
+    boolean readsUntilClose() {
+        return false;
+    }
+
+    @Override
+    Request build(HttpHeaders headers, Body body) {
+        Request request = Request.newBuilder().setMethod(method).setUrl(target).setHttpHeaders(headers)
+                .setEntity(body).build();
+        method = null;
+        target = null;
+        return request;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.interzonedev.httpcore.wire;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Incremental parser of HTTP/1.1 responses, as read by a client. Whether a response has a body depends on the request
+ * it answers, so set the request with {@link #expect(Request)} before its response is parsed. A response without
+ * Content-Length or chunked Transfer-Encoding has a body that extends to the end of the connection, which is
+ * completed by {@link #endOfInput()}.
+ *
+ * <p>
+ * The reason phrase of the status line is not kept. The content type and content length of the {@link Response} are
+ * set from the Content-Type and Content-Length headers, or from the length of the received body.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Http1ResponseParser extends Http1Parser<Response> {
+
+    private Request request;
+    private int status;
+
+    /**
+     * Creates a parser with the default limits.
+     */
+    public Http1ResponseParser() {
+        this(DEFAULT_MAX_LINE_LENGTH, DEFAULT_MAX_HEADER_COUNT, DEFAULT_MAX_BODY_LENGTH);
+    }
+
+    /**
+     * Creates a parser with the specified limits.
+     *
+     * @param maxLineLength The maximum length of the status line and of each header line, in bytes.
+     * @param maxHeaderCount The maximum number of header and trailer lines of a response.
+     * @param maxBodyLength The maximum length of a response body, in bytes.
+     */
+    public Http1ResponseParser(int maxLineLength, int maxHeaderCount, long maxBodyLength) {
+        super(maxLineLength, maxHeaderCount, maxBodyLength);
+    }
+
+    /**
+     * Sets the request whose response is parsed next. It is attached to the parsed {@link Response}, and a HEAD
+     * request makes the response bodiless. Interim 1xx responses do not consume the request.
+     *
+     * @param request The {@link Request} the next response answers, or null if it is not known.
+     *
+     * @return Returns this parser.
+     */
+    public Http1ResponseParser expect(Request request) {
+        this.request = request;
+        return this;
+    }
+
+    @Override
+    void startMessage(byte[] bytes, int length) {
+        int firstSpace = indexOf(bytes, 0, length, (byte) ' ');
+        if ((firstSpace <= 0) || (length < firstSpace + 4)) {
+            throw new HttpException("Malformed status line: " + latin1(bytes, 0, length));
+        }
+        checkVersion(bytes, 0, firstSpace);
+
+        int code = 0;
+        for (int i = firstSpace + 1; i < firstSpace + 4; i++) {
+            int digit = bytes[i] - '0';
+            if ((digit < 0) || (digit > 9)) {
+                throw new HttpException("Malformed status code: " + latin1(bytes, 0, length));
+            }
+            code = code * 10 + digit;
+        }
+        if ((length > firstSpace + 4) && (' ' != bytes[firstSpace + 4])) {
+            throw new HttpException("Malformed status code: " + latin1(bytes, 0, length));
+        }
+        status = code;
+    }
+
+    @Override
+    boolean mayHaveBody() {
+        boolean head = (null != request) && (Method.HEAD == request.getMethod());
+        return !head && (status >= 200) && (204 != status) && (304 != status);
+    }
+
+    @Override
+    boolean readsUntilClose() {
+        return true;
+    }
+
+    @Override
+    Response build(HttpHeaders headers, Body body) {
+        long contentLength = (null != body) ? body.length() : 0L;
+        String declaredLength = headers.getFirst("Content-Length");
+        if (null != declaredLength) {
+            try {
+                contentLength = Long.parseLong(declaredLength.trim());
+            } catch (NumberFormatException nfe) {
+                // Already validated for bodies, so only reachable for bodiless responses such as HEAD.
+            }
+        }
+
+        Response response = Response.newBuilder().setRequest(request).setStatus(status)
+                .setContentType(headers.getFirst("Content-Type")).setContentLength(contentLength)
+                .setHttpHeaders(headers).setEntity(body).build();
+        if (status >= 200) {
+            request = null;
+        }
+        return response;
+    }
+
+}
@@ -0,0 +1,374 @@
+package com.interzonedev.httpcore.wire;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.google.common.collect.ImmutableMap;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+/**
+ * Serializes {@link Request} and {@link Response} as HTTP/1.1 messages for gathering writes. The start line and
+ * headers are written into one exactly sized buffer, and the body follows as read-only views of its own chunks, so
+ * body bytes are never copied.
+ *
+ * <p>
+ * The body is framed by the message's own headers: if chunked is the last transfer coding, judged as
+ * {@link Http1Parser} judges it, the body is sent as one chunk, otherwise a Content-Length header is added when the
+ * message has a body and none is present. A {@link Response} without a body gets {@code Content-Length: 0} if its
+ * status and the method of its request allow a body, so that the peer need not read until the connection closes. A
+ * {@link Response} whose content type is not among its headers gets a Content-Type header. Header names and values
+ * are written as ISO-8859-1; characters outside it are replaced with {@code ?}.
+ * </p>
+ *
+ * <p>
+ * The {@code write} methods send a body that is not in memory, such as one from
+ * {@link Body#ofFile(java.nio.file.Path)} or a slice of one, with {@link Body#writeTo(WritableByteChannel)} after the
+ * head, so that file ranges are transferred to the channel without being mapped or copied.
+ * </p>
+ *
+ * @author mark@interzonedev.com
+ */
+public final class Http1Writer {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] LAST_CHUNK = {'\r', '\n', '0', '\r', '\n', '\r', '\n'};
+
+    private static final byte[][] METHOD_TOKENS;
+
+    private static final ImmutableMap<Integer, String> REASON_PHRASES = ImmutableMap.<Integer, String>builder()
+            .put(100, "Continue")
+            .put(101, "Switching Protocols")
+            .put(200, "OK")
+            .put(201, "Created")
+            .put(202, "Accepted")
+            .put(203, "Non-Authoritative Information")
+            .put(204, "No Content")
+            .put(206, "Partial Content")
+            .put(301, "Moved Permanently")
+            .put(302, "Found")
+            .put(303, "See Other")
+            .put(304, "Not Modified")
+            .put(307, "Temporary Redirect")
+            .put(308, "Permanent Redirect")
+            .put(400, "Bad Request")
+            .put(401, "Unauthorized")
+            .put(403, "Forbidden")
+            .put(404, "Not Found")
+            .put(405, "Method Not Allowed")
+            .put(408, "Request Timeout")
+            .put(409, "Conflict")
+            .put(410, "Gone")
+            .put(412, "Precondition Failed")
+            .put(413, "Payload Too Large")
+            .put(415, "Unsupported Media Type")
+            .put(416, "Range Not Satisfiable")
+            .put(429, "Too Many Requests")
+            .put(500, "Internal Server Error")
+            .put(501, "Not Implemented")
+            .put(502, "Bad Gateway")
+            .put(503, "Service Unavailable")
+            .put(504, "Gateway Timeout")
+            .build();
+
+    static {
+        Method[] methods = Method.values();
+        METHOD_TOKENS = new byte[methods.length][];
+        for (Method method : methods) {
+            METHOD_TOKENS[method.ordinal()] = method.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private Http1Writer() {
+    }
+
+    /**
+     * Serializes the specified {@link Request}. A null URL is written as {@code /}.
+     *
+     * @param request The {@link Request} to serialize.
+     *
+     * @return Returns the buffers of the message in order, ready to be passed to a gathering write.
+     */
+    public static ByteBuffer[] encode(Request request) {
+        Framing framing = Framing.of(request.getHttpHeaders(), request.getEntity(), false);
+        return framing.buffers(head(request, framing), request.getEntity());
+    }
+
+    private static ByteBuffer head(Request request, Framing framing) {
+        if (null == request.getMethod()) {
+            throw new HttpException("Cannot write a request without a method");
+        }
+
+        byte[] method = METHOD_TOKENS[request.getMethod().ordinal()];
+        String target = (null != request.getUrl()) ? request.getUrl() : "/";
+
+        int size = method.length + 1 + target.length() + 11 + headersSize(request.getHttpHeaders(), null)
+                + framing.headerSize() + 2;
+        ByteBuffer head = ByteBuffer.allocate(size);
+        head.put(method).put((byte) ' ');
+        putLatin1(head, target);
+        putAscii(head, " HTTP/1.1");
+        head.put(CRLF);
+        putHeaders(head, request.getHttpHeaders(), null);
+        framing.putFramingHeader(head);
+        head.put(CRLF);
+        head.flip();
+        return head;
+    }
+
+    /**
+     * Serializes the specified {@link Response}.
+     *
+     * @param response The {@link Response} to serialize.
+     *
+     * @return Returns the buffers of the message in order, ready to be passed to a gathering write.
+     */
+    public static ByteBuffer[] encode(Response response) {
+        Framing framing = Framing.of(response.getHttpHeaders(), response.getEntity(), mayHaveBody(response));
+        return framing.buffers(head(response, framing), response.getEntity());
+    }
+
+    private static ByteBuffer head(Response response, Framing framing) {
+        int status = response.getStatus();
+        if ((status < 100) || (status > 999)) {
+            throw new HttpException("Cannot write a response with status " + status);
+        }
+
+        String reason = reasonPhrase(status);
+        HttpHeaders headers = response.getHttpHeaders();
+        String contentType = (!headers.contains("Content-Type")) ? response.getContentType() : null;
+
+        int size = 13 + reason.length() + 2 + headersSize(headers, contentType) + framing.headerSize() + 2;
+        ByteBuffer head = ByteBuffer.allocate(size);
+        putAscii(head, "HTTP/1.1 ");
+        head.put((byte) ('0' + status / 100)).put((byte) ('0' + (status / 10) % 10)).put((byte) ('0' + status % 10));
+        head.put((byte) ' ');
+        putAscii(head, reason);
+        head.put(CRLF);
+        putHeaders(head, headers, contentType);
+        framing.putFramingHeader(head);
+        head.put(CRLF);
+        head.flip();
+        return head;
+    }
+
+    /**
+     * Writes the specified {@link Request} to the specified channel, returning once every byte is written. Meant for
+     * blocking channels; with a non-blocking channel, use {@link #encode(Request)} and write the buffers as the
+     * channel becomes writable.
+     *
+     * @param request The {@link Request} to write.
+     * @param channel The channel to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws IOException Thrown if writing to the channel fails.
+     */
+    public static long write(Request request, GatheringByteChannel channel) throws IOException {
+        Framing framing = Framing.of(request.getHttpHeaders(), request.getEntity(), false);
+        return framing.write(head(request, framing), request.getEntity(), channel);
+    }
+
+    /**
+     * Writes the specified {@link Response} to the specified channel, returning once every byte is written. Meant for
+     * blocking channels; with a non-blocking channel, use {@link #encode(Response)} and write the buffers as the
+     * channel becomes writable.
+     *
+     * @param response The {@link Response} to write.
+     * @param channel The channel to write to.
+     *
+     * @return Returns the number of bytes written.
+     *
+     * @throws IOException Thrown if writing to the channel fails.
+     */
+    public static long write(Response response, GatheringByteChannel channel) throws IOException {
+        Framing framing = Framing.of(response.getHttpHeaders(), response.getEntity(), mayHaveBody(response));
+        return framing.write(head(response, framing), response.getEntity(), channel);
+    }
+
+    /**
+     * Determines whether the specified {@link Response} may have a body, by the same rules as
+     * {@link Http1ResponseParser}: not for a 1xx, 204 or 304 status, nor in answer to a HEAD request.
+     */
+    private static boolean mayHaveBody(Response response) {
+        int status = response.getStatus();
+        Request request = response.getRequest();
+        return (status >= 200) && (204 != status) && (304 != status)
+                && ((null == request) || (Method.HEAD != request.getMethod()));
+    }
+
+    private static long writeFully(ByteBuffer[] buffers, GatheringByteChannel channel) throws IOException {
+        long total = 0L;
+        int first = 0;
+        while (first < buffers.length) {
+            total += channel.write(buffers, first, buffers.length - first);
+            while ((first < buffers.length) && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+        return total;
+    }
+
+    private static int headersSize(HttpHeaders headers, String contentType) {
+        int size = 0;
+        for (int i = 0; i < headers.size(); i++) {
+            int nameSize = headers.getName(i).length() + 2;
+            for (String value : headers.getValues(i)) {
+                size += nameSize + ((null != value) ? value.length() : 0) + 2;
+            }
+        }
+        if (null != contentType) {
+            size += 14 + contentType.length() + 2;
+        }
+        return size;
+    }
+
+    private static void putHeaders(ByteBuffer head, HttpHeaders headers, String contentType) {
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.getName(i);
+            List<String> values = headers.getValues(i);
+            for (int j = 0; j < values.size(); j++) {
+                putHeader(head, name, values.get(j));
+            }
+        }
+        if (null != contentType) {
+            putHeader(head, "Content-Type", contentType);
+        }
+    }
+
+    private static void putHeader(ByteBuffer head, String name, String value) {
+        putLatin1(head, name);
+        head.put((byte) ':').put((byte) ' ');
+        if (null != value) {
+            putLatin1(head, value);
+        }
+        head.put(CRLF);
+    }
+
+    private static void putAscii(ByteBuffer head, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            head.put((byte) value.charAt(i));
+        }
+    }
+
+    private static void putLatin1(ByteBuffer head, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (('\r' == c) || ('\n' == c)) {
+                throw new HttpException("Line break in a start line or header");
+            }
+            head.put((c <= 0xff) ? (byte) c : (byte) '?');
+        }
+    }
+
+    static String reasonPhrase(int status) {
+        String reason = REASON_PHRASES.get(status);
+        return (null != reason) ? reason : "";
+    }
+
+    /**
+     * How the body of a message is delimited on the wire.
+     */
+    private static final class Framing {
+
+        private static final Framing NONE = new Framing(false, null);
+
+        private final boolean chunked;
+        private final String contentLength;
+
+        private Framing(boolean chunked, String contentLength) {
+            this.chunked = chunked;
+            this.contentLength = contentLength;
+        }
+
+        /**
+         * @param headers The headers of the message.
+         * @param body The body of the message, or null.
+         * @param mayHaveBody True if a missing body must be framed as empty, which is the case for a response that
+         *        would otherwise be read until the connection closes.
+         */
+        static Framing of(HttpHeaders headers, Body body, boolean mayHaveBody) {
+            List<String> transferCodings = headers.getAll("Transfer-Encoding");
+            if (!transferCodings.isEmpty()) {
+                return Http1Parser.isChunkedLast(transferCodings) ? new Framing(true, null) : NONE;
+            }
+            if (headers.contains("Content-Length")) {
+                return NONE;
+            }
+            if (null != body) {
+                return new Framing(false, Long.toString(body.length()));
+            }
+            return mayHaveBody ? new Framing(false, "0") : NONE;
+        }
+
+        int headerSize() {
+            return (null != contentLength) ? 16 + contentLength.length() + 2 : 0;
+        }
+
+        void putFramingHeader(ByteBuffer head) {
+            if (null != contentLength) {
+                putHeader(head, "Content-Length", contentLength);
+            }
+        }
+
+        /**
+         * Writes the message to a blocking channel: a body in memory in one gathering write with the head, any other
+         * body by {@link Body#writeTo(WritableByteChannel)}.
+         */
+        long write(ByteBuffer head, Body body, GatheringByteChannel channel) throws IOException {
+            if ((null == body) || body.isInMemory() || (chunked && (0L == body.length()))) {
+                return writeFully(buffers(head, body), channel);
+            }
+            ByteBuffer[] prefix = chunked
+                    ? new ByteBuffer[]{head, ByteBuffer.wrap((Long.toHexString(body.length()) + "\r\n")
+                            .getBytes(StandardCharsets.US_ASCII))}
+                    : new ByteBuffer[]{head};
+            long written = writeFully(prefix, channel) + body.writeTo(channel);
+            if (chunked) {
+                written += writeFully(new ByteBuffer[]{ByteBuffer.wrap(LAST_CHUNK)}, channel);
+            }
+            return written;
+        }
+
+        ByteBuffer[] buffers(ByteBuffer head, Body body) {
+            List<ByteBuffer> chunks = (null != body) ? body.chunks() : null;
+            long length = (null != body) ? body.length() : 0L;
+
+            if (!chunked) {
+                if (null == chunks) {
+                    return new ByteBuffer[]{head};
+                }
+                ByteBuffer[] buffers = new ByteBuffer[1 + chunks.size()];
+                buffers[0] = head;
+                for (int i = 0; i < chunks.size(); i++) {
+                    buffers[i + 1] = chunks.get(i);
+                }
+                return buffers;
+            }
+
+            if (0L == length) {
+                // The last chunk alone, without the CRLF that would end a preceding chunk.
+                return new ByteBuffer[]{head, ByteBuffer.wrap(LAST_CHUNK, 2, LAST_CHUNK.length - 2)};
+            }
+
+            ByteBuffer[] buffers = new ByteBuffer[3 + chunks.size()];
+            buffers[0] = head;
+            buffers[1] = ByteBuffer.wrap((Long.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (int i = 0; i < chunks.size(); i++) {
+                buffers[i + 2] = chunks.get(i);
+            }
+            buffers[buffers.length - 1] = ByteBuffer.wrap(LAST_CHUNK);
+            return buffers;
+        }
+    }
+
+}
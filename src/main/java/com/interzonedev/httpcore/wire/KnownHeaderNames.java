@@ -0,0 +1,87 @@
+package com.interzonedev.httpcore.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import com.interzonedev.httpcore.HttpHeaders;
+
+/**
+ * Open-addressing table that maps the bytes of a well known header name, in its canonical or lower case spelling, to
+ * the shared {@link String} instance used by {@link HttpHeaders}, so that parsing a known name allocates nothing.
+ * Names in any other spelling are not found and must be decoded by the caller.
+ *
+ * @author mark@interzonedev.com
+ */
+final class KnownHeaderNames {
+
+    private static final byte[][] KEYS;
+
+    private static final String[] NAMES;
+
+    private static final int MASK;
+
+    static {
+        Collection<String> names = HttpHeaders.wellKnownNames();
+        int capacity = Integer.highestOneBit(names.size() * 4 - 1) << 1;
+        KEYS = new byte[capacity][];
+        NAMES = new String[capacity];
+        MASK = capacity - 1;
+
+        for (String name : names) {
+            byte[] key = name.getBytes(StandardCharsets.US_ASCII);
+            int slot = hash(key, 0, key.length) & MASK;
+            while (null != KEYS[slot]) {
+                slot = (slot + 1) & MASK;
+            }
+            KEYS[slot] = key;
+            NAMES[slot] = name;
+        }
+    }
+
+    private KnownHeaderNames() {
+    }
+
+    /**
+     * Finds the well known header name spelled exactly as the specified bytes.
+     *
+     * @param bytes The array holding the name.
+     * @param offset The index of the first byte of the name.
+     * @param length The length of the name.
+     *
+     * @return Returns the shared instance of the name or null if it is not well known in this spelling.
+     */
+    static String lookup(byte[] bytes, int offset, int length) {
+        int slot = hash(bytes, offset, length) & MASK;
+        while (true) {
+            byte[] key = KEYS[slot];
+            if (null == key) {
+                return null;
+            }
+            if (matches(key, bytes, offset, length)) {
+                return NAMES[slot];
+            }
+            slot = (slot + 1) & MASK;
+        }
+    }
+
+    private static boolean matches(byte[] key, byte[] bytes, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = length;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + bytes[offset + i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BodySpoolerTest {
+
+    private final byte[] testBytes = new byte[100 * 1024];
+
+    {
+        new Random(42).nextBytes(testBytes);
+    }
+
+    @Test
+    public void testStaysInMemoryBelowThreshold() {
+        Body testBody = Body.spool(new ByteArrayInputStream(testBytes), testBytes.length);
+
+        assertTrue(testBody.isInMemory());
+        assertEquals(testBytes.length, testBody.length());
+        assertArrayEquals(testBytes, testBody.toByteArray());
+    }
+
+    @Test
+    public void testSpillsAboveThreshold() {
+        Body testBody = Body.spool(new ByteArrayInputStream(testBytes), 1024);
+
+        assertFalse(testBody.isInMemory());
+        assertEquals(testBytes.length, testBody.length());
+        assertArrayEquals(testBytes, testBody.toByteArray());
+        assertTrue(testBody.asByteBuffer().isDirect());
+    }
+
+    @Test
+    public void testReplayableStreams() throws IOException {
+        Body testBody = Body.spool(new ByteArrayInputStream(testBytes), 1024);
+
+        assertArrayEquals(testBytes, readAll(testBody.openStream()));
+        assertArrayEquals(testBytes, readAll(testBody.openStream()));
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        Body testBody = Body.spool(new ByteArrayInputStream(testBytes), 1024);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer transfer = ByteBuffer.allocate(4096);
+
+        try (ReadableByteChannel channel = testBody.openChannel()) {
+            while (channel.read(transfer) >= 0) {
+                transfer.flip();
+                out.write(transfer.array(), 0, transfer.limit());
+                transfer.clear();
+            }
+        }
+
+        assertArrayEquals(testBytes, out.toByteArray());
+    }
+
+    @Test
+    public void testChunks() {
+        Body testBody = Body.spool(new ByteArrayInputStream(testBytes), 1024);
+        List<ByteBuffer> chunks = testBody.chunks();
+
+        long total = 0;
+        for (ByteBuffer chunk : chunks) {
+            assertTrue(chunk.isReadOnly());
+            total += chunk.remaining();
+        }
+        assertEquals(testBytes.length, total);
+    }
+
+    @Test
+    public void testEqualsAndHashCodeAcrossStorage() {
+        Body spilled = Body.spool(new ByteArrayInputStream(testBytes), 1024);
+        Body inMemory = Body.wrap(testBytes);
+
+        assertEquals(inMemory, spilled);
+        assertEquals(spilled, inMemory);
+        assertEquals(inMemory.hashCode(), spilled.hashCode());
+
+        byte[] otherBytes = testBytes.clone();
+        otherBytes[otherBytes.length - 1]++;
+        assertNotEquals(Body.wrap(otherBytes), spilled);
+    }
+
+    @Test
+    public void testToStringDoesNotIncludeContent() {
+        Body testBody = Body.spool(new ByteArrayInputStream("secret".getBytes()), 1);
+
+        assertFalse(testBody.toString().contains("secret"));
+        assertTrue(testBody.toString().contains("length=6"));
+    }
+
+    @Test
+    public void testIncrementalWrites() {
+        BodySpooler spooler = new BodySpooler(1000);
+        for (int offset = 0; offset < testBytes.length; offset += 333) {
+            spooler.write(testBytes, offset, Math.min(333, testBytes.length - offset));
+        }
+
+        assertTrue(spooler.isSpilled());
+        Body testBody = spooler.finish();
+
+        assertArrayEquals(testBytes, testBody.toByteArray());
+        assertThrows(IllegalStateException.class, () -> spooler.finish());
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] transfer = new byte[777];
+        int read;
+        while ((read = in.read(transfer)) >= 0) {
+            out.write(transfer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
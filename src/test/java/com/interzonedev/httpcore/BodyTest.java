@@ -0,0 +1,197 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BodyTest {
+
+    private final String testText = "h\u00e9llo w\u00f6rld";
+    private final byte[] testBytes = testText.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testEmpty() {
+        Body testBody = Body.empty();
+
+        assertEquals(0, testBody.length());
+        assertEquals("", testBody.asString());
+        assertEquals(0, testBody.toByteArray().length);
+    }
+
+    @Test
+    public void testWrapBytes() {
+        Body testBody = Body.wrap(testBytes);
+
+        assertEquals(testBytes.length, testBody.length());
+        assertArrayEquals(testBytes, testBody.toByteArray());
+        assertEquals(testText, testBody.asString());
+    }
+
+    @Test
+    public void testWrapDirectBuffer() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(testBytes.length + 2);
+        direct.put((byte) 0).put(testBytes).put((byte) 0).flip();
+        direct.position(1).limit(1 + testBytes.length);
+
+        Body testBody = Body.wrap(direct);
+
+        assertEquals(1, direct.position());
+        assertEquals(testBytes.length, testBody.length());
+        assertEquals(testText, testBody.asString(StandardCharsets.UTF_8));
+        assertEquals(Body.wrap(testBytes), testBody);
+        assertEquals(Body.wrap(testBytes).hashCode(), testBody.hashCode());
+    }
+
+    @Test
+    public void testByteBufferIsReadOnlyView() {
+        Body testBody = Body.wrap(testBytes);
+        ByteBuffer view = testBody.asByteBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(0, view.position());
+        assertThrows(java.nio.ReadOnlyBufferException.class, () -> view.put(0, (byte) 1));
+
+        view.position(3);
+        assertEquals(0, testBody.asByteBuffer().position());
+    }
+
+    @Test
+    public void testDecodeOnlyOnce() {
+        Body testBody = Body.wrap(testBytes);
+
+        String first = testBody.asString(StandardCharsets.UTF_8);
+        String second = testBody.asString(StandardCharsets.UTF_8);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testDecodeWithOtherCharset() {
+        Body testBody = Body.of(testText, StandardCharsets.ISO_8859_1);
+
+        assertEquals(testText.length(), testBody.length());
+        assertSame(testBody.asString(StandardCharsets.ISO_8859_1), testBody.asString(StandardCharsets.ISO_8859_1));
+        assertNotEquals(testText, testBody.asString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTextKeepsOriginalString() {
+        Body testBody = Body.of(testText);
+
+        assertSame(testText, testBody.asString());
+        assertArrayEquals(testBytes, testBody.toByteArray());
+    }
+
+    @Test
+    public void testEqualsAcrossRepresentations() {
+        assertEquals(Body.of(testText), Body.wrap(testBytes));
+        assertEquals(Body.of(testText).hashCode(), Body.copyOf(testBytes).hashCode());
+        assertNotEquals(Body.of(testText), Body.of(testText + "!"));
+    }
+
+    @Test
+    public void testConcatKeepsChunks() {
+        Body head = Body.wrap("h\u00e9llo".getBytes(StandardCharsets.UTF_8));
+        Body tail = Body.of(" w\u00f6rld");
+
+        Body testBody = Body.concat(Arrays.asList(head, Body.empty(), tail));
+
+        assertEquals(testBytes.length, testBody.length());
+        assertEquals(2, testBody.chunks().size());
+        assertEquals(testText, testBody.asString());
+        assertEquals(Body.copyOf(testBytes), testBody);
+        assertArrayEquals(testBytes, testBody.toByteArray());
+        assertThrows(HttpException.class, testBody::asByteBuffer);
+        assertSame(head, Body.concat(Collections.singletonList(head)));
+    }
+
+    @Test
+    public void testSlice() {
+        Body testBody = Body.of("0123456789");
+
+        assertEquals("345", testBody.slice(3L, 3L).asString());
+        assertEquals(0L, testBody.slice(10L, 0L).length());
+        assertSame(testBody, testBody.slice(0L, 10L));
+        assertThrows(IllegalArgumentException.class, () -> testBody.slice(8L, 3L));
+        assertThrows(IllegalArgumentException.class, () -> testBody.slice(-1L, 1L));
+
+        Body composite = Body.concat(Arrays.asList(Body.of("abc"), Body.of("def"), Body.of("ghi")));
+        Body middle = composite.slice(2L, 5L);
+        assertEquals("cdefg", middle.asString());
+        assertEquals(3, middle.chunks().size());
+        assertEquals("e", composite.slice(4L, 1L).asString());
+    }
+
+    @Test
+    public void testFileBody() throws IOException {
+        Path file = Files.createTempFile("body", ".bin");
+        try {
+            Files.write(file, "0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+            Body testBody = Body.ofFile(file);
+
+            assertEquals(16L, testBody.length());
+            assertFalse(testBody.isInMemory());
+
+            Body slice = testBody.slice(4L, 6L);
+            assertFalse(slice.isInMemory());
+            ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+            assertEquals(6L, slice.writeTo(Channels.newChannel(channelOut)));
+            assertEquals("456789", new String(channelOut.toByteArray(), StandardCharsets.US_ASCII));
+
+            ByteArrayOutputStream streamOut = new ByteArrayOutputStream();
+            assertEquals(2L, slice.slice(4L, 2L).writeTo(streamOut));
+            assertEquals("89", new String(streamOut.toByteArray(), StandardCharsets.US_ASCII));
+
+            Body composite = Body.concat(Arrays.asList(Body.of("<"), slice, Body.of(">")));
+            ByteArrayOutputStream compositeOut = new ByteArrayOutputStream();
+            composite.writeTo(Channels.newChannel(compositeOut));
+            assertEquals("<456789>", new String(compositeOut.toByteArray(), StandardCharsets.US_ASCII));
+
+            assertEquals("456789", slice.asString());
+            assertEquals(Body.of("0123456789abcdef"), testBody);
+            assertEquals(Body.of("0123456789abcdef").hashCode(), testBody.hashCode());
+            assertThrows(HttpException.class, () -> Body.ofFile(file.resolveSibling(file.getFileName() + ".none")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBodyOfSeveralRegionsDecodes() throws IOException {
+        Path file = Files.createTempFile("body", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(testBytes));
+            // The regions split the two bytes of the first non-ASCII character.
+            MappedByteBuffer[] regions = {channel.map(FileChannel.MapMode.READ_ONLY, 0L, 2L),
+                    channel.map(FileChannel.MapMode.READ_ONLY, 2L, testBytes.length - 2L)};
+            Body testBody = new MappedFileBody(regions, testBytes.length);
+
+            assertThrows(HttpException.class, testBody::asByteBuffer);
+            assertEquals(testText, testBody.asString());
+            assertArrayEquals(testBytes, testBody.toByteArray());
+            assertEquals(testText, Request.newBuilder().setEntity(testBody).build().getBody());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteRangeTest {
+
+    @Test
+    public void testParse() {
+        assertEquals(Arrays.asList(ByteRange.of(0L, 499L), ByteRange.from(1000L), ByteRange.suffix(200L)),
+                ByteRange.parse("Bytes = 0-499, ,1000- , -200"));
+
+        assertTrue(ByteRange.parse(null).isEmpty());
+        assertTrue(ByteRange.parse("items=0-1").isEmpty());
+        assertTrue(ByteRange.parse("bytes=").isEmpty());
+        assertTrue(ByteRange.parse("bytes=5-1").isEmpty());
+        assertTrue(ByteRange.parse("bytes=0-1, x-2").isEmpty());
+        assertTrue(ByteRange.parse("bytes=-").isEmpty());
+        assertTrue(ByteRange.parse("bytes=99999999999999999999-").isEmpty());
+    }
+
+    @Test
+    public void testResolve() {
+        assertEquals(ContentRange.of(0L, 499L, 1000L), ByteRange.of(0L, 499L).resolve(1000L));
+        assertEquals(ContentRange.of(500L, 999L, 1000L), ByteRange.of(500L, 5000L).resolve(1000L));
+        assertEquals(ContentRange.of(900L, 999L, 1000L), ByteRange.from(900L).resolve(1000L));
+        assertEquals(ContentRange.of(800L, 999L, 1000L), ByteRange.suffix(200L).resolve(1000L));
+        assertEquals(ContentRange.of(0L, 99L, 100L), ByteRange.suffix(200L).resolve(100L));
+
+        assertNull(ByteRange.from(1000L).resolve(1000L));
+        assertNull(ByteRange.suffix(0L).resolve(1000L));
+        assertNull(ByteRange.suffix(10L).resolve(0L));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("bytes=0-499, 1000-, -200", ByteRange.toHeaderValue(
+                Arrays.asList(ByteRange.of(0L, 499L), ByteRange.from(1000L), ByteRange.suffix(200L))));
+        assertEquals(-1L, ByteRange.suffix(200L).getFirst());
+        assertEquals(200L, ByteRange.suffix(200L).getSuffixLength());
+        assertEquals(-1L, ByteRange.from(3L).getLast());
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.of(5L, 4L));
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.from(-1L));
+    }
+
+}
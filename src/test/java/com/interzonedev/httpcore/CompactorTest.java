@@ -0,0 +1,107 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactorTest {
+
+    @Test
+    public void testCompactedResponsesAreEqualAndShareStrings() {
+        Compactor compactor = Compactor.newBuilder().build();
+
+        Response first = compactor.compact(response(1));
+        Response second = compactor.compact(response(2));
+
+        assertEquals(response(1), first);
+        assertEquals(response(2), second);
+        assertSame(first.getContentType(), second.getContentType());
+        assertSame(first.getHttpHeaders().getFirst("Server"), second.getHttpHeaders().getFirst("Server"));
+        assertSame(first.getHttpHeaders().getName(0), second.getHttpHeaders().getName(0));
+        assertSame(first.getLocale(), second.getLocale());
+        assertEquals(first.getHttpHeaders().size(), first.getHttpHeaders().names.length);
+    }
+
+    @Test
+    public void testLongStringsAreNotInterned() {
+        Compactor compactor = Compactor.newBuilder().setMaxStringLength(8).build();
+
+        Response first = compactor.compact(response(1));
+        Response second = compactor.compact(response(2));
+
+        assertNotSame(first.getHttpHeaders().getFirst("Server"), second.getHttpHeaders().getFirst("Server"));
+        assertSame(first.getHttpHeaders().getFirst("Vary"), second.getHttpHeaders().getFirst("Vary"));
+    }
+
+    @Test
+    public void testRequestPooling() {
+        Compactor pooling = Compactor.newBuilder().setRequestPoolSize(16).build();
+        Compactor plain = Compactor.newBuilder().build();
+
+        assertSame(pooling.compact(response(1)).getRequest(), pooling.compact(response(2)).getRequest());
+        assertNotSame(plain.compact(response(1)).getRequest(), plain.compact(response(2)).getRequest());
+    }
+
+    @Test
+    public void testEstimateShrinksWhenCompacted() {
+        Compactor compactor = Compactor.newBuilder().setRequestPoolSize(16).build();
+        Response original = response(1);
+
+        long before = compactor.estimateRetainedBytes(original);
+        Response compacted = compactor.compact(original);
+        long after = compactor.estimateRetainedBytes(compacted);
+
+        assertTrue(after < before, after + " < " + before);
+        // What remains is the response itself and its arrays, while the strings and request are shared.
+        assertTrue(after < 400L, String.valueOf(after));
+        assertTrue(compactor.estimateRetainedBytes(original.getRequest()) > 100L);
+    }
+
+    @Test
+    public void testBodiesAreMeasuredWithoutMaterializing() {
+        Compactor compactor = Compactor.newBuilder().build();
+        Body encoded = ContentEncoding.GZIP.encode(Body.wrap(new byte[64 * 1024]));
+        Body decoding = ContentEncoding.GZIP.decode(encoded);
+        Response response = Response.newBuilder().setStatus(200).setEntity(decoding).build();
+
+        long before = compactor.estimateRetainedBytes(response);
+        assertTrue(decoding.toString().contains("encodedLength"), "The estimate decoded the body");
+        assertTrue(before > encoded.length(), String.valueOf(before));
+        assertTrue(before < 64L * 1024L, String.valueOf(before));
+
+        assertEquals(64 * 1024, decoding.length());
+        assertTrue(compactor.estimateRetainedBytes(response) >= before + 64L * 1024L);
+
+        Body composite = Body.concat(Arrays.asList(Body.wrap(new byte[1000]), Body.wrap(new byte[2000])));
+        long compositeBytes = compactor.estimateRetainedBytes(Response.newBuilder().setStatus(200)
+                .setEntity(composite).build());
+        assertTrue(compositeBytes > 3000L, String.valueOf(compositeBytes));
+    }
+
+    @Test
+    public void testBoundedDictionaryStillCompacts() {
+        Compactor compactor = Compactor.newBuilder().setDictionarySize(2).build();
+
+        for (int i = 0; i < 100; i++) {
+            Response response = response(i);
+            assertEquals(response, compactor.compact(response));
+        }
+    }
+
+    private static Response response(int id) {
+        Request request = Request.newBuilder().setUrl("http://example.com/items").setMethod(Method.GET)
+                .setHeader("Accept", "application/json").setParameter("page", "1").build();
+        return Response.newBuilder().setRequest(request).setStatus(200)
+                .setContentType(new String("application/json; charset=UTF-8"))
+                .setHeader("Server", new String("nginx/1.25.3 (Ubuntu)")).setHeader("Vary", new String("Accept"))
+                .setHeader("X-Request-Id", "req-" + id).setLocale(new Locale("en", "US")).setContent("{}")
+                .build();
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentEncodingTest {
+
+    private final byte[] testBytes = new byte[200 * 1024];
+
+    {
+        // Compressible but not trivially so.
+        Random random = new Random(42);
+        for (int i = 0; i < testBytes.length; i++) {
+            testBytes[i] = (byte) ('a' + random.nextInt(8));
+        }
+    }
+
+    @Test
+    public void testOf() {
+        assertSame(ContentEncoding.IDENTITY, ContentEncoding.of(null));
+        assertSame(ContentEncoding.GZIP, ContentEncoding.of(" X-GZIP "));
+        assertSame(ContentEncoding.DEFLATE, ContentEncoding.of("deflate"));
+        assertNull(ContentEncoding.of("br"));
+        assertNull(ContentEncoding.of("gzip, deflate"));
+    }
+
+    @Test
+    public void testGzipInteroperatesWithJdk() throws IOException {
+        Body encoded = ContentEncoding.GZIP.encode(Body.wrap(testBytes));
+
+        assertTrue(encoded.length() < testBytes.length);
+        try (GZIPInputStream in = new GZIPInputStream(encoded.openStream())) {
+            assertArrayEquals(testBytes, in.readAllBytes());
+        }
+        assertArrayEquals(testBytes, ContentEncoding.GZIP.decode(Body.wrap(gzip(testBytes))).toByteArray());
+    }
+
+    @Test
+    public void testDeflateRoundTripAndRawDeflate() throws IOException {
+        Body encoded = ContentEncoding.DEFLATE.encode(Body.wrap(testBytes));
+
+        assertArrayEquals(testBytes, ContentEncoding.DEFLATE.decode(encoded).toByteArray());
+        assertArrayEquals(testBytes, ContentEncoding.DEFLATE.decode(Body.wrap(rawDeflate(testBytes))).toByteArray());
+    }
+
+    @Test
+    public void testDecodesAcrossChunks() throws IOException {
+        byte[] gzipped = gzip(testBytes);
+        int[] cuts = { 1, 5, 11, 300, gzipped.length - 7, gzipped.length - 1 };
+        Body[] pieces = new Body[cuts.length + 1];
+        int from = 0;
+        for (int i = 0; i <= cuts.length; i++) {
+            int to = (i < cuts.length) ? cuts[i] : gzipped.length;
+            pieces[i] = Body.wrap(ByteBuffer.wrap(Arrays.copyOfRange(gzipped, from, to)));
+            from = to;
+        }
+
+        Body decoded = ContentEncoding.GZIP.decode(Body.concat(Arrays.asList(pieces)));
+
+        assertArrayEquals(testBytes, decoded.toByteArray());
+    }
+
+    @Test
+    public void testConcatenatedGzipMembers() throws IOException {
+        byte[] first = gzip("hello ".getBytes("UTF-8"));
+        byte[] second = gzip("world".getBytes("UTF-8"));
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+
+        assertEquals("hello world", ContentEncoding.GZIP.decode(Body.wrap(both)).asString());
+    }
+
+    @Test
+    public void testDecodingIsLazy() {
+        Body corrupt = ContentEncoding.GZIP.decode(Body.wrap(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 1, 2, 3 }));
+
+        assertTrue(corrupt.toString().contains("encodedLength=7"));
+        assertThrows(HttpException.class, corrupt::length);
+    }
+
+    @Test
+    public void testRejectsCorruptChecksum() throws IOException {
+        byte[] gzipped = gzip(testBytes);
+        gzipped[gzipped.length - 6] ^= 1;
+
+        assertThrows(HttpException.class, () -> ContentEncoding.GZIP.decode(Body.wrap(gzipped)).length());
+    }
+
+    @Test
+    public void testDecodedResponse() throws IOException {
+        byte[] gzipped = gzip(testBytes);
+        Response response = Response.newBuilder().setStatus(200).setContentType("text/plain")
+                .setContentLength(gzipped.length).setHeader("Content-Encoding", "gzip")
+                .setHeader("Content-Length", String.valueOf(gzipped.length)).setEntity(Body.wrap(gzipped)).build();
+
+        Response decoded = ContentEncoding.decoded(response);
+
+        assertEquals(gzipped.length, decoded.getContentLength());
+        assertEquals(testBytes.length, decoded.getEntity().length());
+        assertNull(decoded.getHttpHeaders().getFirst("Content-Encoding"));
+        assertNull(decoded.getHttpHeaders().getFirst("Content-Length"));
+        assertEquals(new String(testBytes, "US-ASCII"), decoded.getContent());
+        assertSame(decoded, ContentEncoding.decoded(decoded));
+    }
+
+    @Test
+    public void testEncodedRequest() {
+        Request request = Request.newBuilder().setUrl("http://example.com/").setMethod(Method.POST)
+                .setEntity(Body.wrap(testBytes)).build();
+
+        Request encoded = ContentEncoding.GZIP.encode(request);
+
+        assertEquals("gzip", encoded.getHttpHeaders().getFirst("Content-Encoding"));
+        assertArrayEquals(testBytes, ContentEncoding.GZIP.decode(encoded.getEntity()).toByteArray());
+        assertThrows(HttpException.class, () -> ContentEncoding.DEFLATE.encode(encoded));
+        assertSame(request, ContentEncoding.IDENTITY.encode(request));
+    }
+
+    @Test
+    public void testEmptyBodies() {
+        assertEquals(0L, ContentEncoding.GZIP.decode(Body.empty()).length());
+        assertEquals(0L, ContentEncoding.GZIP.decode(ContentEncoding.GZIP.encode(Body.empty())).length());
+        assertEquals(0L, ContentEncoding.DEFLATE.decode(ContentEncoding.DEFLATE.encode(Body.empty())).length());
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] rawDeflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION,
+                true))) {
+            deflate.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+}
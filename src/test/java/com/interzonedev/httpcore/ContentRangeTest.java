@@ -0,0 +1,43 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ContentRangeTest {
+
+    @Test
+    public void testParse() {
+        ContentRange range = ContentRange.parse(" bytes 100-199/1000 ");
+
+        assertEquals(100L, range.getFirst());
+        assertEquals(199L, range.getLast());
+        assertEquals(100L, range.getLength());
+        assertEquals(1000L, range.getCompleteLength());
+        assertEquals("bytes 100-199/1000", range.toString());
+
+        assertEquals(ContentRange.UNKNOWN_LENGTH, ContentRange.parse("bytes 0-9/*").getCompleteLength());
+
+        ContentRange unsatisfied = ContentRange.parse("bytes */1000");
+        assertFalse(unsatisfied.isSatisfied());
+        assertEquals(0L, unsatisfied.getLength());
+        assertEquals(ContentRange.unsatisfied(1000L), unsatisfied);
+        assertEquals("bytes */1000", unsatisfied.toString());
+    }
+
+    @Test
+    public void testMalformed() {
+        assertNull(ContentRange.parse(null));
+        assertNull(ContentRange.parse("bytes 0-9"));
+        assertNull(ContentRange.parse("items 0-9/10"));
+        assertNull(ContentRange.parse("bytes 9-0/10"));
+        assertNull(ContentRange.parse("bytes 0-10/10"));
+        assertNull(ContentRange.parse("bytes */*"));
+        assertNull(ContentRange.parse("bytes 0-9/ten"));
+        assertThrows(IllegalArgumentException.class, () -> ContentRange.of(0L, 10L, 10L));
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCookieTest {
+
+    @Test
+    public void testParseAttributes() {
+        HttpCookie cookie = HttpCookie.parse("SID=31d4d96e407aad42; Path=/docs; Domain=.Example.com; Secure; HttpOnly;"
+                + " Max-Age=3600; SameSite=Lax; Unknown=x");
+
+        assertEquals("SID", cookie.getName());
+        assertEquals("31d4d96e407aad42", cookie.getValue());
+        assertEquals("/docs", cookie.getPath());
+        assertEquals("example.com", cookie.getDomain());
+        assertTrue(cookie.isSecure());
+        assertTrue(cookie.isHttpOnly());
+        assertEquals(3600L, cookie.getMaxAge());
+        assertEquals("Lax", cookie.getSameSite());
+        assertFalse(cookie.isSession());
+    }
+
+    @Test
+    public void testParseMinimalAndInvalid() {
+        HttpCookie cookie = HttpCookie.parse("lang=en-US");
+
+        assertEquals("en-US", cookie.getValue());
+        assertNull(cookie.getPath());
+        assertEquals(HttpCookie.NO_MAX_AGE, cookie.getMaxAge());
+        assertTrue(cookie.isSession());
+        assertEquals("", HttpCookie.parse("empty=; Path=relative").getValue());
+        assertNull(HttpCookie.parse("empty=; Path=relative").getPath());
+        assertNull(HttpCookie.parse("novalue"));
+        assertNull(HttpCookie.parse("=nameless"));
+        assertEquals(HttpCookie.NO_MAX_AGE, HttpCookie.parse("a=1; Max-Age=soon").getMaxAge());
+    }
+
+    @Test
+    public void testParseDates() {
+        Instant expected = Instant.parse("1994-11-06T08:49:37Z");
+
+        assertEquals(expected, HttpCookie.parseDate("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(expected, HttpCookie.parseDate("Sunday, 06-Nov-94 08:49:37 GMT"));
+        assertEquals(expected, HttpCookie.parseDate("Sun Nov  6 08:49:37 1994"));
+        assertEquals(Instant.parse("2021-06-09T10:18:14Z"), HttpCookie.parseDate("Wed, 09-Jun-2021 10:18:14 GMT"));
+        assertNull(HttpCookie.parseDate("Sun, 31 Nov 1994 08:49:37 GMT"));
+        assertNull(HttpCookie.parseDate("tomorrow"));
+    }
+
+    @Test
+    public void testSetCookieHeaderRoundTrip() {
+        HttpCookie cookie = HttpCookie.newBuilder("id", "a3fWa").setExpires(Instant.parse("2015-10-21T07:28:00Z"))
+                .setDomain("example.com").setPath("/").setSecure(true).setHttpOnly(true).build();
+
+        String header = cookie.toSetCookieHeader();
+
+        assertEquals("id=a3fWa; Expires=Wed, 21 Oct 2015 07:28:00 GMT; Domain=example.com; Path=/; Secure; HttpOnly",
+                header);
+        assertEquals(cookie, HttpCookie.parse(header));
+        assertEquals(cookie.hashCode(), HttpCookie.parse(header).hashCode());
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpExceptionTest {
+
+    private final Request testRequest = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/a")
+            .build();
+
+    @Test
+    public void testStatusExceptions() {
+        Response notFound = Response.newBuilder().setRequest(testRequest).setStatus(404).build();
+        HttpStatusException clientError = HttpStatusException.of(notFound);
+
+        assertTrue(clientError instanceof HttpClientErrorException);
+        assertSame(testRequest, clientError.getRequest());
+        assertSame(notFound, clientError.getResponse());
+        assertEquals(404, clientError.getStatus());
+        assertEquals("Status 404 for GET http://example.com/a", clientError.getMessage());
+        assertFalse(clientError.isRetryable());
+
+        HttpStatusException tooMany = HttpStatusException.of(Response.newBuilder().setStatus(429).build());
+        assertTrue(tooMany instanceof HttpClientErrorException);
+        assertTrue(tooMany instanceof Retryable);
+        assertTrue(tooMany.isRetryable());
+
+        HttpStatusException serverError = HttpStatusException.of(Response.newBuilder().setStatus(500).build());
+        assertTrue(serverError instanceof HttpServerErrorException);
+        assertFalse(serverError.isRetryable());
+
+        HttpStatusException unavailable = HttpStatusException.of(Response.newBuilder().setStatus(503).build());
+        assertTrue(unavailable instanceof HttpServerErrorException);
+        assertTrue(unavailable.isRetryable());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> HttpStatusException.of(Response.newBuilder().setStatus(200).build()));
+    }
+
+    @Test
+    public void testCheck() {
+        Response ok = Response.newBuilder().setStatus(204).build();
+        assertSame(ok, HttpStatusException.check(ok));
+
+        Response badGateway = Response.newBuilder().setRequest(testRequest).setStatus(502).build();
+        HttpServerErrorException thrown = assertThrows(HttpServerErrorException.class,
+                () -> HttpStatusException.check(badGateway));
+        assertSame(badGateway, thrown.getResponse());
+    }
+
+    @Test
+    public void testFailureExceptions() {
+        ConnectException refused = new ConnectException("refused");
+        HttpConnectionException connectionFailure = new HttpConnectionException("Error sending", refused,
+                testRequest);
+
+        assertSame(testRequest, connectionFailure.getRequest());
+        assertNull(connectionFailure.getResponse());
+        assertEquals(0, connectionFailure.getStatus());
+        assertSame(refused, connectionFailure.getCause());
+        assertTrue(connectionFailure.isRetryable());
+
+        HttpTimeoutException timeout = new HttpTimeoutException("Timed out", null, testRequest);
+        assertSame(testRequest, timeout.getRequest());
+        assertTrue(timeout.isRetryable());
+
+        HttpException generic = new HttpException("generic");
+        assertNull(generic.getRequest());
+        assertFalse(generic.isRetryable());
+    }
+
+    @Test
+    public void testStackTraces() {
+        assertFalse(HttpException.isFullStackTraces());
+        assertEquals(0, new HttpTimeoutException("cheap", null, testRequest).getStackTrace().length);
+        assertTrue(new HttpException("full").getStackTrace().length > 0);
+
+        HttpException.setFullStackTraces(true);
+        try {
+            assertTrue(new HttpTimeoutException("full", null, testRequest).getStackTrace().length > 0);
+        } finally {
+            HttpException.setFullStackTraces(false);
+        }
+    }
+
+}
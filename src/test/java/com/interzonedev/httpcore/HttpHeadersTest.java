@@ -0,0 +1,209 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpHeadersTest {
+
+    private final Map<String, List<String>> testHeaders = new LinkedHashMap<>();
+
+    {
+        testHeaders.put("Content-Type", Arrays.asList("application/json"));
+        testHeaders.put("Accept", Arrays.asList("text/html", "application/json"));
+        testHeaders.put("X-Custom", Arrays.asList("cv1"));
+    }
+
+    @Test
+    public void testEmpty() {
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(null);
+
+        assertSame(HttpHeaders.of(), testHttpHeaders);
+        assertTrue(testHttpHeaders.isEmpty());
+        assertNull(testHttpHeaders.getFirst("Accept"));
+        assertTrue(testHttpHeaders.getAll("Accept").isEmpty());
+    }
+
+    @Test
+    public void testCaseInsensitiveLookup() {
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(testHeaders);
+
+        assertEquals("application/json", testHttpHeaders.getFirst("content-type"));
+        assertEquals("application/json", testHttpHeaders.getFirst("CONTENT-TYPE"));
+        assertEquals(Arrays.asList("text/html", "application/json"), testHttpHeaders.getAll("aCCept"));
+        assertTrue(testHttpHeaders.contains(new StringBuilder("x-custom")));
+        assertFalse(testHttpHeaders.contains("X-Custom2"));
+        assertEquals(3, testHttpHeaders.size());
+        assertEquals(4, testHttpHeaders.valueCount());
+    }
+
+    @Test
+    public void testValuesAreCopied() {
+        List<String> values = new ArrayList<>(Arrays.asList("v1"));
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(Collections.singletonMap("h", values));
+        values.add("v2");
+
+        assertEquals(Arrays.asList("v1"), testHttpHeaders.getAll("h"));
+        assertThrows(UnsupportedOperationException.class, () -> testHttpHeaders.getAll("h").add("v3"));
+    }
+
+    @Test
+    public void testNamesDifferingInCaseAreMerged() {
+        Map<String, List<String>> mixedCase = new LinkedHashMap<>();
+        mixedCase.put("X-Trace", Arrays.asList("t1"));
+        mixedCase.put("Other", Arrays.asList("o1"));
+        mixedCase.put("x-trace", Arrays.asList("t2"));
+
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(mixedCase);
+
+        assertEquals(2, testHttpHeaders.size());
+        assertEquals("X-Trace", testHttpHeaders.getName(0));
+        assertEquals(Arrays.asList("t1", "t2"), testHttpHeaders.getAll("X-TRACE"));
+        assertEquals(Arrays.asList("o1"), testHttpHeaders.getAll("other"));
+    }
+
+    @Test
+    public void testWellKnownNamesAreInterned() {
+        String name = new String("Content-Type");
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(Collections.singletonMap(name, Arrays.asList("text/plain")));
+
+        assertSame("Content-Type", testHttpHeaders.getName(0));
+    }
+
+    @Test
+    public void testMapView() {
+        HttpHeaders testHttpHeaders = HttpHeaders.copyOf(testHeaders);
+        Map<String, List<String>> view = testHttpHeaders.asMap();
+
+        assertEquals(testHeaders, view);
+        assertEquals(view, testHeaders);
+        Map<String, List<String>> lowerCase = new HashMap<>();
+        testHeaders.forEach((name, values) -> lowerCase.put(name.toLowerCase(Locale.ROOT), values));
+        assertEquals(lowerCase.hashCode(), view.hashCode());
+        assertEquals(Arrays.asList("cv1"), view.get("x-custom"));
+        assertTrue(view.containsKey("ACCEPT"));
+        assertSame(testHttpHeaders, HttpHeaders.copyOf(view));
+    }
+
+    @Test
+    public void testMapViewEqualityIsSymmetric() {
+        Map<String, List<String>> lowerCase = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : testHeaders.entrySet()) {
+            lowerCase.put(entry.getKey().toLowerCase(), entry.getValue());
+        }
+        Map<String, List<String>> view = HttpHeaders.copyOf(testHeaders).asMap();
+
+        assertEquals(lowerCase, view);
+        assertEquals(view, lowerCase);
+        assertEquals(HttpHeaders.copyOf(lowerCase).asMap(), view);
+        assertEquals(view, HttpHeaders.copyOf(lowerCase).asMap());
+
+        lowerCase.put("x-custom", Arrays.asList("cv2"));
+
+        assertNotEquals(lowerCase, view);
+        assertNotEquals(view, lowerCase);
+    }
+
+    @Test
+    public void testEqualMapViewsHashAlike() {
+        Map<String, List<String>> upper = HttpHeaders.newBuilder().add("Accept", "text/html").build().asMap();
+        Map<String, List<String>> lower = HttpHeaders.newBuilder().add("accept", "text/html").build().asMap();
+
+        assertEquals(upper, lower);
+        assertEquals(upper.hashCode(), lower.hashCode());
+        assertTrue(new HashSet<>(Arrays.asList(upper)).contains(lower));
+        assertEquals(Collections.singletonMap("accept", Arrays.asList("text/html")).hashCode(), upper.hashCode());
+
+        Map<String, List<String>> parameters = HttpParameters.newBuilder().add("Accept", "text/html").build().asMap();
+        assertEquals(Collections.singletonMap("Accept", Arrays.asList("text/html")).hashCode(),
+                parameters.hashCode());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Map<String, List<String>> reordered = new LinkedHashMap<>();
+        reordered.put("X-Custom", Arrays.asList("cv1"));
+        reordered.put("Accept", Arrays.asList("text/html", "application/json"));
+        reordered.put("Content-Type", Arrays.asList("application/json"));
+
+        assertEquals(HttpHeaders.copyOf(testHeaders), HttpHeaders.copyOf(reordered));
+        assertEquals(HttpHeaders.copyOf(testHeaders).hashCode(), HttpHeaders.copyOf(reordered).hashCode());
+        assertEquals(testHeaders.hashCode(), HttpHeaders.copyOf(testHeaders).hashCode());
+
+        reordered.put("Accept", Arrays.asList("application/json", "text/html"));
+        assertNotEquals(HttpHeaders.copyOf(testHeaders), HttpHeaders.copyOf(reordered));
+    }
+
+    @Test
+    public void testBuilderSharesTemplateUntilModified() {
+        HttpHeaders template = HttpHeaders.copyOf(testHeaders);
+        HttpHeaders.Builder builder = HttpHeaders.newBuilder(template);
+
+        HttpHeaders unchanged = builder.build();
+        assertEquals(template, unchanged);
+
+        HttpHeaders changed = builder.add("X-Trace", "t1").build();
+        assertEquals(4, changed.size());
+        assertEquals(3, template.size());
+        assertFalse(template.contains("X-Trace"));
+        assertEquals("t1", changed.getFirst("x-trace"));
+    }
+
+    @Test
+    public void testBuilderEdits() {
+        HttpHeaders.Builder builder = HttpHeaders.newBuilder(HttpHeaders.copyOf(testHeaders));
+
+        builder.add("accept", "text/plain").set("content-type", "text/xml").remove("X-CUSTOM").add("Via", "1.1 a");
+        HttpHeaders edited = builder.build();
+
+        assertEquals(Arrays.asList("text/html", "application/json", "text/plain"), edited.getAll("Accept"));
+        assertEquals("Content-Type", edited.getName(0));
+        assertEquals(Arrays.asList("text/xml"), edited.getAll("Content-Type"));
+        assertFalse(edited.contains("X-Custom"));
+        assertEquals(3, edited.size());
+        assertEquals(5, edited.valueCount());
+
+        HttpHeaders afterBuild = builder.remove("Accept").build();
+        assertEquals(3, edited.getAll("Accept").size());
+        assertFalse(afterBuild.contains("Accept"));
+        assertEquals(Arrays.asList("1.1 a"), afterBuild.getAll("via"));
+    }
+
+    @Test
+    public void testBuilderRemoveWithoutValuesDoesNotModifyTemplate() {
+        HttpHeaders template = HttpHeaders.newBuilder().add("A", Collections.<String>emptyList()).add("B", "b").build();
+
+        HttpHeaders edited = HttpHeaders.newBuilder(template).remove("A").build();
+
+        assertEquals("A", template.getName(0));
+        assertEquals(1, edited.size());
+        assertEquals("b", edited.getFirst("B"));
+    }
+
+    @Test
+    public void testParametersAreCaseSensitive() {
+        HttpParameters testParameters = HttpParameters.newBuilder().add("p", "lower").add("P", "upper").build();
+
+        assertEquals(2, testParameters.size());
+        assertEquals("lower", testParameters.getFirst("p"));
+        assertEquals("upper", testParameters.getFirst("P"));
+        assertNull(testParameters.asMap().get("Q"));
+    }
+
+}
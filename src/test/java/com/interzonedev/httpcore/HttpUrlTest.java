@@ -0,0 +1,98 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpUrlTest {
+
+    @Test
+    public void testAbsoluteUrl() {
+        HttpUrl url = HttpUrl.parse("HTTPS://user:pw@Api.Example.com:8443/v1/items%2F7/?q=caf%C3%A9&flag&empty=#top");
+
+        assertTrue(url.isAbsolute());
+        assertEquals("https", url.getScheme());
+        assertEquals("api.example.com", url.getHost());
+        assertEquals(8443, url.getPort());
+        assertEquals("https://api.example.com:8443", url.getOrigin());
+        assertEquals("/v1/items%2F7/", url.getEncodedPath());
+        assertEquals("/v1/items/7/", url.getPath());
+        assertEquals(Arrays.asList("v1", "items/7", ""), url.getPathSegments());
+        assertSame(url.getPathSegments(), url.getPathSegments());
+        assertEquals("q=caf%C3%A9&flag&empty=", url.getEncodedQuery());
+        assertEquals("café", url.getQueryParameters().getFirst("q"));
+        assertEquals(Collections.singletonList(null), url.getQueryParameters().getAll("flag"));
+        assertEquals("", url.getQueryParameters().getFirst("empty"));
+        assertEquals("top", url.getFragment());
+    }
+
+    @Test
+    public void testDefaultsAndForms() {
+        HttpUrl plain = HttpUrl.parse("http://example.com");
+        assertEquals(80, plain.getPort());
+        assertEquals("", plain.getEncodedPath());
+        assertTrue(plain.getPathSegments().isEmpty());
+        assertNull(plain.getEncodedQuery());
+        assertTrue(plain.getQueryParameters().isEmpty());
+        assertNull(plain.getFragment());
+
+        HttpUrl ipv6 = HttpUrl.parse("https://[::1]:9000/");
+        assertEquals("[::1]", ipv6.getHost());
+        assertEquals(9000, ipv6.getPort());
+        assertEquals(Collections.singletonList(""), ipv6.getPathSegments());
+
+        HttpUrl origin = HttpUrl.parse("/orders/7?expand=items+all");
+        assertFalse(origin.isAbsolute());
+        assertNull(origin.getScheme());
+        assertNull(origin.getHost());
+        assertEquals(-1, origin.getPort());
+        assertNull(origin.getOrigin());
+        assertEquals(Arrays.asList("orders", "7"), origin.getPathSegments());
+        assertEquals("items all", origin.getQueryParameters().getFirst("expand"));
+
+        HttpUrl schemeRelative = HttpUrl.parse("//cdn.example.com/app.js");
+        assertEquals("cdn.example.com", schemeRelative.getHost());
+        assertFalse(schemeRelative.isAbsolute());
+
+        assertEquals("/a%zz+b", HttpUrl.parse("/a%zz+b").getPath());
+        assertThrows(HttpException.class, () -> HttpUrl.parse("http://example.com:80x/"));
+        assertThrows(HttpException.class, () -> HttpUrl.parse("http://example.com:70000/"));
+    }
+
+    @Test
+    public void testWithPathAndQuery() {
+        HttpUrl url = HttpUrl.parse("https://example.com/a/b?x=1&y=2#frag");
+        HttpParameters query = url.getQueryParameters();
+
+        HttpUrl moved = url.withEncodedPath("c/d%20e");
+        assertEquals("https://example.com/c/d%20e?x=1&y=2#frag", moved.toString());
+        assertEquals(HttpUrl.parse(moved.toString()), moved);
+        assertEquals(Arrays.asList("c", "d e"), moved.getPathSegments());
+        assertSame(query, moved.getQueryParameters());
+        assertEquals("frag", moved.getFragment());
+
+        HttpUrl requeried = url.withEncodedQuery("z=3");
+        assertEquals("https://example.com/a/b?z=3#frag", requeried.toString());
+        assertEquals("3", requeried.getQueryParameters().getFirst("z"));
+        assertEquals("/a/b", requeried.getEncodedPath());
+
+        HttpParameters parameters = HttpParameters.newBuilder().add("q", "a b&c").add("flag", (String) null).build();
+        HttpUrl encoded = url.withQueryParameters(parameters);
+        assertEquals("https://example.com/a/b?q=a+b%26c&flag#frag", encoded.toString());
+        assertSame(parameters, encoded.getQueryParameters());
+        assertEquals(parameters, HttpUrl.parse(encoded.toString()).getQueryParameters());
+
+        assertEquals("https://example.com/a/b#frag", url.withQueryParameters(HttpParameters.of()).toString());
+        assertEquals("/p?x=1", HttpUrl.parse("/old?x=1").withEncodedPath("/p").toString());
+        assertThrows(IllegalArgumentException.class, () -> url.withEncodedPath("/a?b"));
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MediaTypeTest {
+
+    @Test
+    public void testParse() {
+        MediaType mediaType = MediaType.parse("Text/HTML ; Charset=ISO-8859-1; level=1");
+
+        assertEquals("text", mediaType.getType());
+        assertEquals("html", mediaType.getSubtype());
+        assertEquals("iso-8859-1", mediaType.getParameter("charset"));
+        assertEquals("1", mediaType.getParameter("LEVEL"));
+        assertEquals(Arrays.asList("charset", "level"), Arrays.asList(mediaType.getParameters().keySet().toArray()));
+        assertSame(StandardCharsets.ISO_8859_1, mediaType.getCharset());
+        assertEquals("text/html; charset=iso-8859-1; level=1", mediaType.toString());
+    }
+
+    @Test
+    public void testQuotedParameters() {
+        MediaType mediaType = MediaType.parse("multipart/form-data; boundary=\"a;b \\\"c\\\"\"; charset=\"utf-8\"");
+
+        assertEquals("a;b \"c\"", mediaType.getParameter("boundary"));
+        assertSame(StandardCharsets.UTF_8, mediaType.getCharset());
+        assertEquals("multipart/form-data; boundary=\"a;b \\\"c\\\"\"; charset=utf-8", mediaType.toString());
+        assertEquals(mediaType, MediaType.parse(mediaType.toString()));
+    }
+
+    @Test
+    public void testMalformed() {
+        assertNull(MediaType.tryParse(null));
+        assertNull(MediaType.tryParse("text"));
+        assertNull(MediaType.tryParse("text/"));
+        assertNull(MediaType.tryParse("charset=utf-8; text/plain"));
+        assertNull(MediaType.tryParse("text/plain; name=\"unterminated"));
+        assertThrows(HttpException.class, () -> MediaType.parse("nonsense"));
+
+        MediaType lenient = MediaType.parse("text/plain;; flag; charset=no-such-charset");
+        assertEquals("no-such-charset", lenient.getParameter("charset"));
+        assertNull(lenient.getParameter("flag"));
+        assertNull(lenient.getCharset());
+    }
+
+    @Test
+    public void testInterned() {
+        String value = "application/json; charset=utf-8";
+        MediaType first = MediaType.parse(value);
+
+        assertSame(first, MediaType.parse(new String(value)));
+        assertSame(first, MediaType.tryParse(value));
+        assertEquals(MediaType.APPLICATION_JSON.withCharset(StandardCharsets.UTF_8), first);
+    }
+
+    @Test
+    public void testDerived() {
+        MediaType json = MediaType.APPLICATION_JSON.withParameter("Charset", "utf-8").withParameter("charset", "ascii");
+
+        assertEquals("application/json; charset=ascii", json.toString());
+        assertSame(StandardCharsets.US_ASCII, json.getCharset());
+        assertEquals(MediaType.APPLICATION_JSON, json.withoutParameters());
+        assertTrue(json.is(MediaType.APPLICATION_JSON));
+        assertFalse(json.equals(MediaType.APPLICATION_JSON));
+        assertThrows(IllegalArgumentException.class, () -> MediaType.of("text", "plain html"));
+    }
+
+    @Test
+    public void testMatches() {
+        MediaType html = MediaType.parse("text/html; charset=UTF-8");
+
+        assertTrue(html.matches(MediaType.ANY));
+        assertTrue(html.matches(MediaType.parse("text/*; q=0.8")));
+        assertTrue(html.matches(MediaType.parse("text/html; charset=utf-8")));
+        assertFalse(html.matches(MediaType.parse("text/html; level=1")));
+        assertFalse(html.matches(MediaType.parse("application/*")));
+        assertFalse(MediaType.TEXT_PLAIN.matches(MediaType.TEXT_HTML));
+    }
+
+    @Test
+    public void testList() {
+        List<MediaType> accepted = MediaType.parseList(Arrays.asList(
+                "text/html, application/xhtml+xml; profile=\"a,b\"", "bogus, */*;q=0.8"));
+
+        assertEquals(3, accepted.size());
+        assertEquals(MediaType.TEXT_HTML, accepted.get(0));
+        assertEquals("a,b", accepted.get(1).getParameter("profile"));
+        assertEquals("0.8", accepted.get(2).getParameter("q"));
+        assertEquals("text/html, application/xhtml+xml; profile=\"a,b\", */*; q=0.8",
+                MediaType.toHeaderValue(accepted));
+        assertTrue(MediaType.parseList(Collections.emptyList()).isEmpty());
+    }
+
+}
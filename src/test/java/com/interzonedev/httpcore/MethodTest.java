@@ -0,0 +1,45 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MethodTest {
+
+    @Test
+    public void testLookupEveryMethod() {
+        for (Method method : Method.values()) {
+            byte[] line = (" " + method.name() + " /").getBytes(StandardCharsets.US_ASCII);
+
+            assertEquals(method, Method.lookup(line, 1, method.name().length()));
+            assertEquals(method, Method.lookup(ByteBuffer.wrap(line), 1, method.name().length()));
+        }
+    }
+
+    @Test
+    public void testLookupUnknown() {
+        byte[] bytes = "get PATCHY BREW".getBytes(StandardCharsets.US_ASCII);
+
+        assertNull(Method.lookup(bytes, 0, 3));
+        assertNull(Method.lookup(bytes, 4, 6));
+        assertNull(Method.lookup(bytes, 11, 4));
+        assertNull(Method.lookup(bytes, 0, 0));
+        assertEquals(Method.PATCH, Method.lookup(bytes, 4, 5));
+    }
+
+    @Test
+    public void testLookupName() {
+        for (Method method : Method.values()) {
+            assertEquals(method, Method.lookup(method.name()));
+        }
+        assertNull(Method.lookup("get"));
+        assertNull(Method.lookup("PATCHY"));
+        assertNull(Method.lookup(""));
+        assertNull(Method.lookup(null));
+    }
+
+}
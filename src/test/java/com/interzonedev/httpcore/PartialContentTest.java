@@ -0,0 +1,89 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartialContentTest {
+
+    private final Response full = Response.newBuilder().setStatus(200).setContentType("text/plain")
+            .addHeader("ETag", "\"v1\"").addHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+            .setEntity(Body.of("0123456789abcdefghij")).build();
+
+    @Test
+    public void testSingleRange() {
+        Response partial = PartialContent.respond(rangeRequest("bytes=5-9").build(), full);
+
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 5-9/20", partial.getHttpHeaders().getFirst("Content-Range"));
+        assertEquals("bytes", partial.getHttpHeaders().getFirst("Accept-Ranges"));
+        assertEquals("56789", partial.getEntity().asString());
+        assertEquals(5L, partial.getContentLength());
+        assertEquals("text/plain", partial.getContentType());
+
+        assertEquals("ghij", PartialContent.respond(rangeRequest("bytes=-4").build(), full).getContent());
+        assertEquals("ij", PartialContent.respond(rangeRequest("bytes=18-").build(), full).getContent());
+    }
+
+    @Test
+    public void testMultipleRanges() {
+        Response partial = PartialContent.respond(rangeRequest("bytes=0-1, 10-11").build(), full);
+
+        assertEquals(206, partial.getStatus());
+        MediaType mediaType = partial.getMediaType();
+        assertTrue(mediaType.is(PartialContent.MULTIPART_BYTERANGES));
+        String boundary = mediaType.getParameter("boundary");
+        assertEquals("--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/20\r\n\r\n01"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 10-11/20\r\n\r\nab"
+                + "\r\n--" + boundary + "--\r\n", partial.getEntity().asString(StandardCharsets.ISO_8859_1));
+        assertEquals(partial.getEntity().length(), partial.getContentLength());
+    }
+
+    @Test
+    public void testNotSatisfiable() {
+        Response rejected = PartialContent.respond(rangeRequest("bytes=20-").build(), full);
+
+        assertEquals(416, rejected.getStatus());
+        assertEquals("bytes */20", rejected.getHttpHeaders().getFirst("Content-Range"));
+        assertEquals(0L, rejected.getEntity().length());
+    }
+
+    @Test
+    public void testIfRange() {
+        assertEquals(206, PartialContent.respond(rangeRequest("bytes=0-1").setHeader("If-Range", "\"v1\"").build(),
+                full).getStatus());
+        assertEquals(206, PartialContent.respond(rangeRequest("bytes=0-1")
+                .setHeader("If-Range", "Wed, 21 Oct 2015 07:28:00 GMT").build(), full).getStatus());
+        assertEquals(200, PartialContent.respond(rangeRequest("bytes=0-1").setHeader("If-Range", "\"v0\"").build(),
+                full).getStatus());
+        assertEquals(200, PartialContent.respond(rangeRequest("bytes=0-1").setHeader("If-Range", "W/\"v1\"").build(),
+                full).getStatus());
+    }
+
+    @Test
+    public void testCompleteResponse() {
+        Response unranged = PartialContent.respond(Request.newBuilder().setMethod(Method.GET).build(), full);
+        assertEquals(200, unranged.getStatus());
+        assertEquals("bytes", unranged.getHttpHeaders().getFirst("Accept-Ranges"));
+        assertSame(full.getEntity(), unranged.getEntity());
+
+        assertEquals(200, PartialContent.respond(rangeRequest("bytes=0-1").setMethod(Method.POST).build(), full)
+                .getStatus());
+        assertEquals(200, PartialContent.respond(rangeRequest("bytes=0-0,2-2,4-4").build(), full, 2).getStatus());
+        assertEquals(200, PartialContent.respond(rangeRequest("lines=1-2").build(), full).getStatus());
+
+        Response notFound = Response.newBuilder().setStatus(404).setContent("gone").build();
+        assertSame(notFound, PartialContent.respond(rangeRequest("bytes=0-1").build(), notFound));
+        assertFalse(notFound.getHttpHeaders().contains("Accept-Ranges"));
+    }
+
+    private static Request.Builder rangeRequest(String range) {
+        return Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/file").setHeader("Range", range);
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.interzonedev.httpcore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RequestKeyTest {
+
+    private final Request testRequest = Request.newBuilder().setUrl("HTTP://Example.COM:80?q=1#frag")
+            .setMethod(Method.GET).addHeader("Accept", "text/html").addHeader("Accept-Language", "en")
+            .addParameter("p", "1").setBody("body").build();
+
+    @Test
+    public void testNormalizeUrl() {
+        assertEquals("http://example.com/?q=1", RequestKey.normalizeUrl("HTTP://Example.COM:80?q=1#frag"));
+        assertEquals("https://example.com:8443/a/b", RequestKey.normalizeUrl("https://EXAMPLE.com:8443/a/b"));
+        assertEquals("https://example.com/", RequestKey.normalizeUrl("https://example.com:443"));
+        assertEquals("not a url", RequestKey.normalizeUrl("not a url"));
+        assertNull(RequestKey.normalizeUrl(null));
+    }
+
+    @Test
+    public void testDefaultProjection() {
+        RequestKey key = RequestKey.of(testRequest);
+        Request sameResource = Request.newBuilder(testRequest).setUrl("http://example.com/?q=1")
+                .setHeader("Accept", "application/json").setBody("other body").build();
+
+        assertEquals(Method.GET, key.getMethod());
+        assertEquals("http://example.com/?q=1", key.getUrl());
+        assertEquals(key, RequestKey.of(sameResource));
+        assertEquals(key.getFingerprint(), RequestKey.of(sameResource).getFingerprint());
+        assertEquals(key.hashCode(), RequestKey.of(sameResource).hashCode());
+    }
+
+    @Test
+    public void testKeyIsCachedPerProjection() {
+        assertSame(RequestKey.of(testRequest), RequestKey.of(testRequest));
+    }
+
+    @Test
+    public void testProjectionSelectsParts() {
+        RequestKey.Projection projection = RequestKey.Projection.newBuilder().setHeaderNames("accept")
+                .setIncludeBody(true).setIncludeParameters(false).build();
+
+        RequestKey key = projection.keyOf(testRequest);
+        assertEquals(Arrays.asList("text/html"), key.getHeaderValues());
+
+        Request otherParameters = Request.newBuilder(testRequest).setParameter("p", "2").build();
+        assertEquals(key, projection.keyOf(otherParameters));
+
+        Request otherAccept = Request.newBuilder(testRequest).setHeader("ACCEPT", "text/plain").build();
+        assertNotEquals(key, projection.keyOf(otherAccept));
+
+        Request otherBody = Request.newBuilder(testRequest).setBody("other body").build();
+        assertNotEquals(key, projection.keyOf(otherBody));
+
+        Request sameBytes = Request.newBuilder(testRequest).setEntity(Body.wrap("body".getBytes())).build();
+        assertEquals(key, projection.keyOf(sameBytes));
+    }
+
+    @Test
+    public void testDifferentProjectionsAreNotEqual() {
+        RequestKey.Projection other = RequestKey.Projection.newBuilder().build();
+
+        assertNotEquals(RequestKey.of(testRequest), other.keyOf(testRequest));
+    }
+
+    @Test
+    public void testVaryHeaderNames() {
+        RequestKey key = RequestKey.Projection.DEFAULT.keyOf(testRequest, Arrays.asList("Accept-Language", "DNT"));
+
+        assertEquals(Arrays.asList("accept-language", "dnt"), key.getHeaderNames());
+        assertEquals(Arrays.asList("en", null), key.getHeaderValues());
+
+        RequestKey.Projection projection = RequestKey.Projection.newBuilder().setHeaderNames("Accept").build();
+        RequestKey varied = projection.keyOf(testRequest, Arrays.asList("Accept-Language"));
+
+        assertEquals(Arrays.asList("accept", "accept-language"), varied.getHeaderNames());
+        assertEquals(Arrays.asList("text/html", "en"), varied.getHeaderValues());
+        assertEquals(projection.keyOf(testRequest), projection.keyOf(testRequest, Arrays.asList()));
+    }
+
+    @Test
+    public void testHeaderNamesArePartOfTheKey() {
+        RequestKey.Projection projection = RequestKey.Projection.DEFAULT;
+        RequestKey ifMatch = projection.keyOf(testRequest, Arrays.asList("If-Match"));
+        RequestKey ifNoneMatch = projection.keyOf(testRequest, Arrays.asList("If-None-Match"));
+
+        assertNotEquals(ifMatch, ifNoneMatch);
+        assertNotEquals(ifMatch.getFingerprint(), ifNoneMatch.getFingerprint());
+        assertEquals(ifMatch, projection.keyOf(testRequest, Arrays.asList("if-match")));
+        assertEquals(ifMatch.getFingerprint(),
+                projection.keyOf(testRequest, Arrays.asList("IF-MATCH")).getFingerprint());
+    }
+
+}
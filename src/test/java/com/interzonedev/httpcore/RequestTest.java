@@ -2,13 +2,17 @@ package com.interzonedev.httpcore;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RequestTest {
@@ -36,6 +40,7 @@ public class RequestTest {
         assertTrue(testRequest.getHeaders().isEmpty());
         assertTrue(testRequest.getParameters().isEmpty());
         assertNull(testRequest.getBody());
+        assertNull(testRequest.getEntity());
     }
 
     @Test
@@ -81,4 +86,161 @@ public class RequestTest {
         assertTrue(testRequest.getParameters().isEmpty());
     }
 
+    @Test
+    public void testSetEntity() {
+        Body testEntity = Body.wrap(testBody.getBytes(StandardCharsets.UTF_8));
+        Request testRequest = Request.newBuilder().setEntity(testEntity).build();
+
+        assertSame(testEntity, testRequest.getEntity());
+        assertEquals(testBody, testRequest.getBody());
+        assertSame(testRequest.getBody(), testRequest.getBody());
+    }
+
+    @Test
+    public void testBodyUsesContentTypeCharset() {
+        Map<String, List<String>> latin1Headers = new HashMap<>();
+        latin1Headers.put("content-type", Arrays.asList("text/plain; charset=ISO-8859-1"));
+        String latin1Body = "caf\u00e9";
+
+        Request testRequest = Request.newBuilder().setBody(latin1Body).setHeaders(latin1Headers).build();
+
+        assertEquals(latin1Body, testRequest.getBody());
+        assertEquals(4, testRequest.getEntity().length());
+    }
+
+    @Test
+    public void testHeaderLookupIsCaseInsensitive() {
+        Request testRequest = Request.newBuilder().setHeaders(testHeaders).build();
+
+        assertEquals(testHeaders.get("hk1"), testRequest.getHeaders().get("HK1"));
+        assertEquals("hv21", testRequest.getHttpHeaders().getFirst("Hk2"));
+    }
+
+    @Test
+    public void testIncrementalHeaderEdits() {
+        Request template = Request.newBuilder().setHeaders(testHeaders).setParameters(testParameters).build();
+        Request derived = Request.newBuilder(template).addHeader("X-Trace", "t1").setHeader("HK1", "hv13")
+                .removeHeader("hk2").build();
+
+        assertEquals(testHeaders, template.getHeaders());
+        assertEquals(Arrays.asList("hv13"), derived.getHeaders().get("hk1"));
+        assertEquals(Arrays.asList("t1"), derived.getHeaders().get("x-trace"));
+        assertFalse(derived.getHeaders().containsKey("hk2"));
+        assertSame(template.getHttpParameters(), derived.getHttpParameters());
+    }
+
+    @Test
+    public void testIncrementalParameterEdits() {
+        Request template = Request.newBuilder().setHeaders(testHeaders).setParameters(testParameters).build();
+        Request derived = Request.newBuilder(template).addParameter("pk3", "pv31").removeParameter("pk1")
+                .addParameter("pk2", "pv22").build();
+
+        assertEquals(testParameters, template.getParameters());
+        assertEquals(Arrays.asList("pv21", "pv22"), derived.getParameters().get("pk2"));
+        assertEquals(Arrays.asList("pv31"), derived.getParameters().get("pk3"));
+        assertFalse(derived.getParameters().containsKey("pk1"));
+        assertSame(template.getHttpHeaders(), derived.getHttpHeaders());
+    }
+
+    @Test
+    public void testLazyParts() {
+        AtomicInteger calls = new AtomicInteger();
+        Request lazy = Request.newBuilder().setUrl(testUrl).setMethod(testMethod)
+                .setLazyHeaders(() -> {
+                    calls.incrementAndGet();
+                    return HttpHeaders.copyOf(testHeaders);
+                }).setLazyParameters(() -> {
+                    calls.incrementAndGet();
+                    return HttpParameters.copyOf(testParameters);
+                }).setLazyEntity(() -> {
+                    calls.incrementAndGet();
+                    return Body.of(testBody);
+                }).build();
+        Request derived = Request.newBuilder(lazy).setUrl("http://example.com/other").build();
+
+        assertEquals(testUrl, lazy.getUrl());
+        assertEquals(0, calls.get());
+
+        assertEquals(testHeaders, derived.getHeaders());
+        assertEquals(1, calls.get());
+        assertSame(lazy.getHttpHeaders(), derived.getHttpHeaders());
+        assertEquals(1, calls.get());
+
+        assertEquals(testBody, lazy.getBody());
+        assertEquals(testParameters, lazy.getParameters());
+        assertEquals(3, calls.get());
+        assertEquals(Request.newBuilder().setUrl(testUrl).setMethod(testMethod).setHeaders(testHeaders)
+                .setParameters(testParameters).setBody(testBody).build(), lazy);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testLazyPartsEditedOnBuilder() {
+        Request request = Request.newBuilder().setLazyHeaders(() -> HttpHeaders.copyOf(testHeaders))
+                .setLazyEntity(() -> null).addHeader("hk3", "hv31").build();
+
+        assertEquals(Arrays.asList("hv11", "hv12"), request.getHttpHeaders().getAll("hk1"));
+        assertEquals("hv31", request.getHttpHeaders().getFirst("hk3"));
+        assertNull(request.getEntity());
+        assertNull(request.getBody());
+    }
+
+    @Test
+    public void testHttpUrlAndMergedParameters() {
+        Request request = Request.newBuilder().setUrl("https://Example.com/search?q=a+b&page=2").setMethod(Method.GET)
+                .addParameter("page", "3").addParameter("sort", "date").build();
+
+        HttpUrl url = request.getHttpUrl();
+        assertSame(url, request.getHttpUrl());
+        assertEquals("example.com", url.getHost());
+        assertEquals("/search", url.getEncodedPath());
+
+        HttpParameters merged = request.getMergedParameters();
+        assertSame(merged, request.getMergedParameters());
+        assertEquals(Arrays.asList("a b"), merged.getAll("q"));
+        assertEquals(Arrays.asList("2", "3"), merged.getAll("page"));
+        assertEquals("date", merged.getFirst("sort"));
+
+        assertNull(Request.newBuilder().build().getHttpUrl());
+        assertTrue(Request.newBuilder().build().getMergedParameters().isEmpty());
+    }
+
+    @Test
+    public void testSetHttpUrl() {
+        Request request = Request.newBuilder().setUrl("http://example.com/a/b?x=1").build();
+        HttpUrl moved = request.getHttpUrl().withEncodedPath("/c");
+
+        Request rebuilt = Request.newBuilder(request).setHttpUrl(moved).build();
+        assertEquals("http://example.com/c?x=1", rebuilt.getUrl());
+        assertSame(moved, rebuilt.getHttpUrl());
+        assertSame(request.getHttpUrl(), Request.newBuilder(request).build().getHttpUrl());
+        assertEquals(Request.newBuilder().setUrl("http://example.com/c?x=1").build(), rebuilt);
+
+        Request reset = Request.newBuilder(rebuilt).setUrl("/d").build();
+        assertEquals("/d", reset.getHttpUrl().getEncodedPath());
+    }
+
+    @Test
+    public void testMediaTypes() {
+        Request request = Request.newBuilder().setMediaType(MediaType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_16))
+                .setAccept(Arrays.asList(MediaType.APPLICATION_JSON, MediaType.parse("text/*; q=0.5")))
+                .setBody("caf\u00e9").build();
+
+        assertEquals("text/plain; charset=utf-16", request.getHttpHeaders().getFirst("content-type"));
+        assertEquals(MediaType.TEXT_PLAIN, request.getMediaType().withoutParameters());
+        assertSame(StandardCharsets.UTF_16, request.getMediaType().getCharset());
+        assertEquals("caf\u00e9", request.getBody());
+        assertEquals(10L, request.getEntity().length());
+
+        assertEquals("application/json, text/*; q=0.5", request.getHttpHeaders().getFirst("Accept"));
+        assertEquals(Arrays.asList(MediaType.APPLICATION_JSON, MediaType.parse("text/*;q=0.5")),
+                request.getAcceptedMediaTypes());
+
+        Request lazy = Request.newBuilder()
+                .setLazyHeaders(() -> HttpHeaders.newBuilder().add("Content-Type", "application/json").build()).build();
+        assertEquals(MediaType.APPLICATION_JSON, lazy.getMediaType());
+        assertNull(Request.newBuilder().build().getMediaType());
+        assertTrue(Request.newBuilder().build().getAcceptedMediaTypes().isEmpty());
+    }
+
 }
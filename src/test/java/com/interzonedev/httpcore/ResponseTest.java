@@ -3,14 +3,18 @@ package com.interzonedev.httpcore;
 import org.junit.jupiter.api.Test;
 
 import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ResponseTest {
@@ -43,6 +47,7 @@ public class ResponseTest {
         assertTrue(testResponse.getHeaders().isEmpty());
         assertTrue(testResponse.getCookies().isEmpty());
         assertNull(testResponse.getContent());
+        assertNull(testResponse.getEntity());
         assertNull(testResponse.getLocale());
     }
 
@@ -97,4 +102,134 @@ public class ResponseTest {
         assertTrue(testResponse.getCookies().isEmpty());
     }
 
+    @Test
+    public void testSetEntity() {
+        Body testEntity = Body.wrap(testContent.getBytes(StandardCharsets.UTF_8));
+        Response testResponse = Response.newBuilder().setContentType(testContentType).setEntity(testEntity).build();
+
+        assertSame(testEntity, testResponse.getEntity());
+        assertEquals(testContent, testResponse.getContent());
+        assertSame(testResponse.getContent(), testResponse.getContent());
+    }
+
+    @Test
+    public void testContentUsesContentTypeCharset() {
+        byte[] latin1Bytes = new byte[]{'c', 'a', 'f', (byte) 0xe9};
+        Response testResponse = Response.newBuilder().setContentType("text/plain;charset=\"ISO-8859-1\"")
+                .setEntity(Body.wrap(latin1Bytes)).build();
+
+        assertEquals("caf\u00e9", testResponse.getContent());
+    }
+
+    @Test
+    public void testCopyKeepsTextAcrossCharsets() {
+        String text = "h\u00e9llo";
+        Response declared = Response.newBuilder().setContentType("text/plain; charset=UTF-8").setContent(text).build();
+        Response undeclared = Response.newBuilder().setContent(text).build();
+
+        for (Response template : Arrays.asList(declared, undeclared)) {
+            Response latin1 = Response.newBuilder(template).setContentType("text/plain; charset=ISO-8859-1").build();
+            assertEquals(text, latin1.getContent());
+            assertArrayEquals(text.getBytes(StandardCharsets.ISO_8859_1), latin1.getEntity().toByteArray());
+
+            Response utf16 = Response.newBuilder(template).setContentType("text/plain; charset=UTF-16").build();
+            assertEquals(text, utf16.getContent());
+            assertArrayEquals(text.getBytes(StandardCharsets.UTF_16), utf16.getEntity().toByteArray());
+
+            assertSame(template.getEntity(), Response.newBuilder(template).setContentType("text/html").build()
+                    .getEntity());
+        }
+    }
+
+    @Test
+    public void testCopyRelabelsBytes() {
+        Body bytes = Body.wrap(new byte[]{'c', 'a', 'f', (byte) 0xe9});
+        Response template = Response.newBuilder().setContentType("application/octet-stream").setEntity(bytes).build();
+
+        Response relabeled = Response.newBuilder(template).setContentType("text/plain; charset=ISO-8859-1").build();
+
+        assertSame(bytes, relabeled.getEntity());
+        assertEquals("caf\u00e9", relabeled.getContent());
+
+        Response replaced = Response.newBuilder(Response.newBuilder().setContent("caf\u00e9").build())
+                .setContentType("text/plain; charset=ISO-8859-1").setEntity(bytes).build();
+        assertSame(bytes, replaced.getEntity());
+    }
+
+    @Test
+    public void testIncrementalHeaderEdits() {
+        Response template = Response.newBuilder().setHeaders(testHeaders).build();
+        Response derived = Response.newBuilder(template).addHeader("X-Trace", "t1").setHeader("HK1", "hv13")
+                .removeHeader("hk2").build();
+
+        assertEquals(testHeaders, template.getHeaders());
+        assertEquals(Arrays.asList("hv13"), derived.getHeaders().get("hk1"));
+        assertEquals(Arrays.asList("t1"), derived.getHeaders().get("x-trace"));
+        assertFalse(derived.getHeaders().containsKey("hk2"));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Response testResponse = Response.newBuilder().setRequest(testRequest).setStatus(testStatus)
+                .setContentType(testContentType).setHeaders(testHeaders).setContent(testContent).build();
+        Response equalResponse = Response.newBuilder(testResponse).build();
+        Response otherResponse = Response.newBuilder(testResponse).setStatus(404).build();
+
+        assertEquals(testResponse, equalResponse);
+        assertEquals(testResponse.hashCode(), equalResponse.hashCode());
+        assertEquals(testResponse.hashCode(), testResponse.hashCode());
+        assertFalse(testResponse.equals(otherResponse));
+    }
+
+    @Test
+    public void testTiming() {
+        Timing timing = Timing.newBuilder().setStartNanos(1_000L).setFirstByteNanos(4_000L).setCompleteNanos(9_000L)
+                .setBytesReceived(42L).build();
+        Response timed = Response.newBuilder().setStatus(testStatus).setTiming(timing).build();
+        Response untimed = Response.newBuilder(timed).setTiming(null).build();
+
+        assertSame(timing, timed.getTiming());
+        assertSame(timing, Response.newBuilder(timed).build().getTiming());
+        assertEquals(timed, untimed);
+        assertEquals(timed.hashCode(), untimed.hashCode());
+
+        assertEquals(3_000L, timing.getTimeToFirstByte().toNanos());
+        assertEquals(5_000L, timing.getTransferTime().toNanos());
+        assertEquals(8_000L, timing.getTotalTime().toNanos());
+        assertNull(timing.getConnectTime());
+        assertEquals(Timing.UNKNOWN, timing.getBytesSent());
+    }
+
+    @Test
+    public void testHttpCookiesParsedFromSetCookieHeaders() {
+        Response testResponse = Response.newBuilder().addHeader("Set-Cookie", "a=1; Path=/")
+                .addHeader("Set-Cookie", "invalid").addHeader("Set-Cookie", "b=2; Secure").build();
+
+        List<HttpCookie> cookies = testResponse.getHttpCookies();
+
+        assertEquals(2, cookies.size());
+        assertEquals("a", cookies.get(0).getName());
+        assertEquals("/", cookies.get(0).getPath());
+        assertTrue(cookies.get(1).isSecure());
+        assertSame(cookies, testResponse.getHttpCookies());
+        assertTrue(Response.newBuilder().build().getHttpCookies().isEmpty());
+    }
+
+    @Test
+    public void testMediaType() {
+        Response response = Response.newBuilder().setContentType("application/json; charset=UTF-8").build();
+        Response other = Response.newBuilder().setContentType("application/json; charset=UTF-8").build();
+
+        assertSame(response.getMediaType(), other.getMediaType());
+        assertSame(StandardCharsets.UTF_8, response.getMediaType().getCharset());
+
+        Response built = Response.newBuilder().setMediaType(MediaType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_16))
+                .setContent("text").build();
+        assertEquals("text/plain; charset=utf-16", built.getContentType());
+        assertEquals(10L, built.getEntity().length());
+
+        assertNull(Response.newBuilder().setContentType("garbage").build().getMediaType());
+        assertNull(Response.newBuilder().build().getMediaType());
+    }
+
 }
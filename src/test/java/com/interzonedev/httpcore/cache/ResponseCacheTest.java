@@ -0,0 +1,339 @@
+package com.interzonedev.httpcore.cache;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Compactor;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.RequestKey;
+import com.interzonedev.httpcore.Response;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCacheTest {
+
+    private final TestClock clock = new TestClock();
+
+    private final Request testRequest = Request.newBuilder().setUrl("http://example.com/resource")
+            .setMethod(Method.GET).build();
+
+    @Test
+    public void testFreshHitAndExpiry() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+
+        assertTrue(cache.put(testRequest, response("max-age=60").build()));
+        assertEquals(1L, cache.size());
+
+        clock.advance(30_000L);
+        CacheLookup lookup = cache.lookup(testRequest);
+        assertEquals(CacheLookup.Status.HIT, lookup.getStatus());
+        assertEquals("hello", lookup.getResponse().getContent());
+        assertEquals("30", lookup.getResponse().getHttpHeaders().getFirst("Age"));
+
+        clock.advance(31_000L);
+        assertEquals(CacheLookup.Status.MISS, cache.lookup(testRequest).getStatus());
+
+        CacheStats stats = cache.stats();
+        assertEquals(1L, stats.getHitCount());
+        assertEquals(1L, stats.getMissCount());
+        assertEquals(1L, stats.getPutCount());
+    }
+
+    @Test
+    public void testRequestDirectives() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+        cache.put(testRequest, response("max-age=60").build());
+        clock.advance(50_000L);
+
+        assertNull(cache.get(withCacheControl("no-cache")));
+        assertNull(cache.get(withCacheControl("max-age=10")));
+        assertNull(cache.get(withCacheControl("min-fresh=20")));
+
+        clock.advance(20_000L);
+        assertNull(cache.get(testRequest));
+        assertEquals("hello", cache.get(withCacheControl("max-stale=30")).getContent());
+        assertEquals("hello", cache.get(withCacheControl("max-stale")).getContent());
+        assertNull(cache.get(withCacheControl("max-stale=5")));
+    }
+
+    @Test
+    public void testNotCacheable() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+
+        assertFalse(cache.put(testRequest, response("no-store, max-age=60").build()));
+        assertFalse(cache.put(testRequest, response("max-age=60").setStatus(500).build()));
+        assertFalse(cache.put(testRequest, response("max-age=60").setHeader("Vary", "*").build()));
+        assertFalse(cache.put(testRequest, response(null).build()));
+        assertFalse(cache.put(Request.newBuilder(testRequest).setMethod(Method.POST).build(),
+                response("max-age=60").build()));
+        assertEquals(0L, cache.size());
+    }
+
+    @Test
+    public void testStaleRevalidation() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+        cache.put(testRequest, response("max-age=10").setHeader("ETag", "\"v1\"")
+                .setHeader("Content-Length", "5").build());
+
+        clock.advance(20_000L);
+        CacheLookup lookup = cache.lookup(testRequest);
+        assertEquals(CacheLookup.Status.STALE, lookup.getStatus());
+        assertEquals("\"v1\"", lookup.getConditionalRequest().getHttpHeaders().getFirst("If-None-Match"));
+        assertEquals("http://example.com/resource", lookup.getConditionalRequest().getUrl());
+
+        Response notModified = Response.newBuilder().setStatus(304).setHeader("Cache-Control", "max-age=100")
+                .setHeader("Content-Length", "0").build();
+        Response refreshed = cache.revalidated(testRequest, notModified);
+        assertEquals(200, refreshed.getStatus());
+        assertEquals("hello", refreshed.getContent());
+        assertEquals("max-age=100", refreshed.getHttpHeaders().getFirst("Cache-Control"));
+        assertEquals("5", refreshed.getHttpHeaders().getFirst("Content-Length"));
+
+        clock.advance(50_000L);
+        assertEquals(CacheLookup.Status.HIT, cache.lookup(testRequest).getStatus());
+        assertEquals(1L, cache.stats().getStaleCount());
+        assertEquals(1L, cache.stats().getRevalidationCount());
+    }
+
+    @Test
+    public void testHeuristicAndExpiresFreshness() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+        String date = format(clock.millis());
+
+        cache.put(testRequest, response(null).setHeader("Date", date)
+                .setHeader("Last-Modified", format(clock.millis() - 1_000_000L)).build());
+        clock.advance(99_000L);
+        assertEquals(CacheLookup.Status.HIT, cache.lookup(testRequest).getStatus());
+        clock.advance(2_000L);
+        assertEquals(CacheLookup.Status.STALE, cache.lookup(testRequest).getStatus());
+
+        Request other = Request.newBuilder(testRequest).setUrl("http://example.com/other").build();
+        cache.put(other, response(null).setHeader("Date", format(clock.millis()))
+                .setHeader("Expires", format(clock.millis() + 5_000L)).build());
+        assertEquals(CacheLookup.Status.HIT, cache.lookup(other).getStatus());
+        clock.advance(6_000L);
+        assertEquals(CacheLookup.Status.MISS, cache.lookup(other).getStatus());
+    }
+
+    @Test
+    public void testVary() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+        Request english = Request.newBuilder(testRequest).setHeader("Accept-Language", "en").build();
+        Request french = Request.newBuilder(testRequest).setHeader("Accept-Language", "fr").build();
+
+        cache.put(english, response("max-age=60").setHeader("Vary", "accept-language").build());
+        cache.put(french, response("max-age=60").setHeader("Vary", "Accept-Language").setContent("bonjour").build());
+
+        assertEquals(2L, cache.size());
+        assertEquals("hello", cache.get(english).getContent());
+        assertEquals("bonjour", cache.get(french).getContent());
+        assertNull(cache.get(testRequest));
+
+        cache.invalidateAll();
+        assertEquals(0L, cache.size());
+        assertEquals(0L, cache.weight());
+    }
+
+    @Test
+    public void testInvalidateRemovesEveryVariant() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).build();
+        Request english = Request.newBuilder(testRequest).setHeader("Accept-Language", "en").build();
+        Request french = Request.newBuilder(testRequest).setHeader("Accept-Language", "fr").build();
+
+        cache.put(english, response("max-age=60").setHeader("Vary", "Accept-Language").build());
+        cache.put(french, response("max-age=60").setHeader("Vary", "Accept-Language").setContent("bonjour").build());
+        assertEquals(2L, cache.size());
+
+        cache.invalidate(english);
+
+        assertNull(cache.get(english));
+        assertNull(cache.get(french));
+        assertEquals(0L, cache.size());
+        assertEquals(0L, cache.weight());
+
+        assertTrue(cache.put(french, response("max-age=60").setHeader("Vary", "Accept-Language").build()));
+        assertEquals("hello", cache.get(french).getContent());
+    }
+
+    @Test
+    public void testVaryAddsToProjectionHeaders() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock)
+                .setProjection(RequestKey.Projection.newBuilder().setHeaderNames("Authorization").build()).build();
+        Request userA = Request.newBuilder(testRequest).setHeader("Authorization", "Bearer a")
+                .setHeader("Accept-Encoding", "gzip").build();
+        Request userB = Request.newBuilder(userA).setHeader("Authorization", "Bearer b").build();
+
+        cache.put(userA, response("max-age=60").setHeader("Vary", "Accept-Encoding").setContent("for a").build());
+        assertNull(cache.get(userB));
+
+        cache.put(userB, response("max-age=60").setHeader("Vary", "Accept-Encoding").setContent("for b").build());
+
+        assertEquals(2L, cache.size());
+        assertEquals("for a", cache.get(userA).getContent());
+        assertEquals("for b", cache.get(userB).getContent());
+    }
+
+    @Test
+    public void testChangedVaryRemovesOldVariants() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).setMaximumEntries(2L)
+                .setConcurrencyLevel(1).build();
+        Request english = Request.newBuilder(testRequest).setHeader("Accept-Language", "en").build();
+        Request french = Request.newBuilder(testRequest).setHeader("Accept-Language", "fr").build();
+
+        cache.put(english, response("max-age=60").setHeader("Vary", "Accept-Language").build());
+        cache.put(french, response("max-age=60").setHeader("Vary", "Accept-Language").build());
+        assertEquals(2L, cache.size());
+
+        cache.put(english, response("max-age=60").setHeader("Vary", "Accept-Encoding").setContent("any").build());
+
+        assertEquals(1L, cache.size());
+        assertEquals("any", cache.get(english).getContent());
+        assertEquals("any", cache.get(french).getContent());
+
+        // Filling the cache evicts the variant and, with its last variant, the record of the resource.
+        for (int i = 1; i <= 2; i++) {
+            for (int lookups = 0; lookups < 3; lookups++) {
+                cache.get(resource(i));
+            }
+            cache.put(resource(i), response("max-age=60").build());
+        }
+
+        assertNull(cache.get(english));
+        assertEquals(2L, cache.size());
+
+        cache.invalidateAll();
+        assertTrue(cache.put(english, response("max-age=60").setHeader("Vary", "Accept-Language").build()));
+        assertEquals("hello", cache.get(english).getContent());
+        assertNull(cache.get(french));
+    }
+
+    @Test
+    public void testEntryBound() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).setMaximumEntries(2L)
+                .setConcurrencyLevel(1).build();
+
+        Request first = resource(1);
+        Request second = resource(2);
+        Request third = resource(3);
+
+        cache.put(first, response("max-age=60").build());
+        cache.put(second, response("max-age=60").build());
+        cache.get(first);
+
+        // A request seen only once is not admitted over an entry that has been requested.
+        assertFalse(cache.put(third, response("max-age=60").build()));
+        assertEquals(1L, cache.stats().getRejectionCount());
+
+        for (int i = 0; i < 3; i++) {
+            cache.lookup(third);
+        }
+        assertTrue(cache.put(third, response("max-age=60").build()));
+
+        assertEquals(2L, cache.size());
+        assertEquals(1L, cache.stats().getEvictionCount());
+        assertNull(cache.get(second));
+        assertEquals("hello", cache.get(first).getContent());
+        assertEquals("hello", cache.get(third).getContent());
+    }
+
+    @Test
+    public void testWeightBound() {
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).setMaximumWeight(250L)
+                .setConcurrencyLevel(1).setWeigher(response -> response.getEntity().length()).build();
+
+        assertFalse(cache.put(resource(1), response("max-age=60").setContent(repeat(300)).build()));
+
+        cache.put(resource(2), response("max-age=60").setContent(repeat(100)).build());
+        cache.put(resource(3), response("max-age=60").setContent(repeat(100)).build());
+        assertEquals(200L, cache.weight());
+
+        for (int i = 0; i < 3; i++) {
+            cache.lookup(resource(4));
+        }
+        assertTrue(cache.put(resource(4), response("max-age=60").setContent(repeat(100)).build()));
+        assertEquals(200L, cache.weight());
+        assertEquals(100L, cache.stats().getEvictionWeight());
+    }
+
+    @Test
+    public void testCompactorCompactsAndWeighsStoredResponses() {
+        Compactor compactor = Compactor.newBuilder().build();
+        ResponseCache cache = ResponseCache.newBuilder().setClock(clock).setCompactor(compactor).build();
+        Response response = response("max-age=60").build();
+
+        assertTrue(cache.put(testRequest, response));
+
+        Response cached = cache.get(testRequest);
+        assertEquals("hello", cached.getContent());
+        assertEquals("max-age=60", cached.getHttpHeaders().getFirst("Cache-Control"));
+        assertEquals(compactor.estimateRetainedBytes(compactor.compact(response)), cache.weight());
+    }
+
+    private Request withCacheControl(String cacheControl) {
+        return Request.newBuilder(testRequest).setHeader("Cache-Control", cacheControl).build();
+    }
+
+    private static Request resource(int i) {
+        return Request.newBuilder().setUrl("http://example.com/" + i).setMethod(Method.GET).build();
+    }
+
+    private static Response.Builder response(String cacheControl) {
+        Response.Builder builder = Response.newBuilder().setStatus(200).setContent("hello");
+        if (null != cacheControl) {
+            builder.setHeader("Cache-Control", cacheControl);
+        }
+        return builder;
+    }
+
+    private static String repeat(int length) {
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            content.append('x');
+        }
+        return content.toString();
+    }
+
+    private static String format(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+
+    private static final class TestClock extends Clock {
+
+        // Whole seconds, since HTTP dates have no fractions.
+        private long millis = 1_600_000_000_000L;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+}
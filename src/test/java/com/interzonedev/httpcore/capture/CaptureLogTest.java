@@ -0,0 +1,227 @@
+package com.interzonedev.httpcore.capture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CaptureLogTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("capture");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        Request request = Request.newBuilder().setMethod(Method.POST).setUrl("https://example.com/orders")
+                .addHeader("Content-Type", "application/json").setEntity(Body.of("{\"id\":7}")).build();
+        Response response = Response.newBuilder().setStatus(201).setContent("created").build();
+
+        try (CaptureLog log = CaptureLog.newBuilder(directory).setClock(() -> 1_500_000L).build()) {
+            log.append(request, response);
+            log.append(Response.newBuilder().setStatus(204).build());
+            assertEquals(2L, log.getAppendCount());
+        }
+
+        List<CapturedExchange> exchanges = Lists.newArrayList(CaptureReader.newBuilder(directory).build());
+        assertEquals(2, exchanges.size());
+
+        CapturedExchange first = exchanges.get(0);
+        assertEquals(request, first.getRequest());
+        assertEquals(201, first.getResponse().getStatus());
+        assertEquals("created", first.getResponse().getContent());
+        assertEquals(Instant.ofEpochSecond(1L, 500_000_000L), first.getTimestamp());
+
+        assertNull(exchanges.get(1).getRequest());
+        assertEquals(204, exchanges.get(1).getResponse().getStatus());
+    }
+
+    @Test
+    public void testReadWhileWriting() {
+        try (CaptureLog log = CaptureLog.newBuilder(directory).build()) {
+            CaptureReader reader = CaptureReader.newBuilder(directory).build();
+            assertFalse(reader.iterator().hasNext());
+
+            log.append(exchange(Method.GET, "/a", 200));
+            assertEquals(1, Lists.newArrayList(reader).size());
+
+            log.append(exchange(Method.GET, "/b", 200));
+            assertEquals(2, Lists.newArrayList(reader).size());
+        }
+    }
+
+    @Test
+    public void testFilters() {
+        try (CaptureLog log = CaptureLog.newBuilder(directory).build()) {
+            log.append(exchange(Method.GET, "/api/users/1", 200));
+            log.append(exchange(Method.POST, "/api/users", 201));
+            log.append(exchange(Method.GET, "/static/app.js", 304));
+            log.append(exchange(Method.DELETE, "/api/users/1", 404));
+            log.append(Response.newBuilder().setStatus(200).build());
+        }
+
+        assertEquals(ImmutableList.of("/api/users/1", "/static/app.js"),
+                urls(CaptureReader.newBuilder(directory).setMethods(Method.GET).build()));
+        assertEquals(ImmutableList.of("/api/users/1", "/api/users", "/api/users/1"),
+                urls(CaptureReader.newBuilder(directory).setUrlPrefix("/api/").build()));
+        assertEquals(ImmutableList.of("/api/users", "/api/users/1"),
+                urls(CaptureReader.newBuilder(directory).setStatuses(201, 404).build()));
+        assertEquals(ImmutableList.of("/api/users/1"), urls(CaptureReader.newBuilder(directory)
+                .setMethods(Method.GET, Method.DELETE).setUrlPrefix("/api/").setStatuses(200).build()));
+        assertEquals(5, Lists.newArrayList(CaptureReader.newBuilder(directory).setStatuses().build()).size());
+    }
+
+    @Test
+    public void testSegmentsAndSeek() throws IOException {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        try (CaptureLog log = CaptureLog.newBuilder(directory).setSegmentSize(2048).setIndexInterval(256)
+                .setClock(() -> clock.addAndGet(1_000L)).build()) {
+            for (int i = 0; i < 200; i++) {
+                log.append(exchange(Method.GET, "/items/" + i, 200));
+            }
+        }
+
+        List<Path> segments = CaptureFormat.segments(directory);
+        assertTrue(segments.size() > 3);
+        for (Path segment : segments) {
+            assertTrue(Files.exists(CaptureFormat.indexOf(segment)));
+        }
+
+        List<String> all = urls(CaptureReader.newBuilder(directory).build());
+        assertEquals(200, all.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("/items/" + i, all.get(i));
+        }
+
+        // The clock advances one millisecond before each append, so the item i is at 1.001 + i/1000 seconds.
+        Instant from = Instant.ofEpochSecond(1L, 151_000_000L);
+        Instant until = Instant.ofEpochSecond(1L, 160_000_000L);
+        List<String> range = urls(CaptureReader.newBuilder(directory).setFrom(from).setUntil(until).build());
+        assertEquals(10, range.size());
+        assertEquals("/items/150", range.get(0));
+        assertEquals("/items/159", range.get(9));
+
+        assertTrue(urls(CaptureReader.newBuilder(directory).setFrom(Instant.ofEpochSecond(2L)).build()).isEmpty());
+    }
+
+    @Test
+    public void testSegmentsAreSealedInTheBackground() {
+        List<Runnable> seals = new ArrayList<>();
+        try (CaptureLog log = CaptureLog.newBuilder(directory).setSegmentSize(1024).setSealExecutor(seals::add)
+                .build()) {
+            for (int i = 0; i < 40; i++) {
+                log.append(exchange(Method.GET, "/items/" + i, 200));
+            }
+
+            List<Path> segments = CaptureFormat.segments(directory);
+            assertTrue(segments.size() > 1);
+            assertEquals(segments.size() - 1, seals.size());
+            assertFalse(Files.exists(CaptureFormat.indexOf(segments.get(0))));
+
+            for (Runnable seal : seals) {
+                seal.run();
+            }
+            assertTrue(Files.exists(CaptureFormat.indexOf(segments.get(0))));
+        }
+
+        assertEquals(40, urls(CaptureReader.newBuilder(directory).build()).size());
+    }
+
+    @Test
+    public void testConcurrentAppends() throws InterruptedException {
+        int threads = 4;
+        int perThread = 500;
+        try (CaptureLog log = CaptureLog.newBuilder(directory).setSegmentSize(8192).build()) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.append(exchange(Method.PUT, "/" + thread + "/" + i, 200));
+                    }
+                }));
+            }
+            for (Thread writer : writers) {
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        List<String> urls = urls(CaptureReader.newBuilder(directory).build());
+        Set<String> unique = new HashSet<>(urls);
+        assertEquals(threads * perThread, urls.size());
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    public void testReopenAndLimits() {
+        try (CaptureLog log = CaptureLog.newBuilder(directory).setSegmentSize(1024).build()) {
+            log.append(exchange(Method.GET, "/first", 200));
+            Response large = Response.newBuilder().setStatus(200).setEntity(Body.wrap(new byte[2048])).build();
+            assertThrows(HttpException.class, () -> log.append(large));
+        }
+        CaptureLog reopened = CaptureLog.newBuilder(directory).setSegmentSize(1024).build();
+        reopened.append(exchange(Method.GET, "/second", 200));
+        reopened.close();
+        assertTrue(reopened.isClosed());
+        assertThrows(HttpException.class, () -> reopened.append(exchange(Method.GET, "/third", 200)));
+
+        assertEquals(2, CaptureFormat.segments(directory).size());
+        assertEquals(ImmutableList.of("/first", "/second"), urls(CaptureReader.newBuilder(directory).build()));
+        assertThrows(IllegalArgumentException.class, () -> CaptureLog.newBuilder(directory).setSegmentSize(100));
+    }
+
+    static Response exchange(Method method, String url, int status) {
+        Request request = Request.newBuilder().setMethod(method).setUrl(url).build();
+        return Response.newBuilder().setRequest(request).setStatus(status).build();
+    }
+
+    private static List<String> urls(CaptureReader reader) {
+        List<String> urls = new ArrayList<>();
+        for (CapturedExchange exchange : reader) {
+            urls.add(exchange.getRequest().getUrl());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.interzonedev.httpcore.capture;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.client.HttpExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CaptureReplayerTest {
+
+    @Test
+    public void testReplayAtMultipliedRate() {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        HttpExecutor executor = request -> {
+            sent.add(request.getUrl());
+            if (request.getUrl().endsWith("/fail")) {
+                return CompletableFuture.failedFuture(new HttpException("refused"));
+            }
+            return CompletableFuture.completedFuture(Response.newBuilder().setStatus(200).build());
+        };
+
+        // Recorded over 200 milliseconds, replayed twice as fast.
+        List<CapturedExchange> exchanges = ImmutableList.of(captured(0L, "/a"), captured(100_000L, "/b"),
+                new CapturedExchange(150_000L, Response.newBuilder().setStatus(200).build()),
+                captured(200_000L, "/fail"));
+
+        CaptureReplayer replayer = CaptureReplayer.newBuilder(executor).setRateMultiplier(2.0)
+                .setRequestMapper(request -> Request.newBuilder(request).setUrl("http://staging" + request.getUrl())
+                        .build())
+                .build();
+        ReplayStats stats = replayer.replay(exchanges);
+
+        assertEquals(ImmutableList.of("http://staging/a", "http://staging/b", "http://staging/fail"), sent);
+        assertEquals(3L, stats.getSentCount());
+        assertEquals(2L, stats.getSucceededCount());
+        assertEquals(1L, stats.getFailedCount());
+        assertTrue(stats.getElapsed().compareTo(Duration.ofMillis(100L)) >= 0);
+    }
+
+    @Test
+    public void testReplayWaitsForOutstandingRequests() {
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        HttpExecutor executor = request -> pending;
+        CaptureReplayer replayer = CaptureReplayer.newBuilder(executor).setRateMultiplier(Double.POSITIVE_INFINITY)
+                .setMaxOutstanding(1).build();
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            pending.complete(Response.newBuilder().setStatus(200).build());
+        }).start();
+        ReplayStats stats = replayer.replay(ImmutableList.of(captured(0L, "/a"), captured(3_600_000_000L, "/b")));
+
+        assertEquals(2L, stats.getSucceededCount());
+        assertTrue(stats.getElapsed().compareTo(Duration.ofMillis(40L)) >= 0);
+        assertTrue(stats.getElapsed().compareTo(Duration.ofMinutes(1L)) < 0);
+        assertThrows(IllegalArgumentException.class, () -> CaptureReplayer.newBuilder(executor).setRateMultiplier(0));
+    }
+
+    private static CapturedExchange captured(long micros, String url) {
+        return new CapturedExchange(micros, CaptureLogTest.exchange(Method.GET, url, 200));
+    }
+
+}
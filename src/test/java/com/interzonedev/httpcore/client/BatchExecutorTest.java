@@ -0,0 +1,129 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchExecutorTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> peak = new ConcurrentHashMap<>();
+
+    /**
+     * Answers after a short delay with the URL as the content, and fails any URL containing "fail".
+     */
+    private final HttpExecutor delegate = request -> {
+        String host = PooledHttpExecutor.hostKeyOf(request.getUrl());
+        int now = inFlight.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+        peak.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            inFlight.get(host).decrementAndGet();
+            if (request.getUrl().contains("fail")) {
+                future.completeExceptionally(new IllegalStateException("upstream failed"));
+            } else {
+                future.complete(Response.newBuilder().setStatus(200).setContent(request.getUrl()).build());
+            }
+        }, 5L, TimeUnit.MILLISECONDS);
+        return future;
+    };
+
+    @AfterEach
+    public void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testResultsInOrderWithPerHostBudget() {
+        List<Request> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(get("http://" + ((0 == i % 2) ? "a" : "b") + ".example.com/" + i));
+        }
+        requests.add(get("http://a.example.com/fail"));
+        requests.add(get("/relative"));
+
+        List<BatchResult> results = BatchExecutor.newBuilder(delegate).setMaxConcurrentPerHost(3).build()
+                .executeAll(requests).join();
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(requests.get(i).getUrl(), results.get(i).getResponse().getContent());
+        }
+        assertTrue(results.get(20).getFailure().getCause() instanceof IllegalStateException);
+        assertNull(results.get(20).getResponse());
+        assertThrows(HttpException.class, results.get(21)::getResponseOrThrow);
+
+        assertTrue(peak.get("http://a.example.com:80").get() <= 3);
+        assertTrue(peak.get("http://b.example.com:80").get() <= 3);
+    }
+
+    @Test
+    public void testStreamedResults() {
+        List<Request> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(get("http://example.com/" + i));
+        }
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+
+        BatchExecutor.newBuilder(delegate).build().executeEach(requests, result -> seen.add(result.getIndex()))
+                .join();
+
+        List<Integer> sorted = new ArrayList<>(seen);
+        Collections.sort(sorted);
+        assertEquals(10, sorted.size());
+        assertEquals(9, sorted.get(9).intValue());
+    }
+
+    @Test
+    public void testSynchronousDelegateAndEmptyBatch() {
+        AtomicInteger calls = new AtomicInteger();
+        BatchExecutor executor = BatchExecutor.newBuilder(request -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(Response.newBuilder().setStatus(204).build());
+        }).setMaxConcurrentPerHost(1).build();
+
+        List<Request> requests = Collections.nCopies(5000, get("http://example.com/"));
+        List<BatchResult> results = executor.executeAll(requests).join();
+
+        assertEquals(5000, calls.get());
+        assertEquals(204, results.get(4999).getResponse().getStatus());
+        assertTrue(executor.executeAll(Collections.emptyList()).join().isEmpty());
+
+        CompletableFuture<Void> thrown = executor.executeEach(requests.subList(0, 2), result -> {
+            throw new IllegalStateException("listener");
+        });
+        assertTrue(thrown.isCompletedExceptionally());
+        assertFalse(thrown.isCancelled());
+    }
+
+    private static Request get(String url) {
+        return Request.newBuilder().setMethod(Method.GET).setUrl(url).build();
+    }
+
+}
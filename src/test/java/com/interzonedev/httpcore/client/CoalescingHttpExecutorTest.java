@@ -0,0 +1,123 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.RequestKey;
+import com.interzonedev.httpcore.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingHttpExecutorTest {
+
+    private final List<CompletableFuture<Response>> upstream = new ArrayList<>();
+
+    private final HttpExecutor delegate = request -> {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        upstream.add(future);
+        return future;
+    };
+
+    @Test
+    public void testIdenticalRequestsShareOneExecution() {
+        CoalescingHttpExecutor executor = CoalescingHttpExecutor.newBuilder(delegate).build();
+
+        CompletableFuture<Response> first = executor.execute(get("http://example.com/a"));
+        CompletableFuture<Response> second = executor.execute(get("http://example.com/a"));
+        CompletableFuture<Response> other = executor.execute(get("http://example.com/b"));
+        assertEquals(2, upstream.size());
+        assertEquals(2, executor.inFlightCount());
+
+        // Cancelling one caller's future leaves the shared execution running.
+        second.cancel(false);
+        assertFalse(upstream.get(0).isCancelled());
+
+        Response response = Response.newBuilder().setStatus(200).build();
+        upstream.get(0).complete(response);
+        assertSame(response, first.join());
+        assertFalse(other.isDone());
+        assertEquals(1, executor.inFlightCount());
+
+        // Nothing is cached once the execution completes.
+        executor.execute(get("http://example.com/a"));
+        assertEquals(3, upstream.size());
+
+        CoalescingStats stats = executor.stats();
+        assertEquals(3L, stats.getExecutionCount());
+        assertEquals(1L, stats.getCoalescedCount());
+        assertEquals(0.25, stats.getCoalescingRatio(), 0.0);
+    }
+
+    @Test
+    public void testProjectionAndMethods() {
+        CoalescingHttpExecutor executor = CoalescingHttpExecutor.newBuilder(delegate)
+                .setProjection(RequestKey.Projection.DEFAULT).build();
+
+        executor.execute(get("http://example.com/a"));
+        executor.execute(Request.newBuilder(get("http://EXAMPLE.com/a")).addHeader("X-Trace", "t2").build());
+        assertEquals(1, upstream.size());
+
+        executor.execute(Request.newBuilder().setMethod(Method.POST).setUrl("http://example.com/a").build());
+        executor.execute(Request.newBuilder().setMethod(Method.POST).setUrl("http://example.com/a").build());
+        assertEquals(3, upstream.size());
+        assertEquals(2L, executor.stats().getPassThroughCount());
+    }
+
+    @Test
+    public void testFailuresAndTimeouts() {
+        CoalescingHttpExecutor executor = CoalescingHttpExecutor.newBuilder(delegate)
+                .setTimeout(Duration.ofMillis(20L)).build();
+
+        CompletableFuture<Response> first = executor.execute(get("http://example.com/a"));
+        CompletableFuture<Response> second = executor.execute(get("http://example.com/a"));
+        CompletionException timedOut = assertThrows(CompletionException.class, first::join);
+        assertTrue(timedOut.getCause() instanceof HttpException);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(1L, executor.stats().getTimeoutCount());
+        assertEquals(0, executor.inFlightCount());
+
+        CompletableFuture<Response> third = executor.execute(get("http://example.com/a"));
+        upstream.get(1).completeExceptionally(new IllegalStateException("boom"));
+        HttpException failed = assertThrows(HttpException.class, () -> {
+            try {
+                third.join();
+            } catch (CompletionException ce) {
+                throw ce.getCause();
+            }
+        });
+        assertTrue(failed.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testTimeoutCancelsDelegate() {
+        CoalescingHttpExecutor executor = CoalescingHttpExecutor.newBuilder(delegate)
+                .setTimeout(Duration.ofMillis(20L)).build();
+
+        CompletableFuture<Response> first = executor.execute(get("http://example.com/a"));
+        assertThrows(CompletionException.class, first::join);
+
+        assertEquals(1, upstream.size());
+        assertTrue(upstream.get(0).isCancelled());
+
+        executor.execute(get("http://example.com/a"));
+        assertEquals(2, upstream.size());
+        assertFalse(upstream.get(1).isDone());
+    }
+
+    private static Request get(String url) {
+        return Request.newBuilder().setMethod(Method.GET).setUrl(url).build();
+    }
+
+}
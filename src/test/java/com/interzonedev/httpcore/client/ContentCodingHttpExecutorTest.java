@@ -0,0 +1,64 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.ContentEncoding;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ContentCodingHttpExecutorTest {
+
+    private final AtomicReference<Request> sent = new AtomicReference<>();
+
+    /**
+     * Answers with a gzip response echoing the text of the request body, decoded if need be.
+     */
+    private final HttpExecutor delegate = request -> {
+        sent.set(request);
+        ContentEncoding coding = ContentEncoding.of(request.getHttpHeaders().getFirst("Content-Encoding"));
+        String text = coding.decode(request.getEntity()).asString();
+        return CompletableFuture.completedFuture(Response.newBuilder().setRequest(request).setStatus(200)
+                .setHeader("Content-Encoding", "gzip").setEntity(ContentEncoding.GZIP.encode(Body.of(text)))
+                .build());
+    };
+
+    @Test
+    public void testNegotiatesAndDecodes() {
+        ContentCodingHttpExecutor executor = ContentCodingHttpExecutor.newBuilder(delegate).build();
+
+        Response response = executor.executeBlocking(post("short"));
+
+        assertEquals(ContentEncoding.ACCEPTED, sent.get().getHttpHeaders().getFirst("Accept-Encoding"));
+        assertNull(sent.get().getHttpHeaders().getFirst("Content-Encoding"));
+        assertEquals("short", response.getContent());
+        assertNull(response.getHttpHeaders().getFirst("Content-Encoding"));
+    }
+
+    @Test
+    public void testEncodesLargeRequests() {
+        ContentCodingHttpExecutor executor = ContentCodingHttpExecutor.newBuilder(delegate)
+                .setRequestEncoding(ContentEncoding.DEFLATE).setMinRequestSize(100L).setAcceptEncoding(null).build();
+        String text = "x".repeat(500);
+
+        Response response = executor.executeBlocking(post(text));
+
+        assertNull(sent.get().getHttpHeaders().getFirst("Accept-Encoding"));
+        assertEquals("deflate", sent.get().getHttpHeaders().getFirst("Content-Encoding"));
+        assertEquals(text, response.getContent());
+        executor.executeBlocking(post("small"));
+        assertNull(sent.get().getHttpHeaders().getFirst("Content-Encoding"));
+    }
+
+    private static Request post(String body) {
+        return Request.newBuilder().setUrl("http://example.com/").setMethod(Method.POST).setBody(body).build();
+    }
+
+}
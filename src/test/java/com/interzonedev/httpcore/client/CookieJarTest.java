@@ -0,0 +1,150 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpCookie;
+import com.interzonedev.httpcore.HttpUrl;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieJarTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private final CookieJar jar = CookieJar.newBuilder().setClock(now::get).build();
+
+    @Test
+    public void testHostOnlyAndDomainCookies() {
+        store("http://www.example.com/", "host=1", "wide=2; Domain=example.com");
+
+        assertEquals("host=1; wide=2", jar.cookieHeaderFor(url("http://www.example.com/")));
+        assertEquals("wide=2", jar.cookieHeaderFor(url("http://api.example.com/")));
+        assertEquals("wide=2", jar.cookieHeaderFor(url("http://example.com/")));
+        assertNull(jar.cookieHeaderFor(url("http://example.org/")));
+        assertNull(jar.cookieHeaderFor(url("http://badexample.com/")));
+    }
+
+    @Test
+    public void testDomainCookieReplacesHostOnlyCookie() {
+        store("http://example.com/", "a=1", "b=2");
+        store("http://example.com/", "a=3; Domain=example.com");
+
+        assertEquals(2, jar.size());
+        assertEquals("a=3; b=2", jar.cookieHeaderFor(url("http://example.com/")));
+        assertEquals("a=3", jar.cookieHeaderFor(url("http://api.example.com/")));
+
+        store("http://example.com/", "a=4");
+
+        assertEquals(2, jar.size());
+        assertEquals("a=4; b=2", jar.cookieHeaderFor(url("http://example.com/")));
+        assertNull(jar.cookieHeaderFor(url("http://api.example.com/")));
+    }
+
+    @Test
+    public void testRejectsForeignAndTopLevelDomains() {
+        store("http://www.example.com/", "a=1; Domain=example.org", "b=2; Domain=com", "c=3; Domain=www.example.com");
+
+        assertEquals(1, jar.size());
+        assertEquals("c=3", jar.cookieHeaderFor(url("http://www.example.com/")));
+    }
+
+    @Test
+    public void testPathMatchingAndOrder() {
+        store("http://example.com/docs/guide/intro", "default=1", "root=2; Path=/", "docs=3; Path=/docs");
+
+        assertEquals("default=1; docs=3; root=2", jar.cookieHeaderFor(url("http://example.com/docs/guide/next")));
+        assertEquals("docs=3; root=2", jar.cookieHeaderFor(url("http://example.com/docs")));
+        assertEquals("root=2", jar.cookieHeaderFor(url("http://example.com/docsearch")));
+        assertEquals("root=2", jar.cookieHeaderFor(url("http://example.com")));
+    }
+
+    @Test
+    public void testSecureCookies() {
+        store("http://example.com/", "insecure=1; Secure");
+        store("https://example.com/", "secure=2; Secure");
+
+        assertNull(jar.cookieHeaderFor(url("http://example.com/")));
+        assertEquals("secure=2", jar.cookieHeaderFor(url("https://example.com/")));
+    }
+
+    @Test
+    public void testExpiryReplacementAndRemoval() {
+        store("http://example.com/", "a=1; Max-Age=10", "b=2");
+        store("http://example.com/", "b=3");
+
+        assertEquals("a=1; b=3", jar.cookieHeaderFor(url("http://example.com/")));
+        now.addAndGet(10_000L);
+        assertEquals("b=3", jar.cookieHeaderFor(url("http://example.com/")));
+        assertEquals(1, jar.removeExpired());
+
+        store("http://example.com/", "b=gone; Max-Age=0");
+        assertEquals(0, jar.size());
+        assertNull(jar.cookieHeaderFor(url("http://example.com/")));
+    }
+
+    @Test
+    public void testEvictsOldest() {
+        CookieJar small = CookieJar.newBuilder().setMaxCookies(2).setClock(now::get).build();
+        small.store(url("http://example.com/"), cookies("a=1", "b=2", "c=3"));
+
+        assertEquals(2, small.size());
+        assertEquals("b=2; c=3", small.cookieHeaderFor(url("http://example.com/")));
+    }
+
+    @Test
+    public void testStoreResponseAndAttach() {
+        Request request = Request.newBuilder().setUrl("https://example.com/login").setMethod(Method.POST).build();
+        Response response = Response.newBuilder().setRequest(request).setStatus(200)
+                .addHeader("Set-Cookie", "session=abc; Path=/; Secure").addHeader("Set-Cookie", "theme=dark")
+                .build();
+        jar.store(response);
+
+        Request next = Request.newBuilder().setUrl("https://example.com/account").setMethod(Method.GET)
+                .setHeader("Cookie", "client=1").build();
+        Request attached = jar.attach(next);
+
+        assertEquals("client=1; session=abc; theme=dark", attached.getHttpHeaders().getFirst("Cookie"));
+        Request elsewhere = Request.newBuilder().setUrl("https://example.org/").setMethod(Method.GET).build();
+        assertSame(elsewhere, jar.attach(elsewhere));
+    }
+
+    @Test
+    public void testManyDomains() {
+        for (int i = 0; i < 2000; i++) {
+            store("http://host" + i + ".example.com/", "id=" + i);
+        }
+
+        assertEquals(2000, jar.size());
+        assertEquals("id=1234", jar.cookieHeaderFor(url("http://host1234.example.com/")));
+        jar.clear();
+        assertEquals(0, jar.size());
+        assertTrue(jar.cookiesFor(url("http://host1234.example.com/")).isEmpty());
+    }
+
+    private void store(String url, String... setCookies) {
+        jar.store(url(url), cookies(setCookies));
+    }
+
+    private static List<HttpCookie> cookies(String... setCookies) {
+        HttpCookie[] cookies = new HttpCookie[setCookies.length];
+        for (int i = 0; i < setCookies.length; i++) {
+            cookies[i] = HttpCookie.parse(setCookies[i]);
+        }
+        return Arrays.asList(cookies);
+    }
+
+    private static HttpUrl url(String url) {
+        return HttpUrl.parse(url);
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingHttpExecutorTest {
+
+    private static final Response FAST = Response.newBuilder().setStatus(200).build();
+
+    private final List<CompletableFuture<Response>> attempts = new CopyOnWriteArrayList<>();
+
+    /**
+     * Answers immediately while warming up, then leaves each attempt for the test to complete.
+     */
+    private volatile boolean warm;
+
+    private final HttpExecutor delegate = request -> {
+        if (!warm) {
+            return CompletableFuture.completedFuture(FAST);
+        }
+        CompletableFuture<Response> attempt = new CompletableFuture<>();
+        attempts.add(attempt);
+        return attempt;
+    };
+
+    @Test
+    public void testSlowRequestIsHedged() throws InterruptedException {
+        HedgingHttpExecutor executor = newExecutor();
+        warmUp(executor);
+
+        CompletableFuture<Response> result = executor.execute(get());
+        awaitAttempts(2);
+        assertEquals(1L, executor.getHedgeCount());
+
+        Response hedgeResponse = Response.newBuilder().setStatus(200).setContent("hedge").build();
+        attempts.get(1).complete(hedgeResponse);
+
+        assertSame(hedgeResponse, result.join());
+        assertTrue(attempts.get(0).isCancelled());
+        assertEquals(1L, executor.getHedgeWinCount());
+
+        // The cancelled original is sampled for as long as it ran, and the hedge is not sampled.
+        LatencyHistogram latency = executor.latencyOf("http://example.com/");
+        assertEquals(11L, latency.count());
+        assertTrue(latency.percentile(0.99).toMillis() >= 10L);
+    }
+
+    @Test
+    public void testCancellingCancelsBothAttempts() throws InterruptedException {
+        HedgingHttpExecutor executor = newExecutor();
+        warmUp(executor);
+
+        CompletableFuture<Response> result = executor.execute(get());
+        awaitAttempts(2);
+        result.cancel(true);
+
+        assertTrue(attempts.get(0).isCancelled());
+        assertTrue(attempts.get(1).isCancelled());
+        assertEquals(10L, executor.latencyOf("http://example.com/").count());
+    }
+
+    @Test
+    public void testLosingAttemptFreesItsPooledSlot() throws InterruptedException {
+        List<CompletableFuture<Response>> sent = new CopyOnWriteArrayList<>();
+        PooledHttpExecutor pooled = PooledHttpExecutor.newBuilder().setTransport((request, timeout) -> {
+            if (!warm) {
+                return CompletableFuture.completedFuture(FAST);
+            }
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            sent.add(future);
+            return future;
+        }).build();
+        HedgingHttpExecutor executor = HedgingHttpExecutor.newBuilder(pooled).setMinimumSamples(10L)
+                .setMinimumDelay(Duration.ofMillis(10L)).setBudget(RetryBudget.unlimited()).build();
+        warmUp(executor);
+
+        CompletableFuture<Response> result = executor.execute(get());
+        for (int i = 0; (i < 500) && (sent.size() < 2); i++) {
+            Thread.sleep(2L);
+        }
+        assertEquals(2, sent.size());
+        assertEquals(2, pooled.activeRequests("http://example.com/"));
+
+        sent.get(1).complete(FAST);
+
+        assertSame(FAST, result.join());
+        assertTrue(sent.get(0).isCancelled());
+        assertEquals(0, pooled.activeRequests("http://example.com/"));
+    }
+
+    @Test
+    public void testFailureWaitsForTheOtherAttempt() throws InterruptedException {
+        HedgingHttpExecutor executor = newExecutor();
+        warmUp(executor);
+
+        CompletableFuture<Response> result = executor.execute(get());
+        awaitAttempts(2);
+        attempts.get(0).completeExceptionally(new HttpException("reset", new IOException()));
+        assertFalse(result.isDone());
+
+        attempts.get(1).completeExceptionally(new HttpException("reset again", new IOException()));
+        CompletionException failed = assertThrows(CompletionException.class, result::join);
+        assertEquals("reset again", failed.getCause().getMessage());
+    }
+
+    @Test
+    public void testUnsafeMethodsAndColdHostsAreNotHedged() throws InterruptedException {
+        HedgingHttpExecutor executor = newExecutor();
+        warm = true;
+
+        executor.execute(get());
+        Thread.sleep(50L);
+        assertEquals(1, attempts.size());
+
+        warm = false;
+        warmUp(executor);
+        executor.execute(Request.newBuilder().setMethod(Method.POST).setUrl("http://example.com/").build());
+        Thread.sleep(50L);
+        assertEquals(2, attempts.size());
+        assertEquals(0L, executor.getHedgeCount());
+    }
+
+    private HedgingHttpExecutor newExecutor() {
+        return HedgingHttpExecutor.newBuilder(delegate).setMinimumSamples(10L)
+                .setMinimumDelay(Duration.ofMillis(10L)).setBudget(RetryBudget.unlimited()).build();
+    }
+
+    private void warmUp(HedgingHttpExecutor executor) {
+        for (int i = 0; i < 10; i++) {
+            executor.execute(get()).join();
+        }
+        assertEquals(10L, executor.latencyOf("http://example.com/other").count());
+        warm = true;
+    }
+
+    private void awaitAttempts(int count) throws InterruptedException {
+        for (int i = 0; (i < 500) && (attempts.size() < count); i++) {
+            Thread.sleep(2L);
+        }
+        assertEquals(count, attempts.size());
+    }
+
+    private static Request get() {
+        return Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Timing;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class InMemoryMetricsRecorderTest {
+
+    private static final String HOST = "https://example.com:443";
+
+    @Test
+    public void testKeyedByMethodHostAndStatusClass() {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        Timing timing = Timing.newBuilder().setBytesSent(10L).setBytesReceived(100L).build();
+
+        recorder.record(Method.GET, HOST, 200, Duration.ofMillis(5L).toNanos(), timing);
+        recorder.record(Method.GET, HOST, 204, Duration.ofMillis(7L).toNanos(), timing);
+        recorder.record(Method.GET, HOST, 503, Duration.ofMillis(90L).toNanos(), null);
+        recorder.record(Method.POST, HOST, 0, Duration.ofMillis(1L).toNanos(), null);
+        recorder.record(null, "http://other:80", 999, 1L, Timing.newBuilder().build());
+
+        assertEquals(2L, recorder.getLatency(Method.GET, HOST, 2).count());
+        assertEquals(1L, recorder.getLatency(Method.GET, HOST, 5).count());
+        assertEquals(1L, recorder.getLatency(Method.POST, HOST, InMemoryMetricsRecorder.FAILED).count());
+        assertEquals(1L, recorder.getLatency(null, "http://other:80", InMemoryMetricsRecorder.FAILED).count());
+        assertNull(recorder.getLatency(Method.PUT, HOST, 2));
+        assertNull(recorder.getLatency(Method.GET, "http://unknown:80", 2));
+
+        assertEquals(20L, recorder.getBytesSent(HOST));
+        assertEquals(200L, recorder.getBytesReceived(HOST));
+        assertEquals(0L, recorder.getBytesReceived("http://other:80"));
+        assertEquals(2, recorder.getHosts().size());
+    }
+
+    @Test
+    public void testStatusClasses() {
+        assertEquals(1, InMemoryMetricsRecorder.statusClassOf(101));
+        assertEquals(4, InMemoryMetricsRecorder.statusClassOf(499));
+        assertEquals(InMemoryMetricsRecorder.FAILED, InMemoryMetricsRecorder.statusClassOf(0));
+        assertEquals(InMemoryMetricsRecorder.FAILED, InMemoryMetricsRecorder.statusClassOf(600));
+    }
+
+}
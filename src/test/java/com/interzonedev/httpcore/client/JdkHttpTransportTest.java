@@ -0,0 +1,133 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.interzonedev.httpcore.Timing;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JdkHttpTransportTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String reply = exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                    + exchange.getRequestHeaders().getFirst("X-Trace") + " " + new String(body, StandardCharsets.UTF_8);
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(201, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/empty", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testSend() {
+        Request request = Request.newBuilder().setMethod(Method.PUT).setUrl(baseUrl + "/echo?a=1")
+                .addParameter("b", "x y").addHeader("X-Trace", "t1").addHeader("Content-Length", "999")
+                .setEntity(Body.of("payload")).build();
+
+        Response response = new JdkHttpTransport().send(request, Duration.ofSeconds(5L)).join();
+
+        assertEquals(201, response.getStatus());
+        assertEquals("text/plain; charset=UTF-8", response.getContentType());
+        assertEquals("PUT /echo?a=1&b=x+y t1 payload", response.getContent());
+        assertEquals(response.getEntity().length(), response.getContentLength());
+        assertEquals(request, response.getRequest());
+
+        Timing timing = response.getTiming();
+        assertEquals(7L, timing.getBytesSent());
+        assertEquals(response.getEntity().length(), timing.getBytesReceived());
+        assertTrue(timing.getRequestSentNanos() >= timing.getStartNanos());
+        assertTrue(timing.getFirstByteNanos() >= timing.getRequestSentNanos());
+        assertTrue(timing.getCompleteNanos() >= timing.getFirstByteNanos());
+        assertNull(timing.getConnectTime());
+    }
+
+    @Test
+    public void testEmptyEntity() {
+        Request request = Request.newBuilder().setMethod(Method.POST).setUrl(baseUrl + "/echo").setBody("").build();
+
+        Response response = new JdkHttpTransport().send(request, Duration.ofSeconds(5L)).join();
+
+        assertEquals(201, response.getStatus());
+        assertEquals("POST /echo null ", response.getContent());
+        assertEquals(0L, response.getTiming().getBytesSent());
+    }
+
+    @Test
+    public void testBodilessResponse() {
+        Request request = Request.newBuilder().setMethod(Method.DELETE).setUrl(baseUrl + "/empty").build();
+
+        Response response = new JdkHttpTransport().send(request, Duration.ofSeconds(5L)).join();
+
+        assertEquals(204, response.getStatus());
+        assertNull(response.getEntity());
+    }
+
+    @Test
+    public void testFailures() {
+        JdkHttpTransport transport = new JdkHttpTransport();
+
+        CompletionException timeout = assertThrows(CompletionException.class, () -> transport
+                .send(Request.newBuilder().setMethod(Method.GET).setUrl(baseUrl + "/slow").build(),
+                        Duration.ofMillis(100L))
+                .join());
+        assertTrue(timeout.getCause() instanceof HttpException);
+        assertTrue(timeout.getCause().getMessage().startsWith("Timed out"));
+
+        CompletionException relative = assertThrows(CompletionException.class,
+                () -> transport.send(Request.newBuilder().setMethod(Method.GET).setUrl("/relative").build(),
+                        Duration.ofSeconds(1L)).join());
+        assertTrue(relative.getCause() instanceof HttpException);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long micros = 0L; micros < 100_000L; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue((0 == bucket) || (micros > LatencyHistogram.upperBoundOf(bucket - 1)));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertNull(histogram.percentile(0.5));
+
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(Duration.ofMillis(millis).toNanos());
+        }
+
+        assertEquals(100L, histogram.count());
+        assertWithin(Duration.ofMillis(50L), histogram.percentile(0.5));
+        assertWithin(Duration.ofMillis(99L), histogram.percentile(0.99));
+        assertWithin(Duration.ofMillis(100L), histogram.percentile(1.0));
+    }
+
+    @Test
+    public void testWindowSlides() {
+        AtomicLong now = new AtomicLong(Duration.ofHours(1L).toNanos());
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofSeconds(10L), 5, now::get);
+
+        histogram.record(Duration.ofMillis(500L).toNanos());
+        now.addAndGet(Duration.ofSeconds(6L).toNanos());
+        histogram.record(Duration.ofMillis(1L).toNanos());
+        assertEquals(2L, histogram.count());
+
+        now.addAndGet(Duration.ofSeconds(5L).toNanos());
+        assertEquals(1L, histogram.count());
+        assertWithin(Duration.ofMillis(1L), histogram.percentile(0.99));
+
+        now.addAndGet(Duration.ofSeconds(60L).toNanos());
+        assertEquals(0L, histogram.count());
+    }
+
+    private static void assertWithin(Duration expected, Duration actual) {
+        double error = Math.abs(actual.toNanos() - expected.toNanos()) / (double) expected.toNanos();
+        assertTrue(error <= 0.125, actual + " is not within 12.5% of " + expected);
+    }
+
+}
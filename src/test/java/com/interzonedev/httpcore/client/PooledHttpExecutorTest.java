@@ -0,0 +1,186 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpRejectedException;
+import com.interzonedev.httpcore.HttpTimeoutException;
+import com.interzonedev.httpcore.HttpTransportException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledHttpExecutorTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPerHostLimit() {
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setMaxRequestsPerHost(2).build();
+
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.execute(Request.newBuilder().setMethod(Method.GET).setUrl(baseUrl + "/" + i).build()));
+        }
+        for (CompletableFuture<Response> future : futures) {
+            assertEquals(200, future.join().getStatus());
+        }
+
+        assertTrue(peakInFlight.get() <= 2);
+        assertEquals(0, executor.activeRequests(baseUrl));
+    }
+
+    @Test
+    public void testExecuteBlocking() {
+        InMemoryMetricsRecorder metrics = new InMemoryMetricsRecorder();
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setExecutor(Executors.newCachedThreadPool())
+                .setMetricsRecorder(metrics).build();
+
+        Response response = executor.executeBlocking(Request.newBuilder().setMethod(Method.GET).setUrl(baseUrl)
+                .build());
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getTiming());
+        String host = "http://localhost:" + server.getAddress().getPort();
+        assertEquals(1L, metrics.getLatency(Method.GET, host, 2).count());
+        assertTrue(metrics.getLatency(Method.GET, host, 2).percentile(0.5).toMillis() >= 40L);
+    }
+
+    @Test
+    public void testPluggableTransport() {
+        Response canned = Response.newBuilder().setStatus(418).build();
+        AtomicInteger sent = new AtomicInteger();
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setTimeout(Duration.ofSeconds(3L))
+                .setTransport((request, timeout) -> {
+                    sent.incrementAndGet();
+                    assertFalse(timeout.compareTo(Duration.ofSeconds(3L)) > 0);
+                    return CompletableFuture.completedFuture(canned);
+                }).build();
+
+        assertSame(canned, executor.executeBlocking(Request.newBuilder().setUrl("https://example.com/").build()));
+        assertEquals(1, sent.get());
+    }
+
+    @Test
+    public void testFailures() {
+        CompletableFuture<Response> never = new CompletableFuture<>();
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setMaxRequestsPerHost(1).setMaxQueuedPerHost(1)
+                .setTransport((request, timeout) -> never).build();
+        Request request = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+
+        executor.execute(request);
+        CompletableFuture<Response> queued = executor.execute(request);
+        CompletionException full = assertThrows(CompletionException.class, () -> executor.execute(request).join());
+        assertTrue(full.getCause() instanceof HttpRejectedException);
+        assertSame(request, ((HttpException) full.getCause()).getRequest());
+        assertFalse(((HttpException) full.getCause()).isRetryable());
+        assertEquals(0, full.getCause().getStackTrace().length);
+        assertFalse(queued.isDone());
+
+        never.completeExceptionally(new IOException("reset"));
+        HttpException failed = assertThrows(HttpException.class, () -> executor.executeBlocking(request));
+        assertTrue(failed.getCause() instanceof IOException);
+        assertTrue(failed instanceof HttpTransportException);
+        assertEquals(0, failed.getStackTrace().length);
+
+        assertThrows(HttpException.class, () -> executor.executeBlocking(Request.newBuilder().setUrl("/x").build()));
+    }
+
+    @Test
+    public void testCancellationReachesTransportAndFreesSlot() {
+        List<CompletableFuture<Response>> sent = new CopyOnWriteArrayList<>();
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setMaxRequestsPerHost(1).setMaxQueuedPerHost(1)
+                .setExecutor(Executors.newCachedThreadPool()).setTransport((request, timeout) -> {
+                    CompletableFuture<Response> future = new CompletableFuture<>();
+                    sent.add(future);
+                    return future;
+                }).build();
+        Request request = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+
+        CompletableFuture<Response> first = executor.execute(request);
+        CompletableFuture<Response> queued = executor.execute(request);
+        assertEquals(1, sent.size());
+
+        // A cancelled request leaves the queue, so another fits in its place.
+        queued.cancel(true);
+        CompletableFuture<Response> second = executor.execute(request);
+        assertFalse(second.isDone());
+
+        first.cancel(true);
+        assertTrue(sent.get(0).isCancelled());
+        assertEquals(2, sent.size());
+        assertEquals(1, executor.activeRequests("http://example.com/"));
+
+        second.cancel(true);
+        assertTrue(sent.get(1).isCancelled());
+        assertEquals(0, executor.activeRequests("http://example.com/"));
+    }
+
+    @Test
+    public void testQueuedRequestTimesOut() throws Exception {
+        PooledHttpExecutor executor = PooledHttpExecutor.newBuilder().setMaxRequestsPerHost(1)
+                .setTimeout(Duration.ofMillis(50L)).setTransport((request, timeout) -> new CompletableFuture<>())
+                .build();
+        Request request = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+
+        executor.execute(request);
+        CompletableFuture<Response> queued = executor.execute(request);
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class,
+                () -> queued.get(5L, TimeUnit.SECONDS));
+        assertTrue(timedOut.getCause() instanceof HttpTimeoutException);
+        assertEquals(1, executor.activeRequests("http://example.com/"));
+    }
+
+}
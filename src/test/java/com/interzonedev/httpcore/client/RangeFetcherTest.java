@@ -0,0 +1,101 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.PartialContent;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RangeFetcherTest {
+
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog";
+
+    private final Request request = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/fox")
+            .build();
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    private final HttpExecutor server = executed -> {
+        ranges.add(executed.getHttpHeaders().getFirst("Range"));
+        return CompletableFuture.completedFuture(PartialContent.respond(executed, full("\"v1\"")));
+    };
+
+    @Test
+    public void testReassemblesParts() throws Exception {
+        RangeFetcher fetcher = RangeFetcher.newBuilder(server).setPartSize(10L).setMaxConcurrentParts(2).build();
+
+        Response response = fetcher.fetch(request).get();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContent());
+        assertEquals(43L, response.getContentLength());
+        assertEquals("43", response.getHttpHeaders().getFirst("Content-Length"));
+        assertFalse(response.getHttpHeaders().contains("Content-Range"));
+        assertEquals(5, ranges.size());
+        assertEquals("bytes=0-9", ranges.get(0));
+        assertEquals("bytes=40-42", ranges.get(4));
+        assertTrue(response.getEntity().chunks().size() >= 5);
+    }
+
+    @Test
+    public void testSinglePart() throws Exception {
+        Response response = RangeFetcher.newBuilder(server).build().fetch(request).get();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContent());
+        assertEquals(1, ranges.size());
+    }
+
+    @Test
+    public void testServerWithoutRanges() throws Exception {
+        Response whole = full("\"v1\"");
+        HttpExecutor plain = executed -> CompletableFuture.completedFuture(whole);
+
+        assertSame(whole, RangeFetcher.newBuilder(plain).setPartSize(10L).build().fetch(request).get());
+    }
+
+    @Test
+    public void testResourceChanged() {
+        AtomicInteger calls = new AtomicInteger();
+        HttpExecutor changing = executed -> {
+            String etag = (0 == calls.getAndIncrement()) ? "\"v1\"" : "\"v2\"";
+            return CompletableFuture.completedFuture(PartialContent.respond(executed, full(etag)));
+        };
+
+        CompletableFuture<Response> fetched = RangeFetcher.newBuilder(changing).setPartSize(10L).build()
+                .fetch(request);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, fetched::get);
+        assertTrue(thrown.getCause() instanceof HttpException);
+        assertTrue(thrown.getCause().getMessage().contains("changed"));
+    }
+
+    @Test
+    public void testPassesThroughOtherRequests() throws Exception {
+        Request ranged = Request.newBuilder(request).setHeader("Range", "bytes=4-8").build();
+
+        assertEquals("quick", RangeFetcher.newBuilder(server).build().fetch(ranged).get().getContent());
+        assertThrows(IllegalArgumentException.class, () -> RangeFetcher.newBuilder(null));
+        assertThrows(IllegalArgumentException.class, () -> RangeFetcher.newBuilder(server).setPartSize(0L));
+    }
+
+    private static Response full(String etag) {
+        return Response.newBuilder().setStatus(200).addHeader("ETag", etag).setEntity(Body.of(CONTENT)).build();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.interzonedev.httpcore.HttpConnectionException;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpStatusException;
+import com.interzonedev.httpcore.HttpTimeoutException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.net.ConnectException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testClassification() {
+        RetryPolicy policy = RetryPolicy.DEFAULT;
+
+        assertTrue(policy.isRetryable(Request.newBuilder().setMethod(Method.GET).build()));
+        assertTrue(policy.isRetryable(Request.newBuilder().setMethod(Method.PUT).build()));
+        assertFalse(policy.isRetryable(Request.newBuilder().setMethod(Method.POST).build()));
+
+        assertTrue(policy.isRetryable(Response.newBuilder().setStatus(503).build()));
+        assertFalse(policy.isRetryable(Response.newBuilder().setStatus(500).build()));
+        assertFalse(policy.isRetryable(Response.newBuilder().setStatus(200).build()));
+
+        assertTrue(policy.isRetryable(new HttpException("refused", new ConnectException())));
+        assertFalse(policy.isRetryable(new HttpException("bad", new IllegalArgumentException())));
+        assertFalse(policy.isRetryable(new HttpException("no cause")));
+    }
+
+    @Test
+    public void testTypedFailures() {
+        RetryPolicy policy = RetryPolicy.DEFAULT;
+        Request request = Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+
+        assertTrue(policy.isRetryable(new HttpTimeoutException("timed out", null, request)));
+        assertTrue(policy.isRetryable(new HttpConnectionException("reset", null, request)));
+        assertTrue(policy.isRetryable(
+                HttpStatusException.of(Response.newBuilder().setRequest(request).setStatus(503).build())));
+        assertFalse(policy.isRetryable(
+                HttpStatusException.of(Response.newBuilder().setRequest(request).setStatus(500).build())));
+
+        // The status exceptions follow the statuses of the policy rather than their own classification.
+        RetryPolicy strict = RetryPolicy.newBuilder().setRetryableStatuses(ImmutableSet.of(500)).build();
+        assertTrue(strict.isRetryable(
+                HttpStatusException.of(Response.newBuilder().setRequest(request).setStatus(500).build())));
+        assertFalse(strict.isRetryable(
+                HttpStatusException.of(Response.newBuilder().setRequest(request).setStatus(503).build())));
+    }
+
+    @Test
+    public void testDelays() {
+        RetryPolicy policy = RetryPolicy.newBuilder().setDelays(Duration.ofMillis(10L), Duration.ofMillis(35L)).build();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.delayBefore(1, null).compareTo(Duration.ofMillis(10L)) <= 0);
+            assertTrue(policy.delayBefore(2, null).compareTo(Duration.ofMillis(20L)) <= 0);
+            assertTrue(policy.delayBefore(60, null).compareTo(Duration.ofMillis(35L)) <= 0);
+        }
+
+        Response retryAfter = Response.newBuilder().setStatus(503).addHeader("Retry-After", "0").build();
+        assertEquals(Duration.ZERO, policy.delayBefore(1, retryAfter));
+        Response tooLong = Response.newBuilder().setStatus(429).addHeader("Retry-After", "120").build();
+        assertEquals(Duration.ofMillis(35L), policy.delayBefore(1, tooLong));
+    }
+
+    @Test
+    public void testBudget() {
+        RetryBudget budget = RetryBudget.create(0.5, 2);
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        budget.onRequest();
+        assertFalse(budget.tryAcquire());
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertEquals(2L, budget.available());
+
+        assertTrue(RetryBudget.unlimited().tryAcquire());
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.interzonedev.httpcore.client;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryingHttpExecutorTest {
+
+    private static final RetryPolicy FAST = RetryPolicy.newBuilder().setMaxAttempts(3)
+            .setDelays(Duration.ofMillis(1L), Duration.ofMillis(2L)).build();
+
+    private final Deque<Object> outcomes = new ArrayDeque<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    /**
+     * Answers each attempt with the next queued outcome: a status code or a failure.
+     */
+    private final HttpExecutor delegate = request -> {
+        attempts.incrementAndGet();
+        Object outcome = outcomes.poll();
+        if (outcome instanceof Throwable) {
+            return CompletableFuture.failedFuture((Throwable) outcome);
+        }
+        return CompletableFuture.completedFuture(Response.newBuilder().setStatus((Integer) outcome).build());
+    };
+
+    @Test
+    public void testRetriesRetryableOutcomes() {
+        RetryingHttpExecutor executor = RetryingHttpExecutor.newBuilder(delegate).setPolicy(FAST)
+                .setBudget(RetryBudget.unlimited()).build();
+        outcomes.add(new HttpException("reset", new IOException("reset")));
+        outcomes.add(503);
+        outcomes.add(200);
+
+        assertEquals(200, executor.executeBlocking(get()).getStatus());
+        assertEquals(3, attempts.get());
+        assertEquals(2L, executor.getRetryCount());
+    }
+
+    @Test
+    public void testGivesUpWithTheLastOutcome() {
+        RetryingHttpExecutor executor = RetryingHttpExecutor.newBuilder(delegate).setPolicy(FAST)
+                .setBudget(RetryBudget.unlimited()).build();
+
+        outcomes.add(503);
+        outcomes.add(502);
+        outcomes.add(504);
+        assertEquals(504, executor.executeBlocking(get()).getStatus());
+
+        outcomes.add(new HttpException("bad", new IllegalStateException()));
+        HttpException notRetryable = assertThrows(HttpException.class, () -> executor.executeBlocking(get()));
+        assertTrue(notRetryable.getCause() instanceof IllegalStateException);
+        assertEquals(4, attempts.get());
+
+        outcomes.add(503);
+        assertEquals(503, executor.executeBlocking(Request.newBuilder().setMethod(Method.POST)
+                .setUrl("http://example.com/").build()).getStatus());
+        assertEquals(5, attempts.get());
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() {
+        RetryingHttpExecutor executor = RetryingHttpExecutor.newBuilder(delegate).setPolicy(FAST)
+                .setBudget(RetryBudget.create(0.0, 1)).build();
+
+        outcomes.add(503);
+        outcomes.add(503);
+        outcomes.add(503);
+        assertEquals(503, executor.executeBlocking(get()).getStatus());
+
+        assertEquals(2, attempts.get());
+        assertEquals(1L, executor.getRetryCount());
+        assertEquals(1L, executor.getBudgetExhaustedCount());
+    }
+
+    private static Request get() {
+        return Request.newBuilder().setMethod(Method.GET).setUrl("http://example.com/").build();
+    }
+
+}
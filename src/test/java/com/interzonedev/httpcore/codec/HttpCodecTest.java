@@ -0,0 +1,197 @@
+package com.interzonedev.httpcore.codec;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCodecTest {
+
+    private final Request testRequest = Request.newBuilder().setUrl("http://example.com/café?q=1")
+            .setMethod(Method.POST).addHeader("Content-Type", "text/plain; charset=UTF-8")
+            .addHeader("accept", "text/html").addHeader("accept", "*/*").addHeader("X-Custom", "☃")
+            .addHeader("X-Nothing", null).addParameter("p", "1").addParameter("p", "2").addParameter("Q", "ü")
+            .setBody("héllo").build();
+
+    @Test
+    public void testRequestRoundTrip() {
+        ByteBuffer encoded = HttpCodec.encode(testRequest);
+        Request decoded = HttpCodec.decodeRequest(encoded);
+
+        assertEquals(testRequest, decoded);
+        assertEquals("héllo", decoded.getBody());
+        assertEquals(Arrays.asList("text/html", "*/*"), decoded.getHttpHeaders().getAll("Accept"));
+        assertEquals("accept", decoded.getHttpHeaders().getName(1));
+        assertFalse(encoded.hasRemaining());
+    }
+
+    @Test
+    public void testEmptyRequestRoundTrip() {
+        Request empty = Request.newBuilder().build();
+        Request decoded = HttpCodec.decodeRequest(HttpCodec.encode(empty));
+
+        assertEquals(empty, decoded);
+        assertNull(decoded.getUrl());
+        assertNull(decoded.getMethod());
+        assertNull(decoded.getEntity());
+
+        Request emptyBody = Request.newBuilder().setEntity(Body.empty()).build();
+        assertEquals(0L, HttpCodec.decodeRequest(HttpCodec.encode(emptyBody)).getEntity().length());
+    }
+
+    @Test
+    public void testResponseRoundTrip() {
+        Cookie cookie = new Cookie("session", "abc");
+        cookie.setDomain("example.com");
+        cookie.setPath("/");
+        cookie.setMaxAge(3600);
+        cookie.setSecure(true);
+        cookie.setHttpOnly(true);
+        cookie.setVersion(1);
+        Map<String, Cookie> cookies = new HashMap<>();
+        cookies.put("session", cookie);
+
+        Response response = Response.newBuilder().setRequest(testRequest).setStatus(404)
+                .setContentType("application/json").setContentLength(-1L).addHeader("Set-Cookie", "session=abc")
+                .addHeader("ETag", "\"v1\"").setCookies(cookies).setLocale(Locale.CANADA_FRENCH)
+                .setContent("{\"a\":1}").build();
+
+        Response decoded = HttpCodec.decodeResponse(HttpCodec.encode(response));
+
+        assertEquals(testRequest, decoded.getRequest());
+        assertEquals(404, decoded.getStatus());
+        assertEquals("application/json", decoded.getContentType());
+        assertEquals(-1L, decoded.getContentLength());
+        assertEquals(response.getHttpHeaders(), decoded.getHttpHeaders());
+        assertEquals(Locale.CANADA_FRENCH, decoded.getLocale());
+        assertEquals("{\"a\":1}", decoded.getContent());
+
+        Cookie decodedCookie = decoded.getCookies().get("session");
+        assertEquals("session", decodedCookie.getName());
+        assertEquals("abc", decodedCookie.getValue());
+        assertNull(decodedCookie.getComment());
+        assertEquals("example.com", decodedCookie.getDomain());
+        assertEquals("/", decodedCookie.getPath());
+        assertEquals(3600, decodedCookie.getMaxAge());
+        assertTrue(decodedCookie.getSecure());
+        assertTrue(decodedCookie.isHttpOnly());
+        assertEquals(1, decodedCookie.getVersion());
+    }
+
+    @Test
+    public void testResponseWithoutRequest() {
+        Response response = Response.newBuilder().setStatus(204).build();
+        Response decoded = HttpCodec.decodeResponse(HttpCodec.encode(response));
+
+        assertEquals(response, decoded);
+        assertNull(decoded.getRequest());
+    }
+
+    @Test
+    public void testDictionaryHeaderNamesAreCompact() {
+        Request known = Request.newBuilder().addHeader("Content-Type", "a").build();
+        Request unknown = Request.newBuilder().addHeader("X-Content-Type", "a").build();
+
+        int knownSize = HttpCodec.encode(known).remaining();
+        assertEquals(knownSize + "X-Content-Type".length() + 1, HttpCodec.encode(unknown).remaining());
+        assertSame("Content-Type", HttpCodec.decodeRequest(HttpCodec.encode(known)).getHttpHeaders().getName(0));
+    }
+
+    @Test
+    public void testConcatenatedFramesInBuffer() {
+        Request second = Request.newBuilder(testRequest).setUrl("http://example.com/second").build();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        int written = HttpCodec.encode(testRequest, buffer);
+        written += HttpCodec.encode(second, buffer);
+        assertEquals(written, buffer.position());
+
+        buffer.flip();
+        assertEquals(testRequest, HttpCodec.decodeRequest(buffer));
+        assertEquals(second, HttpCodec.decodeRequest(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testBufferOverflowWritesNothing() {
+        ByteBuffer small = ByteBuffer.allocate(8);
+
+        assertThrows(BufferOverflowException.class, () -> HttpCodec.encode(testRequest, small));
+        assertEquals(0, small.position());
+    }
+
+    @Test
+    public void testStreamRoundTrip() throws IOException {
+        Response response = Response.newBuilder().setStatus(200).setEntity(Body.wrap(new byte[100_000])).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        HttpCodec.write(testRequest, out);
+        HttpCodec.write(response, out);
+        HttpCodec.write(testRequest, out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(testRequest, HttpCodec.readRequest(in));
+        assertEquals(response, HttpCodec.readResponse(in));
+        assertEquals(testRequest, HttpCodec.readRequest(in));
+        assertNull(HttpCodec.readRequest(in));
+    }
+
+    @Test
+    public void testTruncatedStream() {
+        byte[] encoded = HttpCodec.encode(testRequest).array();
+        ByteArrayInputStream in = new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1));
+
+        assertThrows(EOFException.class, () -> HttpCodec.readRequest(in));
+    }
+
+    @Test
+    public void testMalformedFrames() {
+        byte[] encoded = HttpCodec.encode(testRequest).array();
+
+        assertThrows(HttpException.class,
+                () -> HttpCodec.decodeRequest(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 1))));
+        assertThrows(HttpException.class, () -> HttpCodec.decodeResponse(ByteBuffer.wrap(encoded)));
+
+        byte[] futureVersion = encoded.clone();
+        futureVersion[1] = (byte) (HttpCodec.VERSION + 1);
+        assertThrows(HttpException.class, () -> HttpCodec.decodeRequest(ByteBuffer.wrap(futureVersion)));
+
+        // A frame whose declared field length exceeds the frame must not allocate that length.
+        byte[] hugeString = {7, 1, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07};
+        assertThrows(HttpException.class, () -> HttpCodec.decodeRequest(ByteBuffer.wrap(hugeString)));
+    }
+
+    @Test
+    public void testDecodeDoesNotAliasSource() {
+        byte[] encoded = HttpCodec.encode(testRequest).array();
+        Request decoded = HttpCodec.decodeRequest(ByteBuffer.wrap(encoded));
+        byte[] body = decoded.getEntity().toByteArray();
+
+        Arrays.fill(encoded, (byte) 0);
+        assertArrayEquals(body, decoded.getEntity().toByteArray());
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.interzonedev.httpcore.form;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpHeaders;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultipartFormTest {
+
+    private final byte[] testFile = new byte[100 * 1024];
+
+    {
+        new Random(42).nextBytes(testFile);
+    }
+
+    @Test
+    public void testToBody() {
+        MultipartForm form = MultipartForm.newBuilder().setBoundary("XyZ").addField("a", "1")
+                .addFile("f", "a.txt", "text/plain", Body.of("hi")).build();
+
+        String expected = "--XyZ\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n1\r\n"
+                + "--XyZ\r\nContent-Disposition: form-data; name=\"f\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\nhi\r\n--XyZ--\r\n";
+        assertEquals(expected, form.toBody().asString());
+        assertEquals("multipart/form-data; boundary=XyZ", form.getContentType());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        MultipartForm form = MultipartForm.newBuilder().addField("title", "Café").addField("empty", "")
+                .addFile("upload", "data.bin", null, Body.wrap(testFile)).build();
+        Request request = form.toRequest(Request.newBuilder().setUrl("http://example.com/").setMethod(Method.POST)
+                .build());
+
+        MultipartForm decoded = MultipartForm.fromRequest(request);
+
+        assertEquals(form.getBoundary(), decoded.getBoundary());
+        assertEquals(form.getParameters(), decoded.getParameters());
+        assertEquals("Café", decoded.getParameters().getFirst("title"));
+        List<Part> files = decoded.getFiles();
+        assertEquals(1, files.size());
+        assertEquals("data.bin", files.get(0).getFilename());
+        assertEquals("application/octet-stream", files.get(0).getContentType());
+        assertArrayEquals(testFile, files.get(0).getContent().toByteArray());
+        assertEquals(form, decoded);
+    }
+
+    @Test
+    public void testReaderSpillsLargeParts() {
+        MultipartForm form = MultipartForm.newBuilder().addField("small", "x")
+                .addFile("big", "big.bin", "application/octet-stream", Body.wrap(testFile)).build();
+
+        MultipartReader reader = MultipartReader.newBuilder(form.toBody().openStream(), form.getBoundary())
+                .setMemoryThreshold(1024).build();
+
+        Part small = reader.next();
+        Part big = reader.next();
+        assertNull(reader.next());
+        assertNull(reader.next());
+        assertTrue(small.getContent().isInMemory());
+        assertFalse(big.getContent().isInMemory());
+        assertArrayEquals(testFile, big.getContent().toByteArray());
+    }
+
+    @Test
+    public void testReaderHandlesOneByteReads() {
+        MultipartForm form = MultipartForm.newBuilder().addField("a", "1\r\n--not-the-boundary")
+                .addFile("f", "f.bin", null, Body.wrap(ByteBuffer.wrap(testFile, 0, 5000))).build();
+        InputStream trickle = new ByteArrayInputStream(form.toBody().toByteArray()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+
+        List<Part> parts = MultipartReader.newBuilder(trickle, form.getBoundary()).build().readAll();
+
+        assertEquals(form.getParts(), parts);
+    }
+
+    @Test
+    public void testReaderSkipsPreambleAndEpilogue() {
+        String body = "preamble\r\n--b\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n1\r\n--b--\r\nepilogue";
+
+        List<Part> parts = read(body, "b");
+
+        assertEquals(1, parts.size());
+        assertEquals("1", parts.get(0).getText());
+    }
+
+    @Test
+    public void testExtendedFilename() {
+        HttpHeaders headers = HttpHeaders.newBuilder().add("Content-Disposition",
+                "form-data; name=\"f\"; filename=\"fallback.txt\"; filename*=UTF-8''%E2%82%AC%20rates.txt").build();
+
+        Part part = Part.of(headers, Body.empty());
+
+        assertEquals("€ rates.txt", part.getFilename());
+    }
+
+    @Test
+    public void testMalformedBodies() {
+        String unterminated = "--b\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n1";
+        String noName = "--b\r\nContent-Type: text/plain\r\n\r\n1\r\n--b--\r\n";
+
+        assertThrows(HttpException.class, () -> read(unterminated, "b"));
+        assertThrows(HttpException.class, () -> read(noName, "b"));
+        assertThrows(HttpException.class, () -> read("no boundary here", "b"));
+    }
+
+    @Test
+    public void testLimits() {
+        String twoParts = "--b\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n1\r\n"
+                + "--b\r\nContent-Disposition: form-data; name=\"c\"\r\n\r\n2\r\n--b--\r\n";
+        String longHeader = "--b\r\nContent-Disposition: form-data; name=\"" + "a".repeat(200) + "\"\r\n\r\n1\r\n--b--";
+
+        assertThrows(HttpException.class, () -> reader(twoParts, "b").setMaxPartCount(1).build().readAll());
+        assertThrows(HttpException.class, () -> reader(longHeader, "b").setMaxHeaderSize(100).build().readAll());
+        assertEquals(2, reader(twoParts, "b").setMaxPartCount(2).build().readAll().size());
+    }
+
+    private static List<Part> read(String body, String boundary) {
+        return reader(body, boundary).build().readAll();
+    }
+
+    private static MultipartReader.Builder reader(String body, String boundary) {
+        return MultipartReader.newBuilder(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), boundary);
+    }
+
+}
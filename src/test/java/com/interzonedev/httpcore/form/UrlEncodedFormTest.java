@@ -0,0 +1,99 @@
+package com.interzonedev.httpcore.form;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.HttpParameters;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UrlEncodedFormTest {
+
+    private final HttpParameters testParameters = HttpParameters.newBuilder().add("name", "Jürgen Smith")
+            .add("tags", "a&b").add("tags", "c=d").add("empty", "").build();
+
+    @Test
+    public void testEncode() {
+        Body testBody = UrlEncodedForm.encode(testParameters, StandardCharsets.UTF_8);
+
+        assertEquals("name=J%C3%BCrgen+Smith&tags=a%26b&tags=c%3Dd&empty=", testBody.asString());
+    }
+
+    @Test
+    public void testWriteToMatchesEncode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = UrlEncodedForm.writeTo(testParameters, StandardCharsets.UTF_8, out);
+
+        assertEquals(UrlEncodedForm.encode(testParameters, StandardCharsets.UTF_8).asString(), out.toString("UTF-8"));
+        assertEquals(out.size(), written);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Body testBody = UrlEncodedForm.encode(testParameters, StandardCharsets.UTF_8);
+
+        assertEquals(testParameters, UrlEncodedForm.decode(testBody, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDecodeFieldWithoutEquals() {
+        HttpParameters parameters = UrlEncodedForm.decode(Body.of("flag&a=1&&b"), StandardCharsets.UTF_8);
+
+        assertEquals(3, parameters.size());
+        assertNull(parameters.getFirst("flag"));
+        assertEquals("flag", parameters.getName(0));
+        assertEquals("1", parameters.getFirst("a"));
+    }
+
+    @Test
+    public void testDecodeStreamLimits() throws IOException {
+        byte[] longField = ("a=" + "x".repeat(100)).getBytes(StandardCharsets.US_ASCII);
+        byte[] manyFields = "a=1&b=2&c=3".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(HttpException.class,
+                () -> UrlEncodedForm.decode(new ByteArrayInputStream(longField), StandardCharsets.UTF_8, 50, 10));
+        assertThrows(HttpException.class,
+                () -> UrlEncodedForm.decode(new ByteArrayInputStream(manyFields), StandardCharsets.UTF_8, 50, 2));
+        assertEquals(3, UrlEncodedForm.decode(new ByteArrayInputStream(manyFields), StandardCharsets.UTF_8, 50, 3)
+                .size());
+    }
+
+    @Test
+    public void testEncodeAndDecodeParameters() {
+        Request request = Request.newBuilder().setUrl("http://example.com/form").setMethod(Method.POST)
+                .setHttpParameters(testParameters).build();
+
+        Request encoded = UrlEncodedForm.encodeParameters(request);
+        Request decoded = UrlEncodedForm.decodeParameters(encoded);
+
+        assertEquals(UrlEncodedForm.MEDIA_TYPE, encoded.getHttpHeaders().getFirst("Content-Type"));
+        assertTrue(encoded.getHttpParameters().isEmpty());
+        assertEquals(testParameters, decoded.getHttpParameters());
+        assertEquals(encoded.getEntity(), decoded.getEntity());
+    }
+
+    @Test
+    public void testDecodeParametersIgnoresOtherBodies() {
+        Request request = Request.newBuilder().setUrl("http://example.com/form").setMethod(Method.POST)
+                .setHeader("Content-Type", "application/json").setBody("{\"a\":1}").build();
+
+        assertSame(request, UrlEncodedForm.decodeParameters(request));
+        assertFalse(UrlEncodedForm.isForm("application/json"));
+        assertTrue(UrlEncodedForm.isForm("Application/X-WWW-Form-Urlencoded; charset=UTF-8"));
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.interzonedev.httpcore.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServletRequestsTest {
+
+    @Test
+    public void testViewIsLazy() {
+        FakeRequest fake = new FakeRequest("POST", "hello");
+        Request request = ServletRequests.view(fake.proxy());
+
+        assertEquals(Method.POST, request.getMethod());
+        assertEquals("http://example.com/orders?id=7", request.getUrl());
+        assertEquals(Arrays.asList("getRequestURL", "getQueryString", "getMethod"), fake.calls);
+
+        assertEquals("text/plain; charset=UTF-8", request.getHttpHeaders().getFirst("content-type"));
+        assertEquals(Arrays.asList("a", "b"), request.getHttpHeaders().getAll("Accept"));
+        assertFalse(fake.calls.contains("getParameterMap"));
+        assertFalse(fake.calls.contains("getInputStream"));
+
+        assertEquals("hello", request.getBody());
+        assertEquals(Arrays.asList("7"), request.getMergedParameters().getAll("id"));
+        assertEquals(1, Collections.frequency(fake.calls, "getHeaderNames"));
+        assertEquals(1, Collections.frequency(fake.calls, "getInputStream"));
+    }
+
+    @Test
+    public void testViewWithoutBody() {
+        FakeRequest fake = new FakeRequest("BREW", null);
+        Request request = ServletRequests.view(fake.proxy());
+
+        assertNull(request.getMethod());
+        assertNull(request.getEntity());
+        assertFalse(request.getParameters().containsKey("id"));
+        assertTrue(request.getMergedParameters().contains("id"));
+        assertFalse(fake.calls.contains("getInputStream"));
+    }
+
+    @Test
+    public void testQueryParametersAreNotRepeated() {
+        FakeRequest fake = new FakeRequest("POST", null);
+        fake.queryString = "a=1&id=7&flag";
+        fake.parameterMap.put("a", new String[]{"1"});
+        fake.parameterMap.put("id", new String[]{"7", "8"});
+        fake.parameterMap.put("flag", new String[]{""});
+        fake.parameterMap.put("b", new String[]{"2"});
+        Request request = ServletRequests.view(fake.proxy());
+
+        assertEquals("http://example.com/orders?a=1&id=7&flag", request.getUrl());
+        assertFalse(request.getHttpParameters().contains("a"));
+        assertFalse(request.getHttpParameters().contains("flag"));
+        assertEquals(Arrays.asList("8"), request.getHttpParameters().getAll("id"));
+        assertEquals(Arrays.asList("2"), request.getHttpParameters().getAll("b"));
+
+        assertEquals(Arrays.asList("1"), request.getMergedParameters().getAll("a"));
+        assertEquals(Arrays.asList("7", "8"), request.getMergedParameters().getAll("id"));
+        assertEquals(Arrays.asList("2"), request.getMergedParameters().getAll("b"));
+    }
+
+    /**
+     * Backs an {@link HttpServletRequest} proxy and records which methods were called.
+     */
+    private static final class FakeRequest {
+
+        private final List<String> calls = new ArrayList<>();
+        private final String method;
+        private final byte[] body;
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+        private final Map<String, String[]> parameterMap = new LinkedHashMap<>();
+        private String queryString = "id=7";
+
+        FakeRequest(String method, String body) {
+            this.method = method;
+            this.body = (null != body) ? body.getBytes(StandardCharsets.UTF_8) : null;
+            headers.put("Content-Type", Arrays.asList("text/plain; charset=UTF-8"));
+            headers.put("Accept", Arrays.asList("a", "b"));
+            parameterMap.put("id", new String[]{"7"});
+        }
+
+        HttpServletRequest proxy() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, m, args) -> {
+                        calls.add(m.getName());
+                        switch (m.getName()) {
+                            case "getRequestURL":
+                                return new StringBuffer("http://example.com/orders");
+                            case "getQueryString":
+                                return queryString;
+                            case "getMethod":
+                                return method;
+                            case "getHeaderNames":
+                                return Collections.enumeration(headers.keySet());
+                            case "getHeaders":
+                                return Collections.enumeration(headers.get((String) args[0]));
+                            case "getHeader":
+                                return null;
+                            case "getParameterMap":
+                                return parameterMap;
+                            case "getContentLengthLong":
+                                return (null != body) ? (long) body.length : -1L;
+                            case "getInputStream":
+                                return new BytesInputStream(body);
+                            default:
+                                throw new UnsupportedOperationException(m.getName());
+                        }
+                    });
+        }
+    }
+
+    private static final class BytesInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream in;
+
+        BytesInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return 0 == in.available();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.interzonedev.httpcore.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ServletResponsesTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        ByteBuffer direct = ByteBuffer.allocateDirect(5);
+        direct.put("hello".getBytes(StandardCharsets.US_ASCII)).flip();
+        Response response = Response.newBuilder().setStatus(201).setContentType("text/plain")
+                .setLocale(Locale.CANADA).addHeader("X-Trace", "t1").addHeader("X-Trace", "t2")
+                .addHeader("Content-Length", "999").addHeader("Content-Type", "text/html")
+                .setCookies(Collections.singletonMap("id", new Cookie("id", "42"))).setEntity(Body.wrap(direct))
+                .build();
+
+        FakeResponse fake = new FakeResponse();
+        assertEquals(5L, ServletResponses.write(response, fake.proxy()));
+
+        assertEquals(201, fake.status);
+        assertEquals("text/plain", fake.contentType);
+        assertEquals(Locale.CANADA, fake.locale);
+        assertEquals(Arrays.asList("t1", "t2"), fake.headers.get("X-Trace"));
+        assertFalse(fake.headers.containsKey("Content-Length"));
+        assertFalse(fake.headers.containsKey("Content-Type"));
+        assertEquals(1, fake.cookies.size());
+        assertEquals(5L, fake.contentLength);
+        assertEquals("hello", new String(fake.out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testView() {
+        FakeResponse fake = new FakeResponse();
+        fake.status = 404;
+        fake.contentType = "application/json";
+        fake.headers.put("Content-Length", new ArrayList<>(Arrays.asList("12")));
+        fake.headers.put("Vary", new ArrayList<>(Arrays.asList("Accept", "Origin")));
+
+        Response response = ServletResponses.view(fake.proxy());
+        assertEquals(404, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(12L, response.getContentLength());
+        assertFalse(fake.calls.contains("getHeaderNames"));
+
+        assertEquals(Arrays.asList("Accept", "Origin"), response.getHttpHeaders().getAll("vary"));
+        assertNull(response.getEntity());
+        assertEquals(1, Collections.frequency(fake.calls, "getHeaderNames"));
+    }
+
+    /**
+     * Backs an {@link HttpServletResponse} proxy, holding what was set on it.
+     */
+    private static final class FakeResponse {
+
+        private final List<String> calls = new ArrayList<>();
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+        private final List<Cookie> cookies = new ArrayList<>();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int status = 200;
+        private String contentType;
+        private Locale locale;
+        private long contentLength = -1L;
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, m, args) -> {
+                        calls.add(m.getName());
+                        switch (m.getName()) {
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "getStatus":
+                                return status;
+                            case "setContentType":
+                                contentType = (String) args[0];
+                                return null;
+                            case "getContentType":
+                                return contentType;
+                            case "setLocale":
+                                locale = (Locale) args[0];
+                                return null;
+                            case "getLocale":
+                                return locale;
+                            case "addHeader":
+                                headers.computeIfAbsent((String) args[0], k -> new ArrayList<>()).add((String) args[1]);
+                                return null;
+                            case "getHeader":
+                                List<String> values = headers.get((String) args[0]);
+                                return (null != values) ? values.get(0) : null;
+                            case "getHeaderNames":
+                                return headers.keySet();
+                            case "getHeaders":
+                                return headers.get((String) args[0]);
+                            case "addCookie":
+                                cookies.add((Cookie) args[0]);
+                                return null;
+                            case "setContentLengthLong":
+                                contentLength = (Long) args[0];
+                                return null;
+                            case "getOutputStream":
+                                return new BytesOutputStream(out);
+                            default:
+                                throw new UnsupportedOperationException(m.getName());
+                        }
+                    });
+        }
+    }
+
+    private static final class BytesOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream out;
+
+        BytesOutputStream(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+
+}
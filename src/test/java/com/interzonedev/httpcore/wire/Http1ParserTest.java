@@ -0,0 +1,358 @@
+package com.interzonedev.httpcore.wire;
+
+import org.junit.jupiter.api.Test;
+
+import com.interzonedev.httpcore.Body;
+import com.interzonedev.httpcore.HttpException;
+import com.interzonedev.httpcore.Method;
+import com.interzonedev.httpcore.Request;
+import com.interzonedev.httpcore.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Http1ParserTest {
+
+    private static final String CONTENT_LENGTH_REQUEST = "POST /orders?id=7 HTTP/1.1\r\n"
+            + "Host: example.com\r\n"
+            + "content-type: text/plain; charset=UTF-8\r\n"
+            + "X-Trace:   abc  \r\n"
+            + "Content-Length: 5\r\n"
+            + "\r\n"
+            + "hello";
+
+    private static final String CHUNKED_RESPONSE = "HTTP/1.1 200 OK\r\n"
+            + "Transfer-Encoding: chunked\r\n"
+            + "\r\n"
+            + "5;ext=1\r\nhello\r\n"
+            + "7\r\n, world\r\n"
+            + "0\r\n"
+            + "X-Checksum: 42\r\n"
+            + "\r\n";
+
+    @Test
+    public void testContentLengthRequest() {
+        Request request = new Http1RequestParser().parse(bytes(CONTENT_LENGTH_REQUEST));
+
+        assertNotNull(request);
+        assertEquals(Method.POST, request.getMethod());
+        assertEquals("/orders?id=7", request.getUrl());
+        assertEquals("example.com", request.getHttpHeaders().getFirst("host"));
+        assertEquals("abc", request.getHttpHeaders().getFirst("X-Trace"));
+        assertEquals("hello", request.getBody());
+        assertEquals("content-type", request.getHttpHeaders().getName(1));
+
+        // Known names are shared instances rather than decoded again for every message.
+        Request again = new Http1RequestParser().parse(bytes(CONTENT_LENGTH_REQUEST));
+        assertSame(request.getHttpHeaders().getName(1), again.getHttpHeaders().getName(1));
+    }
+
+    @Test
+    public void testByteAtATime() {
+        Http1RequestParser parser = new Http1RequestParser();
+        ByteBuffer all = bytes(CONTENT_LENGTH_REQUEST);
+        Request request = null;
+        for (int i = 0; i < all.limit(); i++) {
+            assertNull(request);
+            ByteBuffer one = ByteBuffer.wrap(new byte[]{all.get(i)});
+            request = parser.parse(one);
+            assertFalse(one.hasRemaining());
+        }
+
+        assertEquals(new Http1RequestParser().parse(bytes(CONTENT_LENGTH_REQUEST)), request);
+    }
+
+    @Test
+    public void testPipelinedRequests() {
+        ByteBuffer in = bytes("GET /a HTTP/1.1\r\nHost: x\r\n\r\n" + "\r\nDELETE /b HTTP/1.0\r\n\r\n"
+                + "PATCH /c HTTP/1.1\r\nContent-Length: 2\r\n\r\nok");
+        Http1RequestParser parser = new Http1RequestParser();
+
+        Request first = parser.parse(in);
+        assertEquals(Method.GET, first.getMethod());
+        assertNull(first.getEntity());
+
+        Request second = parser.parse(in);
+        assertEquals(Method.DELETE, second.getMethod());
+        assertEquals("/b", second.getUrl());
+
+        Request third = parser.parse(in);
+        assertEquals(Method.PATCH, third.getMethod());
+        assertEquals("ok", third.getBody());
+        assertFalse(in.hasRemaining());
+        assertNull(parser.endOfInput());
+    }
+
+    @Test
+    public void testChunkedResponseInPieces() {
+        Http1ResponseParser parser = new Http1ResponseParser();
+        byte[] all = CHUNKED_RESPONSE.getBytes(StandardCharsets.US_ASCII);
+        Response response = null;
+        for (int offset = 0; offset < all.length; offset += 3) {
+            assertNull(response);
+            response = parser.parse(ByteBuffer.wrap(all, offset, Math.min(3, all.length - offset)));
+        }
+
+        assertEquals(200, response.getStatus());
+        assertEquals("hello, world", response.getContent());
+        assertEquals(12L, response.getContentLength());
+        assertEquals("42", response.getHttpHeaders().getFirst("X-Checksum"));
+    }
+
+    @Test
+    public void testResponseUntilClose() {
+        Http1ResponseParser parser = new Http1ResponseParser();
+
+        assertNull(parser.parse(bytes("HTTP/1.0 200 OK\r\nContent-Type: text/plain\r\n\r\npart one, ")));
+        assertNull(parser.parse(bytes("part two")));
+        Response response = parser.endOfInput();
+
+        assertEquals("part one, part two", response.getContent());
+        assertEquals("text/plain", response.getContentType());
+    }
+
+    @Test
+    public void testBodilessResponses() {
+        Http1ResponseParser parser = new Http1ResponseParser();
+        Request head = Request.newBuilder().setMethod(Method.HEAD).setUrl("/").build();
+
+        ByteBuffer in = bytes("HTTP/1.1 100 Continue\r\n\r\n" + "HTTP/1.1 200 OK\r\nContent-Length: 1000\r\n\r\n"
+                + "HTTP/1.1 304 Not Modified\r\nETag: \"x\"\r\n\r\n");
+
+        parser.expect(head);
+        Response interim = parser.parse(in);
+        assertEquals(100, interim.getStatus());
+        assertSame(head, interim.getRequest());
+
+        Response headResponse = parser.parse(in);
+        assertSame(head, headResponse.getRequest());
+        assertNull(headResponse.getEntity());
+        assertEquals(1000L, headResponse.getContentLength());
+
+        Response notModified = parser.parse(in);
+        assertNull(notModified.getRequest());
+        assertNull(notModified.getEntity());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void testMalformedMessages() {
+        assertThrows(HttpException.class, () -> new Http1RequestParser().parse(bytes("BREW / HTTP/1.1\r\n")));
+        assertThrows(HttpException.class, () -> new Http1RequestParser().parse(bytes("GET / HTTP/2.0\r\n")));
+        assertThrows(HttpException.class, () -> new Http1RequestParser().parse(bytes("GET /\r\n")));
+        assertThrows(HttpException.class,
+                () -> new Http1RequestParser().parse(bytes("GET / HTTP/1.1\r\nBad Name : x\r\n")));
+        assertThrows(HttpException.class,
+                () -> new Http1RequestParser().parse(bytes("GET / HTTP/1.1\r\nA: 1\r\n folded\r\n")));
+        assertThrows(HttpException.class, () -> new Http1RequestParser()
+                .parse(bytes("POST / HTTP/1.1\r\nContent-Length: 1\r\nContent-Length: 2\r\n\r\n")));
+        assertThrows(HttpException.class, () -> new Http1ResponseParser()
+                .parse(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n")));
+        assertThrows(HttpException.class, () -> new Http1ResponseParser().parse(bytes("HTTP/1.1 2x0 OK\r\n")));
+    }
+
+    @Test
+    public void testLimits() {
+        Http1RequestParser parser = new Http1RequestParser(32, 1, 4L);
+
+        char[] longTarget = new char[40];
+        Arrays.fill(longTarget, 'a');
+        assertThrows(HttpException.class,
+                () -> parser.parse(bytes("GET /" + new String(longTarget) + " HTTP/1.1\r\n")));
+
+        parser.reset();
+        assertThrows(HttpException.class, () -> parser.parse(bytes("GET / HTTP/1.1\r\nA: 1\r\nB: 2\r\n")));
+
+        parser.reset();
+        assertThrows(HttpException.class, () -> parser.parse(bytes("POST / HTTP/1.1\r\nContent-Length: 5\r\n\r\n")));
+
+        parser.reset();
+        assertNull(parser.parse(bytes("GET / HTTP/1.1\r\n")));
+        assertThrows(HttpException.class, parser::endOfInput);
+    }
+
+    @Test
+    public void testWriteAndParseRequest() throws IOException {
+        Request request = Request.newBuilder().setMethod(Method.PUT).setUrl("/items/1")
+                .addHeader("Host", "example.com").addHeader("Accept", "a").addHeader("Accept", "b")
+                .setEntity(Body.of("payload")).build();
+
+        SlowChannel channel = new SlowChannel(7);
+        long written = Http1Writer.write(request, channel);
+        String wire = channel.toString();
+
+        assertEquals(wire.length(), written);
+        assertEquals("PUT /items/1 HTTP/1.1\r\nHost: example.com\r\nAccept: a\r\nAccept: b\r\n"
+                + "Content-Length: 7\r\n\r\npayload", wire);
+
+        Request parsed = new Http1RequestParser().parse(bytes(wire));
+        assertEquals("payload", parsed.getBody());
+        assertEquals(Arrays.asList("a", "b"), parsed.getHttpHeaders().getAll("Accept"));
+    }
+
+    @Test
+    public void testWriteAndParseChunkedResponse() throws IOException {
+        Response response = Response.newBuilder().setStatus(404).setContentType("text/plain")
+                .addHeader("Transfer-Encoding", "chunked").setContent("not here").build();
+
+        SlowChannel channel = new SlowChannel(1000);
+        Http1Writer.write(response, channel);
+        String wire = channel.toString();
+
+        assertTrue(wire.startsWith("HTTP/1.1 404 Not Found\r\nTransfer-Encoding: chunked\r\n"
+                + "Content-Type: text/plain\r\n\r\n"));
+        assertTrue(wire.endsWith("8\r\nnot here\r\n0\r\n\r\n"));
+
+        Response parsed = new Http1ResponseParser().parse(bytes(wire));
+        assertEquals(404, parsed.getStatus());
+        assertEquals("not here", parsed.getContent());
+
+        Response empty = Response.newBuilder().setStatus(200).addHeader("Transfer-Encoding", "chunked")
+                .setEntity(Body.empty()).build();
+        assertEquals(0, new Http1ResponseParser().parse(concat(Http1Writer.encode(empty))).getEntity().length());
+    }
+
+    @Test
+    public void testWriterFramesTransferCodingsAsParserReadsThem() {
+        Response gzipChunked = Response.newBuilder().setStatus(200).addHeader("Transfer-Encoding", "gzip, Chunked ")
+                .setContent("abc").build();
+        String wire = new String(concat(Http1Writer.encode(gzipChunked)).array(), StandardCharsets.ISO_8859_1);
+        assertTrue(wire.endsWith("\r\n\r\n3\r\nabc\r\n0\r\n\r\n"));
+
+        Response notChunked = Response.newBuilder().setStatus(200).addHeader("Transfer-Encoding", "xchunked")
+                .setContent("abc").build();
+        wire = new String(concat(Http1Writer.encode(notChunked)).array(), StandardCharsets.ISO_8859_1);
+        assertTrue(wire.endsWith("\r\n\r\nabc"));
+    }
+
+    @Test
+    public void testWriteAndParseEmptyResponse() {
+        ByteBuffer wire = concat(Http1Writer.encode(Response.newBuilder().setStatus(200).build()));
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n",
+                new String(wire.array(), StandardCharsets.ISO_8859_1));
+
+        Response parsed = new Http1ResponseParser().parse(wire);
+        assertEquals(200, parsed.getStatus());
+        assertEquals(0L, parsed.getEntity().length());
+
+        assertEquals("HTTP/1.1 204 No Content\r\n\r\n", new String(concat(Http1Writer.encode(Response
+                .newBuilder().setStatus(204).build())).array(), StandardCharsets.ISO_8859_1));
+        Request head = Request.newBuilder().setMethod(Method.HEAD).setUrl("/").build();
+        assertEquals("HTTP/1.1 200 OK\r\n\r\n", new String(concat(Http1Writer.encode(Response.newBuilder()
+                .setRequest(head).setStatus(200).build())).array(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testWriteFileBackedResponse() throws IOException {
+        Path file = Files.createTempFile("http1", ".txt");
+        try {
+            Files.write(file, "ignored payload ignored".getBytes(StandardCharsets.US_ASCII));
+            Response response = Response.newBuilder().setStatus(206)
+                    .setEntity(Body.ofFile(file).slice(8L, 7L)).build();
+
+            SlowChannel channel = new SlowChannel(5);
+            long written = Http1Writer.write(response, channel);
+            String wire = channel.toString();
+
+            assertEquals(wire.length(), written);
+            assertEquals("HTTP/1.1 206 Partial Content\r\nContent-Length: 7\r\n\r\npayload", wire);
+
+            Response chunked = Response.newBuilder(response).addHeader("Transfer-Encoding", "chunked").build();
+            SlowChannel chunkedChannel = new SlowChannel(3);
+            Http1Writer.write(chunked, chunkedChannel);
+            assertEquals("payload", new Http1ResponseParser().parse(bytes(chunkedChannel.toString())).getContent());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWriterRejectsHeaderInjection() {
+        Request request = Request.newBuilder().setMethod(Method.GET).addHeader("X", "a\r\nInjected: 1").build();
+
+        assertThrows(HttpException.class, () -> Http1Writer.encode(request));
+    }
+
+    private static ByteBuffer bytes(String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer concat(ByteBuffer[] buffers) {
+        int length = 0;
+        for (ByteBuffer buffer : buffers) {
+            length += buffer.remaining();
+        }
+        ByteBuffer all = ByteBuffer.allocate(length);
+        for (ByteBuffer buffer : buffers) {
+            all.put(buffer.duplicate());
+        }
+        all.flip();
+        return all;
+    }
+
+    /**
+     * Accepts at most a few bytes per write, like a congested socket.
+     */
+    private static final class SlowChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int maximumPerWrite;
+
+        SlowChannel(int maximumPerWrite) {
+            this.maximumPerWrite = maximumPerWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            int budget = maximumPerWrite;
+            long written = 0L;
+            for (int i = offset; (i < offset + length) && (budget > 0); i++) {
+                while (srcs[i].hasRemaining() && (budget > 0)) {
+                    out.write(srcs[i].get());
+                    budget--;
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src});
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}